@@ -47,6 +47,11 @@ public abstract class Agent {
     // Therefore, we must save the exception and throw it at our very first opportunity.
     SqlException deferredException_;
 
+    // A forward-only result set whose next CNTQRY has been flushed but whose
+    // reply has not been read yet.  Replies come back in request order, so
+    // that reply must be read before anything else is sent on this agent.
+    ResultSet pendingFetch_;
+
     void checkForDeferredExceptions() throws SqlException {
         if (deferredException_ != null) {
             SqlException temp = deferredException_;
@@ -204,10 +209,29 @@ public abstract class Agent {
     // flush() means to send all chained requests.
     abstract public void flush_() throws DisconnectException;
 
+    // true if reply data for a flushed request has already arrived and can be
+    // read without blocking.
+    abstract public boolean isReplyAvailable_();
+
+    /**
+     * Read the reply to a prefetch request that is still outstanding, if any.
+     * Must be called before a new request chain is written.
+     *
+     * @exception SqlException if the prefetch reply reports an error
+     */
+    public final void completePendingFetch() throws SqlException {
+        ResultSet resultSet = pendingFetch_;
+        if (resultSet != null) {
+            pendingFetch_ = null;
+            resultSet.readPendingFetch();
+        }
+    }
+
     // Close client resources associated with this agent, such as socket and streams for the net.
     abstract public void close_() throws SqlException;
 
     public void close() throws SqlException {
+        pendingFetch_ = null;
         close_();
         if (logWriter_ != null) {
             logWriter_.close();
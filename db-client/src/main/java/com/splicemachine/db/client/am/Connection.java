@@ -70,6 +70,9 @@ public abstract class Connection
     // See ClientDataSource pre-connect settings
     protected final String user_;
     public boolean retrieveMessageText_;
+    // ask for the next block of a forward-only result set before it is needed
+    public boolean prefetch_;
+    public int prefetchMemory_;
     protected boolean jdbcReadOnly_;
     /**
      * Holdabilty for created statements.
@@ -237,6 +240,8 @@ public abstract class Connection
             databaseName_ = databaseName_ + ";" + connAtrrs;
 
         retrieveMessageText_ = dataSource.getRetrieveMessageText();
+        prefetch_ = dataSource.getPrefetch();
+        prefetchMemory_ = dataSource.getPrefetchMemory();
 
         loginTimeout_ = dataSource.getLoginTimeout();
         dataSource_ = dataSource;
@@ -269,6 +274,8 @@ public abstract class Connection
         // Extract common properties.
         databaseName_ = dataSource.getDatabaseName();
         retrieveMessageText_ = dataSource.getRetrieveMessageText();
+        prefetch_ = dataSource.getPrefetch();
+        prefetchMemory_ = dataSource.getPrefetchMemory();
 
         loginTimeout_ = dataSource.getLoginTimeout();
         dataSource_ = dataSource;
@@ -323,6 +330,8 @@ public abstract class Connection
         // Extract common properties.
         user_ = ClientDataSource.getUser(properties);
         retrieveMessageText_ = ClientDataSource.getRetrieveMessageText(properties);
+        prefetch_ = ClientDataSource.getPrefetch(properties);
+        prefetchMemory_ = ClientDataSource.getPrefetchMemory(properties);
 
         loginTimeout_ = driverManagerLoginTimeout;
         serverNameIP_ = serverName;
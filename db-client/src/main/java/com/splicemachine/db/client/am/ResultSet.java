@@ -452,6 +452,10 @@ public abstract class ResultSet implements java.sql.ResultSet,
         //       prefetching of data is enabled for result sets containing LOBs.
         preClose_();
         try {
+            if (agent_.pendingFetch_ == this) {
+                // the prefetch reply may close the query on the server
+                agent_.completePendingFetch();
+            }
             if (openOnServer_) {
                 flowCloseAndAutoCommitIfNotAutoCommitted();
             } else {
@@ -4281,13 +4285,52 @@ public abstract class ResultSet implements java.sql.ResultSet,
     // Called by the read/skip Fdoca bytes methods in the net
     // whenever data reads exhaust the internal buffer used by this reply
     public void flowFetch() throws DisconnectException, SqlException {
+        if (agent_.pendingFetch_ == this) {
+            // The next block was requested when the previous one arrived.  If
+            // it has not shown up yet the application is outrunning the
+            // server, so ask for bigger blocks from now on.
+            if (!agent_.isReplyAvailable_()) {
+                prefetchStalled_();
+            }
+            agent_.pendingFetch_ = null;
+            readPendingFetch();
+        } else {
+            agent_.beginWriteChain(statement_);
+            writeFetch_((generatedSection_ == null) ? statement_.section_ : generatedSection_);
+            agent_.flow(statement_);
+            readFetch_();
+            agent_.endReadChain();
+        }
+        if (canPrefetch()) {
+            flowPrefetch();
+        }
+    }
+
+    // Send the CNTQRY for the next block without waiting for its reply.  The
+    // reply is read by the next flowFetch(), or by Agent.completePendingFetch()
+    // if the connection is used for anything else first.
+    private void flowPrefetch() throws SqlException {
         agent_.beginWriteChain(statement_);
         writeFetch_((generatedSection_ == null) ? statement_.section_ : generatedSection_);
-        agent_.flow(statement_);
+        agent_.endWriteChain();
+        agent_.flush_();
+        agent_.pendingFetch_ = this;
+    }
+
+    void readPendingFetch() throws SqlException {
+        agent_.beginReadChain(statement_);
         readFetch_();
         agent_.endReadChain();
     }
 
+    private boolean canPrefetch() {
+        return connection_.prefetch_ &&
+                openOnClient_ &&
+                openOnServer_ &&
+                !cursor_.allRowsReceivedFromServer() &&
+                canPrefetch_();
+    }
+
     public void writeInsertRow(boolean chainedWritesFollowingSetLob) throws SQLException {
         try
         {
@@ -5371,6 +5414,18 @@ public abstract class ResultSet implements java.sql.ResultSet,
 
     public abstract void setFetchSize_(int rows);
 
+    /**
+     * Whether the next block of rows may be requested before the application
+     * has consumed the current one.
+     */
+    protected abstract boolean canPrefetch_();
+
+    /**
+     * Called when a prefetched block had not arrived by the time it was
+     * needed.
+     */
+    protected abstract void prefetchStalled_();
+
     /**
      * Method that is invoked by <code>closeX()</code> before the
      * result set is actually being closed. Subclasses may override
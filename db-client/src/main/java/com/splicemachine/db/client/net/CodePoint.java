@@ -381,6 +381,8 @@ public class CodePoint {
 
     // Query Block Size
     static final int QRYBLKSZ = 0x2114;
+    // largest query block size the server will accept
+    static final int QRYBLKSZ_MAX = 10 * 1024 * 1024;
 
     // Query Protocol Type
     static final int QRYPRCTYP = 0x2102;
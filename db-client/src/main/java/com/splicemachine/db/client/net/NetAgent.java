@@ -276,6 +276,15 @@ public class NetAgent extends Agent {
         reply_.initialize();
     }
 
+    public boolean isReplyAvailable_() {
+        try {
+            return rawSocketInputStream_ != null && rawSocketInputStream_.available() > 0;
+        } catch (java.io.IOException e) {
+            // let the next read report the failure
+            return true;
+        }
+    }
+
     // Close socket and its streams.
     public void close_() throws SqlException {
         // can we just close the socket here, do we need to close streams individually
@@ -465,12 +474,14 @@ public class NetAgent extends Agent {
     }
 
     public void beginWriteChainOutsideUOW() throws SqlException {
+        completePendingFetch();
         request_.initialize();
         writeDeferredResetConnection();
         super.beginWriteChainOutsideUOW();
     }
 
     public void beginWriteChain(com.splicemachine.db.client.am.Statement statement) throws SqlException {
+        completePendingFetch();
         request_.initialize();
         writeDeferredResetConnection();
         super.beginWriteChain(statement);
@@ -140,6 +140,7 @@ public class NetCursor extends com.splicemachine.db.client.am.Cursor {
         boolean[] columnDataIsNull = null;
         boolean receivedDeleteHoleWarning = false;
         boolean receivedRowUpdatedWarning = false;
+        boolean receivedEndOfData = false;
 
         if ((position_ == lastValidBytePosition_) &&
                 (netResultSet_ != null) && (netResultSet_.scrollable_)) {
@@ -165,6 +166,7 @@ public class NetCursor extends com.splicemachine.db.client.am.Cursor {
                             netSqlca[i]);
                 } else {
                     if (sqlcode == SqlCode.END_OF_DATA.getCode()) {
+                        receivedEndOfData = true;
                         setAllRowsReceivedFromServer(true);
                         if (netResultSet_ != null && 
                                 netSqlca[i].containsSqlcax()) {
@@ -192,6 +194,12 @@ public class NetCursor extends com.splicemachine.db.client.am.Cursor {
 
         setIsUpdataDeleteHole(rowIndex, receivedDeleteHoleWarning);
         setIsRowUpdated(receivedRowUpdatedWarning);
+
+        // A block prefetched before end of data was parsed only repeats the
+        // end of data, so drop whatever follows it in the buffer.
+        if (receivedEndOfData && netResultSet_ != null && !netResultSet_.scrollable_) {
+            lastValidBytePosition_ = position_;
+        }
         
         
 
@@ -52,6 +52,10 @@ public abstract class NetResultSet extends com.splicemachine.db.client.am.Result
     // This is used to avoid sending multiple outovr over subsequent next()'s
     public boolean firstOutovrBuilt_ = false;
 
+    // Query block size sent on CNTQRY for this result set.  Starts at the
+    // protocol default and grows while prefetched blocks keep arriving late.
+    int fetchBlockSize_ = DssConstants.MAX_DSS_LEN;
+
     //---------------------constructors/finalizer---------------------------------
 
     // parseOpnqrym() is called right after this constructor is called.
@@ -259,6 +263,26 @@ public abstract class NetResultSet extends com.splicemachine.db.client.am.Result
      *
      * @exception SqlException
      */
+    protected boolean canPrefetch_() {
+        // Rowset, scrollable and LOB cursors track what the server has sent
+        // per request, so only plain forward-only cursors are pipelined.
+        return resultSetType_ == java.sql.ResultSet.TYPE_FORWARD_ONLY &&
+                !scrollable_ &&
+                !isRowsetCursor_ &&
+                !isFixedRowProtocol &&
+                !netCursor_.hasLobs_ &&
+                !netStatement_.qryrowsetSentOnOpnqry_;
+    }
+
+    protected void prefetchStalled_() {
+        // Half of the prefetch memory holds the block being read, the other
+        // half the block in flight.
+        int limit = Math.min(connection_.prefetchMemory_ / 2, CodePoint.QRYBLKSZ_MAX);
+        if (fetchBlockSize_ < limit) {
+            fetchBlockSize_ = Math.min(fetchBlockSize_ * 2, limit);
+        }
+    }
+
     protected void preClose_() throws SqlException {
         if (netCursor_.getQryclsimpEnabled()) {
             netCursor_.scanDataBufferForEndOfData();
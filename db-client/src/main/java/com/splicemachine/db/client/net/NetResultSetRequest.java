@@ -69,6 +69,7 @@ public class NetResultSetRequest extends NetStatementRequest
                 sendQryrowset,
                 resultSet.queryInstanceIdentifier_,
                 fetchSize,
+                resultSet.fetchBlockSize_,
                 sendRtnextdta);
 
         buildOUTOVR(resultSet,
@@ -164,11 +165,13 @@ public class NetResultSetRequest extends NetStatementRequest
                              boolean sendQryrowset,
                              long queryInstanceIdentifier,
                              int qryrowsetSize,
+                             int qryblksz,
                              boolean sendRtnextdta) throws SqlException {
         buildCoreCNTQRY(section,
                 sendQryrowset,
                 queryInstanceIdentifier,
-                qryrowsetSize);
+                qryrowsetSize,
+                qryblksz);
 
         // We will always let RTNEXTDTA default to RTNEXTROW.  The only time we need to send
         // RTNEXTDTA RTNEXTALL is for a stored procedure returned forward-only ResultSet
@@ -187,13 +190,14 @@ public class NetResultSetRequest extends NetStatementRequest
     private void buildCoreCNTQRY(Section section,
                                  boolean sendQryrowset,
                                  long queryInstanceIdentifier,
-                                 int qryrowsetSize)
+                                 int qryrowsetSize,
+                                 int qryblksz)
             throws SqlException {
         createCommand();
         markLengthBytes(CodePoint.CNTQRY);
 
         buildPKGNAMCSN(section); // 1. packageNameAndConsistencyToken
-        buildQRYBLKSZ(); // 2. qryblksz
+        buildQRYBLKSZ(qryblksz); // 2. qryblksz
 
         // maxblkext (-1) tells the server that the client is capable of receiving any number of query blocks
         if (sendQryrowset) {
@@ -220,7 +224,8 @@ public class NetResultSetRequest extends NetStatementRequest
         buildCoreCNTQRY(section,
                 sendQryrowset,
                 queryInstanceIdentifier,
-                qryrowsetSize);
+                qryrowsetSize,
+                DssConstants.MAX_DSS_LEN);
 
         buildQRYSCRORN(scrollOrientation); // qryscrorn
 
@@ -1653,7 +1653,13 @@ public class NetStatementRequest extends NetPackageRequest implements StatementR
     // preconditions:
     //   sqlam must support this parameter for the command, method will not check.
     void buildQRYBLKSZ() throws SqlException {
-        writeScalar4Bytes(CodePoint.QRYBLKSZ, DssConstants.MAX_DSS_LEN);
+        buildQRYBLKSZ(DssConstants.MAX_DSS_LEN);
+    }
+
+    // CNTQRY may ask for a larger block, up to CodePoint.QRYBLKSZ_MAX, when
+    // a forward-only result set is being prefetched.
+    void buildQRYBLKSZ(int qryblksz) throws SqlException {
+        writeScalar4Bytes(CodePoint.QRYBLKSZ, qryblksz);
     }
 
     // Maximum Result Set Count specifies a limit on the number of result sets
@@ -408,6 +408,26 @@ public abstract class ClientBaseDataSource implements Serializable, Referenceabl
         return parseBoolean(retrieveMessageTextString, propertyDefault_retrieveMessageText);
     }
 
+    // ---------------------------- prefetch -----------------------------------
+    //
+    private boolean prefetch = propertyDefault_prefetch;
+    public final static boolean propertyDefault_prefetch = false;
+
+    public static boolean getPrefetch(Properties properties) {
+        String prefetchString = properties.getProperty(Attribute.CLIENT_PREFETCH);
+        return parseBoolean(prefetchString, propertyDefault_prefetch);
+    }
+
+    // ---------------------------- prefetchMemory -----------------------------------
+    //
+    private int prefetchMemory = propertyDefault_prefetchMemory;
+    public final static int propertyDefault_prefetchMemory = 4 * 1024 * 1024;
+
+    public static int getPrefetchMemory(Properties properties) {
+        String prefetchMemoryString = properties.getProperty(Attribute.CLIENT_PREFETCH_MEMORY);
+        return parseInt(prefetchMemoryString, propertyDefault_prefetchMemory);
+    }
+
     // ---------------------------- traceFile -----------------------------------
     //
     private String traceFile;
@@ -747,6 +767,7 @@ public abstract class ClientBaseDataSource implements Serializable, Referenceabl
                 attributeString, e);
         }
         checkBoolean(augmentedProperties, Attribute.CLIENT_RETIEVE_MESSAGE_TEXT);
+        checkBoolean(augmentedProperties, Attribute.CLIENT_PREFETCH);
         return augmentedProperties;
 
     }
@@ -849,6 +870,22 @@ public abstract class ClientBaseDataSource implements Serializable, Referenceabl
         return this.retrieveMessageText;
     }
 
+    synchronized public void setPrefetch(boolean prefetch) {
+        this.prefetch = prefetch;
+    }
+
+    public boolean getPrefetch() {
+        return this.prefetch;
+    }
+
+    synchronized public void setPrefetchMemory(int prefetchMemory) {
+        this.prefetchMemory = prefetchMemory;
+    }
+
+    public int getPrefetchMemory() {
+        return this.prefetchMemory;
+    }
+
     // ---------------------------- securityMechanism -----------------------------------
     /**
      * The source security mechanism to use when connecting to this data source.
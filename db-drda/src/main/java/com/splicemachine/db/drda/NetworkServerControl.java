@@ -149,6 +149,15 @@ import com.splicemachine.db.impl.drda.NetworkServerControlImpl;
 
     <LI>db.drda.sslMode=&lt;sslmode&gt: This property sets the SSL
     mode of the server.
+	</LI>
+
+	<LI>db.drda.nonBlocking=true: If this property is set, sessions which
+	are waiting for the client's next request are watched by a single selector
+	thread instead of holding on to a connection thread, and are only given a
+	connection thread again once a complete request has arrived. Combined with
+	db.drda.maxThreads, this lets a small pool of threads serve a large number
+	of mostly idle connections. It has no effect when SSL is on. Default is
+	false.
 	
 </LI>
 </UL>
@@ -222,6 +222,15 @@ class DDMReader
 		dssIsChainedWithSameID = false;
 	}
 
+	/**
+	 * Whether the buffer holds bytes which have been read from the client
+	 * but not yet processed, e.g. a pipelined request.
+	 */
+	protected boolean hasBufferedData()
+	{
+		return pos < count;
+	}
+
 	// Switch the ccsidManager to the UTF-8 instance
     protected void setUtf8Ccsid() {
         ccsidManager = utf8CcsidManager;
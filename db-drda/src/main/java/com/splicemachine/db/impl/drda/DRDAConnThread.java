@@ -292,6 +292,10 @@ class DRDAConnThread extends Thread {
 		this.logConnections = logConnections;
         this.pendingStatementTimeout = -1;
 		initialize();
+		// a session resumed from the selector has already been set up by
+		// another thread; pick up its state, run() won't see it as new
+		if (session.state != Session.INIT)
+			initializeForSession();
     }
 
 	/**
@@ -334,13 +338,27 @@ class DRDAConnThread extends Thread {
 						long currentTimeSlice;
 
 						do {
+                            boolean requestDone = false;
                             try {
                                 processCommands();
+                                requestDone = true;
                             } catch (DRDASocketTimeoutException ste) {
                                 // Just ignore the exception. This was
                                 // a timeout on the read call in
                                 // DDMReader.fill(), which will happen
                                 // only when timeSlice is set.
+                            }
+                            // Rather than wait for the client's next
+                            // request, hand the session to the selector and
+                            // go work on another one. Only once security has
+                            // been checked: until then the handshake keeps
+                            // state (keys, GSS context) in this thread.
+                            if (requestDone && session != null &&
+                                    session.state == Session.CHKSEC &&
+                                    !reader.hasBufferedData() &&
+                                    server.parkSession(session)) {
+                                session = null;
+                                break;
                             }
 							currentTimeSlice = getTimeSlice();
 						} while ((currentTimeSlice <= 0)  || 
@@ -690,12 +708,16 @@ class DRDAConnThread extends Thread {
 		appRequester = session.appRequester;
 
 		// set sqlamLevel
-		if (session.state == Session.ATTEXC)
+		if (session.state == Session.ATTEXC || session.state == Session.CHKSEC)
 			sqlamLevel = appRequester.getManagerLevel(CodePoint.SQLAM);
 
         /* All sessions MUST start as EBCDIC */
         reader.setEbcdicCcsid();
         writer.setEbcdicCcsid();
+        // ...but a session resumed by another thread keeps what was
+        // negotiated on ACCSEC
+        if (session.utf8Ccsid)
+            switchToUtf8();
 	}
 	/**      
 	 * In initial state for a session, 
@@ -1041,7 +1063,8 @@ class DRDAConnThread extends Thread {
 					writeACCSECRD(securityCheckCode); 
 					
 					/* ACCSECRD is the last reply that is mandatorily in EBCDIC */
-					if (appRequester.supportsUtf8Ccsid()) {
+					session.utf8Ccsid = appRequester.supportsUtf8Ccsid();
+					if (session.utf8Ccsid) {
 					    switchToUtf8();
 					} else {
 					    /* This thread might serve several requests.
@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.db.impl.drda;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * Input stream for a session which may be parked on the {@link SessionSelector}
+ * between requests.
+ * <p>
+ * While the session is parked, the selector thread reads whatever the client has
+ * sent into this buffer without blocking, and checks whether a complete request
+ * (a DSS chain whose last DSS is not chained to a following one) has arrived. Only
+ * then is the session handed back to a <code>DRDAConnThread</code>, which reads
+ * the buffered bytes through the normal <code>InputStream</code> methods before
+ * falling back to the (blocking) socket stream.
+ * <p>
+ * The selector thread and the connection thread never use the buffer at the same
+ * time; the hand-off happens through the synchronized run queue.
+ */
+final class DssRequestBuffer extends InputStream
+{
+	// DSS header: 2 byte length, D0, format byte, 2 byte correlation id
+	private static final int DSS_HEADER_LENGTH = 6;
+	private static final int INITIAL_SIZE = 1024;
+
+	private final InputStream socketInput;
+	// once this many bytes are buffered, the session is dispatched even if the
+	// request is incomplete; the connection thread reads the rest blocking
+	private final int maxBuffered;
+
+	private byte[] buffer = new byte[INITIAL_SIZE];
+	private int start;		// next byte to hand to the reader
+	private int end;		// end of the buffered bytes
+	private int scanPos;	// start of the next DSS header to examine
+	private boolean eof;
+
+	DssRequestBuffer(InputStream socketInput)
+	{
+		this(socketInput, DssConstants.MAX_DSS_LENGTH + 1);
+	}
+
+	DssRequestBuffer(InputStream socketInput, int maxBuffered)
+	{
+		this.socketInput = socketInput;
+		this.maxBuffered = maxBuffered;
+	}
+
+	/**
+	 * Read whatever is available from a non-blocking channel into the buffer.
+	 *
+	 * @return the number of bytes read, or -1 if the client closed the connection
+	 */
+	int fill(ReadableByteChannel channel) throws IOException
+	{
+		if (start == end)
+			start = end = scanPos = 0;
+		if (end == buffer.length)
+			ensureCapacity();
+		int read = channel.read(ByteBuffer.wrap(buffer, end, buffer.length - end));
+		if (read < 0)
+			eof = true;
+		else
+			end += read;
+		return read;
+	}
+
+	/**
+	 * Restart framing at the first unread byte. Called when the session is
+	 * parked, since the reader may have stopped anywhere in the buffer.
+	 */
+	void resetScan()
+	{
+		scanPos = start;
+	}
+
+	/**
+	 * @return true if the buffered bytes are enough for the connection thread to
+	 * process a request without waiting on the client.
+	 */
+	boolean isRequestReady()
+	{
+		if (eof)
+			return true; // let the connection thread discover the disconnect
+		while (end - scanPos >= DSS_HEADER_LENGTH) {
+			int dssLength = ((buffer[scanPos] & 0xff) << 8) + (buffer[scanPos + 1] & 0xff);
+			if ((dssLength & DssConstants.CONTINUATION_BIT) == DssConstants.CONTINUATION_BIT
+					|| dssLength < DSS_HEADER_LENGTH
+					|| (buffer[scanPos + 2] & 0xff) != DssConstants.DSS_ID)
+				return true; // continued (large) DSS or a protocol error, both are the reader's problem
+			if (end - scanPos < dssLength)
+				break;
+			int format = buffer[scanPos + 3] & 0xff;
+			scanPos += dssLength;
+			if ((format & DssConstants.DSSCHAIN) != DssConstants.DSSCHAIN)
+				return true;
+		}
+		return end - start >= maxBuffered;
+	}
+
+	boolean hasBufferedData()
+	{
+		return start < end;
+	}
+
+	public int read() throws IOException
+	{
+		if (start < end)
+			return buffer[start++] & 0xff;
+		return socketInput.read();
+	}
+
+	public int read(byte[] b, int off, int len) throws IOException
+	{
+		if (len == 0)
+			return 0;
+		if (start < end) {
+			int n = Math.min(len, end - start);
+			System.arraycopy(buffer, start, b, off, n);
+			start += n;
+			return n;
+		}
+		return socketInput.read(b, off, len);
+	}
+
+	public int available() throws IOException
+	{
+		return (end - start) + socketInput.available();
+	}
+
+	public void close() throws IOException
+	{
+		socketInput.close();
+	}
+
+	private void ensureCapacity()
+	{
+		if (start > 0) {
+			// compact the unread bytes to the front first
+			System.arraycopy(buffer, start, buffer, 0, end - start);
+			end -= start;
+			scanPos -= start;
+			start = 0;
+		}
+		if (end == buffer.length) {
+			byte[] newBuffer = new byte[buffer.length * 2];
+			System.arraycopy(buffer, 0, newBuffer, 0, end);
+			buffer = newBuffer;
+		}
+	}
+}
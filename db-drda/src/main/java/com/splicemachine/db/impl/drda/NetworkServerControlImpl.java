@@ -41,6 +41,7 @@ import java.io.OutputStream;
 import java.io.PrintStream;
 import java.io.PrintWriter;
 import java.net.InetAddress;
+import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
 import javax.net.SocketFactory;
@@ -50,6 +51,7 @@ import javax.net.ssl.SSLSocket;
 import javax.net.ssl.SSLSocketFactory;
 import javax.net.ssl.SSLServerSocketFactory;
 import java.net.UnknownHostException;
+import java.nio.channels.ServerSocketChannel;
 import java.nio.charset.Charset;
 import java.security.Permission;
 import java.security.AccessController;
@@ -284,6 +286,7 @@ public final class NetworkServerControlImpl {
 										// and changing timeSlice
 
 	private boolean keepAlive = true;   // keepAlive value for client socket 
+	private boolean nonBlocking;		// park idle sessions on a selector
 	private int minPoolSize;			//minimum pool size for pooled connections
 	private int maxPoolSize;			//maximum pool size for pooled connections
 	private Object poolSync = new Object();	// object to use for syning reading
@@ -331,6 +334,11 @@ public final class NetworkServerControlImpl {
 	// number of DRDAConnThreads waiting for something to do
 	private int freeThreads;
 
+	// watches idle sessions when db.drda.nonBlocking is set
+	private SessionSelector sessionSelector;
+	// serializes scheduling of sessions from the client and selector threads
+	private Object scheduleSync = new Object();
+
 	// known application requesters
 	private Hashtable appRequesterTable = new Hashtable();
 
@@ -676,6 +684,12 @@ public final class NetworkServerControlImpl {
 		switch (getSSLMode()) {
 		case SSL_OFF:
 		default:
+			if (nonBlocking) {
+				// sockets accepted from a channel can be parked on a selector
+				ServerSocketChannel ssc = ServerSocketChannel.open();
+				ssc.socket().bind(new InetSocketAddress(hostAddress, portNumber));
+				return ssc.socket();
+			}
 			ServerSocketFactory sf =
 				ServerSocketFactory.getDefault();
 			return sf.createServerSocket(portNumber
@@ -806,6 +820,17 @@ public final class NetworkServerControlImpl {
 									}
 								}
 							);
+		if (getNonBlocking()) {
+			sessionSelector = (SessionSelector) AccessController.doPrivileged(
+								new PrivilegedExceptionAction() {
+									public Object run() throws Exception
+									{
+										return new SessionSelector(thisControl);
+									}
+								}
+							);
+			sessionSelector.start();
+		}
 		clientThread.start();
 
 		try {
@@ -833,6 +858,9 @@ public final class NetworkServerControlImpl {
 	                            //interrupt client thread
 	                            clientThread.interrupt();
 
+	                            if (sessionSelector != null)
+	                                sessionSelector.close();
+
 	                            return null;
 	                       }
 	                    });
@@ -3079,6 +3107,12 @@ public final class NetworkServerControlImpl {
 		if (propval != null && 
 			StringUtil.SQLEqualsIgnoreCase(propval,"false"))
 			keepAlive = false;
+
+		propval = PropertyUtil.getSystemProperty( 
+			Property.DRDA_PROP_NONBLOCKING);
+		if (propval != null && 
+			StringUtil.SQLEqualsIgnoreCase(propval,"true"))
+			nonBlocking = true;
 		
 		propval = PropertyUtil.getSystemProperty( 
 			Property.DRDA_PROP_HOSTNAME);
@@ -3693,6 +3727,16 @@ public final class NetworkServerControlImpl {
 		return keepAlive;
 	}
 
+	/**
+	 * Get whether idle sessions are parked on a selector rather than holding
+	 * on to a connection thread. This requires plain sockets, so it is never
+	 * the case with SSL.
+	 */
+	protected boolean getNonBlocking()
+	{
+		return nonBlocking && getSSLMode() == SSL_OFF;
+	}
+
 	/**
 	 * Get the current value of minimum number of threads to create at start
 	 *
@@ -3887,6 +3931,7 @@ public final class NetworkServerControlImpl {
 		retval.put(Property.DRDA_PROP_PORTNUMBER, new Integer(portNumber).toString());
 		retval.put(Property.DRDA_PROP_HOSTNAME, hostArg);
 		retval.put(Property.DRDA_PROP_KEEPALIVE, new Boolean(keepAlive).toString());
+		retval.put(Property.DRDA_PROP_NONBLOCKING, new Boolean(nonBlocking).toString());
 
 		String tracedir = getTraceDirectory();
 		if (tracedir != null)
@@ -3960,40 +4005,76 @@ public final class NetworkServerControlImpl {
 
 		sessionTable.put(new Integer(connectionNumber), session);
 
-		// Check whether there are enough free threads to service all the
-		// threads in the run queue in addition to the newly added session.
-		boolean enoughThreads;
-		synchronized (runQueue) {
-			enoughThreads = (runQueue.size() < freeThreads);
-		}
-		// No need to hold the synchronization on runQueue any longer than
-		// this. Since no other threads can make runQueue grow, and no other
-		// threads will reduce the number of free threads without removing
-		// sessions from runQueue, (runQueue.size() < freeThreads) cannot go
-		// from true to false until addSession() returns.
-
-		DRDAConnThread thread = null;
-
-		// try to start a new thread if we don't have enough free threads
-		if (!enoughThreads) {
-			// Synchronize on threadsSync to ensure that the value of
-			// maxThreads doesn't change until the new thread is added to
-			// threadList.
-			synchronized (threadsSync) {
-				// only start a new thread if we have no maximum number of
-				// threads or the maximum number of threads is not exceeded
-				if ((maxThreads == 0) || (threadList.size() < maxThreads)) {
-					thread = new DRDAConnThread(session, this, getTimeSlice(),
-												getLogConnections());
-					threadList.add(thread);
-					thread.start();
+		scheduleSession(session);
+	}
+
+	/**
+	 * Park an idle session until its next request has arrived, so that the
+	 * calling <code>DRDAConnThread</code> can work on other sessions.
+	 *
+	 * @param session the session the thread has just finished a request for
+	 * @return true if the session was parked (or rescheduled), false if the
+	 * caller should keep working on it
+	 */
+	boolean parkSession(Session session) {
+		SessionSelector selector = sessionSelector;
+		if (selector == null || session.requestBuffer == null)
+			return false;
+		return selector.park(session);
+	}
+
+	/**
+	 * Put a session which was parked by {@link #parkSession} back in line
+	 * for a <code>DRDAConnThread</code>. Called from the selector thread.
+	 */
+	void resumeSession(Session session) {
+		if (shutdown)
+			return;
+		scheduleSession(session);
+	}
+
+	/**
+	 * Put a session into the run queue, or start a new thread for it if there
+	 * are not enough free threads and the maximum number of threads is not
+	 * exceeded.
+	 */
+	private void scheduleSession(Session session) {
+		synchronized (scheduleSync) {
+			// Check whether there are enough free threads to service all the
+			// threads in the run queue in addition to the newly added session.
+			boolean enoughThreads;
+			synchronized (runQueue) {
+				enoughThreads = (runQueue.size() < freeThreads);
+			}
+			// No need to hold the synchronization on runQueue any longer than
+			// this. Since only scheduleSession() makes runQueue grow with new
+			// work, and no other threads will reduce the number of free threads
+			// without removing sessions from runQueue, (runQueue.size() <
+			// freeThreads) cannot go from true to false until we return.
+
+			DRDAConnThread thread = null;
+
+			// try to start a new thread if we don't have enough free threads
+			if (!enoughThreads) {
+				// Synchronize on threadsSync to ensure that the value of
+				// maxThreads doesn't change until the new thread is added to
+				// threadList.
+				synchronized (threadsSync) {
+					// only start a new thread if we have no maximum number of
+					// threads or the maximum number of threads is not exceeded
+					if ((maxThreads == 0) || (threadList.size() < maxThreads)) {
+						thread = new DRDAConnThread(session, this, getTimeSlice(),
+													getLogConnections());
+						threadList.add(thread);
+						thread.start();
+					}
 				}
 			}
-		}
 
-		// add the session to the run queue if we didn't start a new thread
-		if (thread == null) {
-			runQueueAdd(session);
+			// add the session to the run queue if we didn't start a new thread
+			if (thread == null) {
+				runQueueAdd(session);
+			}
 		}
 	}
 
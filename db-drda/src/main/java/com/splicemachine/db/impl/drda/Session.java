@@ -66,6 +66,9 @@ class Session
 	protected Socket clientSocket;		// session socket
 	protected int connNum;				// connection number
 	protected InputStream sessionInput;	// session input stream
+	protected DssRequestBuffer requestBuffer;	// buffers requests while parked, null if
+										// the session can't be parked
+	protected boolean utf8Ccsid;			// UTF-8 was negotiated on ACCSEC
 	protected OutputStream sessionOutput;	// session output stream
 	protected String traceFileName;		// trace file name for session
 	protected boolean traceOn;			// whether trace is currently on for the session
@@ -291,7 +294,11 @@ class Session
 	private void initialize(String traceDirectory)
 		throws Exception
 	{
-		sessionInput = clientSocket.getInputStream();
+		if (nsctrl.getNonBlocking() && clientSocket.getChannel() != null) {
+			requestBuffer = new DssRequestBuffer(clientSocket.getInputStream());
+			sessionInput = requestBuffer;
+		} else
+			sessionInput = clientSocket.getInputStream();
 		sessionOutput = clientSocket.getOutputStream();
 		if (traceOn)
 			initTrace(traceDirectory,false);
@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.db.impl.drda;
+
+import java.io.IOException;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+
+/**
+ * Watches the sockets of idle sessions so that they don't tie up a
+ * <code>DRDAConnThread</code> while waiting for the client's next request.
+ * <p>
+ * A connection thread which has finished a request parks the session here
+ * and goes on to the next session in the run queue. When the client sends
+ * data, this thread reads it without blocking into the session's
+ * {@link DssRequestBuffer}, and once a whole request has arrived the session
+ * is put back on the run queue. The DRDA protocol handling itself is
+ * unchanged; connection threads still read the request through
+ * <code>DDMReader</code>, only from the buffered bytes.
+ */
+class SessionSelector extends Thread
+{
+	private final NetworkServerControlImpl parent;
+	private final Selector selector;
+	// sessions waiting to be registered by the selector thread
+	private final ArrayList pending = new ArrayList();
+	private final ArrayList ready = new ArrayList();
+	private volatile boolean closed;
+
+	SessionSelector(NetworkServerControlImpl parent) throws IOException
+	{
+		NetworkServerControlImpl.setUniqueThreadName(this, "NetworkServerSelector");
+		setDaemon(true);
+		this.parent = parent;
+		this.selector = Selector.open();
+	}
+
+	/**
+	 * Park a session until its next request has arrived.
+	 *
+	 * @param session a session whose input is a {@link DssRequestBuffer}
+	 * @return false if the selector is closed and the caller should keep
+	 * working on the session itself
+	 */
+	boolean park(Session session)
+	{
+		if (closed)
+			return false;
+		session.requestBuffer.resetScan();
+		if (session.requestBuffer.isRequestReady()) {
+			// the client pipelined its next request, no need to wait for it
+			resume(session);
+			return true;
+		}
+		synchronized (pending) {
+			pending.add(session);
+		}
+		selector.wakeup();
+		return true;
+	}
+
+	/**
+	 * Hand a session whose request has arrived back to the connection threads.
+	 */
+	void resume(Session session)
+	{
+		parent.resumeSession(session);
+	}
+
+	void close()
+	{
+		closed = true;
+		try {
+			selector.close();
+		} catch (IOException ioe) {
+			parent.consoleExceptionPrintTrace(ioe);
+		}
+	}
+
+	public void run()
+	{
+		while (!closed && !parent.getShutdown()) {
+			try {
+				selector.select();
+				registerPending();
+				readSelected();
+				resumeReady();
+			} catch (ClosedSelectorException cse) {
+				return;
+			} catch (IOException ioe) {
+				if (closed || parent.getShutdown())
+					return;
+				parent.consoleExceptionPrintTrace(ioe);
+			}
+		}
+	}
+
+	private void registerPending() throws IOException
+	{
+		Object[] sessions;
+		synchronized (pending) {
+			if (pending.isEmpty())
+				return;
+			sessions = pending.toArray();
+			pending.clear();
+		}
+		for (int i = 0; i < sessions.length; i++) {
+			Session session = (Session) sessions[i];
+			SocketChannel channel = session.clientSocket.getChannel();
+			try {
+				channel.configureBlocking(false);
+				channel.register(selector, SelectionKey.OP_READ, session);
+			} catch (IOException ioe) {
+				// most likely closed underneath us; a connection thread
+				// will find out and clean up
+				ready.add(session);
+			}
+		}
+	}
+
+	private void readSelected()
+	{
+		Iterator keys = selector.selectedKeys().iterator();
+		while (keys.hasNext()) {
+			SelectionKey key = (SelectionKey) keys.next();
+			keys.remove();
+			Session session = (Session) key.attachment();
+			boolean dispatch;
+			try {
+				dispatch = !key.isValid() ||
+						session.requestBuffer.fill((SocketChannel) key.channel()) < 0 ||
+						session.requestBuffer.isRequestReady();
+			} catch (IOException ioe) {
+				dispatch = true;
+			}
+			if (dispatch) {
+				key.cancel();
+				ready.add(session);
+			}
+		}
+	}
+
+	private void resumeReady() throws IOException
+	{
+		if (ready.isEmpty())
+			return;
+		// flush the cancelled keys so that the channels can go back to
+		// blocking mode, and drop whatever became ready in the meantime;
+		// it will be reported again by the next select
+		selector.selectNow();
+		selector.selectedKeys().clear();
+		for (int i = 0; i < ready.size(); i++) {
+			Session session = (Session) ready.get(i);
+			try {
+				SocketChannel channel = session.clientSocket.getChannel();
+				if (channel.isOpen())
+					channel.configureBlocking(true);
+			} catch (IOException ioe) {
+				// the connection thread will fail on the socket and close the session
+			}
+			resume(session);
+		}
+		ready.clear();
+	}
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.db.impl.drda;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+
+/**
+ * Tests for the request framing of {@link DssRequestBuffer}.
+ */
+public class DssRequestBufferTest {
+
+    @Test
+    public void unchainedDssIsARequest() throws Exception {
+        DssRequestBuffer buffer = new DssRequestBuffer(empty());
+        Assert.assertFalse(buffer.isRequestReady());
+        byte[] dss = dss(20, false);
+        fill(buffer, Arrays.copyOf(dss, 3));
+        Assert.assertFalse("a partial header is not a request", buffer.isRequestReady());
+        fill(buffer, Arrays.copyOfRange(dss, 3, 10));
+        Assert.assertFalse("a partial DSS is not a request", buffer.isRequestReady());
+        fill(buffer, Arrays.copyOfRange(dss, 10, dss.length));
+        Assert.assertTrue(buffer.isRequestReady());
+    }
+
+    @Test
+    public void chainWaitsForItsLastDss() throws Exception {
+        DssRequestBuffer buffer = new DssRequestBuffer(empty());
+        fill(buffer, dss(12, true));
+        fill(buffer, dss(30, true));
+        Assert.assertFalse(buffer.isRequestReady());
+        fill(buffer, dss(8, false));
+        Assert.assertTrue(buffer.isRequestReady());
+    }
+
+    @Test
+    public void continuedOrMalformedDssIsHandedToTheReader() throws Exception {
+        DssRequestBuffer continued = new DssRequestBuffer(empty());
+        byte[] dss = dss(10, false);
+        dss[0] |= (byte) 0x80;
+        fill(continued, dss);
+        Assert.assertTrue(continued.isRequestReady());
+
+        DssRequestBuffer malformed = new DssRequestBuffer(empty());
+        dss = dss(10, false);
+        dss[2] = 0x11;
+        fill(malformed, dss);
+        Assert.assertTrue(malformed.isRequestReady());
+    }
+
+    @Test
+    public void disconnectIsHandedToTheReader() throws Exception {
+        DssRequestBuffer buffer = new DssRequestBuffer(empty());
+        Assert.assertEquals(-1, buffer.fill(new ChunkedChannel()));
+        Assert.assertTrue(buffer.isRequestReady());
+    }
+
+    @Test
+    public void dispatchesOnceTheLimitIsBuffered() throws Exception {
+        DssRequestBuffer buffer = new DssRequestBuffer(empty(), 64);
+        fill(buffer, dss(40, true));
+        Assert.assertFalse(buffer.isRequestReady());
+        fill(buffer, Arrays.copyOf(dss(100, false), 30));
+        Assert.assertTrue(buffer.isRequestReady());
+    }
+
+    @Test
+    public void readsBufferedBytesThenTheSocket() throws Exception {
+        byte[] request = concat(dss(12, true), dss(3000, false));
+        byte[] rest = dss(7, false);
+        DssRequestBuffer buffer = new DssRequestBuffer(new ByteArrayInputStream(rest));
+        // larger than the initial buffer, so the buffer has to grow
+        for (int off = 0; off < request.length; off += 500) {
+            fill(buffer, Arrays.copyOfRange(request, off, Math.min(request.length, off + 500)));
+        }
+        Assert.assertTrue(buffer.isRequestReady());
+        Assert.assertEquals(request.length + rest.length, buffer.available());
+
+        byte[] read = new byte[request.length + rest.length];
+        read[0] = (byte) buffer.read();
+        int n = 1;
+        while (n < read.length) {
+            int r = buffer.read(read, n, read.length - n);
+            Assert.assertTrue(r > 0);
+            n += r;
+        }
+        Assert.assertArrayEquals(concat(request, rest), read);
+        Assert.assertFalse(buffer.hasBufferedData());
+        Assert.assertEquals(-1, buffer.read());
+    }
+
+    @Test
+    public void framingRestartsAtTheFirstUnreadByte() throws Exception {
+        DssRequestBuffer buffer = new DssRequestBuffer(empty());
+        fill(buffer, concat(dss(10, false), dss(10, true)));
+        Assert.assertTrue(buffer.isRequestReady());
+        // the reader consumes the first request
+        Assert.assertEquals(10, buffer.read(new byte[10], 0, 10));
+        buffer.resetScan();
+        Assert.assertFalse("the second request is incomplete", buffer.isRequestReady());
+        fill(buffer, dss(10, false));
+        Assert.assertTrue(buffer.isRequestReady());
+    }
+
+    private static byte[] dss(int length, boolean chained) {
+        byte[] dss = new byte[length];
+        dss[0] = (byte) (length >>> 8);
+        dss[1] = (byte) length;
+        dss[2] = (byte) DssConstants.DSS_ID;
+        dss[3] = (byte) (chained ? DssConstants.DSSCHAIN | 0x01 : 0x01);
+        for (int i = 6; i < length; i++) {
+            dss[i] = (byte) i;
+        }
+        return dss;
+    }
+
+    private static void fill(DssRequestBuffer buffer, byte[] bytes) throws IOException {
+        ChunkedChannel channel = new ChunkedChannel();
+        channel.chunks.add(bytes);
+        int total = 0;
+        while (total < bytes.length) {
+            int read = buffer.fill(channel);
+            Assert.assertTrue(read >= 0);
+            total += read;
+        }
+    }
+
+    private static byte[] concat(byte[] a, byte[] b) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(a, 0, a.length);
+        out.write(b, 0, b.length);
+        return out.toByteArray();
+    }
+
+    private static InputStream empty() {
+        return new ByteArrayInputStream(new byte[0]);
+    }
+
+    /**
+     * A non-blocking channel which returns what has been queued, as much as fits, and then end of stream.
+     */
+    private static class ChunkedChannel implements ReadableByteChannel {
+        final Deque<byte[]> chunks = new ArrayDeque<>();
+
+        @Override
+        public int read(ByteBuffer dst) {
+            byte[] chunk = chunks.poll();
+            if (chunk == null)
+                return -1;
+            int n = Math.min(chunk.length, dst.remaining());
+            dst.put(chunk, 0, n);
+            if (n < chunk.length)
+                chunks.addFirst(Arrays.copyOfRange(chunk, n, chunk.length));
+            return n;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
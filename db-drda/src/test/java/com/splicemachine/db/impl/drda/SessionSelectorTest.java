@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.db.impl.drda;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests for parking idle sessions on a {@link SessionSelector}.
+ */
+public class SessionSelectorTest {
+    private final BlockingQueue<Session> resumed = new LinkedBlockingQueue<>();
+    private SessionSelector selector;
+    private ServerSocketChannel serverChannel;
+    private Socket client;
+    private Session session;
+
+    @Before
+    public void setUp() throws Exception {
+        selector = new SessionSelector(new NetworkServerControlImpl()) {
+            @Override
+            void resume(Session session) {
+                resumed.add(session);
+            }
+        };
+        selector.start();
+
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.socket().bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        client = new Socket(InetAddress.getLoopbackAddress(), serverChannel.socket().getLocalPort());
+        SocketChannel accepted = serverChannel.accept();
+
+        session = Mockito.mock(Session.class);
+        session.clientSocket = accepted.socket();
+        session.requestBuffer = new DssRequestBuffer(accepted.socket().getInputStream());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        selector.close();
+        client.close();
+        session.clientSocket.close();
+        serverChannel.close();
+    }
+
+    @Test
+    public void resumesOnceTheRequestHasArrived() throws Exception {
+        Assert.assertTrue(selector.park(session));
+        OutputStream out = client.getOutputStream();
+        out.write(dss(16, true));
+        out.write(dss(16, false), 0, 10);
+        out.flush();
+        Assert.assertNull(resumed.poll(200, TimeUnit.MILLISECONDS));
+
+        out.write(dss(16, false), 10, 6);
+        out.flush();
+        Assert.assertSame(session, resumed.poll(5, TimeUnit.SECONDS));
+        Assert.assertTrue("the connection thread reads the socket blocking",
+                session.clientSocket.getChannel().isBlocking());
+        Assert.assertEquals(32, session.requestBuffer.available());
+    }
+
+    @Test
+    public void resumesAtOnceWhenTheNextRequestIsBuffered() throws Exception {
+        client.getOutputStream().write(dss(16, false));
+        client.getOutputStream().flush();
+        SocketChannel channel = session.clientSocket.getChannel();
+        channel.configureBlocking(false);
+        while (session.requestBuffer.fill(channel) == 0) {
+            Thread.sleep(10);
+        }
+        channel.configureBlocking(true);
+
+        Assert.assertTrue(selector.park(session));
+        Assert.assertSame(session, resumed.poll());
+    }
+
+    @Test
+    public void resumesWhenTheClientDisconnects() throws Exception {
+        Assert.assertTrue(selector.park(session));
+        client.close();
+        Assert.assertSame(session, resumed.poll(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void closedSelectorDoesNotPark() throws Exception {
+        selector.close();
+        Assert.assertFalse(selector.park(session));
+        Assert.assertTrue(resumed.isEmpty());
+    }
+
+    private static byte[] dss(int length, boolean chained) {
+        byte[] dss = new byte[length];
+        dss[0] = (byte) (length >>> 8);
+        dss[1] = (byte) length;
+        dss[2] = (byte) DssConstants.DSS_ID;
+        dss[3] = (byte) (chained ? DssConstants.DSSCHAIN | 0x01 : 0x01);
+        return dss;
+    }
+}
@@ -185,6 +185,17 @@ public interface DataDictionary{
     String SOFT_DATA_DICTIONARY_VERSION="derby.softDataDictionaryVersion";
     String PROPERTY_CONGLOMERATE_VERSION="PropertyConglomerateVersion";
 
+    /*
+     * The pieces of the references to transition variables which getTriggerActionString() generates,
+     * e.g. CAST (com.splicemachine.db.iapi.db.Factory::getTriggerExecutionContext().getNewRow().cloneColumn(2).getObject() AS INTEGER)
+     */
+    String TRIGGER_CONTEXT_REFERENCE="com.splicemachine.db.iapi.db.Factory::getTriggerExecutionContext().";
+    String TRIGGER_COLUMN_REFERENCE_PREFIX="CAST ("+TRIGGER_CONTEXT_REFERENCE;
+    String TRIGGER_OLD_ROW="getOldRow()";
+    String TRIGGER_NEW_ROW="getNewRow()";
+    String TRIGGER_CLONE_COLUMN=".cloneColumn(";
+    String TRIGGER_GET_OBJECT=").getObject() AS ";
+
     /**
      * An immutable runtime type that describes the type VARCHAR(128) NOT NULL
      * with collation type UCS_BASIC and derivation IMPLICIT.
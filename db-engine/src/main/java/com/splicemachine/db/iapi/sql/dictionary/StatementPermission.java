@@ -41,11 +41,14 @@ import com.splicemachine.db.iapi.sql.execute.ExecPreparedStatement;
 import com.splicemachine.db.iapi.sql.depend.DependencyManager;
 import com.splicemachine.db.iapi.services.context.ContextManager;
 
+import java.io.Serializable;
+
 /**
- * This class describes a permission require by a statement.
+ * This class describes a permission require by a statement. Permissions are
+ * serializable so that they can be saved along with the statement's plan.
  */
 
-public abstract class StatementPermission
+public abstract class StatementPermission implements Serializable
 {
 	public static final int UNAUTHORIZED = 0;
 	public static final int AUTHORIZED = 1;
@@ -136,6 +136,15 @@ public interface ExecPreparedStatement
 	 */
 	boolean needsSavepoint();
 
+	/**
+	 * Do the rows returned by this statement have to be returned in the
+	 * order the plan produces them?
+	 *
+	 * @return false if the statement leaves the order of its results open
+	 * (a query without ORDER BY)
+	 */
+	boolean needsOrderedResults();
+
 	/**
 	 * Get a new prepared statement that is a shallow copy
 	 * of the current one.
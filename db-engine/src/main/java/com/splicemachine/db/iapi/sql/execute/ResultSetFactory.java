@@ -1734,6 +1734,14 @@ public interface ResultSetFactory {
 
     NoPutResultSet getExplainResultSet(NoPutResultSet source, Activation activation, int resultSetNumber) throws StandardException;
 
+    /**
+     * An explain of {@code source}. If {@code analyze} is true, {@code source} is run first, and what each of
+     * its operations did is shown after the plan.
+     */
+    NoPutResultSet getExplainResultSet(ResultSet source, Activation activation, int resultSetNumber, boolean analyze) throws StandardException;
+
+    NoPutResultSet getExplainResultSet(NoPutResultSet source, Activation activation, int resultSetNumber, boolean analyze) throws StandardException;
+
     /**
      * Export
      */
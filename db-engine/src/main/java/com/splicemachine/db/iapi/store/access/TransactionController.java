@@ -1283,6 +1283,16 @@ public interface TransactionController
      */
 	void setNoLockWait(boolean noWait);
 
+    /**
+     * Tell this transaction whether the connection which owns it is read-only,
+     * so that the transactions which are started for it from now on will
+     * never be asked to write. Such transactions may take a begin timestamp
+     * which is shared with other readers instead of a fresh one.
+     *
+     * @param readOnly {@code true} if the connection is read-only
+     */
+	void setReadOnly(boolean readOnly);
+
     /**
      * Return static information about the conglomerate to be included in a
      * a compiled plan.
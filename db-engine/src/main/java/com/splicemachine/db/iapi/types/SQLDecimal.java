@@ -76,7 +76,7 @@ import org.apache.spark.sql.types.StructField;
  * when the value is null.
  *
  */
-public final class SQLDecimal extends NumberDataType implements VariableSizeDataValue
+public class SQLDecimal extends NumberDataType implements VariableSizeDataValue
 {
 	/**
 	 * object state.  Note that scale and precision are
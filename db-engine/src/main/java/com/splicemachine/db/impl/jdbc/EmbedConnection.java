@@ -410,6 +410,10 @@ public abstract class EmbedConnection implements EngineConnection
                 throw se;
             }
 
+            // Network clients can only ask for a read-only connection when connecting
+            if (Boolean.parseBoolean(info.getProperty("readOnly", null)))
+                getLanguageConnection().setReadOnly(true);
+
 			// Raise a warning in sqlAuthorization mode if authentication is not ON
 			if (usingNoneAuth && getLanguageConnection().usesSqlAuthorization())
 				addWarning(SQLWarningFactory.newSQLWarning(SQLState.SQL_AUTHORIZATION_WITH_NO_AUTHENTICATION));
@@ -31,8 +31,9 @@
 
 package com.splicemachine.db.impl.services.cache;
 
-import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import com.splicemachine.db.iapi.error.StandardException;
 import com.splicemachine.db.iapi.services.context.ContextManager;
 import com.splicemachine.db.iapi.services.daemon.DaemonService;
@@ -45,7 +46,8 @@ import com.splicemachine.db.iapi.services.daemon.Serviceable;
  * make dirty {@code Cacheable}s clean and evictable in the future. When the
  * background cleaner is asked to clean an item, it puts the item in a queue
  * and requests to be serviced by a <code>DaemonService</code> running in a
- * separate thread.
+ * separate thread. Scheduling and polling are lock-free, so user threads
+ * scheduling cleans never contend with the cleaner on a queue lock.
  */
 final class BackgroundCleaner implements Serviceable {
 
@@ -64,7 +66,17 @@ final class BackgroundCleaner implements Serviceable {
     private final AtomicBoolean scheduled = new AtomicBoolean();
 
     /** A queue of cache entries that need to be cleaned. */
-    private final ArrayBlockingQueue<CacheEntry> queue;
+    private final ConcurrentLinkedQueue<CacheEntry> queue =
+            new ConcurrentLinkedQueue<>();
+
+    /**
+     * The number of entries in {@code queue}, kept separately because the
+     * queue itself is unbounded and has no constant-time size.
+     */
+    private final AtomicInteger queued = new AtomicInteger();
+
+    /** The maximum number of entries to keep in the queue. */
+    private final int queueSize;
 
     /**
      * Flag which tells whether the cleaner should try to shrink the cache
@@ -86,7 +98,7 @@ final class BackgroundCleaner implements Serviceable {
      */
     BackgroundCleaner(
             ConcurrentCache cache, DaemonService daemon, int queueSize) {
-        queue = new ArrayBlockingQueue<>(queueSize);
+        this.queueSize = queueSize;
         daemonService = daemon;
         cacheManager = cache;
         // subscribe with the onDemandOnly flag
@@ -102,11 +114,14 @@ final class BackgroundCleaner implements Serviceable {
      * queue is full)
      */
     boolean scheduleClean(CacheEntry entry) {
-        final boolean queued = queue.offer(entry);
-        if (queued) {
-            requestService();
+        // reserve a slot in the queue first, so it never exceeds queueSize
+        if (queued.incrementAndGet() > queueSize) {
+            queued.decrementAndGet();
+            return false;
         }
-        return queued;
+        queue.offer(entry);
+        requestService();
+        return true;
     }
 
     /**
@@ -163,10 +178,11 @@ final class BackgroundCleaner implements Serviceable {
         // See if there are objects waiting to be cleaned.
         CacheEntry e = queue.poll();
         if (e != null) {
+            queued.decrementAndGet();
             try {
                 cacheManager.cleanEntry(e);
             } finally {
-                if (!queue.isEmpty() || shrink) {
+                if (queued.get() > 0 || shrink) {
                     // We have more work in the queue. Request service again.
                     requestService();
                 }
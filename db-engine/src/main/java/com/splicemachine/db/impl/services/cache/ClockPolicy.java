@@ -31,7 +31,7 @@
 
 package com.splicemachine.db.impl.services.cache;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import com.splicemachine.db.iapi.error.StandardException;
@@ -60,9 +60,10 @@ import com.splicemachine.db.iapi.services.sanity.SanityManager;
  * <li><code>CacheEntry</code> objects must be locked before they can be
  * used</li>
  *
- * <li>accesses to the clock structure (circular buffer + clock hand) should be
- * synchronized on the <code>ArrayList</code> representing the circular
- * buffer</li>
+ * <li>holders are added to or removed from the clock structure (circular
+ * buffer) only while synchronized on <code>resizeLock</code>; the clock hand
+ * is an atomic counter, and sweeping the clock reads the buffer without any
+ * lock</li>
  *
  * <li>accesses to individual <code>Holder</code> objects in the clock
  * structure should be protected by synchronizing on the holder</li>
@@ -108,14 +109,30 @@ final class ClockPolicy implements ReplacementPolicy {
     private final int maxSize;
 
     /**
-     * The circular clock buffer which holds all the entries in the
-     * cache. Accesses to <code>clock</code> and <code>hand</code> must be
-     * synchronized on <code>clock</code>.
+     * The circular clock buffer which holds all the entries in the cache. The
+     * first <code>clockSize</code> slots are in use. The array is replaced
+     * (never resized in place) when it needs to grow, and is only written
+     * while synchronized on <code>resizeLock</code>. Readers take no lock, and
+     * must be prepared to see a <code>null</code> slot or a holder that has
+     * just been evicted from the clock.
      */
-    private final ArrayList<Holder> clock;
+    private volatile Holder[] clock;
 
-    /** The current position of the clock hand. */
-    private int hand;
+    /**
+     * The number of holders in the clock. Only written while synchronized on
+     * <code>resizeLock</code>, after the holder has been stored in
+     * <code>clock</code>.
+     */
+    private volatile int clockSize;
+
+    /** Monitor that serializes additions to and removals from the clock. */
+    private final Object resizeLock = new Object();
+
+    /**
+     * The clock hand. It only ever moves forward; its position in the clock is
+     * the value modulo <code>clockSize</code>.
+     */
+    private final AtomicInteger hand = new AtomicInteger();
 
     /**
      * The number of free entries. This is the number of objects that have been
@@ -141,7 +158,7 @@ final class ClockPolicy implements ReplacementPolicy {
     ClockPolicy(ConcurrentCache cacheManager, int initialSize, int maxSize) {
         this.cacheManager = cacheManager;
         this.maxSize = maxSize;
-        clock = new ArrayList<>(initialSize);
+        clock = new Holder[Math.max(initialSize, 1)];
     }
 
     /**
@@ -154,14 +171,14 @@ final class ClockPolicy implements ReplacementPolicy {
      */
     public void insertEntry(CacheEntry entry) throws StandardException {
 
-        final int size;
-        synchronized (clock) {
-            size = clock.size();
-            if (size < maxSize) {
-                if (freeEntries.get() == 0) {
+        int size = clockSize;
+        if (size < maxSize && freeEntries.get() == 0) {
+            synchronized (resizeLock) {
+                size = clockSize;
+                if (size < maxSize && freeEntries.get() == 0) {
                     // We have not reached the maximum size yet, and there's no
                     // free entry to reuse. Make room by growing.
-                    clock.add(new Holder(entry));
+                    addHolder(new Holder(entry));
                     return;
                 }
             }
@@ -187,12 +204,30 @@ final class ClockPolicy implements ReplacementPolicy {
 
         if (h == null) {
             // didn't find a victim, so we need to grow
-            synchronized (clock) {
-                clock.add(new Holder(entry));
+            synchronized (resizeLock) {
+                addHolder(new Holder(entry));
             }
         }
     }
 
+    /**
+     * Append a holder to the clock, growing the buffer if it is full. Caller
+     * must be synchronized on <code>resizeLock</code>.
+     *
+     * @param h the holder to add
+     */
+    private void addHolder(Holder h) {
+        final int size = clockSize;
+        Holder[] c = clock;
+        if (size == c.length) {
+            c = Arrays.copyOf(c, size * 2);
+            clock = c;
+        }
+        c[size] = h;
+        // publish the new holder
+        clockSize = size + 1;
+    }
+
     /**
      * Holder class which represents an entry in the cache. It maintains a
      * <code>recentlyUsed</code> required by the clock algorithm. The class
@@ -368,14 +403,20 @@ final class ClockPolicy implements ReplacementPolicy {
      * empty
      */
     private Holder moveHand() {
-        synchronized (clock) {
-            if (clock.isEmpty()) {
+        while (true) {
+            // Read the size before the buffer. The buffer is always published
+            // before the size, so every slot below size is readable.
+            final int size = clockSize;
+            if (size == 0) {
                 return null;
             }
-            if (hand >= clock.size()) {
-                hand = 0;
+            final Holder[] c = clock;
+            final int pos = (hand.getAndIncrement() & Integer.MAX_VALUE) % size;
+            final Holder h = c[pos];
+            if (h != null) {
+                return h;
             }
-            return clock.get(hand++);
+            // The slot was emptied by a concurrent shrink. Try the next one.
         }
     }
 
@@ -405,10 +446,8 @@ final class ClockPolicy implements ReplacementPolicy {
         // below).
         int itemsToCheck = 0;
         if (allowEvictions) {
-            synchronized (clock) {
-                itemsToCheck = Math.max(MIN_ITEMS_TO_CHECK,
-                                        (int) (clock.size() * MAX_ROTATION));
-            }
+            itemsToCheck = Math.max(MIN_ITEMS_TO_CHECK,
+                                    (int) (clockSize * MAX_ROTATION));
         }
 
         // Check up to itemsToCheck entries before giving up, but don't give up
@@ -550,17 +589,23 @@ final class ClockPolicy implements ReplacementPolicy {
     }
 
     /**
-     * Remove the holder at the given clock position.
+     * Remove the holder at the given clock position. The last holder in the
+     * clock is moved into the freed slot, so that no other holder changes
+     * position.
      *
      * @param pos position of the holder
      * @param h the holder to remove
      */
     private void removeHolder(int pos, Holder h) {
-        synchronized (clock) {
-            Holder removed = clock.remove(pos);
+        synchronized (resizeLock) {
+            final Holder[] c = clock;
+            final int last = clockSize - 1;
             if (SanityManager.DEBUG) {
-                SanityManager.ASSERT(removed == h, "Wrong Holder removed");
+                SanityManager.ASSERT(c[pos] == h, "Wrong Holder removed");
             }
+            c[pos] = c[last];
+            c[last] = null;
+            clockSize = last;
         }
     }
 
@@ -599,10 +644,7 @@ final class ClockPolicy implements ReplacementPolicy {
 
         // Since we don't scan the entire cache, start at the clock hand so
         // that we don't always scan the first 10% of the cache.
-        int pos;
-        synchronized (clock) {
-            pos = hand;
-        }
+        int pos = hand.get() & Integer.MAX_VALUE;
 
         while (maxLooks-- > 0) {
 
@@ -610,18 +652,21 @@ final class ClockPolicy implements ReplacementPolicy {
             final int size;
 
             // Fetch the next holder from the clock.
-            synchronized (clock) {
-                size = clock.size();
-                if (pos >= size) {
-                    pos = 0;
-                }
-                h = clock.get(pos);
+            size = clockSize;
+            if (size == 0) {
+                break;
+            }
+            if (pos >= size) {
+                pos %= size;
             }
+            h = clock[pos];
 
             // The index of the holder we're looking at. Since no one else than
             // us can remove elements from the clock while we're in this
             // method, and new elements will be added at the end of the list,
-            // the index for a holder does not change until we remove it.
+            // the index for a holder does not change until we remove it. A
+            // removal moves the last holder into the freed slot, which we
+            // look at next.
             final int index = pos;
 
             // Let pos point at the index of the holder we'll look at in the
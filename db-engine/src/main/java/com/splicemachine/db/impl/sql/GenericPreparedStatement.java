@@ -122,6 +122,7 @@ public class GenericPreparedStatement implements ExecPreparedStatement {
     protected UUID UUIDValue;
 
     private boolean needsSavepoint;
+    private boolean needsOrderedResults = true;
 
     private String execStmtName;
     private String execSchemaName;
@@ -1003,6 +1004,21 @@ public class GenericPreparedStatement implements ExecPreparedStatement {
         this.needsSavepoint = needsSavepoint;
     }
 
+    @Override
+    public boolean needsOrderedResults() {
+        return needsOrderedResults;
+    }
+
+    /**
+     * Set whether the results of this statement must be returned in the
+     * order the plan produces them.
+     *
+     * @param needsOrderedResults false if the rows may be returned in any order
+     */
+    public void setNeedsOrderedResults(boolean needsOrderedResults) {
+        this.needsOrderedResults = needsOrderedResults;
+    }
+
     /**
      * Set the stmts 'isAtomic' state.
      *
@@ -1063,6 +1079,7 @@ public class GenericPreparedStatement implements ExecPreparedStatement {
         clone.updateColumns = updateColumns;
         clone.updateMode = updateMode;
         clone.needsSavepoint = needsSavepoint;
+        clone.needsOrderedResults = needsOrderedResults;
     }
 
     @Override
@@ -203,6 +203,16 @@ public class GenericStatement implements Statement{
 
     public String getCompilationSchema(){ return compilationSchema.getDescriptorName(); }
 
+    /**
+     * @return the text which identifies this statement's plan in a {@link PersistedStatementCache}: everything
+     * {@link #equals(Object)} compares, and whether SQL authorization is on, since that decides whether the plan
+     * checks permissions.
+     */
+    String getPersistedKey(LanguageConnectionContext lcc){
+        return compilationSchema.getDescriptorName()+" "+compilationSchema.getUUID()+" "+isForReadOnly+" "+
+                prepareIsolationLevel+" "+lcc.usesSqlAuthorization()+"\n"+statementText;
+    }
+
     /**
      * Return the {@link PreparedStatement} currently associated with this
      * statement.
@@ -401,27 +411,32 @@ public class GenericStatement implements Statement{
                 statementContext=lcc.pushStatementContext(true,isForReadOnly,getSource(), null,false,0L);
             }
 
-			/*
-			** RESOLVE: we may ultimately wish to pass in
-			** whether we are a jdbc metadata query or not to
-			** get the CompilerContext to make the createDependency()
-			** call a noop.
-			*/
-            CompilerContext cc=lcc.pushCompilerContext(compilationSchema);
+            // A statement which hasn't been compiled since the server started may have a plan saved by an
+            // earlier server. If it is still valid, it is used instead of compiling the statement.
+            if(!foundInCache || preparedStmt.getVersionCounter()>0 ||
+                    !lcc.getDataDictionary().getDataDictionaryCache().statementCacheLoad(lcc,this,preparedStmt)){
+				/*
+				** RESOLVE: we may ultimately wish to pass in
+				** whether we are a jdbc metadata query or not to
+				** get the CompilerContext to make the createDependency()
+				** call a noop.
+				*/
+                CompilerContext cc=lcc.pushCompilerContext(compilationSchema);
+
+                if(prepareIsolationLevel!=ExecutionContext.UNSPECIFIED_ISOLATION_LEVEL){
+                    cc.setScanIsolationLevel(prepareIsolationLevel);
+                }
 
-            if(prepareIsolationLevel!=ExecutionContext.UNSPECIFIED_ISOLATION_LEVEL){
-                cc.setScanIsolationLevel(prepareIsolationLevel);
-            }
+                // Look for stored statements that are in a system schema
+                // and with a match compilation schema. If so, allow them
+                // to compile using internal SQL constructs.
+                if(internalSQL ||
+                        (spsSchema!=null) && (spsSchema.isSystemSchema()) && (spsSchema.equals(compilationSchema))){
+                    cc.setReliability(CompilerContext.INTERNAL_SQL_LEGAL);
+                }
 
-            // Look for stored statements that are in a system schema
-            // and with a match compilation schema. If so, allow them
-            // to compile using internal SQL constructs.
-            if(internalSQL ||
-                    (spsSchema!=null) && (spsSchema.isSystemSchema()) && (spsSchema.equals(compilationSchema))){
-                cc.setReliability(CompilerContext.INTERNAL_SQL_LEGAL);
+                fourPhasePrepare(lcc,paramDefaults,timestamps,beginTimestamp,foundInCache,cc);
             }
-
-            fourPhasePrepare(lcc,paramDefaults,timestamps,beginTimestamp,foundInCache,cc);
         }catch(StandardException se){
             if(foundInCache)
                 ((GenericLanguageConnectionContext)lcc).removeStatement(this);
@@ -490,6 +505,9 @@ public class GenericStatement implements Statement{
 
             saveTree(qt, CompilationPhase.AFTER_GENERATE);
 
+            if(foundInCache)
+                dataDictionary.getDataDictionaryCache().statementCacheSave(lcc,this,preparedStmt);
+
         }finally{ // for block introduced by pushCompilerContext()
             lcc.popCompilerContext(cc);
         }
@@ -648,6 +666,7 @@ public class GenericStatement implements Statement{
             preparedStmt.incrementVersionCounter();
             preparedStmt.setActivationClass(ac);
             preparedStmt.setNeedsSavepoint(qt.needsSavepoint());
+            preparedStmt.setNeedsOrderedResults(qt.needsOrderedResults());
             preparedStmt.setCursorInfo((CursorInfo)cc.getCursorInfo());
             preparedStmt.setIsAtomic(qt.isAtomic());
             preparedStmt.setExecuteStatementNameAndSchema(qt.executeStatementName(), qt.executeSchemaName());
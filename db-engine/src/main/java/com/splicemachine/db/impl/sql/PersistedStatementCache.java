@@ -0,0 +1,448 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.db.impl.sql;
+
+import com.splicemachine.db.catalog.DefaultInfo;
+import com.splicemachine.db.catalog.DependableFinder;
+import com.splicemachine.db.catalog.UUID;
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.services.monitor.Monitor;
+import com.splicemachine.db.iapi.sql.conn.LanguageConnectionContext;
+import com.splicemachine.db.iapi.sql.depend.Dependency;
+import com.splicemachine.db.iapi.sql.depend.DependencyManager;
+import com.splicemachine.db.iapi.sql.depend.Provider;
+import com.splicemachine.db.iapi.sql.dictionary.*;
+import com.splicemachine.db.iapi.util.StringUtil;
+import org.apache.log4j.Logger;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.CodeSource;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Saves the plans of cached statements in a local directory, so that after a restart a statement's plan can be
+ * loaded rather than compiled again.
+ *
+ * A plan is saved along with the providers it depended on when it was compiled, and a fingerprint of each: for a
+ * table, its columns, conglomerates, constraints and triggers. Before a saved plan is used, every provider is found
+ * again and its fingerprint compared with the saved one. If any provider is gone or has changed, the file is
+ * deleted and the statement is compiled as usual. A loaded plan registers the same dependencies a compiled one
+ * would, so later DDL invalidates it the usual way.
+ *
+ * Files are named after a digest of the statement's text, compilation schema, isolation level and read-only-ness,
+ * and of whether SQL authorization is on. Files written by a different build of the engine are ignored.
+ *
+ * Loading a plan deserializes it, so plans are only read from a directory which belongs to the engine's user and
+ * which no one else may write to. Each file is also signed with a key which is kept, readable by its owner only, in
+ * the directory; a file whose signature doesn't match is deleted unread. Deserialization is restricted to the
+ * engine's own classes and the JDK value and collection classes that plans hold.
+ */
+public class PersistedStatementCache{
+    private static final Logger LOG=Logger.getLogger(PersistedStatementCache.class);
+    private static final int FORMAT_VERSION=2;
+    private static final String SUFFIX=".plan";
+    private static final String KEY_FILE="plans.key";
+    private static final String MAC_ALGORITHM="HmacSHA256";
+    private static final int KEY_LENGTH=32;
+    /* statements compiled once the directory holds this many plans are only cached in memory */
+    private static final int MAX_ENTRIES=16384;
+
+    /* the JDK classes which may be read from a plan, besides the engine's own */
+    private static final Set<String> JDK_CLASSES=new HashSet<>(Arrays.asList(
+            "java.lang.Object","java.lang.String","java.lang.Number","java.lang.Boolean","java.lang.Byte",
+            "java.lang.Character","java.lang.Short","java.lang.Integer","java.lang.Long","java.lang.Float",
+            "java.lang.Double","java.lang.Enum","java.math.BigDecimal","java.math.BigInteger",
+            "java.sql.Date","java.sql.Time","java.sql.Timestamp","java.util.Date","java.util.BitSet",
+            "java.util.ArrayList","java.util.LinkedList","java.util.Vector","java.util.Stack","java.util.HashMap",
+            "java.util.LinkedHashMap","java.util.Hashtable","java.util.Properties","java.util.HashSet",
+            "java.util.LinkedHashSet","java.util.Arrays$ArrayList","java.util.Collections$EmptyList",
+            "java.util.Collections$SingletonList","java.util.Collections$UnmodifiableCollection",
+            "java.util.Collections$UnmodifiableList","java.util.Collections$UnmodifiableRandomAccessList"));
+
+    private final File directory;
+    private final String buildVersion;
+    private final SecretKeySpec signingKey;
+    private final AtomicInteger entries;
+
+    private PersistedStatementCache(File directory,String buildVersion,byte[] key,int entries){
+        this.directory=directory;
+        this.buildVersion=buildVersion;
+        this.signingKey=new SecretKeySpec(key,MAC_ALGORITHM);
+        this.entries=new AtomicInteger(entries);
+    }
+
+    /**
+     * @return a cache of the plans in {@code directoryName}, or {@code null} if the directory can't be created, or
+     *         can be written by anyone but the engine's user.
+     */
+    public static PersistedStatementCache open(String directoryName){
+        return open(directoryName,buildVersion());
+    }
+
+    static PersistedStatementCache open(String directoryName,String buildVersion){
+        File directory=new File(directoryName);
+        try{
+            if(!directory.isDirectory()){
+                if(!directory.mkdirs()){
+                    LOG.warn("Cannot create statement cache directory "+directory+", plans will not be saved");
+                    return null;
+                }
+                restrictToOwner(directory.toPath(),"rwx------");
+            }
+            String problem=checkOwnership(directory.toPath());
+            if(problem!=null){
+                LOG.warn("Statement cache directory "+directory+" "+problem+", plans will not be saved or loaded");
+                return null;
+            }
+            return new PersistedStatementCache(directory,buildVersion,readKey(directory),planFiles(directory).length);
+        }catch(IOException e){
+            LOG.warn("Cannot use statement cache directory "+directory+", plans will not be saved",e);
+            return null;
+        }
+    }
+
+    /**
+     * Load the saved plan of a statement into its (not yet compiled) prepared statement. On success, the plan's
+     * dependencies are registered within a nested read-only transaction, which the caller must commit.
+     *
+     * @return true if a saved plan was found and is still valid.
+     */
+    public boolean load(LanguageConnectionContext lcc,GenericStatement statement,GenericStorablePreparedStatement ps) throws StandardException{
+        String key=statement.getPersistedKey(lcc);
+        File file=file(key);
+        if(!file.isFile())
+            return false;
+
+        boolean loaded=false;
+        lcc.beginNestedTransaction(true);
+        try(ObjectInputStream in=openPlan(file)){
+            if(in==null || in.readInt()!=FORMAT_VERSION || !buildVersion.equals(in.readObject()) || !key.equals(in.readObject()))
+                return false;
+
+            DataDictionary dd=lcc.getDataDictionary();
+            Provider[] providers=new Provider[in.readInt()];
+            for(int i=0;i<providers.length;i++){
+                UUID id=(UUID)in.readObject();
+                DependableFinder finder=(DependableFinder)in.readObject();
+                String fingerprint=(String)in.readObject();
+                //throws if the provider no longer exists
+                providers[i]=(Provider)finder.getDependable(dd,id);
+                if(!fingerprint.equals(fingerprint(dd,providers[i])))
+                    return false;
+            }
+
+            ps.readExternal(in);
+            ps.requiredPermissionsList=(List)in.readObject();
+            ps.setNeedsOrderedResults(in.readBoolean());
+            ps.loadGeneratedClass();
+
+            DependencyManager dm=dd.getDependencyManager();
+            for(Provider provider : providers){
+                dm.addDependency(ps,provider,lcc.getContextManager());
+            }
+            ps.incrementVersionCounter();
+            ps.isValid=true;
+            loaded=true;
+        }catch(Exception e){
+            if(LOG.isDebugEnabled())
+                LOG.debug("Cannot use the saved plan of "+statement,e);
+        }finally{
+            if(!loaded){
+                lcc.commitNestedTransaction();
+                delete(file);
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Save the plan of a statement which was just compiled. Plans which can't be checked against the dictionary
+     * after a restart, such as those depending on other prepared statements or on temporary tables, are not saved;
+     * nor are plans which raised compile time warnings, since loading them would lose the warnings.
+     */
+    public void save(LanguageConnectionContext lcc,GenericStatement statement,GenericStorablePreparedStatement ps){
+        if(entries.get()>=MAX_ENTRIES || ps.getCompileTimeWarnings()!=null)
+            return;
+        try{
+            DataDictionary dd=lcc.getDataDictionary();
+            Collection<Dependency> dependencies=dd.getDependencyManager().find(ps.getObjectID());
+            Map<UUID,Provider> providers=new LinkedHashMap<>();
+            if(dependencies!=null){
+                for(Dependency dependency : new ArrayList<>(dependencies)){
+                    Provider provider=dependency.getProvider();
+                    if(!provider.isPersistent() || provider instanceof SPSDescriptor)
+                        return;
+                    providers.put(provider.getObjectID(),provider);
+                }
+            }
+
+            String key=statement.getPersistedKey(lcc);
+            ByteArrayOutputStream bytes=new ByteArrayOutputStream();
+            try(ObjectOutputStream out=new ObjectOutputStream(bytes)){
+                out.writeInt(FORMAT_VERSION);
+                out.writeObject(buildVersion);
+                out.writeObject(key);
+                out.writeInt(providers.size());
+                for(Provider provider : providers.values()){
+                    out.writeObject(provider.getObjectID());
+                    out.writeObject(provider.getDependableFinder());
+                    out.writeObject(fingerprint(dd,provider));
+                }
+                ps.writeExternal(out);
+                out.writeObject(ps.requiredPermissionsList);
+                out.writeBoolean(ps.needsOrderedResults());
+            }
+
+            File file=file(key);
+            boolean replaces=file.exists();
+            writePlan(file,bytes.toByteArray());
+            if(!replaces)
+                entries.incrementAndGet();
+        }catch(Exception e){
+            if(LOG.isDebugEnabled())
+                LOG.debug("Cannot save the plan of "+statement,e);
+        }
+    }
+
+    /**
+     * Delete every saved plan.
+     */
+    public void clear(){
+        for(File file : planFiles(directory)){
+            delete(file);
+        }
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+
+    /**
+     * @return a stream over the contents of a plan file, or {@code null} if its signature doesn't match.
+     */
+    ObjectInputStream openPlan(File file) throws IOException{
+        byte[] bytes=Files.readAllBytes(file.toPath());
+        int length=bytes.length-macLength();
+        if(length<0 || !MessageDigest.isEqual(mac(Arrays.copyOf(bytes,length)),Arrays.copyOfRange(bytes,length,bytes.length))){
+            if(LOG.isDebugEnabled())
+                LOG.debug("The signature of saved plan "+file+" doesn't match");
+            return null;
+        }
+        return new PlanInputStream(new ByteArrayInputStream(bytes,0,length));
+    }
+
+    /**
+     * Sign and write a plan file, replacing it if it exists.
+     */
+    void writePlan(File file,byte[] plan) throws IOException{
+        //write a temporary file and move it into place, so that readers never see a partial plan
+        Path temp=Files.createTempFile(directory.toPath(),null,".tmp");
+        try{
+            try(OutputStream out=Files.newOutputStream(temp)){
+                out.write(plan);
+                out.write(mac(plan));
+            }
+            Files.move(temp,file.toPath(),StandardCopyOption.REPLACE_EXISTING,StandardCopyOption.ATOMIC_MOVE);
+        }finally{
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private byte[] mac(byte[] bytes) throws IOException{
+        try{
+            Mac mac=Mac.getInstance(MAC_ALGORITHM);
+            mac.init(signingKey);
+            return mac.doFinal(bytes);
+        }catch(GeneralSecurityException e){
+            throw new IOException(e);
+        }
+    }
+
+    private int macLength() throws IOException{
+        return mac(new byte[0]).length;
+    }
+
+    /**
+     * @return the key with which plans are signed, created if the directory doesn't have one yet.
+     */
+    private static byte[] readKey(File directory) throws IOException{
+        Path keyFile=new File(directory,KEY_FILE).toPath();
+        if(!Files.exists(keyFile)){
+            byte[] key=new byte[KEY_LENGTH];
+            new SecureRandom().nextBytes(key);
+            Path temp=Files.createTempFile(directory.toPath(),null,".tmp");
+            try{
+                restrictToOwner(temp,"rw-------");
+                Files.write(temp,key);
+                Files.move(temp,keyFile,StandardCopyOption.ATOMIC_MOVE);
+            }catch(IOException e){
+                //another server sharing the directory may have just created it
+                if(!Files.exists(keyFile))
+                    throw e;
+            }finally{
+                Files.deleteIfExists(temp);
+            }
+        }
+        String problem=checkOwnership(keyFile);
+        if(problem!=null)
+            throw new IOException("key file "+keyFile+" "+problem);
+        byte[] key=Files.readAllBytes(keyFile);
+        if(key.length<KEY_LENGTH)
+            throw new IOException("key file "+keyFile+" is too short");
+        return key;
+    }
+
+    private static void restrictToOwner(Path path,String permissions) throws IOException{
+        if(Files.getFileAttributeView(path,PosixFileAttributeView.class)!=null)
+            Files.setPosixFilePermissions(path,PosixFilePermissions.fromString(permissions));
+    }
+
+    /**
+     * @return why the engine shouldn't trust the contents of {@code path}, or {@code null} if it belongs to the
+     *         engine's user and no one else may write to it.
+     */
+    static String checkOwnership(Path path) throws IOException{
+        PosixFileAttributeView view=Files.getFileAttributeView(path,PosixFileAttributeView.class);
+        if(view==null)
+            return null;
+        PosixFileAttributes attributes=view.readAttributes();
+        String user=System.getProperty("user.name");
+        if(user!=null && !user.equals(attributes.owner().getName()))
+            return "is owned by "+attributes.owner().getName()+" rather than "+user;
+        Set<PosixFilePermission> permissions=attributes.permissions();
+        if(permissions.contains(PosixFilePermission.GROUP_WRITE) || permissions.contains(PosixFilePermission.OTHERS_WRITE))
+            return "can be written by users other than its owner";
+        return null;
+    }
+
+    /**
+     * Only resolves the classes which a plan may hold.
+     */
+    private static class PlanInputStream extends ObjectInputStream{
+        PlanInputStream(InputStream in) throws IOException{
+            super(in);
+        }
+
+        @Override
+        protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException{
+            String name=desc.getName();
+            int dimensions=0;
+            while(dimensions<name.length() && name.charAt(dimensions)=='[')
+                dimensions++;
+            //arrays of primitives are fine, other arrays are checked by their element class
+            if(dimensions==0 || name.charAt(dimensions)=='L'){
+                String className=dimensions==0?name:name.substring(dimensions+1,name.length()-1);
+                if(!className.startsWith("com.splicemachine.") && !JDK_CLASSES.contains(className))
+                    throw new InvalidClassException(name,"not allowed in a saved plan");
+            }
+            return super.resolveClass(desc);
+        }
+
+        @Override
+        protected Class<?> resolveProxyClass(String[] interfaces) throws IOException, ClassNotFoundException{
+            throw new InvalidClassException("proxy","not allowed in a saved plan");
+        }
+    }
+
+    /**
+     * A description of the parts of a provider which a plan is compiled against, and which can change without the
+     * provider getting a new id. Other providers are only ever dropped and created again, under a new id.
+     */
+    private static String fingerprint(DataDictionary dd,Provider provider) throws StandardException{
+        StringBuilder sb=new StringBuilder();
+        if(provider instanceof TableDescriptor){
+            TableDescriptor td=(TableDescriptor)provider;
+            sb.append(td.getSchemaName()).append('.').append(td.getName());
+            for(ColumnDescriptor cd : td.getColumnDescriptorList()){
+                DefaultInfo defaultInfo=cd.getDefaultInfo();
+                sb.append("|").append(cd.getColumnName()).append(' ').append(cd.getPosition())
+                        .append(' ').append(cd.getType())
+                        .append(' ').append(defaultInfo==null?null:defaultInfo.getDefaultText())
+                        .append(' ').append(cd.getAutoincInc());
+            }
+            long[] conglomerates=new long[td.getConglomerateDescriptorList().size()];
+            for(int i=0;i<conglomerates.length;i++){
+                conglomerates[i]=td.getConglomerateDescriptorList().get(i).getConglomerateNumber();
+            }
+            Arrays.sort(conglomerates);
+            sb.append("|conglomerates ").append(Arrays.toString(conglomerates));
+            for(ConstraintDescriptor constraint : dd.getConstraintDescriptors(td)){
+                sb.append("|constraint ").append(constraint.getUUID()).append(' ').append(constraint.isEnabled());
+            }
+            for(Object trigger : dd.getTriggerDescriptors(td)){
+                TriggerDescriptor triggerd=(TriggerDescriptor)trigger;
+                sb.append("|trigger ").append(triggerd.getUUID()).append(' ').append(triggerd.isEnabled());
+            }
+        }else if(provider instanceof ConglomerateDescriptor){
+            sb.append(((ConglomerateDescriptor)provider).getConglomerateNumber());
+        }
+        return sb.toString();
+    }
+
+    private File file(String key) throws StandardException{
+        try{
+            byte[] digest=MessageDigest.getInstance("SHA-1").digest(key.getBytes(StandardCharsets.UTF_8));
+            return new File(directory,StringUtil.toHexString(digest,0,digest.length)+SUFFIX);
+        }catch(Exception e){
+            throw StandardException.plainWrapException(e);
+        }
+    }
+
+    private void delete(File file){
+        if(file.delete())
+            entries.decrementAndGet();
+    }
+
+    private static File[] planFiles(File directory){
+        File[] files=directory.listFiles(new FilenameFilter(){
+            @Override
+            public boolean accept(File dir,String name){
+                return name.endsWith(SUFFIX);
+            }
+        });
+        return files==null?new File[0]:files;
+    }
+
+    /**
+     * Plans hold generated classes which call into the engine, so they are only loaded by the build which saved
+     * them.
+     */
+    private static String buildVersion(){
+        StringBuilder version=new StringBuilder();
+        if(Monitor.getMonitor()!=null)
+            version.append(Monitor.getMonitor().getEngineVersion());
+        try{
+            CodeSource source=GenericStatement.class.getProtectionDomain().getCodeSource();
+            if(source!=null && source.getLocation()!=null)
+                version.append(' ').append(new File(source.getLocation().toURI()).lastModified());
+        }catch(Exception e){
+            LOG.warn("Cannot find the engine's build time, saved plans may be loaded by a different build",e);
+        }
+        return version.toString();
+    }
+}
@@ -45,6 +45,7 @@ import com.splicemachine.db.iapi.store.access.TransactionController;
 import com.splicemachine.db.iapi.store.access.conglomerate.Conglomerate;
 import com.splicemachine.db.impl.sql.GenericStatement;
 import com.splicemachine.db.impl.sql.GenericStorablePreparedStatement;
+import com.splicemachine.db.impl.sql.PersistedStatementCache;
 import com.splicemachine.utils.Pair;
 import org.apache.log4j.Logger;
 import org.spark_project.guava.cache.Cache;
@@ -76,6 +77,7 @@ public class DataDictionaryCache {
     private ManagedCache<UUID, SPSDescriptor> storedPreparedStatementCache;
     private ManagedCache<Long,Conglomerate> conglomerateCache;
     private ManagedCache<GenericStatement,GenericStorablePreparedStatement> statementCache;
+    private PersistedStatementCache persistedStatementCache;
     private ManagedCache<String,SchemaDescriptor> schemaCache;
     private ManagedCache<String,AliasDescriptor> aliasDescriptorCache;
     private ManagedCache<String,Optional<RoleGrantDescriptor>> roleCache;
@@ -126,6 +128,9 @@ public class DataDictionaryCache {
         partitionStatisticsCache = new ManagedCache<>(CacheBuilder.newBuilder().recordStats().maximumSize(8092).build());
         conglomerateCache = new ManagedCache<>(CacheBuilder.newBuilder().recordStats().maximumSize(1024).build());
         statementCache = new ManagedCache<>(CacheBuilder.newBuilder().recordStats().maximumSize(1024).removalListener(dependentInvalidator).build());
+        String statementCacheDirectory=PropertyUtil.getPropertyFromSet(startParams,Property.LANG_STATEMENT_CACHE_DIRECTORY);
+        if(statementCacheDirectory!=null)
+            persistedStatementCache=PersistedStatementCache.open(statementCacheDirectory);
         schemaCache = new ManagedCache<>(CacheBuilder.newBuilder().recordStats().maximumSize(1024).build());
         aliasDescriptorCache = new ManagedCache<>(CacheBuilder.newBuilder().recordStats().maximumSize(1024).build());
         roleCache = new ManagedCache<>(CacheBuilder.newBuilder().recordStats().maximumSize(100).build());
@@ -381,6 +386,8 @@ public class DataDictionaryCache {
         if (LOG.isDebugEnabled())
             LOG.debug("clearStatementCache ");
         statementCache.invalidateAll();
+        if (persistedStatementCache != null)
+            persistedStatementCache.clear();
     }
 
     public void statementCacheAdd(GenericStatement gs, GenericStorablePreparedStatement gsp) throws StandardException {
@@ -391,6 +398,31 @@ public class DataDictionaryCache {
         statementCache.put(gs,gsp);
     }
 
+    /**
+     * Load the plan which an earlier server saved for a statement, if there is one and it is still valid.
+     *
+     * @return true if the plan was loaded into {@code gsp}
+     */
+    public boolean statementCacheLoad(LanguageConnectionContext lcc, GenericStatement gs, GenericStorablePreparedStatement gsp) throws StandardException {
+        if (persistedStatementCache == null || !dd.canReadCache(null))
+            return false;
+        boolean loaded = persistedStatementCache.load(lcc, gs, gsp);
+        if (LOG.isDebugEnabled())
+            LOG.debug("statementCacheLoad " + gs.toString() + (loaded ? " loaded" : " not loaded"));
+        return loaded;
+    }
+
+    /**
+     * Save the plan of a statement which was just compiled, if the statement is cached.
+     */
+    public void statementCacheSave(LanguageConnectionContext lcc, GenericStatement gs, GenericStorablePreparedStatement gsp) throws StandardException {
+        if (persistedStatementCache == null || !dd.canWriteCache(null) || statementCache.getIfPresent(gs) != gsp)
+            return;
+        if (LOG.isDebugEnabled())
+            LOG.debug("statementCacheSave " + gs.toString());
+        persistedStatementCache.save(lcc, gs, gsp);
+    }
+
     public GenericStorablePreparedStatement statementCacheFind(GenericStatement gs) throws StandardException {
         if (!dd.canReadCache(null))
             return null;
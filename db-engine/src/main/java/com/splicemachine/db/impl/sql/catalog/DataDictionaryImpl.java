@@ -4017,11 +4017,11 @@ public abstract class DataDictionaryImpl extends BaseDataDictionary{
         if(!typeId.isXMLTypeId()){
 
             @SuppressWarnings("StringBufferReplaceableByString") StringBuilder methodCall=new StringBuilder();
-            methodCall.append("CAST (com.splicemachine.db.iapi.db.Factory::getTriggerExecutionContext().");
-            methodCall.append(isOldTable?"getOldRow()":"getNewRow()");
-            methodCall.append(".cloneColumn(");
+            methodCall.append(TRIGGER_COLUMN_REFERENCE_PREFIX);
+            methodCall.append(isOldTable?TRIGGER_OLD_ROW:TRIGGER_NEW_ROW);
+            methodCall.append(TRIGGER_CLONE_COLUMN);
             methodCall.append(colPositionInRuntimeResultSet);
-            methodCall.append(").getObject() AS ");
+            methodCall.append(TRIGGER_GET_OBJECT);
 
 	        /*
 	        ** getSQLString() returns <typeName> 
@@ -4060,10 +4060,9 @@ public abstract class DataDictionaryImpl extends BaseDataDictionary{
 
             @SuppressWarnings("StringBufferReplaceableByString") StringBuilder methodCall=new StringBuilder();
             methodCall.append("XMLPARSE(DOCUMENT CAST( ");
-            methodCall.append(
-                    "com.splicemachine.db.iapi.db.Factory::getTriggerExecutionContext().");
-            methodCall.append(isOldTable?"getOldRow()":"getNewRow()");
-            methodCall.append(".cloneColumn(");
+            methodCall.append(TRIGGER_CONTEXT_REFERENCE);
+            methodCall.append(isOldTable?TRIGGER_OLD_ROW:TRIGGER_NEW_ROW);
+            methodCall.append(TRIGGER_CLONE_COLUMN);
             methodCall.append(colPositionInRuntimeResultSet);
             methodCall.append(").getString() AS CLOB) PRESERVE WHITESPACE ) ");
 
@@ -63,6 +63,8 @@ public class CursorNode extends DMLStatementNode{
 
     private String name;
     private OrderByList orderByList;
+    // orderByList is pushed into the result set during optimization
+    private boolean hasOrderBy;
     private ValueNode offset;     // <result offset clause> value
     private ValueNode fetchFirst; // <fetch first clause> value
     private boolean hasJDBClimitClause; // true if using JDBC limit/offset escape syntax
@@ -118,6 +120,7 @@ public class CursorNode extends DMLStatementNode{
         this.name=(String)name;
         this.statementType=(String)statementType;
         this.orderByList=(OrderByList)orderByList;
+        this.hasOrderBy=orderByList!=null;
         this.offset=(ValueNode)offset;
         this.fetchFirst=(ValueNode)fetchFirst;
         this.hasJDBClimitClause=(hasJDBClimitClause!=null) && (Boolean)hasJDBClimitClause;
@@ -487,6 +490,16 @@ public class CursorNode extends DMLStatementNode{
         return false;
     }
 
+    /**
+     * Without an ORDER BY the rows of a cursor may be returned in any order.
+     *
+     * @return true if the cursor has an ORDER BY clause
+     */
+    @Override
+    public boolean needsOrderedResults(){
+        return hasOrderBy;
+    }
+
     /**
      * Get information about this cursor.  For sps,
      * this is info saved off of the original query
@@ -264,6 +264,14 @@ abstract class DMLModStatementNode extends DMLStatementNode
 		return sd;
 	}	
 
+	/**
+	 * @return the name of the target table, as written in the statement
+	 */
+	public TableName getTargetTableName()
+	{
+		return targetTableName;
+	}
+
 	/**
 	  Get a map to efficiently find heap columns from a compressed set of
 	  read columns. The returns a map such that
@@ -53,6 +53,7 @@ import java.util.Collection;
 public class ExplainNode extends DMLStatementNode {
 
     StatementNode node;
+    boolean analyze;
 
     int activationKind() { return StatementNode.NEED_NOTHING_ACTIVATION; }
 
@@ -60,6 +61,14 @@ public class ExplainNode extends DMLStatementNode {
 
     public void init(Object statementNode) { node = (StatementNode)statementNode; }
 
+    /**
+     * @param analyze whether to run the statement, and show what each of its operations did along with the plan
+     */
+    public void init(Object statementNode, Object analyze) {
+        init(statementNode);
+        this.analyze = (Boolean)analyze;
+    }
+
     /**
      * Used by splice. Provides direct access to the node underlying the explain node.
      * @return the root of the actual execution plan.
@@ -94,7 +103,8 @@ public class ExplainNode extends DMLStatementNode {
         acb.pushThisAsActivation(mb);
         int resultSetNumber = getCompilerContext().getNextResultSetNumber();
         mb.push(resultSetNumber);
-        mb.callMethod(VMOpcode.INVOKEINTERFACE,null, "getExplainResultSet", ClassName.NoPutResultSet, 3);
+        mb.push(analyze);
+        mb.callMethod(VMOpcode.INVOKEINTERFACE,null, "getExplainResultSet", ClassName.NoPutResultSet, 4);
     }
 
     @Override
@@ -98,6 +98,18 @@ public abstract class StatementNode extends QueryTreeNode{
      */
     public boolean needsSavepoint(){ return true; }
 
+    /**
+     * Returns whether the rows returned by this Statement must be delivered
+     * in the order the plan produces them. Only a cursor without an ORDER BY
+     * leaves the order up to the executor.
+     * <p/>
+     * This implementation returns true, sub-classes can override the
+     * method when the order of the results does not matter.
+     *
+     * @return boolean    Whether or not the order of the results must be kept
+     */
+    public boolean needsOrderedResults(){ return true; }
+
     /**
      * Get the name of the SPS that is used to execute this statement. Only
      * relevant for an ExecSPSNode -- otherwise, returns null.
@@ -361,6 +361,8 @@ public class GenericLanguageConnectionContext extends ContextImpl implements Lan
         //
         //Creating the authorizer authorizes the connection.
         authorizer=new GenericAuthorizer(this);
+        if(authorizer.isReadOnlyConnection())
+            tran.setReadOnly(true);
 
         /*
         ** Set the authorization id.  User shouldn't
@@ -2971,6 +2973,7 @@ public class GenericLanguageConnectionContext extends ContextImpl implements Lan
         if(!tran.isPristine())
             throw StandardException.newException(SQLState.AUTH_SET_CONNECTION_READ_ONLY_IN_ACTIVE_XACT);
         authorizer.setReadOnlyConnection(on,true);
+        tran.setReadOnly(on);
     }
 
     @Override
@@ -204,6 +204,29 @@ public abstract class GenericTriggerExecutor {
         }
     }
 
+    /**
+     * Execute a statement prepared from a rewritten trigger action, see {@link SetBasedTriggerAction}. Unlike the
+     * action SPS this is an ordinary statement, so it is re-prepared by its execution when it is out of date.
+     */
+    protected void executeStatement(ExecPreparedStatement statement) throws StandardException {
+        // save the active statement context for exception handling purpose, see executeSPS()
+        StatementContext active_sc = lcc.getStatementContext();
+        ((GenericPreparedStatement)statement).setNeedsSavepoint(false);
+        Activation statementActivation = statement.getActivation(lcc, false);
+        try {
+            ResultSet rs = statement.executeSubStatement(activation, statementActivation, false, 0L);
+            rs.close();
+        } catch (StandardException e) {
+            StatementContext sc = lcc.getStatementContext();
+            if (sc != null && active_sc != sc) {
+                sc.cleanupOnError(e);
+            }
+            throw e;
+        } finally {
+            statementActivation.close();
+        }
+    }
+
     /**
      * Most of the time this will just retrieve the action's prepared statement and save a reference as a field
      * in this class.  When the statement is marked as invalid in the database (because of DDL that changed
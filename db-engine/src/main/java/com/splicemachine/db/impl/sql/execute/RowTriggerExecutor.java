@@ -36,12 +36,23 @@ import com.splicemachine.db.iapi.error.StandardException;
 import com.splicemachine.db.iapi.sql.dictionary.TriggerDescriptor;
 import com.splicemachine.db.iapi.sql.conn.LanguageConnectionContext;
 import com.splicemachine.db.iapi.sql.Activation;
+import com.splicemachine.db.iapi.sql.execute.ExecPreparedStatement;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import org.apache.log4j.Logger;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * A row trigger executor is an object that executes a row trigger.  It is instantiated at execution time.
  * There is one per row trigger.
  */
 public class RowTriggerExecutor extends GenericTriggerExecutor {
+    private static final Logger LOG = Logger.getLogger(RowTriggerExecutor.class);
+    private static final AtomicLong setBasedFirings = new AtomicLong();
+
+    private boolean setBasedActionRetrieved;
+    private ExecPreparedStatement setBasedAction;
     /**
      * Constructor
      *
@@ -95,4 +106,63 @@ public class RowTriggerExecutor extends GenericTriggerExecutor {
         }
     }
 
+    /**
+     * @return true if the action of this trigger can be run once for a batch of triggering rows with
+     * {@link #fireTrigger(TriggerEvent, List)}.
+     */
+    boolean canFireForRows() throws StandardException {
+        return getSetBasedAction() != null;
+    }
+
+    /**
+     * Fire the trigger for a batch of rows, running its action once for all of them.
+     *
+     * @param event the trigger event
+     * @param rows  the triggering rows
+     */
+    void fireTrigger(TriggerEvent event, List<ExecRow> rows) throws StandardException {
+        tec.setTrigger(triggerd);
+        tec.setCurrentTriggerEvent(event);
+
+        try {
+            tec.setTriggeringRows(rows);
+            if (LOG.isDebugEnabled()) {
+                LOG.debug(String.format("Firing trigger %s once for %d rows", triggerd.getName(), rows.size()));
+            }
+            executeStatement(getSetBasedAction());
+            setBasedFirings.incrementAndGet();
+        } finally {
+            tec.clearTrigger();
+        }
+    }
+
+    /**
+     * @return the number of times the action of a row trigger was run once for a batch of rows in this JVM
+     */
+    public static long getSetBasedFirings() {
+        return setBasedFirings.get();
+    }
+
+    private ExecPreparedStatement getSetBasedAction() throws StandardException {
+        if (!setBasedActionRetrieved) {
+            setBasedActionRetrieved = true;
+            String text = SetBasedTriggerAction.rewrite(lcc, triggerd, getAction());
+            if (text != null) {
+                try {
+                    setBasedAction = (ExecPreparedStatement) lcc.prepareInternalStatement(
+                            getAction().getSchemaDescriptor(), text, false, false);
+                } catch (StandardException e) {
+                    // the rewritten action doesn't compile (a type the VTI can't declare, for instance), so
+                    // the action is run row by row instead
+                    if (LOG.isDebugEnabled()) {
+                        LOG.debug(String.format("Firing trigger %s row by row, its action doesn't compile when run " +
+                                "once for many rows: %s", triggerd.getName(), text), e);
+                    }
+                    setBasedAction = null;
+                }
+            }
+        }
+        return setBasedAction;
+    }
+
 }
@@ -0,0 +1,266 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.db.impl.sql.execute;
+
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.sql.compile.CompilerContext;
+import com.splicemachine.db.iapi.sql.compile.Visitable;
+import com.splicemachine.db.iapi.sql.conn.LanguageConnectionContext;
+import com.splicemachine.db.iapi.sql.dictionary.DataDictionary;
+import com.splicemachine.db.iapi.sql.dictionary.SPSDescriptor;
+import com.splicemachine.db.iapi.sql.dictionary.SchemaDescriptor;
+import com.splicemachine.db.iapi.sql.dictionary.TableDescriptor;
+import com.splicemachine.db.iapi.sql.dictionary.TriggerDescriptor;
+import com.splicemachine.db.impl.sql.compile.AggregateNode;
+import com.splicemachine.db.impl.sql.compile.CollectNodesVisitor;
+import com.splicemachine.db.impl.sql.compile.InsertNode;
+import com.splicemachine.db.impl.sql.compile.JavaToSQLValueNode;
+import com.splicemachine.db.impl.sql.compile.ResultSetNode;
+import com.splicemachine.db.impl.sql.compile.RowResultSetNode;
+import com.splicemachine.db.impl.sql.compile.SubqueryNode;
+import com.splicemachine.db.impl.sql.compile.TableName;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Rewrites the action of a row trigger into a statement which runs the action once for a whole batch of
+ * triggering rows, instead of once for every row.
+ * <p/>
+ * Only actions of the form <code>INSERT INTO t [(columns)] VALUES (expressions)</code> are rewritten, and only
+ * when the expressions read nothing but transition variables and constants: a subquery, function call or aggregate
+ * could tell running the action row by row apart from running it once, and so could statement triggers on
+ * <code>t</code>. The references to transition variables which
+ * {@link DataDictionary#getTriggerActionString} generated are replaced by the columns of a VTI over the
+ * triggering rows of the {@link TriggerExecutionContext}, and the VALUES row becomes a select from that VTI:
+ * <pre>
+ * INSERT INTO t SELECT SPLICE_TRIGGER_ROWS.NEW_2, 'x' FROM new com.splicemachine.derby.vti.TriggerRowsVTI('N2')
+ *     AS SPLICE_TRIGGER_ROWS (NEW_2 INTEGER)
+ * </pre>
+ */
+final class SetBasedTriggerAction {
+    private static final String VTI_CLASS = "com.splicemachine.derby.vti.TriggerRowsVTI";
+    private static final String CORRELATION_NAME = "SPLICE_TRIGGER_ROWS";
+
+    private SetBasedTriggerAction() {
+    }
+
+    /**
+     * @param lcc      the lcc
+     * @param triggerd a row trigger
+     * @param action   the action of the trigger
+     * @return the text of a statement which runs the action for all the triggering rows at once, or null if the
+     * action can only be run row by row.
+     */
+    static String rewrite(LanguageConnectionContext lcc, TriggerDescriptor triggerd, SPSDescriptor action) throws StandardException {
+        if (triggerd.getWhenClauseId() != null) {
+            return null;
+        }
+        // the columns of the VTI, from their specification ('O' or 'N' and a position) to their type
+        Map<String, String> columns = new LinkedHashMap<>();
+        String text = replaceReferences(action.getText(), columns);
+        if (text == null || columns.isEmpty()) {
+            return null;
+        }
+        int values = indexOfValues(text);
+        if (values < 0 || !isRowOfValues(lcc, action.getSchemaDescriptor(), text)) {
+            return null;
+        }
+        return selectFromRows(text, values, columns);
+    }
+
+    /**
+     * Turn an action whose transition variable references have been replaced into an insert from the VTI.
+     *
+     * @param text    the action, with its references replaced by {@link #replaceReferences}
+     * @param values  the index of the VALUES keyword in the text
+     * @param columns the columns of the VTI, as collected by {@link #replaceReferences}
+     */
+    static String selectFromRows(String text, int values, Map<String, String> columns) {
+        String row = text.substring(values + "VALUES".length()).trim();
+        if (row.startsWith("(") && closingParenthesis(row, 0) == row.length() - 1) {
+            row = row.substring(1, row.length() - 1);
+        }
+        StringBuilder specs = new StringBuilder();
+        StringBuilder definitions = new StringBuilder();
+        for (Map.Entry<String, String> column : columns.entrySet()) {
+            if (specs.length() > 0) {
+                specs.append(',');
+                definitions.append(", ");
+            }
+            specs.append(column.getKey());
+            definitions.append(columnName(column.getKey())).append(' ').append(column.getValue());
+        }
+        return text.substring(0, values) + "SELECT " + row +
+                " FROM new " + VTI_CLASS + "('" + specs + "') AS " + CORRELATION_NAME + " (" + definitions + ")";
+    }
+
+    /**
+     * Replace the generated transition variable references of an action by references to columns of the VTI.
+     *
+     * @return the new text, or null if the action uses the trigger execution context in some other way.
+     */
+    static String replaceReferences(String text, Map<String, String> columns) {
+        StringBuilder newText = new StringBuilder(text.length());
+        int start = 0;
+        int i = 0;
+        while (i < text.length()) {
+            if (!text.startsWith(DataDictionary.TRIGGER_COLUMN_REFERENCE_PREFIX, i)) {
+                i = skip(text, i);
+                continue;
+            }
+            int pos = i + DataDictionary.TRIGGER_COLUMN_REFERENCE_PREFIX.length();
+            char image;
+            if (text.startsWith(DataDictionary.TRIGGER_OLD_ROW, pos)) {
+                image = 'O';
+            } else if (text.startsWith(DataDictionary.TRIGGER_NEW_ROW, pos)) {
+                image = 'N';
+            } else {
+                return null;
+            }
+            pos += DataDictionary.TRIGGER_OLD_ROW.length();
+            if (!text.startsWith(DataDictionary.TRIGGER_CLONE_COLUMN, pos)) {
+                return null;
+            }
+            pos += DataDictionary.TRIGGER_CLONE_COLUMN.length();
+            int digits = pos;
+            while (pos < text.length() && Character.isDigit(text.charAt(pos))) {
+                pos++;
+            }
+            if (pos == digits || !text.startsWith(DataDictionary.TRIGGER_GET_OBJECT, pos)) {
+                return null;
+            }
+            String spec = image + text.substring(digits, pos);
+            pos += DataDictionary.TRIGGER_GET_OBJECT.length();
+            // the type runs up to the parenthesis which closes the CAST
+            int end = closingParenthesis(text, i + DataDictionary.TRIGGER_COLUMN_REFERENCE_PREFIX.indexOf('('));
+            if (end < 0) {
+                return null;
+            }
+            columns.put(spec, text.substring(pos, end).trim());
+            newText.append(text, start, i).append(CORRELATION_NAME).append('.').append(columnName(spec));
+            i = start = end + 1;
+        }
+        newText.append(text.substring(start));
+        // anything else is a use of the context we didn't generate, or an XML column which is parsed from a string
+        return newText.indexOf("getTriggerExecutionContext") < 0 ? newText.toString() : null;
+    }
+
+    /**
+     * @return true if the statement inserts a single row of values computed from nothing but the VTI columns and
+     * constants, into a table without statement triggers.
+     */
+    private static boolean isRowOfValues(LanguageConnectionContext lcc, SchemaDescriptor compSchema, String text) throws StandardException {
+        Visitable statement;
+        CompilerContext cc = lcc.pushCompilerContext(compSchema);
+        try {
+            statement = cc.getParser().parseStatement(text);
+        } finally {
+            lcc.popCompilerContext(cc);
+        }
+        if (!(statement instanceof InsertNode)) {
+            return false;
+        }
+        InsertNode insert = (InsertNode) statement;
+        ResultSetNode source = insert.getResultSetNode();
+        if (!(source instanceof RowResultSetNode)) {
+            return false;
+        }
+        for (Class nodeClass : new Class[]{SubqueryNode.class, JavaToSQLValueNode.class, AggregateNode.class}) {
+            CollectNodesVisitor visitor = new CollectNodesVisitor(nodeClass);
+            source.accept(visitor);
+            if (!visitor.getList().isEmpty()) {
+                return false;
+            }
+        }
+
+        DataDictionary dd = lcc.getDataDictionary();
+        TableName target = insert.getTargetTableName();
+        SchemaDescriptor sd = target.getSchemaName() == null ? compSchema :
+                dd.getSchemaDescriptor(target.getSchemaName(), lcc.getTransactionExecute(), false);
+        TableDescriptor td = sd == null ? null : dd.getTableDescriptor(target.getTableName(), sd, lcc.getTransactionExecute());
+        if (td == null) {
+            return false;
+        }
+        for (Object trigger : dd.getTriggerDescriptors(td)) {
+            if (!((TriggerDescriptor) trigger).isRowTrigger()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the index of the VALUES keyword which starts the inserted rows, or -1 if there is none.
+     */
+    static int indexOfValues(String text) {
+        int depth = 0;
+        int i = 0;
+        while (i < text.length()) {
+            char c = text.charAt(i);
+            if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            } else if (depth == 0 && text.regionMatches(true, i, "VALUES", 0, "VALUES".length()) &&
+                    (i == 0 || !Character.isJavaIdentifierPart(text.charAt(i - 1))) &&
+                    (i + "VALUES".length() == text.length() || !Character.isJavaIdentifierPart(text.charAt(i + "VALUES".length())))) {
+                return i;
+            }
+            i = skip(text, i);
+        }
+        return -1;
+    }
+
+    /**
+     * @return the index of the parenthesis which closes the one at {@code open}, or -1 if there is none.
+     */
+    private static int closingParenthesis(String text, int open) {
+        int depth = 0;
+        for (int i = open; i < text.length(); i = skip(text, i)) {
+            char c = text.charAt(i);
+            if (c == '(') {
+                depth++;
+            } else if (c == ')' && --depth == 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return the index following the token that starts at {@code i}: a whole string literal, delimited
+     * identifier or comment, or else a single character.
+     */
+    private static int skip(String text, int i) {
+        char c = text.charAt(i);
+        if (c == '\'' || c == '"') {
+            // a doubled quote is an escaped quote, so we can simply look for the next one
+            int end = text.indexOf(c, i + 1);
+            return end < 0 ? text.length() : end + 1;
+        } else if (c == '-' && text.startsWith("--", i)) {
+            int end = text.indexOf('\n', i);
+            return end < 0 ? text.length() : end + 1;
+        } else if (c == '/' && text.startsWith("/*", i)) {
+            int end = text.indexOf("*/", i + 2);
+            return end < 0 ? text.length() : end + 2;
+        }
+        return i + 1;
+    }
+
+    private static String columnName(String spec) {
+        return (spec.charAt(0) == 'O' ? "OLD_" : "NEW_") + spec.substring(1);
+    }
+}
@@ -0,0 +1,292 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.db.impl.sql.execute;
+
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.services.io.ArrayInputStream;
+import com.splicemachine.db.iapi.services.io.DynamicByteArrayOutputStream;
+import com.splicemachine.db.iapi.services.io.FormatIdOutputStream;
+import com.splicemachine.db.iapi.services.io.StreamStorable;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.types.DataValueDescriptor;
+import com.splicemachine.db.iapi.types.HBaseRowLocation;
+import com.splicemachine.utils.ByteSlice;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Holds the rows of a {@link TemporaryRowHolderImpl} which don't fit in its row array, without creating a
+ * temporary conglomerate.
+ *
+ * Rows are kept as they were added until their estimated size passes {@code maxMemory} bytes. They are then
+ * encoded one after another and appended as one block to a local temporary file, so the memory held stays
+ * bounded however many rows are added. Every column is written as a null flag followed, if it isn't null, by
+ * its external form; row locations are written as their bytes instead. Some types don't restore a null from
+ * their external form, hence the separate flag.
+ *
+ * A {@link Scan} reads the rows back in the order they were added, first the blocks of the file and then the
+ * rows held in memory. Rows held in memory are returned as they are, without copying them. Rows read from the
+ * file are decoded into the same row, reusing its values, so a returned row is only valid until the next call
+ * to {@link Scan#next()}. Rows may not be added while a scan is open, and closing the buffer ends its scans.
+ */
+class SpillableRowBuffer{
+    private final ExecRow template;
+    private final int maxMemory;
+    private final List<ExecRow> rows=new ArrayList<>();
+    private long memoryUsed;
+    private final List<Scan> scans=new ArrayList<>(1);
+
+    private DynamicByteArrayOutputStream buffer;
+    private FormatIdOutputStream out;
+    private File spillFile;
+    private DataOutputStream spillOut;
+    private int spilledBlocks;
+    private int maxBlockLength;
+
+    /**
+     * @param template a row with the shape of the rows to hold; it is not modified
+     * @param maxMemory the estimated number of bytes of rows to hold in memory
+     */
+    SpillableRowBuffer(ExecRow template,int maxMemory){
+        this.template=template;
+        this.maxMemory=maxMemory;
+    }
+
+    /**
+     * @param row the row to hold; the buffer keeps it, so it must be a copy the caller no longer changes
+     */
+    void add(ExecRow row) throws StandardException{
+        rows.add(row);
+        for(DataValueDescriptor dvd : row.getRowArray()){
+            if(dvd!=null)
+                memoryUsed+=dvd.estimateMemoryUsage();
+        }
+        if(memoryUsed>maxMemory){
+            try{
+                spill();
+            }catch(IOException e){
+                throw StandardException.plainWrapException(e);
+            }
+        }
+    }
+
+    /**
+     * @return whether some rows have been written to the temporary file
+     */
+    boolean isSpilled(){
+        return spilledBlocks>0;
+    }
+
+    Scan newScan(){
+        Scan scan=new Scan();
+        scans.add(scan);
+        return scan;
+    }
+
+    /**
+     * Drop all rows, end any open scans and delete the temporary file.
+     */
+    void close() throws StandardException{
+        try{
+            for(Scan scan : scans){
+                scan.closed=true;
+                scan.closeFile();
+            }
+        }finally{
+            scans.clear();
+            rows.clear();
+            memoryUsed=0;
+            spilledBlocks=0;
+            buffer=null;
+            out=null;
+            try{
+                if(spillOut!=null)
+                    spillOut.close();
+            }catch(IOException e){
+                throw StandardException.plainWrapException(e);
+            }finally{
+                spillOut=null;
+                if(spillFile!=null && !spillFile.delete())
+                    spillFile.deleteOnExit();
+                spillFile=null;
+            }
+        }
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private void spill() throws IOException, StandardException{
+        if(spillOut==null){
+            spillFile=Files.createTempFile("rowholder",".tmp").toFile();
+            spillOut=new DataOutputStream(new BufferedOutputStream(new FileOutputStream(spillFile)));
+            buffer=new DynamicByteArrayOutputStream();
+            out=new FormatIdOutputStream(buffer);
+        }
+        for(ExecRow row : rows)
+            encode(row);
+        int length=buffer.getUsed();
+        spillOut.writeInt(rows.size());
+        spillOut.writeInt(length);
+        spillOut.write(buffer.getByteArray(),0,length);
+        spillOut.flush();
+        spilledBlocks++;
+        maxBlockLength=Math.max(maxBlockLength,length);
+        rows.clear();
+        memoryUsed=0;
+        buffer.reset();
+    }
+
+    private void encode(ExecRow row) throws IOException, StandardException{
+        for(DataValueDescriptor dvd : row.getRowArray()){
+            if(dvd==null)
+                continue;
+            if(dvd instanceof HBaseRowLocation){
+                ByteSlice slice=((HBaseRowLocation)dvd).getSlice();
+                if(slice==null){
+                    out.writeInt(-1);
+                }else{
+                    out.writeInt(slice.length());
+                    out.write(slice.array(),slice.offset(),slice.length());
+                }
+            }else if(dvd.isNull()){
+                out.writeBoolean(true);
+            }else{
+                // the external form of a stream is not its value
+                if(dvd.hasStream())
+                    ((StreamStorable)dvd).loadStream();
+                out.writeBoolean(false);
+                dvd.writeExternal(out);
+            }
+        }
+    }
+
+    class Scan{
+        private ExecRow row;
+        private ByteSlice[] locations;
+        private final ArrayInputStream in=new ArrayInputStream();
+        private DataInputStream spillIn;
+        private byte[] block;
+        private int blocksRead;
+        private int rowsLeft;
+        private int memoryRowsRead;
+        private boolean closed;
+
+        /**
+         * @return the next row, or null if all rows have been read or the buffer has been closed
+         */
+        ExecRow next() throws StandardException{
+            if(closed)
+                return null;
+            try{
+                while(rowsLeft==0){
+                    if(!nextBlock()){
+                        return memoryRowsRead<rows.size()?rows.get(memoryRowsRead++):null;
+                    }
+                }
+                rowsLeft--;
+                return decode();
+            }catch(IOException|ClassNotFoundException e){
+                throw StandardException.plainWrapException(e);
+            }
+        }
+
+        /**
+         * Start again from the first row.
+         */
+        void reset() throws StandardException{
+            closeFile();
+            blocksRead=0;
+            rowsLeft=0;
+            memoryRowsRead=0;
+        }
+
+        /**
+         * @return whether this scan, or the buffer it reads, has been closed
+         */
+        boolean isClosed(){
+            return closed;
+        }
+
+        void close() throws StandardException{
+            scans.remove(this);
+            closed=true;
+            closeFile();
+        }
+
+        /* ************************************************************************************************************/
+        /*private helper methods*/
+        private ExecRow decode() throws IOException, ClassNotFoundException, StandardException{
+            if(row==null){
+                row=template.getNewNullRow();
+                locations=new ByteSlice[row.nColumns()];
+            }
+            DataValueDescriptor[] dvds=row.getRowArray();
+            for(int i=0;i<dvds.length;i++){
+                DataValueDescriptor dvd=dvds[i];
+                if(dvd==null)
+                    continue;
+                if(dvd instanceof HBaseRowLocation){
+                    int length=in.readInt();
+                    if(length<0){
+                        dvd.setValue((Object)null);
+                        continue;
+                    }
+                    if(locations[i]==null)
+                        locations[i]=new ByteSlice();
+                    // points into the block, which is not overwritten until the next block is read
+                    locations[i].set(in.getData(),in.getPosition(),length);
+                    in.skipBytes(length);
+                    dvd.setValue((Object)locations[i]);
+                }else if(in.readBoolean()){
+                    dvd.restoreToNull();
+                }else{
+                    dvd.readExternal(in);
+                }
+            }
+            return row;
+        }
+
+        private void closeFile() throws StandardException{
+            if(spillIn==null)
+                return;
+            try{
+                spillIn.close();
+            }catch(IOException e){
+                throw StandardException.plainWrapException(e);
+            }finally{
+                spillIn=null;
+            }
+        }
+
+        private boolean nextBlock() throws IOException{
+            if(blocksRead>=spilledBlocks)
+                return false;
+            if(spillIn==null)
+                spillIn=new DataInputStream(new BufferedInputStream(new FileInputStream(spillFile)));
+            rowsLeft=spillIn.readInt();
+            int length=spillIn.readInt();
+            if(block==null || block.length<length)
+                block=new byte[maxBlockLength];
+            spillIn.readFully(block,0,length);
+            in.setData(block);
+            in.setLimit(0,length);
+            blocksRead++;
+            return true;
+        }
+    }
+}
@@ -31,6 +31,8 @@
 
 package com.splicemachine.db.impl.sql.execute;
 
+import com.splicemachine.db.iapi.reference.Property;
+import com.splicemachine.db.iapi.services.property.PropertyUtil;
 import com.splicemachine.db.iapi.services.sanity.SanityManager;
 import com.splicemachine.db.iapi.error.StandardException;
 import com.splicemachine.db.iapi.sql.execute.CursorResultSet;
@@ -54,10 +56,16 @@ import java.util.Properties;
  * This is a class that is used to temporarily
  * (non-persistently) hold rows that are used in
  * language execution.  It will store them in an
- * array, or a temporary conglomerate, depending
- * on the number of rows.  
+ * array, or, past the overflow threshold, in memory
+ * and then in a local temporary file (see
+ * {@link SpillableRowBuffer}).  Unique streams and
+ * virtual memory heaps overflow to a temporary
+ * conglomerate instead.
  * <p>
- * It is used for deferred DML processing.
+ * It is used for deferred DML processing.  In Splice
+ * that is only the deferred index inserts of data
+ * dictionary updates (IndexChanger); user DML and
+ * triggers don't use a temporary row holder.
  *
  */
 class TemporaryRowHolderImpl implements TemporaryRowHolder
@@ -74,6 +82,9 @@ class TemporaryRowHolderImpl implements TemporaryRowHolder
 	private int			numRowsIn;
 	protected int		state = STATE_UNINIT;
 
+	/* rows past the array, unless this is a unique stream or a virtual memory heap */
+	SpillableRowBuffer				overflowRows;
+
 	private	long				    CID;
 	private boolean					conglomCreated;
 	private ConglomerateController	cc;
@@ -266,6 +277,16 @@ class TemporaryRowHolderImpl implements TemporaryRowHolder
 				return;  
             }
 		}
+
+		if (!isUniqueStream && !isVirtualMemHeap)
+		{
+			if (overflowRows == null)
+				overflowRows = new SpillableRowBuffer(rowArray[0],
+					PropertyUtil.getSystemInt(Property.LANG_TEMP_ROW_HOLDER_MEMORY,
+						0, Integer.MAX_VALUE, Property.LANG_TEMP_ROW_HOLDER_MEMORY_DEFAULT));
+			overflowRows.add(cloneRow(inputRow));
+			return;
+		}
 			
 		if (!conglomCreated)
 		{
@@ -604,6 +625,12 @@ class TemporaryRowHolderImpl implements TemporaryRowHolder
 			positionIndex_cc = null;
 		}
 
+		if (overflowRows != null)
+		{
+			overflowRows.close();
+			overflowRows = null;
+		}
+
 		TransactionController tc = activation.getTransactionController();
 
 		if (uniqueIndexCreated)
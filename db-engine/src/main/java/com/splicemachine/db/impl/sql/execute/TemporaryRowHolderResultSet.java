@@ -64,6 +64,7 @@ class TemporaryRowHolderResultSet implements CursorResultSet, NoPutResultSet, Cl
     private ExecRow[] rowArray;
     private int numRowsOut;
     private ScanController scan;
+    private SpillableRowBuffer.Scan overflowScan;
     private TransactionController tc;
     private boolean isOpen;
     private ExecRow currentRow;
@@ -378,6 +379,10 @@ class TemporaryRowHolderResultSet implements CursorResultSet, NoPutResultSet, Cl
                     (DataValueDescriptor[]) null,        // stop key value
                     0);                                  // stop operator
         }
+
+        if (overflowScan != null) {
+            overflowScan.reset();
+        }
     }
 
     /**
@@ -406,6 +411,15 @@ class TemporaryRowHolderResultSet implements CursorResultSet, NoPutResultSet, Cl
             return currentRow;
         }
 
+        if (holder.overflowRows != null) {
+            // rows read back from disk are decoded into the same row object; a scan of rows the holder
+            // has since dropped was closed with them
+            if (overflowScan == null || overflowScan.isClosed())
+                overflowScan = holder.overflowRows.newScan();
+            currentRow = overflowScan.next();
+            return currentRow;
+        }
+
         if (holder.getTemporaryConglomId() == 0) {
             return null;
         }
@@ -663,6 +677,10 @@ class TemporaryRowHolderResultSet implements CursorResultSet, NoPutResultSet, Cl
             scan.close();
             scan = null;
         }
+        if (overflowScan != null) {
+            overflowScan.close();
+            overflowScan = null;
+        }
     }
 
 
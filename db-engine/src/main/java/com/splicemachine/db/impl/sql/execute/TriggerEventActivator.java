@@ -44,6 +44,7 @@ import com.splicemachine.db.iapi.sql.conn.LanguageConnectionContext;
 import com.splicemachine.db.iapi.sql.conn.StatementContext;
 import com.splicemachine.db.iapi.sql.dictionary.TriggerDescriptor;
 import com.splicemachine.db.iapi.sql.execute.CursorResultSet;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
 
 /**
  * Responsible for firing a trigger or set of triggers based on an event.
@@ -60,6 +61,7 @@ public class TriggerEventActivator {
     private UUID tableId;
     private String tableName;
     private boolean tecPushed;
+    private boolean hasAICounters;
 
     /**
      * Basic constructor
@@ -87,6 +89,7 @@ public class TriggerEventActivator {
             this.statementText = context.getStatementText();
         }
 
+        this.hasAICounters = aiCounters != null;
         initTriggerExecContext(aiCounters);
         setupExecutors(triggerInfo);
     }
@@ -190,6 +193,50 @@ public class TriggerEventActivator {
         }
     }
 
+    /**
+     * Whether the row triggers of an event can be fired once for a batch of rows with
+     * {@link #notifyRowEvent(TriggerEvent, List)}. This takes a single row trigger, so that firing it for a batch
+     * doesn't change the order in which triggers see rows, whose action can be run as one statement over the batch.
+     *
+     * @param event a trigger event
+     */
+    public boolean canNotifyRowEventForBatch(TriggerEvent event) throws StandardException {
+        if (hasAICounters) {
+            // the counters are updated from the triggering row before each execution of the action
+            return false;
+        }
+        List<GenericTriggerExecutor> triggerExecutors = rowExecutorsMap.get(event);
+        return triggerExecutors != null && triggerExecutors.size() == 1 &&
+                ((RowTriggerExecutor) triggerExecutors.get(0)).canFireForRows();
+    }
+
+    /**
+     * Handle the given row event for a batch of rows, see {@link #canNotifyRowEventForBatch(TriggerEvent)}.
+     *
+     * @param event a trigger event
+     * @param rows  the triggering rows
+     */
+    public void notifyRowEvent(TriggerEvent event, List<ExecRow> rows) throws StandardException {
+        List<GenericTriggerExecutor> triggerExecutors = rowExecutorsMap.get(event);
+        if (triggerExecutors == null || triggerExecutors.isEmpty() || rows.isEmpty()) {
+            return;
+        }
+
+        try {
+            lcc.pushExecutionStmtValidator(tec);
+            if (! tecPushed) {
+                lcc.pushTriggerExecutionContext(tec);
+                tecPushed = true;
+            }
+
+            for (GenericTriggerExecutor triggerExecutor : triggerExecutors) {
+                ((RowTriggerExecutor) triggerExecutor).fireTrigger(event, rows);
+            }
+        } finally {
+            lcc.popExecutionStmtValidator(tec);
+        }
+    }
+
     /**
      * Clean up and release resources.
      */
@@ -89,6 +89,17 @@ public class TriggerExecutionContext implements ExecutionStmtValidator, External
     private ExecRow afterRow;   // used exclusively for InsertResultSets which have autoincrement columns.
     private TriggerEvent event;
 
+    /* ========================
+     * Local information
+     * ========================
+     */
+    /**
+     * The triggering rows of a row trigger which is fired once for a whole batch of rows. These are only read by
+     * the statement which runs the trigger action, which opens on the node that fires the trigger, so they are
+     * not serialized.
+     */
+    private List<ExecRow> triggeringRows;
+
     /**
      * aiCounters is a list of AutoincrementCounters used to keep state which might be used by the trigger. This is
      * only used by Insert triggers--Delete and Update triggers do not use this variable.
@@ -173,10 +184,44 @@ public class TriggerExecutionContext implements ExecutionStmtValidator, External
         this.triggerd = triggerd;
     }
 
+    /**
+     * Set the triggering rows of a row trigger whose action runs once for all of them.
+     *
+     * @param rows the triggering rows, in the same form as the row of a triggering result set
+     */
+    public void setTriggeringRows(List<ExecRow> rows) {
+        this.triggeringRows = rows;
+    }
+
+    /**
+     * @return the rows set by {@link #setTriggeringRows(List)}, or null if the trigger is being fired one row
+     * at a time.
+     */
+    public List<ExecRow> getTriggeringRows() {
+        return triggeringRows;
+    }
+
+    /**
+     * Get a copy of a column of the old or new image of a triggering row. This is the batched equivalent of
+     * <code>getOldRow().cloneColumn(position)</code> and <code>getNewRow().cloneColumn(position)</code>.
+     *
+     * @param triggeringRow one of the triggering rows
+     * @param oldRow        true for the old (before) image of the row, false for the new (after) image
+     * @param position      the (1-based) position of the column in the image
+     */
+    public DataValueDescriptor cloneTransitionColumn(ExecRow triggeringRow, boolean oldRow, int position) {
+        if (this.event != null && this.event.isUpdate() && !oldRow) {
+            // see extractColumns(), the new values follow the old ones
+            position += (triggeringRow.nColumns() - 1) / 2;
+        }
+        return triggeringRow.cloneColumn(position);
+    }
+
     public void clearTrigger() throws StandardException {
         event = null;
         triggerd = null;
         triggeringResultSet = null;
+        triggeringRows = null;
     }
 
     /////////////////////////////////////////////////////////
@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.db.impl.services.cache;
+
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.services.cache.CacheManager;
+import com.splicemachine.db.iapi.services.cache.Cacheable;
+import com.splicemachine.db.iapi.services.cache.CacheableFactory;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Tests for the lock-free clock in {@link ClockPolicy}, as used by
+ * {@link ConcurrentCache}.
+ */
+public class ConcurrentCacheTest {
+
+    @Test
+    public void evictsWhenFull() throws Exception {
+        ConcurrentCache cache = newCache(10);
+        for (int i = 0; i < 100; i++) {
+            Cacheable c = cache.find(i);
+            Assert.assertEquals(i, c.getIdentity());
+            cache.release(c);
+        }
+        Assert.assertTrue("cache grew past its maximum size: " + cache.values().size(),
+                cache.values().size() <= 10);
+        cache.shutdown();
+    }
+
+    @Test
+    public void keptEntriesAreNotEvicted() throws Exception {
+        ConcurrentCache cache = newCache(10);
+        List<Cacheable> kept = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            kept.add(cache.find(i));
+        }
+        // the clock has no evictable entry, so it has to grow
+        Cacheable extra = cache.find(10);
+        Assert.assertEquals(11, cache.values().size());
+        for (int i = 0; i < 10; i++) {
+            Assert.assertSame(kept.get(i), cache.findCached(i));
+            cache.release(kept.get(i));
+            cache.release(kept.get(i));
+        }
+        cache.release(extra);
+        cache.shutdown();
+    }
+
+    @Test
+    public void concurrentFindReturnsRequestedIdentity() throws Exception {
+        final ConcurrentCache cache = newCache(50);
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        try {
+            List<Future<Void>> futures = new ArrayList<>();
+            for (int t = 0; t < 16; t++) {
+                futures.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws StandardException {
+                        for (int i = 0; i < 10000; i++) {
+                            Integer key = ThreadLocalRandom.current().nextInt(200);
+                            Cacheable c = cache.find(key);
+                            Assert.assertEquals(key, c.getIdentity());
+                            cache.release(c);
+                        }
+                        return null;
+                    }
+                }));
+            }
+            for (Future<Void> f : futures) {
+                f.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        cache.shutdown();
+    }
+
+    private static ConcurrentCache newCache(int maxSize) {
+        return new ConcurrentCache(new CacheableFactory() {
+            @Override
+            public Cacheable newCacheable(CacheManager cm) {
+                return new TestCacheable();
+            }
+        }, "test", 1, maxSize);
+    }
+
+    private static final class TestCacheable implements Cacheable {
+        private Object identity;
+
+        @Override
+        public Cacheable setIdentity(Object key) {
+            identity = key;
+            return this;
+        }
+
+        @Override
+        public Cacheable createIdentity(Object key, Object createParameter) {
+            identity = key;
+            return this;
+        }
+
+        @Override
+        public void clearIdentity() {
+            identity = null;
+        }
+
+        @Override
+        public Object getIdentity() {
+            return identity;
+        }
+
+        @Override
+        public boolean isDirty() {
+            return false;
+        }
+
+        @Override
+        public void clean(boolean forRemove) {
+        }
+    }
+}
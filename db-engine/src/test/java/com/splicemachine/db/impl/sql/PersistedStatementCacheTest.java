@@ -0,0 +1,278 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.db.impl.sql;
+
+import com.splicemachine.db.catalog.UUID;
+import com.splicemachine.db.iapi.sql.conn.LanguageConnectionContext;
+import com.splicemachine.db.iapi.sql.depend.Dependency;
+import com.splicemachine.db.iapi.sql.depend.DependencyManager;
+import com.splicemachine.db.iapi.sql.dictionary.ConglomerateDescriptor;
+import com.splicemachine.db.iapi.sql.dictionary.DataDescriptorGenerator;
+import com.splicemachine.db.iapi.sql.dictionary.DataDictionary;
+import com.splicemachine.db.impl.services.uuid.BasicUUID;
+import com.splicemachine.db.impl.sql.catalog.DDdependableFinder;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.*;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests for {@link PersistedStatementCache}, against a data dictionary which holds a single conglomerate.
+ */
+public class PersistedStatementCacheTest {
+    private static final UUID CONGLOMERATE_ID = new BasicUUID(1L, 2L, 3);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private String directory;
+    private ConglomerateDescriptor conglomerate;
+    private final AtomicInteger dependencies = new AtomicInteger();
+    private DataDictionary dd;
+    private LanguageConnectionContext lcc;
+
+    @Before
+    public void setUp() throws Exception {
+        directory = new File(folder.getRoot(), "plans").getPath();
+        final DependencyManager dm = proxy(DependencyManager.class, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                if (method.getName().equals("find")) {
+                    return Collections.singletonList(proxy(Dependency.class, new InvocationHandler() {
+                        @Override
+                        public Object invoke(Object proxy, Method method, Object[] args) {
+                            return method.getName().equals("getProvider") ? conglomerate : null;
+                        }
+                    }));
+                }
+                if (method.getName().equals("addDependency")) {
+                    dependencies.incrementAndGet();
+                }
+                return null;
+            }
+        });
+        dd = proxy(DataDictionary.class, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                switch (method.getName()) {
+                    case "getDependencyManager":
+                        return dm;
+                    case "getDependableFinder":
+                        return new DDdependableFinder((Integer) args[0]);
+                    case "getConglomerateDescriptor":
+                        return CONGLOMERATE_ID.equals(args[0]) ? conglomerate : null;
+                    default:
+                        return null;
+                }
+            }
+        });
+        conglomerate = conglomerate(1168L);
+        lcc = proxy(LanguageConnectionContext.class, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                return method.getName().equals("getDataDictionary") ? dd : null;
+            }
+        });
+    }
+
+    @Test
+    public void savedPlanIsLoaded() throws Exception {
+        PersistedStatementCache cache = PersistedStatementCache.open(directory, "build 1");
+        cache.save(lcc, new TestStatement(), new TestPreparedStatement("plan"));
+
+        TestPreparedStatement ps = new TestPreparedStatement(null);
+        Assert.assertTrue(PersistedStatementCache.open(directory, "build 1").load(lcc, new TestStatement(), ps));
+        Assert.assertEquals("plan", ps.plan);
+        Assert.assertTrue(ps.isValid);
+        Assert.assertEquals(1, dependencies.get());
+    }
+
+    @Test
+    public void changedProviderInvalidatesPlan() throws Exception {
+        PersistedStatementCache cache = PersistedStatementCache.open(directory, "build 1");
+        cache.save(lcc, new TestStatement(), new TestPreparedStatement("plan"));
+
+        // the conglomerate was replaced, say by a truncate
+        conglomerate = conglomerate(1184L);
+        Assert.assertFalse(cache.load(lcc, new TestStatement(), new TestPreparedStatement(null)));
+        Assert.assertEquals("the invalid plan should have been deleted", 0, planCount());
+    }
+
+    @Test
+    public void otherBuildIgnoresPlan() throws Exception {
+        PersistedStatementCache.open(directory, "build 1").save(lcc, new TestStatement(), new TestPreparedStatement("plan"));
+
+        TestPreparedStatement ps = new TestPreparedStatement(null);
+        Assert.assertFalse(PersistedStatementCache.open(directory, "build 2").load(lcc, new TestStatement(), ps));
+        Assert.assertNull(ps.plan);
+    }
+
+    @Test
+    public void tamperedPlanIsNotRead() throws Exception {
+        PersistedStatementCache cache = PersistedStatementCache.open(directory, "build 1");
+        cache.save(lcc, new TestStatement(), new TestPreparedStatement("plan"));
+        File plan = planFiles()[0];
+        byte[] bytes = Files.readAllBytes(plan.toPath());
+        bytes[bytes.length / 2] ^= 1;
+        Files.write(plan.toPath(), bytes);
+
+        TestPreparedStatement ps = new TestPreparedStatement(null);
+        Assert.assertFalse(cache.load(lcc, new TestStatement(), ps));
+        Assert.assertNull(ps.plan);
+        Assert.assertEquals(0, planCount());
+    }
+
+    @Test
+    public void onlyPlanClassesAreDeserialized() throws Exception {
+        PersistedStatementCache cache = PersistedStatementCache.open(directory, "build 1");
+        File file = new File(directory, "test.plan");
+        cache.writePlan(file, serialize("text", new java.math.BigDecimal("1.5"), CONGLOMERATE_ID, new long[]{1L}));
+        try (ObjectInputStream in = cache.openPlan(file)) {
+            Assert.assertEquals("text", in.readObject());
+            Assert.assertEquals(new java.math.BigDecimal("1.5"), in.readObject());
+            Assert.assertEquals(CONGLOMERATE_ID, in.readObject());
+            Assert.assertArrayEquals(new long[]{1L}, (long[]) in.readObject());
+        }
+
+        cache.writePlan(file, serialize((Object) new File[]{new File("x")}));
+        try (ObjectInputStream in = cache.openPlan(file)) {
+            in.readObject();
+            Assert.fail("a File should not be deserialized");
+        } catch (InvalidClassException expected) {
+        }
+    }
+
+    @Test
+    public void planSignedWithAnotherKeyIsNotRead() throws Exception {
+        File otherDirectory = new File(folder.getRoot(), "other");
+        PersistedStatementCache.open(otherDirectory.getPath(), "build 1").save(lcc, new TestStatement(), new TestPreparedStatement("plan"));
+        PersistedStatementCache cache = PersistedStatementCache.open(directory, "build 1");
+        File plan = planFiles(otherDirectory)[0];
+        Files.copy(plan.toPath(), new File(directory, plan.getName()).toPath());
+
+        Assert.assertFalse(cache.load(lcc, new TestStatement(), new TestPreparedStatement(null)));
+    }
+
+    @Test
+    public void directoryWritableByOthersIsNotUsed() throws Exception {
+        PersistedStatementCache.open(directory, "build 1");
+        Assert.assertEquals("rwx------", PosixFilePermissions.toString(Files.getPosixFilePermissions(new File(directory).toPath())));
+
+        Files.setPosixFilePermissions(new File(directory).toPath(), PosixFilePermissions.fromString("rwxrwxrwx"));
+        Assert.assertNull(PersistedStatementCache.open(directory, "build 1"));
+    }
+
+    private File[] planFiles() {
+        return planFiles(new File(directory));
+    }
+
+    private static File[] planFiles(File directory) {
+        File[] files = directory.listFiles(new FilenameFilter() {
+            @Override
+            public boolean accept(File dir, String name) {
+                return name.endsWith(".plan");
+            }
+        });
+        return files == null ? new File[0] : files;
+    }
+
+    private int planCount() {
+        return planFiles().length;
+    }
+
+    private ConglomerateDescriptor conglomerate(long number) {
+        return new DataDescriptorGenerator(dd).newConglomerateDescriptor(number, "T", false, null, false,
+                CONGLOMERATE_ID, new BasicUUID(1L, 2L, 4), new BasicUUID(1L, 2L, 5));
+    }
+
+    private static byte[] serialize(Object... objects) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            for (Object object : objects) {
+                out.writeObject(object);
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, final InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class[]{type}, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                Object result = handler.invoke(proxy, method, args);
+                if (result == null && method.getReturnType() == boolean.class) {
+                    return false;
+                }
+                if (result == null && method.getReturnType().isPrimitive() && method.getReturnType() != void.class) {
+                    return 0;
+                }
+                return result;
+            }
+        });
+    }
+
+    private static class TestStatement extends GenericStatement {
+        TestStatement() {
+            super(null, "select * from T", true);
+        }
+
+        @Override
+        String getPersistedKey(LanguageConnectionContext lcc) {
+            return "select * from T";
+        }
+    }
+
+    /**
+     * A prepared statement whose plan is a string.
+     */
+    private static class TestPreparedStatement extends GenericStorablePreparedStatement {
+        private static final UUID ID = new BasicUUID(1L, 2L, 6);
+        String plan;
+
+        TestPreparedStatement(String plan) {
+            this.plan = plan;
+        }
+
+        @Override
+        public UUID getObjectID() {
+            return ID;
+        }
+
+        @Override
+        public void writeExternal(ObjectOutput out) throws IOException {
+            out.writeObject(plan);
+        }
+
+        @Override
+        public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+            plan = (String) in.readObject();
+        }
+
+        @Override
+        public void loadGeneratedClass() {
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.db.impl.sql.execute;
+
+import com.splicemachine.db.iapi.sql.dictionary.DataDictionary;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Tests for the text rewriting of {@link SetBasedTriggerAction}.
+ */
+public class SetBasedTriggerActionTest {
+
+    @Test
+    public void replacesTransitionVariableReferences() {
+        Map<String, String> columns = new LinkedHashMap<>();
+        String text = SetBasedTriggerAction.replaceReferences(
+                "INSERT INTO RECORD_NEW (b, a) VALUES(" + reference(DataDictionary.TRIGGER_NEW_ROW, 2, "INTEGER") + "- " +
+                        reference(DataDictionary.TRIGGER_OLD_ROW, 2, "INTEGER") + ", " + reference(DataDictionary.TRIGGER_OLD_ROW, 1, "VARCHAR(20)") + ")", columns);
+
+        Assert.assertEquals("INSERT INTO RECORD_NEW (b, a) VALUES(SPLICE_TRIGGER_ROWS.NEW_2 - SPLICE_TRIGGER_ROWS.OLD_2 , " +
+                "SPLICE_TRIGGER_ROWS.OLD_1 )", text);
+        Assert.assertEquals("[N2, O2, O1]", columns.keySet().toString());
+        Assert.assertEquals("VARCHAR(20)", columns.get("O1"));
+    }
+
+    @Test
+    public void rewritesValuesIntoSelectFromRows() {
+        Map<String, String> columns = new LinkedHashMap<>();
+        String text = SetBasedTriggerAction.replaceReferences(
+                "INSERT INTO T VALUES (" + reference(DataDictionary.TRIGGER_NEW_ROW, 1, "CHAR(3)") + ", 'VALUES (x)')", columns);
+        int values = SetBasedTriggerAction.indexOfValues(text);
+
+        Assert.assertEquals("INSERT INTO T SELECT SPLICE_TRIGGER_ROWS.NEW_1 , 'VALUES (x)' FROM new " +
+                        "com.splicemachine.derby.vti.TriggerRowsVTI('N1') AS SPLICE_TRIGGER_ROWS (NEW_1 CHAR(3))",
+                SetBasedTriggerAction.selectFromRows(text, values, columns));
+    }
+
+    @Test
+    public void findsValuesOutsideLiteralsCommentsAndParentheses() {
+        Assert.assertEquals(-1, SetBasedTriggerAction.indexOfValues("INSERT INTO T SELECT 'VALUES' FROM S"));
+        Assert.assertEquals(-1, SetBasedTriggerAction.indexOfValues("INSERT INTO \"VALUES\" SELECT * FROM S"));
+        Assert.assertEquals(-1, SetBasedTriggerAction.indexOfValues("INSERT INTO T SELECT * FROM (VALUES 1) S"));
+        Assert.assertEquals(-1, SetBasedTriggerAction.indexOfValues("INSERT INTO MY_VALUES SELECT * FROM S"));
+        Assert.assertEquals(-1, SetBasedTriggerAction.indexOfValues("INSERT INTO T -- VALUES\n SELECT * FROM S"));
+        Assert.assertEquals(-1, SetBasedTriggerAction.indexOfValues("INSERT INTO T /* VALUES */ SELECT * FROM S"));
+        Assert.assertEquals(14, SetBasedTriggerAction.indexOfValues("INSERT INTO T values (1)"));
+    }
+
+    @Test
+    public void otherUsesOfTheContextAreNotRewritten() {
+        Map<String, String> columns = new LinkedHashMap<>();
+        Assert.assertNull(SetBasedTriggerAction.replaceReferences(
+                "INSERT INTO T VALUES (CAST (com.splicemachine.db.iapi.db.Factory::getTriggerExecutionContext()" +
+                        ".getNewRowSet() AS INTEGER) )", columns));
+        Assert.assertNull(SetBasedTriggerAction.replaceReferences(
+                "INSERT INTO T VALUES (" + reference(DataDictionary.TRIGGER_NEW_ROW, 1, "INTEGER") +
+                        ", com.splicemachine.db.iapi.db.Factory::getTriggerExecutionContext().getEventStatementText())", columns));
+    }
+
+    @Test
+    public void referencesInLiteralsAreLeftAlone() {
+        Map<String, String> columns = new LinkedHashMap<>();
+        String literal = "'" + reference(DataDictionary.TRIGGER_NEW_ROW, 1, "INTEGER") + "'";
+        Assert.assertNull("a literal which looks like a context call must not be replaced, nor accepted",
+                SetBasedTriggerAction.replaceReferences("INSERT INTO T VALUES (" + literal + ")", columns));
+        Assert.assertTrue(columns.isEmpty());
+    }
+
+    /**
+     * @return a transition variable reference as {@code DataDictionaryImpl.genColumnReferenceSQL()} generates it
+     */
+    private static String reference(String row, int position, String type) {
+        return DataDictionary.TRIGGER_COLUMN_REFERENCE_PREFIX + row +
+                DataDictionary.TRIGGER_CLONE_COLUMN + position + DataDictionary.TRIGGER_GET_OBJECT + type + ") ";
+    }
+}
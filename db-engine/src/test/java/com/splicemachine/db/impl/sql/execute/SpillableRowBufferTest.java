@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.db.impl.sql.execute;
+
+import com.splicemachine.db.iapi.sql.Activation;
+import com.splicemachine.db.iapi.sql.execute.CursorResultSet;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.types.*;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+
+/**
+ * Tests for {@link SpillableRowBuffer}.
+ */
+public class SpillableRowBufferTest {
+
+    @Test
+    public void readsRowsBackInOrder() throws Exception {
+        checkRoundTrip(1 << 20, 100);
+    }
+
+    @Test
+    public void readsSpilledRowsBackInOrder() throws Exception {
+        checkRoundTrip(256, 1000);
+    }
+
+    @Test
+    public void rowsInMemoryAreNotCopied() throws Exception {
+        SpillableRowBuffer buffer = new SpillableRowBuffer(row(0), 1 << 20);
+        ExecRow[] added = new ExecRow[10];
+        for (int i = 0; i < added.length; i++) {
+            added[i] = row(i);
+            buffer.add(added[i]);
+        }
+        SpillableRowBuffer.Scan scan = buffer.newScan();
+        for (ExecRow row : added) {
+            Assert.assertSame(row, scan.next());
+        }
+        Assert.assertNull(scan.next());
+        scan.close();
+        buffer.close();
+    }
+
+    @Test
+    public void indexRowsKeepTheirShape() throws Exception {
+        SpillableRowBuffer buffer = new SpillableRowBuffer(new IndexValueRow(row(0)), 64);
+        for (int i = 0; i < 50; i++) {
+            buffer.add(new IndexValueRow(row(i)));
+        }
+        Assert.assertTrue(buffer.isSpilled());
+        SpillableRowBuffer.Scan scan = buffer.newScan();
+        ExecRow read = scan.next();
+        Assert.assertTrue(read instanceof IndexValueRow);
+        assertRow(0, read);
+        scan.close();
+        buffer.close();
+    }
+
+    @Test
+    public void closingTheBufferEndsItsScans() throws Exception {
+        SpillableRowBuffer buffer = new SpillableRowBuffer(row(0), 256);
+        for (int i = 0; i < 100; i++) {
+            buffer.add(row(i));
+        }
+        SpillableRowBuffer.Scan scan = buffer.newScan();
+        assertRow(0, scan.next());
+        buffer.close();
+        Assert.assertTrue(scan.isClosed());
+        Assert.assertNull(scan.next());
+        scan.reset();
+        Assert.assertNull(scan.next());
+        scan.close();
+    }
+
+    @Test
+    public void rowHolderOverflowsWithoutAConglomerate() throws Exception {
+        TemporaryRowHolderImpl holder = new TemporaryRowHolderImpl(activation(), null, null);
+        for (int i = 0; i < 100; i++) {
+            holder.insert(row(i));
+        }
+        Assert.assertEquals(0, holder.getTemporaryConglomId());
+
+        CursorResultSet rs = holder.getResultSet();
+        rs.open();
+        for (int pass = 0; pass < 2; pass++) {
+            for (int i = 0; i < 100; i++) {
+                assertRow(i, rs.getNextRow());
+            }
+            Assert.assertNull(rs.getNextRow());
+            ((TemporaryRowHolderResultSet) rs).reopenCore();
+        }
+        rs.close();
+        holder.close();
+    }
+
+    @Test
+    public void openResultSetReadsTheRowsOfATruncatedHolder() throws Exception {
+        TemporaryRowHolderImpl holder = new TemporaryRowHolderImpl(activation(), null, null);
+        for (int i = 0; i < 20; i++) {
+            holder.insert(row(i));
+        }
+        CursorResultSet rs = holder.getResultSet();
+        rs.open();
+        for (int i = 0; i < 10; i++) {
+            assertRow(i, rs.getNextRow());
+        }
+
+        holder.truncate();
+        for (int i = 100; i < 120; i++) {
+            holder.insert(row(i));
+        }
+        ((TemporaryRowHolderResultSet) rs).reopenCore();
+        for (int i = 100; i < 120; i++) {
+            assertRow(i, rs.getNextRow());
+        }
+        Assert.assertNull(rs.getNextRow());
+        rs.close();
+        holder.close();
+    }
+
+    private static Activation activation() {
+        // the activation is only asked for a transaction controller, which is only used for conglomerates
+        return (Activation) Proxy.newProxyInstance(Activation.class.getClassLoader(),
+                new Class<?>[]{Activation.class}, (proxy, method, args) -> null);
+    }
+
+    private static void checkRoundTrip(int maxMemory, int rows) throws Exception {
+        SpillableRowBuffer buffer = new SpillableRowBuffer(row(0), maxMemory);
+        long memory = 0;
+        for (int i = 0; i < rows; i++) {
+            ExecRow row = row(i);
+            for (DataValueDescriptor dvd : row.getRowArray())
+                memory += dvd.estimateMemoryUsage();
+            buffer.add(row);
+        }
+        Assert.assertEquals(memory > maxMemory, buffer.isSpilled());
+
+        SpillableRowBuffer.Scan scan = buffer.newScan();
+        for (int pass = 0; pass < 2; pass++) {
+            for (int i = 0; i < rows; i++) {
+                ExecRow read = scan.next();
+                assertRow(i, read);
+            }
+            Assert.assertNull(scan.next());
+            scan.reset();
+        }
+        scan.close();
+        buffer.close();
+    }
+
+    private static ExecRow row(int i) throws Exception {
+        ValueRow row = new ValueRow(6);
+        row.setColumn(1, new SQLInteger(i));
+        row.setColumn(2, i % 3 == 0 ? new SQLVarchar() : new SQLVarchar("row " + i));
+        row.setColumn(3, new SQLDecimal(BigDecimal.valueOf(i, 2)));
+        row.setColumn(4, new SQLTimestamp(new Timestamp(1500000000000L + i)));
+        row.setColumn(5, i % 5 == 0 ? new SQLLongint() : new SQLLongint(-i));
+        row.setColumn(6, new HBaseRowLocation(new byte[]{(byte) i, (byte) (i >> 8), 7}));
+        return row;
+    }
+
+    private static void assertRow(int i, ExecRow read) throws Exception {
+        ExecRow expected = row(i);
+        for (int c = 1; c <= expected.nColumns(); c++) {
+            DataValueDescriptor e = expected.getColumn(c);
+            DataValueDescriptor a = read.getColumn(c);
+            Assert.assertEquals("row " + i + " column " + c + " nullness", e.isNull(), a.isNull());
+            if (!e.isNull())
+                Assert.assertEquals("row " + i + " column " + c, 0, e.compare(a));
+        }
+    }
+}
@@ -627,6 +627,30 @@ public interface Property {
 	String	LANG_SPS_CACHE_SIZE = "derby.language.spsCacheSize";
 	int		LANG_SPS_CACHE_SIZE_DEFAULT =32;
 
+	/**
+	 * A local directory in which the plans of cached statements are
+	 * saved, so that they can be loaded rather than compiled again
+	 * after a restart. Unset by default, which keeps plans in memory
+	 * only.  System.  Static.
+	 * <p>
+	 * The directory must belong to the user the engine runs as, and
+	 * must not be writable by anyone else; plans are not saved or
+	 * loaded otherwise.
+	 * <p>
+	 * Undocumented.
+	 */
+	String	LANG_STATEMENT_CACHE_DIRECTORY = "derby.language.statementCacheDirectory";
+
+	/**
+	 * The estimated number of bytes of rows a temporary row holder keeps
+	 * in memory before it appends them to a local temporary file.
+	 * System.  Static.
+	 * <p>
+	 * Undocumented.
+	 */
+	String	LANG_TEMP_ROW_HOLDER_MEMORY = "derby.language.tempRowHolderMemory";
+	int		LANG_TEMP_ROW_HOLDER_MEMORY_DEFAULT = 4*1024*1024;
+
 	/**
 	 * The size of the sequence generator cache 
 	 * used by the data dictionary.  Database.  Static.
@@ -1089,6 +1113,18 @@ public interface Property {
 	 * client socket setKeepAlive value
 	 */
 	String DRDA_PROP_KEEPALIVE = "derby.drda.keepAlive";
+
+	/**
+	 * db.drda.nonBlocking
+	 *
+	 *<BR>
+	 * Whether idle sessions are parked on a selector instead of holding a
+	 * connection thread while they wait for the next request. Only applies
+	 * when SSL is off.
+	 *<BR>
+	 * Default: false
+	 */
+	String DRDA_PROP_NONBLOCKING = "derby.drda.nonBlocking";
 	
 
     /**
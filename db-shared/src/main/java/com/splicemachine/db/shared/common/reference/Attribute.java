@@ -289,6 +289,22 @@ public interface Attribute {
      */    
     String CLIENT_RETIEVE_MESSAGE_TEXT = "retrieveMessageText";
 
+    /**
+     * prefetch.
+     * Client driver attribute. When true, forward-only result sets ask the
+     * server for their next block of rows while the application is still
+     * reading the current one.
+     */
+    String CLIENT_PREFETCH = "prefetch";
+
+    /**
+     * prefetchMemory.
+     * Client driver attribute. The number of bytes of row data a result set
+     * may hold when prefetching, split between the block being read and the
+     * block in flight.
+     */
+    String CLIENT_PREFETCH_MEMORY = "prefetchMemory";
+
     /**
        The attribute that is used to set client SSL mode.
     */
@@ -255,6 +255,7 @@ public class SpliceDefaultCompactor extends DefaultCompactor {
         IOException e = null;
         try {
             InternalScanner scanner = null;
+            SICompactionState state = null;
             try {
                 /* Include deletes, unless we are doing a compaction of all files */
                 ScanType scanType =
@@ -265,9 +266,13 @@ public class SpliceDefaultCompactor extends DefaultCompactor {
                 }
                 if (needsSI(store.getTableName())) {
                     SIDriver driver=SIDriver.driver();
-                    SICompactionState state = new SICompactionState(driver.getTxnSupplier(),
+                    // versions can only be collected when the compaction sees all of them
+                    long versionGCWatermark = request.isAllFiles() && driver.getConfiguration().getVersionGCEnabled() ?
+                            driver.getVersionGCWatermark().getWatermark() : 0l;
+                    state = new SICompactionState(driver.getTxnSupplier(),
                             driver.getRollForward(),
-                            driver.getConfiguration().getActiveTransactionCacheSize());
+                            driver.getConfiguration().getActiveTransactionCacheSize(),
+                            versionGCWatermark);
                     boolean purgeDeletedRows = request.isMajor() ? SpliceCompactionUtils.shouldPurge(store) : false;
                     scanner = new SICompactionScanner(state,scanner,purgeDeletedRows);
                 }
@@ -295,6 +300,10 @@ public class SpliceDefaultCompactor extends DefaultCompactor {
                             " in region " + store.getRegionInfo().getRegionNameAsString() +
                             " because it was interrupted.");
                 }
+                if (state != null && state.getReclaimedBytes() > 0 && LOG.isInfoEnabled()) {
+                    SpliceLogUtils.info(LOG, "Version GC reclaimed %d bytes compacting store %s in region %s",
+                            state.getReclaimedBytes(), store, store.getRegionInfo().getRegionNameAsString());
+                }
             } finally {
                 if (scanner != null) {
                     scanner.close();
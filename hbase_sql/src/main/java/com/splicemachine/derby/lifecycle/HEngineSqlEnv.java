@@ -26,12 +26,14 @@ import com.splicemachine.concurrent.Clock;
 import com.splicemachine.derby.iapi.sql.PartitionLoadWatcher;
 import com.splicemachine.derby.iapi.sql.PropertyManager;
 import com.splicemachine.derby.iapi.sql.PropertyManagerService;
+import com.splicemachine.derby.iapi.sql.StoreFileStatisticsReader;
 import com.splicemachine.derby.iapi.sql.execute.DataSetProcessorFactory;
 import com.splicemachine.derby.iapi.sql.execute.OperationManager;
 import com.splicemachine.derby.iapi.sql.execute.OperationManagerImpl;
 import com.splicemachine.derby.iapi.sql.olap.OlapClient;
 import com.splicemachine.derby.impl.sql.HSqlExceptionFactory;
 import com.splicemachine.hbase.HBaseRegionLoads;
+import com.splicemachine.hbase.StoreFileStatisticsStore;
 import com.splicemachine.management.DatabaseAdministrator;
 import com.splicemachine.management.JmxDatabaseAdminstrator;
 import com.splicemachine.management.Manager;
@@ -49,6 +51,7 @@ public class HEngineSqlEnv extends EngineSqlEnvironment{
 
     private PropertyManager propertyManager;
     private PartitionLoadWatcher loadWatcher;
+    private StoreFileStatisticsReader storeFileStatisticsReader;
     private DataSetProcessorFactory processorFactory;
     private SqlExceptionFactory exceptionFactory;
     private DatabaseAdministrator dbAdmin;
@@ -63,6 +66,7 @@ public class HEngineSqlEnv extends EngineSqlEnvironment{
         super.initialize(config,snowflake,internalConnection,spliceVersion);
         this.propertyManager =PropertyManagerService.loadPropertyManager();
         this.loadWatcher = HBaseRegionLoads.INSTANCE;
+        this.storeFileStatisticsReader = new StoreFileStatisticsStore(config);
         SIDriver driver =SIDriver.driver();
         this.processorFactory = new CostChoosingDataSetProcessorFactory();
         this.exceptionFactory = new HSqlExceptionFactory(SIDriver.driver().getExceptionFactory());
@@ -91,6 +95,11 @@ public class HEngineSqlEnv extends EngineSqlEnvironment{
         return loadWatcher;
     }
 
+    @Override
+    public StoreFileStatisticsReader getStoreFileStatisticsReader(){
+        return storeFileStatisticsReader;
+    }
+
     @Override
     public DataSetProcessorFactory getProcessorFactory(){
         return processorFactory;
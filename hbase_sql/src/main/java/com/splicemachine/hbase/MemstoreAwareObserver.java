@@ -14,11 +14,15 @@
 
 package com.splicemachine.hbase;
 
+import com.splicemachine.access.HConfiguration;
+import com.splicemachine.access.api.SConfiguration;
 import com.splicemachine.access.client.ClientRegionConstants;
 import com.splicemachine.access.client.MemStoreFlushAwareScanner;
 import com.splicemachine.access.client.MemstoreAware;
 import com.splicemachine.compactions.SpliceCompactionRequest;
 import com.splicemachine.derby.hbase.*;
+import com.splicemachine.derby.impl.stats.StoreFileStatistics;
+import com.splicemachine.derby.impl.stats.StoreFileStatisticsCollector;
 import com.splicemachine.mrio.MRConstants;
 import com.splicemachine.primitives.Bytes;
 import com.splicemachine.si.constants.SIConstants;
@@ -36,7 +40,14 @@ import org.apache.hadoop.hbase.regionserver.*;
 import org.apache.hadoop.hbase.regionserver.compactions.CompactionRequest;
 import org.apache.log4j.Logger;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.NavigableSet;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicReference;
 
 /**
@@ -49,6 +60,14 @@ public class MemstoreAwareObserver extends BaseRegionObserver implements Compact
         StoreScannerObserver{
     private static final Logger LOG = Logger.getLogger(MemstoreAwareObserver.class);
     private AtomicReference<MemstoreAware> memstoreAware =new AtomicReference<>(new MemstoreAware());     // Atomic Reference to memstore aware state handling
+    /*
+     * Statistics collected while a flush or compaction is writing out a store file. Only one flush runs
+     * per store at a time, but a store may have several compactions in flight. Compactions which fail never
+     * reach postCompact, so their collectors are weakly keyed on the request to avoid holding on to them.
+     */
+    private final ConcurrentMap<Store,StoreFileStatisticsCollector> flushStatistics = new ConcurrentHashMap<>();
+    private final Map<CompactionRequest,StoreFileStatisticsCollector> compactionStatistics =
+            Collections.synchronizedMap(new WeakHashMap<CompactionRequest,StoreFileStatisticsCollector>());
     @Override
     public InternalScanner preCompact(ObserverContext<RegionCoprocessorEnvironment> e,
                                       Store store,
@@ -67,7 +86,11 @@ public class MemstoreAwareObserver extends BaseRegionObserver implements Compact
             scr.setMemstoreAware(memstoreAware);
             HRegion region = (HRegion) e.getEnvironment().getRegion();
             scr.setRegion(region);
-            return scanner;
+            if(scanner==null || !collectsStatistics(store))
+                return scanner; // a null scanner means the compaction is running elsewhere (i.e. in Spark)
+            StoreFileStatisticsCollector collector = newCollector();
+            compactionStatistics.put(request,collector);
+            return new StatisticsCollectingScanner(scanner,collector);
         } catch (Throwable t) {
             throw CoprocessorUtils.getIOException(t);
         }
@@ -77,6 +100,9 @@ public class MemstoreAwareObserver extends BaseRegionObserver implements Compact
     public void postCompact(ObserverContext<RegionCoprocessorEnvironment> e,Store store,StoreFile resultFile,CompactionRequest request) throws IOException{
         try {
             BlockingProbe.blockPostCompact();
+            StoreFileStatisticsCollector collector = compactionStatistics.remove(request);
+            if(collectsStatistics(store))
+                writeCompactionStatistics(store,resultFile,request,collector);
         } catch (Throwable t) {
             throw CoprocessorUtils.getIOException(t);
         }
@@ -128,7 +154,11 @@ public class MemstoreAwareObserver extends BaseRegionObserver implements Compact
                 if(memstoreAware.compareAndSet(latest, MemstoreAware.incrementFlushCount(latest)))
                     break;
             }
-            return scanner;
+            if(scanner==null || !collectsStatistics(store))
+                return scanner;
+            StoreFileStatisticsCollector collector = newCollector();
+            flushStatistics.put(store,collector);
+            return new StatisticsCollectingScanner(scanner,collector);
         } catch (Throwable t) {
             throw CoprocessorUtils.getIOException(t);
         }
@@ -143,6 +173,9 @@ public class MemstoreAwareObserver extends BaseRegionObserver implements Compact
                 if(memstoreAware.compareAndSet(latest, MemstoreAware.decrementFlushCount(latest)))
                     break;
             }
+            StoreFileStatisticsCollector collector = flushStatistics.remove(store);
+            if(collector!=null && resultFile!=null)
+                writeStatistics(store,resultFile,collector.finish());
         } catch (Throwable t) {
             throw CoprocessorUtils.getIOException(t);
         }
@@ -259,6 +292,59 @@ public class MemstoreAwareObserver extends BaseRegionObserver implements Compact
 
     }
 
+    private boolean collectsStatistics(Store store){
+        return HConfiguration.getConfiguration().getStoreFileStatisticsEnabled()
+                && Bytes.equals(store.getFamily().getName(),SIConstants.DEFAULT_FAMILY_BYTES);
+    }
+
+    private StoreFileStatisticsCollector newCollector(){
+        SConfiguration config = HConfiguration.getConfiguration();
+        return new StoreFileStatisticsCollector(config.getStoreFileStatisticsPrecision());
+    }
+
+    private void writeCompactionStatistics(Store store,StoreFile resultFile,CompactionRequest request,StoreFileStatisticsCollector collector){
+        try{
+            if(resultFile!=null){
+                StoreFileStatistics stats;
+                if(collector!=null)
+                    stats = collector.finish();
+                else{
+                    /*
+                     * The compaction ran in Spark, so we never saw the cells. Merging the statistics of the
+                     * input files is the next best thing, but only if all of them have statistics.
+                     */
+                    List<StoreFileStatistics> inputStats = new ArrayList<>(request.getFiles().size());
+                    for(StoreFile sf : request.getFiles()){
+                        StoreFileStatistics fileStats = StoreFileStatisticsStore.read(store.getFileSystem(),sf.getPath());
+                        if(fileStats==null){
+                            inputStats = null;
+                            break;
+                        }
+                        inputStats.add(fileStats);
+                    }
+                    stats = inputStats==null || inputStats.isEmpty()? null : StoreFileStatistics.merge(inputStats);
+                }
+                if(stats!=null)
+                    StoreFileStatisticsStore.write(store.getFileSystem(),resultFile.getPath(),stats);
+            }
+            for(StoreFile sf : request.getFiles()){
+                StoreFileStatisticsStore.delete(store.getFileSystem(),sf.getPath());
+            }
+        }catch(IOException ioe){
+            // statistics are advisory, so we never fail the compaction over them
+            SpliceLogUtils.warn(LOG,"Unable to maintain store file statistics for compaction of %s: %s",store,ioe.getMessage());
+        }
+    }
+
+    private void writeStatistics(Store store,StoreFile resultFile,StoreFileStatistics stats){
+        try{
+            StoreFileStatisticsStore.write(store.getFileSystem(),resultFile.getPath(),stats);
+        }catch(IOException ioe){
+            // statistics are advisory, so we never fail the flush over them
+            SpliceLogUtils.warn(LOG,"Unable to write store file statistics for %s: %s",resultFile.getPath(),ioe.getMessage());
+        }
+    }
+
     private boolean startRowInRange(ObserverContext<RegionCoprocessorEnvironment> c, byte[] startRow) {
         return HRegion.rowIsInRange(c.getEnvironment().getRegion().getRegionInfo(), startRow);
     }
@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.hbase;
+
+import com.splicemachine.derby.impl.stats.StoreFileStatisticsCollector;
+import com.splicemachine.storage.HCell;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.regionserver.InternalScanner;
+import org.apache.hadoop.hbase.regionserver.ScannerContext;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Decorator for the scanner which feeds a flush or compaction, so that statistics about the
+ * store file being written can be collected as the cells go by.
+ */
+public class StatisticsCollectingScanner implements InternalScanner{
+    private final InternalScanner delegate;
+    private final StoreFileStatisticsCollector collector;
+    private final HCell wrapper = new HCell();
+
+    public StatisticsCollectingScanner(InternalScanner delegate,StoreFileStatisticsCollector collector){
+        this.delegate=delegate;
+        this.collector=collector;
+    }
+
+    @Override
+    public boolean next(List<Cell> results) throws IOException{
+        int start = results.size();
+        boolean more = delegate.next(results);
+        collect(results,start);
+        return more;
+    }
+
+    public boolean next(List<Cell> results,int limit) throws IOException{
+        return next(results);
+    }
+
+    @Override
+    public boolean next(List<Cell> results,ScannerContext scannerContext) throws IOException{
+        int start = results.size();
+        boolean more = delegate.next(results,scannerContext);
+        collect(results,start);
+        return more;
+    }
+
+    @Override
+    public void close() throws IOException{
+        delegate.close();
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private void collect(List<Cell> results,int start) throws IOException{
+        for(int i=start;i<results.size();i++){
+            wrapper.set(results.get(i));
+            collector.cell(wrapper);
+        }
+    }
+}
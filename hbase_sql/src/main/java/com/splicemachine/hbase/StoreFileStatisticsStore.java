@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.hbase;
+
+import com.splicemachine.access.HConfiguration;
+import com.splicemachine.access.api.SConfiguration;
+import com.splicemachine.derby.iapi.sql.StoreFileStatisticsReader;
+import com.splicemachine.derby.impl.stats.StoreFileStatistics;
+import com.splicemachine.si.constants.SIConstants;
+import com.splicemachine.storage.Partition;
+import com.splicemachine.utils.SpliceLogUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.hbase.util.FSUtils;
+import org.apache.log4j.Logger;
+import org.spark_project.guava.cache.Cache;
+import org.spark_project.guava.cache.CacheBuilder;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads and writes the statistics files which are kept alongside each store file.
+ *
+ * The statistics for the store file {@code <region>/<family>/<hfile>} live in
+ * {@code <region>/.stats/<family>/<hfile>}. HBase ignores directories starting with a dot when
+ * it looks for column families, so the statistics do not interfere with the region itself.
+ */
+public class StoreFileStatisticsStore implements StoreFileStatisticsReader{
+    private static final Logger LOG = Logger.getLogger(StoreFileStatisticsStore.class);
+    static final String STATS_DIR = ".stats";
+
+    private final SConfiguration config;
+    private final Cache<String,StoreFileStatistics> cache;
+
+    public StoreFileStatisticsStore(SConfiguration config){
+        this.config=config;
+        this.cache = CacheBuilder.newBuilder()
+                .expireAfterWrite(config.getPartitionCacheExpiration(),TimeUnit.MILLISECONDS)
+                .maximumSize(1024)
+                .build();
+    }
+
+    @Override
+    public StoreFileStatistics partitionStatistics(Partition partition,boolean refresh) throws IOException{
+        String regionName = partition.getEncodedName();
+        if(!refresh){
+            StoreFileStatistics cached = cache.getIfPresent(regionName);
+            if(cached!=null) return cached;
+        }
+        Configuration conf = HConfiguration.unwrapDelegate();
+        FileSystem fs = FSUtils.getCurrentFileSystem(conf);
+        TableName tableName = TableName.valueOf(config.getNamespace(),partition.getTableName());
+        Path familyDir = new Path(new Path(FSUtils.getTableDir(FSUtils.getRootDir(conf),tableName),regionName),
+                Bytes.toString(SIConstants.DEFAULT_FAMILY_BYTES));
+        FileStatus[] storeFiles;
+        try{
+            storeFiles = fs.listStatus(familyDir);
+        }catch(FileNotFoundException fnfe){
+            return null;
+        }
+        if(storeFiles==null || storeFiles.length<=0) return null; //nothing has been flushed yet
+
+        List<StoreFileStatistics> fileStats = new ArrayList<>(storeFiles.length);
+        for(FileStatus storeFile:storeFiles){
+            if(storeFile.isDirectory()) continue;
+            StoreFileStatistics stats = read(fs,storeFile.getPath());
+            /*
+             * If any store file lacks statistics (e.g. it was bulk loaded, or written before statistics
+             * were enabled), we cannot say anything trustworthy about the region as a whole
+             */
+            if(stats==null) return null;
+            fileStats.add(stats);
+        }
+        if(fileStats.isEmpty()) return null;
+        StoreFileStatistics merged = StoreFileStatistics.merge(fileStats);
+        cache.put(regionName,merged);
+        return merged;
+    }
+
+    /**
+     * @param storeFile the path to the store file
+     * @return the path to the statistics file for {@code storeFile}
+     */
+    public static Path statisticsPath(Path storeFile){
+        Path familyDir = storeFile.getParent();
+        Path regionDir = familyDir.getParent();
+        return new Path(new Path(new Path(regionDir,STATS_DIR),familyDir.getName()),storeFile.getName());
+    }
+
+    public static void write(FileSystem fs,Path storeFile,StoreFileStatistics stats) throws IOException{
+        Path statsPath = statisticsPath(storeFile);
+        try(FSDataOutputStream out = fs.create(statsPath,true)){
+            out.write(stats.toBytes());
+        }
+        if(LOG.isDebugEnabled())
+            SpliceLogUtils.debug(LOG,"wrote statistics for %s: rows=%d, bytes=%d",storeFile,stats.rowCount(),stats.totalBytes());
+    }
+
+    public static StoreFileStatistics read(FileSystem fs,Path storeFile) throws IOException{
+        Path statsPath = statisticsPath(storeFile);
+        try(FSDataInputStream in = fs.open(statsPath)){
+            return StoreFileStatistics.fromBytes(IOUtils.toByteArray(in));
+        }catch(FileNotFoundException fnfe){
+            return null;
+        }
+    }
+
+    public static void delete(FileSystem fs,Path storeFile) throws IOException{
+        fs.delete(statisticsPath(storeFile),false);
+    }
+}
@@ -81,7 +81,15 @@ public class RemoteQueryClientImpl implements RemoteQueryClient {
             SConfiguration config = HConfiguration.getConfiguration();
             int streamingBatches = config.getSparkResultStreamingBatches();
             int streamingBatchSize = config.getSparkResultStreamingBatchSize();
-            streamListener = new StreamListener(limit, offset, streamingBatches, streamingBatchSize);
+            boolean unordered = config.getSparkResultStreamingUnordered()
+                    && offset == 0
+                    && !activation.getPreparedStatement().needsOrderedResults();
+            if (unordered) {
+                // All partitions being streamed are drained at once, so split the memory budget between them,
+                // keeping one batch in flight while the other is read
+                streamingBatches = Math.max(2, streamingBatches / StreamableRDD.PARALLEL_PARTITIONS);
+            }
+            streamListener = new StreamListener(limit, offset, streamingBatches, streamingBatchSize, !unordered);
             StreamListenerServer server = getServer();
             server.register(streamListener);
             HostAndPort hostAndPort = server.getHostAndPort();
@@ -146,8 +154,27 @@ public class RemoteQueryClientImpl implements RemoteQueryClient {
         return streamListener.getIterator();
     }
 
+    @Override
+    public long getRowsReturned() {
+        return streamListener.getRowsReturned();
+    }
+
+    @Override
+    public long getTimeToFirstRow() {
+        return streamListener.getTimeToFirstRow();
+    }
+
+    @Override
+    public double getThroughput() {
+        return streamListener.getThroughput();
+    }
+
     @Override
     public void close() throws Exception {
+        if (LOG.isDebugEnabled())
+            LOG.debug(String.format("Streamed %d rows (%s), first row after %d ms, %.1f rows/s",
+                    getRowsReturned(), streamListener.isOrdered() ? "ordered" : "unordered",
+                    getTimeToFirstRow(), getThroughput()));
         streamListener.stopAllStreams();
         olapFuture.cancel(true);
     }
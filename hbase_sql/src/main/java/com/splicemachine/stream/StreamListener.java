@@ -26,12 +26,17 @@ import java.util.*;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 
 /**
  * This class handles connections from Spark tasks streaming data to the query client. One connection is created from
  * each task, it handles failures and recovery in case the task is retried.
  *
+ * Partitions are returned one after the other by default. In unordered mode rows are returned from whichever
+ * partition has data available, which is only valid when the query doesn't impose an order on its results.
+ *
  * Created by dgomezferro on 5/20/16.
  */
 @ChannelHandler.Sharable
@@ -40,6 +45,8 @@ public class StreamListener<T> extends ChannelInboundHandlerAdapter implements I
     private static final Object SENTINEL = new Object();
     private static final Object FAILURE = new Object();
     private static final Object RETRY = new Object();
+    // Unordered mode: wakes up the iterator without pointing to a partition, on failure or when stopped
+    private static final int NO_PARTITION = -1;
     private final int queueSize;
     private final int batchSize;
     private final UUID uuid;
@@ -59,6 +66,17 @@ public class StreamListener<T> extends ChannelInboundHandlerAdapter implements I
     private volatile boolean canBlock = true;
     private volatile boolean stopped = false;
 
+    private final boolean ordered;
+    // Unordered mode: one entry per message queued on any partition, naming the partition to read it from
+    private final LinkedBlockingQueue<Integer> ready = new LinkedBlockingQueue<>();
+    private int finishedPartitions;
+
+    // Streaming metrics, only accessed from the iterating thread
+    private final long startNanos = System.nanoTime();
+    private long firstRowNanos;
+    private long lastRowNanos;
+    private long rowsReturned;
+
     StreamListener() {
         this(-1, 0);
     }
@@ -68,29 +86,54 @@ public class StreamListener<T> extends ChannelInboundHandlerAdapter implements I
     }
 
     public StreamListener(long limit, long offset, int batches, int batchSize) {
+        this(limit, offset, batches, batchSize, true);
+    }
+
+    /**
+     * @param ordered if false, rows are returned as soon as any partition delivers them. Offsets are tracked
+     *                across partitions in order, so an unordered listener can't have one.
+     */
+    public StreamListener(long limit, long offset, int batches, int batchSize, boolean ordered) {
+        assert ordered || offset == 0 : "Unordered streams don't support offsets";
         this.offset = offset;
         this.limit = limit;
         this.batchSize = batchSize;
         this.queueSize = batches*batchSize;
-        // start with this to force a channel advancement
-        PartitionState first = new PartitionState(0, 0);
-        first.messages.add(SENTINEL);
-        first.initialized = true;
-        this.partitionStateMap.put(-1, first);
+        this.ordered = ordered;
+        if (ordered) {
+            // start with this to force a channel advancement
+            PartitionState first = new PartitionState(0, 0);
+            first.messages.add(SENTINEL);
+            first.initialized = true;
+            this.partitionStateMap.put(-1, first);
+        }
         this.uuid = UUID.randomUUID();
     }
 
     public Iterator<T> getIterator() {
-        // Initialize first partition
-        PartitionState ps = partitionStateMap.putIfAbsent(0, new PartitionState(1, queueSize));
-        if (failure != null) {
-            ps.messages.add(FAILURE);
+        if (ordered) {
+            // Initialize first partition
+            PartitionState ps = partitionStateMap.putIfAbsent(0, new PartitionState(1, queueSize));
+            if (failure != null) {
+                enqueue(ps, FAILURE);
+            }
         }
         // This will block until some data is available
         advance();
         return this;
     }
 
+    /**
+     * Queue a message for a partition, and in unordered mode let the iterator know which partition to read it
+     * from.
+     */
+    private void enqueue(PartitionState state, Object msg) {
+        state.messages.add(msg);
+        if (!ordered) {
+            ready.add(state.partition);
+        }
+    }
+
     @Override
     public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) { // (4)
         LOG.error("Exception caught", cause);
@@ -110,7 +153,7 @@ public class StreamListener<T> extends ChannelInboundHandlerAdapter implements I
         }
         if (msg instanceof StreamProtocol.RequestClose) {
             // We can't block here, we negotiate throughput with the server to guarantee it
-            state.messages.add(SENTINEL);
+            enqueue(state, SENTINEL);
             // Let server know it can close the connection
             ctx.writeAndFlush(new StreamProtocol.ConfirmClose());
             ctx.close().sync();
@@ -120,7 +163,7 @@ public class StreamListener<T> extends ChannelInboundHandlerAdapter implements I
         } else {
             // Data or StreamProtocol.Skipped
             // We can't block here, we negotiate throughput with the server to guarantee it
-            state.messages.add(msg);
+            enqueue(state, msg);
         }
     }
 
@@ -146,6 +189,20 @@ public class StreamListener<T> extends ChannelInboundHandlerAdapter implements I
     }
 
     private void advance() {
+        if (ordered) {
+            advanceOrdered();
+        } else {
+            advanceUnordered();
+        }
+        if (currentResult != null) {
+            lastRowNanos = System.nanoTime();
+            if (rowsReturned++ == 0) {
+                firstRowNanos = lastRowNanos;
+            }
+        }
+    }
+
+    private void advanceOrdered() {
         T next = null;
         try {
             while (next == null) {
@@ -202,7 +259,7 @@ public class StreamListener<T> extends ChannelInboundHandlerAdapter implements I
                     // Set the partitionState so we can block on the queue in case the connection hasn't opened yet
                     PartitionState ps = partitionStateMap.putIfAbsent(currentQueue, new PartitionState(currentQueue, queueSize));
                     if (failure != null) {
-                        ps.messages.add(FAILURE);
+                        enqueue(ps, FAILURE);
                     }
                 } else {
                     if (msg instanceof StreamProtocol.Skipped) {
@@ -242,6 +299,102 @@ public class StreamListener<T> extends ChannelInboundHandlerAdapter implements I
         }
     }
 
+    /**
+     * Return rows from whichever partition has them available. Each partition is flow controlled on its own, the
+     * same way as in ordered mode, so a slow partition only holds back its own rows.
+     */
+    private void advanceUnordered() {
+        T next = null;
+        try {
+            while (next == null) {
+                if (stopped || finishedPartitions >= numPartitions) {
+                    if (LOG.isTraceEnabled())
+                        LOG.trace("End of stream");
+                    currentResult = null;
+                    close();
+                    return;
+                }
+                int partition = canBlock ? ready.take() : ready.remove();
+                if (partition == NO_PARTITION) {
+                    // Failed or stopped, check again
+                    if (failure != null) {
+                        currentResult = null;
+                        return;
+                    }
+                    continue;
+                }
+                PartitionState state = partitionStateMap.get(partition);
+                Object msg = state != null ? state.messages.poll() : null;
+                if (msg == null) {
+                    // The message was dropped by a task retry, or the partition is finished
+                    continue;
+                }
+                if (msg == FAILURE) {
+                    // The olap job failed, return right away
+                    currentResult = null;
+                    return;
+                }
+                if (!state.initialized && limit > 0) {
+                    if (LOG.isTraceEnabled())
+                        LOG.trace("Sending skip " + limit + " to partition " + partition);
+                    state.channel.writeAndFlush(new StreamProtocol.Skip(limit, 0));
+                }
+                state.initialized = true;
+                if (msg == RETRY) {
+                    // There was a retried task, skip all records already read from the previous run
+                    long currentRead = state.readTotal;
+                    long serverLimit = limit > 0 ? limit + currentRead : -1;
+                    PartitionState nextState = state.next;
+                    nextState.channel.writeAndFlush(new StreamProtocol.Skip(serverLimit, currentRead));
+                    nextState.initialized = true;
+                    nextState.offset = currentRead;
+                    state.messages.clear();
+                    partitionStateMap.put(partition, nextState);
+                    if (LOG.isTraceEnabled()) {
+                        LOG.trace("Retried task, currentRead " + currentRead + " serverLimit " + serverLimit +
+                                " state " + state);
+                    }
+                } else if (msg == SENTINEL) {
+                    partitionStateMap.remove(partition);
+                    if (state.channel != null)
+                        partitionMap.remove(state.channel);
+                    finishedPartitions++;
+                } else {
+                    if (msg instanceof StreamProtocol.Skipped) {
+                        StreamProtocol.Skipped skipped = (StreamProtocol.Skipped) msg;
+                        state.offset -= skipped.skipped;
+                        state.readTotal += skipped.skipped;
+                    } else if (state.offset > 0) {
+                        // Sent by a retried task before it got our skip request, we already returned it
+                        state.offset--;
+                        state.consumed++;
+                        state.readTotal++;
+                    } else {
+                        next = (T) msg;
+                        state.consumed++;
+                        state.readTotal++;
+                        if (limit > 0) {
+                            limit--;
+                            if (limit == 0) {
+                                stopAllStreams();
+                            }
+                        }
+                    }
+
+                    if (state.consumed > batchSize) {
+                        if (LOG.isTraceEnabled())
+                            LOG.trace("Writing CONT to partition " + partition);
+                        state.channel.writeAndFlush(new StreamProtocol.Continue());
+                        state.consumed -= batchSize;
+                    }
+                }
+            }
+            currentResult = next;
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     private void clearCurrentQueue() {
         PartitionState ps = partitionStateMap.remove(currentQueue);
         if (ps != null && ps.channel != null)
@@ -267,11 +420,16 @@ public class StreamListener<T> extends ChannelInboundHandlerAdapter implements I
         for (Channel channel : partitionMap.keySet()) {
             channel.writeAndFlush(new StreamProtocol.RequestClose());
         }
-        // create fake queue with finish message so the next call to next() returns null
-        currentQueue = (int) numPartitions + 1;
-        PartitionState ps = new PartitionState(currentQueue, 0);
-        ps.messages.add(SENTINEL);
-        partitionStateMap.putIfAbsent(currentQueue, ps);
+        if (ordered) {
+            // create fake queue with finish message so the next call to next() returns null
+            currentQueue = (int) numPartitions + 1;
+            PartitionState ps = new PartitionState(currentQueue, 0);
+            ps.messages.add(SENTINEL);
+            partitionStateMap.putIfAbsent(currentQueue, ps);
+        } else {
+            // the next call to next() sees the stopped flag and returns null
+            ready.add(NO_PARTITION);
+        }
         close();
     }
 
@@ -292,7 +450,7 @@ public class StreamListener<T> extends ChannelInboundHandlerAdapter implements I
         ps = old != null ? old : ps;
 
         if (failure != null) {
-            ps.messages.add(FAILURE);
+            enqueue(ps, FAILURE);
         }
         Channel previousChannel = ps.channel;
         if (previousChannel != null) {
@@ -303,7 +461,7 @@ public class StreamListener<T> extends ChannelInboundHandlerAdapter implements I
             partitionMap.put(channel, ps.next);
             partitionMap.remove(ps.channel); // don't accept more messages from this channel
             // this is a new connection from a retried task
-            ps.messages.add(RETRY);
+            enqueue(ps, RETRY);
         } else {
             partitionMap.put(channel, ps);
             ps.channel = channel;
@@ -376,9 +534,37 @@ public class StreamListener<T> extends ChannelInboundHandlerAdapter implements I
         // Unblock iterator
         for (PartitionState state : partitionStateMap.values()) {
             if (state != null) {
-                state.messages.add(FAILURE);
+                enqueue(state, FAILURE);
             }
         }
+        if (!ordered) {
+            // there might be no partition connected yet
+            ready.add(NO_PARTITION);
+        }
+    }
+
+    public boolean isOrdered() {
+        return ordered;
+    }
+
+    /**
+     * @return milliseconds from the creation of this listener until the first row was returned, or -1 if no row
+     * has been returned
+     */
+    public long getTimeToFirstRow() {
+        return rowsReturned > 0 ? TimeUnit.NANOSECONDS.toMillis(firstRowNanos - startNanos) : -1;
+    }
+
+    public long getRowsReturned() {
+        return rowsReturned;
+    }
+
+    /**
+     * @return rows returned per second, measured from the first row to the last one
+     */
+    public double getThroughput() {
+        long elapsed = lastRowNanos - firstRowNanos;
+        return elapsed > 0 ? (rowsReturned - 1) * 1e9d / elapsed : 0d;
     }
 }
 
@@ -388,6 +574,7 @@ class PartitionState {
     ArrayBlockingQueue<Object> messages;
     long consumed;
     long readTotal;
+    long offset; // unordered mode: messages still to be skipped after a task retry
     boolean initialized;
     volatile PartitionState next = null; // used when a task is retried after a failure
 
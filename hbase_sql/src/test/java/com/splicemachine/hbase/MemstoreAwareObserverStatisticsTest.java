@@ -0,0 +1,243 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.splicemachine.hbase;
+
+import com.carrotsearch.hppc.BitSet;
+import com.splicemachine.access.HConfiguration;
+import com.splicemachine.access.configuration.StatsConfiguration;
+import com.splicemachine.compactions.SpliceCompactionRequest;
+import com.splicemachine.constants.SpliceConfiguration;
+import com.splicemachine.derby.impl.stats.StoreFileStatistics;
+import com.splicemachine.derby.impl.stats.StoreFileStatisticsCollector;
+import com.splicemachine.encoding.MultiFieldEncoder;
+import com.splicemachine.si.constants.SIConstants;
+import com.splicemachine.storage.EntryEncoder;
+import com.splicemachine.storage.HCell;
+import com.splicemachine.utils.kryo.KryoPool;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.HColumnDescriptor;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.coprocessor.ObserverContext;
+import org.apache.hadoop.hbase.coprocessor.RegionCoprocessorEnvironment;
+import org.apache.hadoop.hbase.regionserver.HRegion;
+import org.apache.hadoop.hbase.regionserver.InternalScanner;
+import org.apache.hadoop.hbase.regionserver.ScanType;
+import org.apache.hadoop.hbase.regionserver.ScannerContext;
+import org.apache.hadoop.hbase.regionserver.Store;
+import org.apache.hadoop.hbase.regionserver.StoreFile;
+import org.apache.hadoop.hbase.regionserver.compactions.CompactionRequest;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests that MemstoreAwareObserver keeps the statistics files of a store in step with its store files.
+ */
+public class MemstoreAwareObserverStatisticsTest{
+    private static final KryoPool kryoPool = new KryoPool(10);
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private FileSystem fs;
+    private Path familyDir;
+    private Store store;
+    private ObserverContext<RegionCoprocessorEnvironment> ctx;
+
+    @BeforeClass
+    public static void enableStatistics(){
+        Configuration config = SpliceConfiguration.create();
+        config.setBoolean(StatsConfiguration.STORE_FILE_STATISTICS_ENABLED,true);
+        HConfiguration.reloadConfiguration(config);
+    }
+
+    @AfterClass
+    public static void resetConfiguration(){
+        HConfiguration.reloadConfiguration(SpliceConfiguration.create());
+    }
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() throws Exception{
+        fs = FileSystem.getLocal(new Configuration());
+        familyDir = new Path(new Path(tempFolder.getRoot().getAbsolutePath(),"region"),Bytes.toString(SIConstants.DEFAULT_FAMILY_BYTES));
+        store = mock(Store.class);
+        when(store.getFamily()).thenReturn(new HColumnDescriptor(SIConstants.DEFAULT_FAMILY_BYTES));
+        when(store.getFileSystem()).thenReturn(fs);
+        RegionCoprocessorEnvironment env = mock(RegionCoprocessorEnvironment.class);
+        when(env.getRegion()).thenReturn(mock(HRegion.class));
+        ctx = mock(ObserverContext.class);
+        when(ctx.getEnvironment()).thenReturn(env);
+    }
+
+    @Test
+    public void flushWritesStatisticsForTheFlushedFile() throws Exception{
+        MemstoreAwareObserver mao = new MemstoreAwareObserver();
+        StoreFile flushed = storeFile("flushed");
+
+        drain(mao.preFlush(ctx,store,new RowScanner(0,100)));
+        mao.postFlush(ctx,store,flushed);
+
+        StoreFileStatistics stats = StoreFileStatisticsStore.read(fs,flushed.getPath());
+        Assert.assertNotNull("No statistics were written for the flushed file",stats);
+        Assert.assertEquals(100,stats.rowCount());
+        Assert.assertEquals(10,stats.cardinality(0));
+    }
+
+    @Test
+    public void compactionReplacesTheStatisticsOfItsInputs() throws Exception{
+        MemstoreAwareObserver mao = new MemstoreAwareObserver();
+        StoreFile first = storeFileWithStatistics("first",0,60);
+        StoreFile second = storeFileWithStatistics("second",40,100);
+        StoreFile compacted = storeFile("compacted");
+        CompactionRequest request = compactionRequest(first,second);
+
+        drain(mao.preCompact(ctx,store,new RowScanner(0,100),ScanType.COMPACT_RETAIN_DELETES,request));
+        mao.postCompact(ctx,store,compacted,request);
+
+        StoreFileStatistics stats = StoreFileStatisticsStore.read(fs,compacted.getPath());
+        Assert.assertNotNull("No statistics were written for the compacted file",stats);
+        Assert.assertEquals(100,stats.rowCount());
+        Assert.assertNull("Statistics of a compacted file were left behind",StoreFileStatisticsStore.read(fs,first.getPath()));
+        Assert.assertNull("Statistics of a compacted file were left behind",StoreFileStatisticsStore.read(fs,second.getPath()));
+    }
+
+    @Test
+    public void compactionOutsideTheRegionServerMergesTheStatisticsOfItsInputs() throws Exception{
+        MemstoreAwareObserver mao = new MemstoreAwareObserver();
+        StoreFile first = storeFileWithStatistics("first",0,60);
+        StoreFile second = storeFileWithStatistics("second",40,100);
+        StoreFile compacted = storeFile("compacted");
+        CompactionRequest request = compactionRequest(first,second);
+
+        //a compaction which runs in Spark never hands us a scanner
+        Assert.assertNull(mao.preCompact(ctx,store,null,ScanType.COMPACT_RETAIN_DELETES,request));
+        mao.postCompact(ctx,store,compacted,request);
+
+        StoreFileStatistics stats = StoreFileStatisticsStore.read(fs,compacted.getPath());
+        Assert.assertNotNull("No statistics were merged for the compacted file",stats);
+        Assert.assertEquals("Rows in both inputs were counted twice",100,stats.rowCount());
+        Assert.assertNull("Statistics of a compacted file were left behind",StoreFileStatisticsStore.read(fs,first.getPath()));
+        Assert.assertNull("Statistics of a compacted file were left behind",StoreFileStatisticsStore.read(fs,second.getPath()));
+    }
+
+    @Test
+    public void compactionOutsideTheRegionServerNeedsStatisticsForEveryInput() throws Exception{
+        MemstoreAwareObserver mao = new MemstoreAwareObserver();
+        StoreFile first = storeFileWithStatistics("first",0,60);
+        StoreFile bulkLoaded = storeFile("bulkLoaded");
+        StoreFile compacted = storeFile("compacted");
+        CompactionRequest request = compactionRequest(first,bulkLoaded);
+
+        mao.postCompact(ctx,store,compacted,request);
+
+        Assert.assertNull("Statistics were merged from a partial set of inputs",StoreFileStatisticsStore.read(fs,compacted.getPath()));
+        Assert.assertNull("Statistics of a compacted file were left behind",StoreFileStatisticsStore.read(fs,first.getPath()));
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private StoreFile storeFile(String name){
+        StoreFile storeFile = mock(StoreFile.class);
+        when(storeFile.getPath()).thenReturn(new Path(familyDir,name));
+        return storeFile;
+    }
+
+    private StoreFile storeFileWithStatistics(String name,int startRow,int stopRow) throws IOException{
+        StoreFile storeFile = storeFile(name);
+        StoreFileStatisticsCollector collector = new StoreFileStatisticsCollector(10);
+        HCell wrapper = new HCell();
+        for(int i=startRow;i<stopRow;i++){
+            wrapper.set(row(i));
+            collector.cell(wrapper);
+        }
+        StoreFileStatisticsStore.write(fs,storeFile.getPath(),collector.finish());
+        return storeFile;
+    }
+
+    private static CompactionRequest compactionRequest(StoreFile... files){
+        Collection<StoreFile> storeFiles = Arrays.asList(files);
+        SpliceCompactionRequest request = mock(SpliceCompactionRequest.class);
+        when(request.getFiles()).thenReturn(storeFiles);
+        return request;
+    }
+
+    private static void drain(InternalScanner scanner) throws IOException{
+        List<Cell> cells = new ArrayList<>();
+        boolean more;
+        do{
+            more = scanner.next(cells);
+            cells.clear();
+        }while(more);
+        scanner.close();
+    }
+
+    private static Cell row(int row) throws IOException{
+        BitSet setCols = new BitSet();
+        setCols.set(0);
+        BitSet scalarFields = new BitSet();
+        scalarFields.set(0);
+        EntryEncoder encoder = EntryEncoder.create(kryoPool,1,setCols,scalarFields,null,null);
+        MultiFieldEncoder fieldEncoder = encoder.getEntryEncoder();
+        fieldEncoder.encodeNext(row%10);
+        return new KeyValue(Bytes.toBytes(row),SIConstants.DEFAULT_FAMILY_BYTES,SIConstants.PACKED_COLUMN_BYTES,
+                10L,encoder.encode());
+    }
+
+    /**
+     * Emits one row per call to {@code next()}, as the scanner of a flush or compaction does.
+     */
+    private static class RowScanner implements InternalScanner{
+        private int next;
+        private final int stop;
+
+        RowScanner(int start,int stop){
+            this.next=start;
+            this.stop=stop;
+        }
+
+        @Override
+        public boolean next(List<Cell> results) throws IOException{
+            if(next<stop)
+                results.add(row(next++));
+            return next<stop;
+        }
+
+        @Override
+        public boolean next(List<Cell> results,ScannerContext scannerContext) throws IOException{
+            return next(results);
+        }
+
+        @Override
+        public void close() throws IOException{
+        }
+    }
+}
@@ -361,6 +361,75 @@ public class StreamableRDDTest extends BaseStreamTest implements Serializable {
         assertEquals(400, count);
     }
 
+    @Test
+    public void testUnordered() throws StandardException {
+        StreamListener<ExecRow> sl = new StreamListener<>(-1, 0, 2, 512, false);
+        HostAndPort hostAndPort = server.getHostAndPort();
+        server.register(sl);
+
+        List<Tuple2<ExecRow,ExecRow>> manyRows = new ArrayList<>();
+        for(int i = 0; i < 100000; ++i) {
+            manyRows.add(new Tuple2<ExecRow, ExecRow>(getExecRow(i, 1), getExecRow(i, 2)));
+        }
+
+        JavaPairRDD<ExecRow, ExecRow> rdd = SpliceSpark.getContextUnsafe().parallelizePairs(manyRows, 13);
+        final StreamableRDD srdd = new StreamableRDD(rdd.values(), sl.getUuid(), hostAndPort.getHostText(), hostAndPort.getPort());
+        new Thread() {
+            @Override
+            public void run() {
+                try {
+                    srdd.submit();
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+
+            }
+        }.start();
+        Iterator<ExecRow> it = sl.getIterator();
+        Set<Integer> seen = new HashSet<>();
+        while (it.hasNext()) {
+            ExecRow execRow = it.next();
+            assertNotNull(execRow);
+            assertTrue("Duplicate row", seen.add(execRow.getColumn(1).getInt()));
+        }
+        assertEquals(100000, seen.size());
+        assertEquals(100000, sl.getRowsReturned());
+        assertTrue(sl.getTimeToFirstRow() >= 0);
+    }
+
+    @Test
+    public void testUnorderedLimit() throws StandardException {
+        StreamListener<ExecRow> sl = new StreamListener<>(400, 0, 2, 512, false);
+        HostAndPort hostAndPort = server.getHostAndPort();
+        server.register(sl);
+
+        List<Tuple2<ExecRow,ExecRow>> manyRows = new ArrayList<>();
+        for(int i = 0; i < 100000; ++i) {
+            manyRows.add(new Tuple2<ExecRow, ExecRow>(getExecRow(i, 1), getExecRow(i, 2)));
+        }
+
+        JavaPairRDD<ExecRow, ExecRow> rdd = SpliceSpark.getContextUnsafe().parallelizePairs(manyRows, 13);
+        final StreamableRDD srdd = new StreamableRDD(rdd.values(), sl.getUuid(), hostAndPort.getHostText(), hostAndPort.getPort());
+        new Thread() {
+            @Override
+            public void run() {
+                try {
+                    srdd.submit();
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+
+            }
+        }.start();
+        Iterator<ExecRow> it = sl.getIterator();
+        Set<Integer> seen = new HashSet<>();
+        while (it.hasNext()) {
+            ExecRow execRow = it.next();
+            assertNotNull(execRow);
+            assertTrue("Duplicate row", seen.add(execRow.getColumn(1).getInt()));
+        }
+        assertEquals(400, seen.size());
+    }
 
     @Test
     public void testOffset() throws StandardException {
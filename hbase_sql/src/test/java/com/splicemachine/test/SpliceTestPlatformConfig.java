@@ -210,6 +210,8 @@ class SpliceTestPlatformConfig {
 
         config.setLong("splice.ddl.drainingWait.maximum", SECONDS.toMillis(15)); // wait 15 seconds before bailing on bad ddl statements
         config.setLong("splice.ddl.maxWaitSeconds",120000);
+        config.setLong(SQLConfiguration.SLOW_QUERY_THRESHOLD, 0L); // log every statement, so that SYSCS_GET_SLOW_QUERIES can be tested
+        config.setInt(SQLConfiguration.SLOW_QUERY_LOG_SIZE, 1000);
         //
         // Snapshots
         //
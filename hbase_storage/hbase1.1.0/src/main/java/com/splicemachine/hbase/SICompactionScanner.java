@@ -20,17 +20,25 @@ import org.apache.hadoop.hbase.regionserver.InternalScanner;
 import org.apache.hadoop.hbase.regionserver.ScannerContext;
 
 import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.List;
 
 /**
  * Decorator for an HBase scanner that performs SI operations at compaction time. Delegates the core work to
  * SICompactionState.
+ * <p/>
+ * Rows are read ahead in batches, so that the transactions which wrote a whole batch are looked up at once.
  */
 public class SICompactionScanner implements InternalScanner {
+    private static final int MAX_BATCH_ROWS = 1024;
+    private static final int MAX_BATCH_CELLS = 16384;
+
     private final SICompactionState compactionState;
     private final InternalScanner delegate;
-    private List<Cell> rawList =new ArrayList<>();
+    private final ArrayDeque<List<Cell>> batch = new ArrayDeque<>();
+    private final List<List<Cell>> freeRows = new ArrayList<>();
+    private boolean more = true;
     private boolean purgeDeletedRows;
 
     public SICompactionScanner(SICompactionState compactionState,
@@ -46,10 +54,30 @@ public class SICompactionScanner implements InternalScanner {
         /*
          * Read data from the underlying scanner and send the results through the SICompactionState.
          */
-        rawList.clear();
-        final boolean more = delegate.next(rawList);
+        if (batch.isEmpty())
+            readBatch();
+        List<Cell> rawList = batch.poll();
+        if (rawList == null)
+            return false;
         compactionState.mutate(rawList, list, purgeDeletedRows);
-        return more;
+        rawList.clear();
+        freeRows.add(rawList);
+        return more || !batch.isEmpty();
+    }
+
+    private void readBatch() throws IOException {
+        int cells = 0;
+        while (more && batch.size() < MAX_BATCH_ROWS && cells < MAX_BATCH_CELLS) {
+            List<Cell> rawList = freeRows.isEmpty() ? new ArrayList<Cell>() : freeRows.remove(freeRows.size() - 1);
+            more = delegate.next(rawList);
+            if (rawList.isEmpty()) {
+                freeRows.add(rawList);
+                continue;
+            }
+            cells += rawList.size();
+            batch.add(rawList);
+        }
+        compactionState.resolveTransactions(batch);
     }
 
     public boolean next(List<Cell> results, int limit) throws IOException {
@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.access.client;
+
+import com.googlecode.concurrentlinkedhashmap.ConcurrentLinkedHashMap;
+import com.splicemachine.utils.SpliceLogUtils;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.HColumnDescriptor;
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.HTableDescriptor;
+import org.apache.hadoop.hbase.io.hfile.BlockCache;
+import org.apache.hadoop.hbase.io.hfile.CacheConfig;
+import org.apache.hadoop.hbase.regionserver.HRegion;
+import org.apache.hadoop.hbase.regionserver.Store;
+import org.apache.hadoop.hbase.regionserver.StoreFile;
+import org.apache.log4j.Logger;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The block cache which is shared by all the client-side region scanners in a JVM.
+ * <p/>
+ * Client-side scanners open their regions straight from HDFS, and every store of such a region reads through
+ * the JVM-wide block cache of HBase, which is built from the configuration of the first region opened in the
+ * JVM. So that concurrent tasks and repeated scans in a Spark executor share blocks without competing for heap,
+ * that configuration puts data blocks in a size-bounded off-heap bucket cache, and keeps index and bloom blocks
+ * in a small on-heap LRU cache. Blocks are keyed by HFile name and offset; since HFiles never change, a cached
+ * block stays valid for as long as its file exists.
+ * <p/>
+ * When a region is opened with a different set of HFiles than the last time it was opened in this JVM (after a
+ * flush or compaction), the blocks of the files which are gone are evicted at once instead of waiting to age out.
+ * Only the files of the most recently opened regions are remembered; the blocks of the others age out as usual.
+ */
+class ClientSideBlockCache{
+    private static final Logger LOG=Logger.getLogger(ClientSideBlockCache.class);
+    /** The fraction of the heap used to cache index and bloom blocks */
+    static final float INDEX_CACHE_HEAP_FRACTION=0.05f;
+
+    /** The number of regions whose HFiles are remembered */
+    static final int MAX_TRACKED_REGIONS=4096;
+
+    private static final ConcurrentMap<String,Set<String>> regionFiles=
+            new ConcurrentLinkedHashMap.Builder<String,Set<String>>()
+                    .maximumWeightedCapacity(MAX_TRACKED_REGIONS)
+                    .build();
+
+    private ClientSideBlockCache(){}
+
+    /**
+     * @param conf the configuration of the table being scanned
+     * @param cacheSize the size of the off-heap cache, in bytes, or 0 to keep the configured block cache
+     * @return the configuration with which to open regions for client-side scans
+     */
+    static Configuration configure(Configuration conf,long cacheSize){
+        Configuration cacheConf=new Configuration(conf);
+        // regions are closed at the end of every scan, which mustn't throw their blocks away
+        cacheConf.setBoolean(CacheConfig.EVICT_BLOCKS_ON_CLOSE_KEY,false);
+        if(cacheSize<=0)
+            return cacheConf;
+        cacheConf.setFloat(HConstants.HFILE_BLOCK_CACHE_SIZE_KEY,INDEX_CACHE_HEAP_FRACTION);
+        cacheConf.set(HConstants.BUCKET_CACHE_IOENGINE_KEY,"offheap");
+        // sizes of 1 and more are read as megabytes
+        cacheConf.setFloat(HConstants.BUCKET_CACHE_SIZE_KEY,Math.max(1L,cacheSize>>20));
+        cacheConf.setBoolean(CacheConfig.BUCKET_CACHE_COMBINED_KEY,true);
+        return cacheConf;
+    }
+
+    /**
+     * Evict the blocks of the HFiles which the region had the last time it was opened in this JVM, but which
+     * it doesn't have any more.
+     */
+    static void regionOpened(HRegion region,HTableDescriptor htd){
+        Set<String> files=new HashSet<>();
+        BlockCache blockCache=null;
+        for(HColumnDescriptor family : htd.getColumnFamilies()){
+            Store store=region.getStore(family.getName());
+            if(store==null) continue;
+            for(StoreFile storeFile : store.getStorefiles()){
+                files.add(storeFile.getPath().getName());
+            }
+            if(blockCache==null)
+                blockCache=store.getCacheConfig().getBlockCache();
+        }
+        Set<String> removed=retireFiles(region.getRegionInfo().getEncodedName(),files);
+        if(blockCache==null || removed.isEmpty())
+            return;
+        int evicted=0;
+        for(String file : removed){
+            evicted+=blockCache.evictBlocksByHfileName(file);
+        }
+        if(LOG.isDebugEnabled())
+            SpliceLogUtils.debug(LOG,"evicted %d blocks of %d removed files of region %s, cache hit ratio %f",
+                    evicted,removed.size(),region.getRegionInfo().getEncodedName(),blockCache.getStats().getHitRatio());
+    }
+
+    /**
+     * Record the current HFiles of a region.
+     *
+     * @return the files which the region had when it was last recorded, and doesn't have any more
+     */
+    static Set<String> retireFiles(String encodedRegionName,Set<String> currentFiles){
+        Set<String> previous=regionFiles.put(encodedRegionName,Collections.unmodifiableSet(currentFiles));
+        if(previous==null)
+            return Collections.emptySet();
+        Set<String> removed=new HashSet<>(previous);
+        removed.removeAll(currentFiles);
+        return removed;
+    }
+}
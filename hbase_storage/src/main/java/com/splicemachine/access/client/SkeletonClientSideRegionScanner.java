@@ -18,6 +18,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import com.splicemachine.access.HConfiguration;
 import com.splicemachine.si.constants.SIConstants;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FileSystem;
@@ -65,7 +66,7 @@ public abstract class SkeletonClientSideRegionScanner implements RegionScanner{
 		if (LOG.isDebugEnabled())
 			SpliceLogUtils.debug(LOG, "init for regionInfo=%s, scan=%s", hri,scan);
 		scan.setIsolationLevel(IsolationLevel.READ_UNCOMMITTED);
-		this.conf = conf;
+		this.conf = ClientSideBlockCache.configure(conf,HConfiguration.getConfiguration().getClientScanBlockCacheSize());
 		this.fs = fs;
 		this.rootDir = rootDir;
 		this.htd = htd;
@@ -210,7 +211,9 @@ public abstract class SkeletonClientSideRegionScanner implements RegionScanner{
     }
 
     private HRegion openHRegion() throws IOException {
-        return HRegion.openHRegion(conf, fs, rootDir, hri, new ReadOnlyTableDescriptor(htd), null,null, null);
+        HRegion region = HRegion.openHRegion(conf, fs, rootDir, hri, new ReadOnlyTableDescriptor(htd), null,null, null);
+        ClientSideBlockCache.regionOpened(region, htd);
+        return region;
     }
 
     private KeyValueScanner getMemStoreScanner() throws IOException {
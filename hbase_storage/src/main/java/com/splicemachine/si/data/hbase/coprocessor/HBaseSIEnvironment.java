@@ -43,6 +43,7 @@ import com.splicemachine.si.api.txn.TxnStore;
 import com.splicemachine.si.api.txn.TxnSupplier;
 import com.splicemachine.si.data.HExceptionFactory;
 import com.splicemachine.si.data.hbase.HOperationStatusFactory;
+import com.splicemachine.si.impl.BatchedKeepAlive;
 import com.splicemachine.si.impl.CoprocessorTxnStore;
 import com.splicemachine.si.impl.HOperationFactory;
 import com.splicemachine.si.impl.QueuedKeepAliveScheduler;
@@ -107,7 +108,8 @@ public class HBaseSIEnvironment implements SIEnvironment{
         this.partitionCache = PartitionCacheService.loadPartitionCache(config);
         this.partitionFactory =TableFactoryService.loadTableFactory(clock,this.config,partitionCache);
         TxnNetworkLayerFactory txnNetworkLayerFactory= TableFactoryService.loadTxnNetworkLayer(this.config);
-        this.txnStore = new CoprocessorTxnStore(txnNetworkLayerFactory,timestampSource,null);
+        this.txnStore = new CoprocessorTxnStore(txnNetworkLayerFactory,timestampSource,null,
+                config.getTransactionLifecycleBatching());
         int completedTxnCacheSize = config.getCompletedTxnCacheSize();
         int completedTxnConcurrency = config.getCompletedTxnConcurrency();
         this.txnSupplier = new CompletedTxnCacheSupplier(txnStore,completedTxnCacheSize,completedTxnConcurrency);
@@ -120,7 +122,8 @@ public class HBaseSIEnvironment implements SIEnvironment{
         this.keepAlive = new QueuedKeepAliveScheduler(config.getTransactionKeepAliveInterval(),
                 config.getTransactionTimeout(),
                 config.getTransactionKeepAliveThreads(),
-                txnStore);
+                txnStore,
+                config.getTransactionBatchedKeepAlive()?new BatchedKeepAlive(txnNetworkLayerFactory):null);
         this.clusterHealthFactory = new HClusterHealthFactory(ZkUtils.getRecoverableZooKeeper());
         siDriver = SIDriver.loadDriver(this);
     }
@@ -134,7 +137,8 @@ public class HBaseSIEnvironment implements SIEnvironment{
         this.partitionCache = PartitionCacheService.loadPartitionCache(config);
         this.partitionFactory =TableFactoryService.loadTableFactory(clock, this.config,partitionCache);
         TxnNetworkLayerFactory txnNetworkLayerFactory= TableFactoryService.loadTxnNetworkLayer(this.config);
-        this.txnStore = new CoprocessorTxnStore(txnNetworkLayerFactory,timestampSource,null);
+        this.txnStore = new CoprocessorTxnStore(txnNetworkLayerFactory,timestampSource,null,
+                config.getTransactionLifecycleBatching());
         int completedTxnCacheSize = config.getCompletedTxnCacheSize();
         int completedTxnConcurrency = config.getCompletedTxnConcurrency();
         this.txnSupplier = new CompletedTxnCacheSupplier(txnStore,completedTxnCacheSize,completedTxnConcurrency);
@@ -150,7 +154,8 @@ public class HBaseSIEnvironment implements SIEnvironment{
         this.keepAlive = new QueuedKeepAliveScheduler(config.getTransactionKeepAliveInterval(),
                 config.getTransactionTimeout(),
                 config.getTransactionKeepAliveThreads(),
-                txnStore);
+                txnStore,
+                config.getTransactionBatchedKeepAlive()?new BatchedKeepAlive(txnNetworkLayerFactory):null);
         siDriver = SIDriver.loadDriver(this);
     }
 
@@ -15,6 +15,18 @@
 package com.splicemachine.si.data.hbase.coprocessor;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import com.google.common.primitives.Longs;
 import com.google.protobuf.RpcCallback;
@@ -23,6 +35,7 @@ import com.google.protobuf.Service;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import org.apache.hadoop.hbase.Coprocessor;
 import org.apache.hadoop.hbase.CoprocessorEnvironment;
+import org.apache.hadoop.hbase.HRegionInfo;
 import org.apache.hadoop.hbase.coprocessor.CoprocessorService;
 import org.apache.hadoop.hbase.coprocessor.RegionCoprocessorEnvironment;
 import org.apache.hadoop.hbase.protobuf.ResponseConverter;
@@ -34,9 +47,11 @@ import com.splicemachine.concurrent.CountedReference;
 import com.splicemachine.concurrent.SystemClock;
 import com.splicemachine.constants.EnvUtils;
 import com.splicemachine.hbase.ZkUtils;
+import com.splicemachine.si.api.txn.lifecycle.TransactionTimeoutException;
 import com.splicemachine.si.api.txn.lifecycle.TxnLifecycleStore;
 import com.splicemachine.si.api.txn.lifecycle.TxnPartition;
 import com.splicemachine.si.coprocessor.TxnMessage;
+import com.splicemachine.si.impl.TxnUtils;
 import com.splicemachine.si.impl.data.StripedTxnLifecycleStore;
 import com.splicemachine.si.impl.driver.SIDriver;
 import com.splicemachine.si.impl.region.RegionServerControl;
@@ -46,6 +61,7 @@ import com.splicemachine.timestamp.api.TimestampSource;
 import com.splicemachine.utils.Source;
 import com.splicemachine.utils.SpliceLogUtils;
 import org.spark_project.guava.base.Supplier;
+import org.spark_project.guava.util.concurrent.ThreadFactoryBuilder;
 
 /**
  * @author Scott Fines
@@ -53,8 +69,10 @@ import org.spark_project.guava.base.Supplier;
  */
 public class TxnLifecycleEndpoint extends TxnMessage.TxnLifecycleService implements CoprocessorService, Coprocessor{
     private static final Logger LOG=Logger.getLogger(TxnLifecycleEndpoint.class);
+    private static final int MAX_BATCH_THREADS=64;
 
     private TxnLifecycleStore lifecycleStore;
+    private HRegionInfo regionInfo;
     private volatile boolean isTxnTable=false;
 
     public static final CountedReference<TransactionResolver> resolverRef=new CountedReference<>(new Supplier<TransactionResolver>(){
@@ -69,6 +87,23 @@ public class TxnLifecycleEndpoint extends TxnMessage.TxnLifecycleService impleme
         }
     });
 
+    public static final CountedReference<ExecutorService> batchExecutorRef=new CountedReference<>(new Supplier<ExecutorService>(){
+        @Override
+        public ExecutorService get(){
+            ThreadFactory factory=new ThreadFactoryBuilder().setNameFormat("txnLifecycleBatch-%d").setDaemon(true).build();
+            //when every thread is busy, the handler runs the operation itself
+            return new ThreadPoolExecutor(0,MAX_BATCH_THREADS,60,TimeUnit.SECONDS,
+                    new SynchronousQueue<Runnable>(),factory,new ThreadPoolExecutor.CallerRunsPolicy());
+        }
+    },new CountedReference.ShutdownAction<ExecutorService>(){
+        @Override
+        public void shutdown(ExecutorService instance){
+            instance.shutdownNow();
+        }
+    });
+
+    private ExecutorService batchExecutor; //null when neither lifecycle batching nor batched keep-alives are on
+
     @Override
     public void start(CoprocessorEnvironment env) throws IOException{
         try {
@@ -86,11 +121,15 @@ public class TxnLifecycleEndpoint extends TxnMessage.TxnLifecycleService impleme
                         driver.getTxnSupplier(),
                         resolver,
                         txnKeepAliveTimeout,
-                        new SystemClock());
+                        new SystemClock(),
+                        configuration.getTransactionLifecycleBatching());
                 TimestampSource timestampSource=driver.getTimestampSource();
                 int txnLockStrips = configuration.getTransactionLockStripes();
                 lifecycleStore = new StripedTxnLifecycleStore(txnLockStrips,regionStore,
                         new RegionServerControl(region,rce.getRegionServerServices()),timestampSource);
+                regionInfo=region.getRegionInfo();
+                if(configuration.getTransactionLifecycleBatching()||configuration.getTransactionBatchedKeepAlive())
+                    batchExecutor=batchExecutorRef.get();
                 isTxnTable=true;
             }
         } catch (Throwable t) {
@@ -104,6 +143,8 @@ public class TxnLifecycleEndpoint extends TxnMessage.TxnLifecycleService impleme
             SpliceLogUtils.info(LOG, "Shutting down TxnLifecycleEndpoint");
             if(isTxnTable) {
                 resolverRef.release(true);
+                if(batchExecutor!=null)
+                    batchExecutorRef.release(true);
             }
         } catch (Throwable t) {
             throw CoprocessorUtils.getIOException(t);
@@ -146,35 +187,110 @@ public class TxnLifecycleEndpoint extends TxnMessage.TxnLifecycleService impleme
     }
 
     @Override
-    @SuppressFBWarnings(value = "SF_SWITCH_NO_DEFAULT",justification = "Intentional")
     public void lifecycleAction(RpcController controller,TxnMessage.TxnLifecycleMessage request,RpcCallback<TxnMessage.ActionResponse> done){
         try{
-            TxnMessage.ActionResponse response=null;
-            switch(request.getAction()){
-                case COMMIT:
-                    response=TxnMessage.ActionResponse.newBuilder().setCommitTs(commit(request.getTxnId())).build();
-                    break;
-                case TIMEOUT:
-                case ROLLBACk:
-                    rollback(request.getTxnId());
-                    response=TxnMessage.ActionResponse.getDefaultInstance();
-                    break;
-                case KEEPALIVE:
-                    boolean b=keepAlive(request.getTxnId());
-                    response=TxnMessage.ActionResponse.newBuilder().setContinue(b).build();
-                    break;
-                case ROLLBACK_SUBTRANSACTIONS:
-                    long[] ids = Longs.toArray(request.getRolledbackSubTxnsList());
-                    rollbackSubtransactions(request.getTxnId(), ids);
-                    response=TxnMessage.ActionResponse.getDefaultInstance();
-                    break;
-            }
-            done.run(response);
+            done.run(performAction(request));
         }catch(IOException ioe){
             ResponseConverter.setControllerException(controller,ioe);
         }
     }
 
+    @Override
+    public void lifecycleBatch(RpcController controller,TxnMessage.TxnLifecycleBatch request,RpcCallback<TxnMessage.TxnLifecycleBatchResponse> done){
+        List<Future<TxnMessage.TxnLifecycleResult>> results=new ArrayList<>(request.getOpsCount());
+        for(int i=0;i<request.getOpsCount();i++){
+            final int index=i;
+            final TxnMessage.TxnLifecycleOp op=request.getOps(i);
+            long txnId=op.hasBegin()?op.getBegin().getTxnId():op.getAction().getTxnId();
+            if(!regionInfo.containsRow(TxnUtils.getRowKey(txnId)))
+                continue; //another region of the transaction table answers for it
+            /*
+             * The operations run concurrently, so that the GroupCommitWriter of the region writes their
+             * puts together
+             */
+            results.add(submit(new Callable<TxnMessage.TxnLifecycleResult>(){
+                @Override
+                public TxnMessage.TxnLifecycleResult call(){
+                    TxnMessage.TxnLifecycleResult.Builder result=TxnMessage.TxnLifecycleResult.newBuilder().setIndex(index);
+                    try{
+                        if(op.hasBegin()){
+                            lifecycleStore.beginTransaction(op.getBegin());
+                            result.setResponse(TxnMessage.ActionResponse.getDefaultInstance());
+                        }else
+                            result.setResponse(performAction(op.getAction()));
+                    }catch(Throwable t){
+                        result.setErrorClass(t.getClass().getName());
+                        if(t.getMessage()!=null)
+                            result.setErrorMessage(t.getMessage());
+                    }
+                    return result.build();
+                }
+            }));
+        }
+        TxnMessage.TxnLifecycleBatchResponse.Builder response=TxnMessage.TxnLifecycleBatchResponse.newBuilder();
+        try{
+            for(Future<TxnMessage.TxnLifecycleResult> result : results){
+                response.addResults(result.get());
+            }
+            done.run(response.build());
+        }catch(InterruptedException ie){
+            Thread.currentThread().interrupt();
+            ResponseConverter.setControllerException(controller,new InterruptedIOException("Interrupted while performing lifecycle operations"));
+        }catch(ExecutionException ee){
+            ResponseConverter.setControllerException(controller,CoprocessorUtils.getIOException(ee.getCause()));
+        }
+    }
+
+    @Override
+    public void keepAliveTransactions(RpcController controller,TxnMessage.KeepAliveRequest request,RpcCallback<TxnMessage.KeepAliveResponse> done){
+        List<Long> txnIds=new ArrayList<>(request.getTxnIdsCount());
+        List<Future<Boolean>> results=new ArrayList<>(request.getTxnIdsCount());
+        for(int i=0;i<request.getTxnIdsCount();i++){
+            final long txnId=request.getTxnIds(i);
+            if(!regionInfo.containsRow(TxnUtils.getRowKey(txnId)))
+                continue; //another region of the transaction table answers for it
+            txnIds.add(txnId);
+            results.add(submit(new Callable<Boolean>(){
+                @Override
+                public Boolean call() throws IOException{
+                    return keepAlive(txnId);
+                }
+            }));
+        }
+        TxnMessage.KeepAliveResponse.Builder response=TxnMessage.KeepAliveResponse.newBuilder();
+        try{
+            for(int i=0;i<results.size();i++){
+                long txnId=txnIds.get(i);
+                try{
+                    if(results.get(i).get())
+                        response.addKeptAliveTxnIds(txnId);
+                    else
+                        response.addNotActiveTxnIds(txnId);
+                }catch(ExecutionException ee){
+                    if(ee.getCause() instanceof TransactionTimeoutException)
+                        response.addTimedOutTxnIds(txnId);
+                    else
+                        SpliceLogUtils.warn(LOG,"Unable to keep transaction %d alive: %s",txnId,ee.getCause());
+                }
+            }
+            done.run(response.build());
+        }catch(InterruptedException ie){
+            Thread.currentThread().interrupt();
+            ResponseConverter.setControllerException(controller,new InterruptedIOException("Interrupted while keeping transactions alive"));
+        }
+    }
+
+    /**
+     * Run a task of a batch call on the batch pool, or in the handler thread when there is no pool.
+     */
+    private <T> Future<T> submit(Callable<T> task){
+        if(batchExecutor!=null)
+            return batchExecutor.submit(task);
+        FutureTask<T> future=new FutureTask<>(task);
+        future.run();
+        return future;
+    }
+
     @Override
     public void getTransaction(RpcController controller,TxnMessage.TxnRequest request,RpcCallback<TxnMessage.Txn> done){
         try{
@@ -192,6 +308,33 @@ public class TxnLifecycleEndpoint extends TxnMessage.TxnLifecycleService impleme
         }
     }
 
+    @Override
+    public void getTransactions(RpcController controller,TxnMessage.TxnsRequest request,RpcCallback<TxnMessage.TxnsResponse> done){
+        try{
+            TxnMessage.TxnsResponse.Builder response=TxnMessage.TxnsResponse.newBuilder();
+            for(TxnMessage.TxnRequest txnRequest : request.getRequestsList()){
+                long txnId=txnRequest.getTxnId();
+                boolean isOld = txnRequest.hasIsOld() && txnRequest.getIsOld();
+                byte[] rowKey=isOld?TxnUtils.getOldRowKey(txnId):TxnUtils.getRowKey(txnId);
+                if(!regionInfo.containsRow(rowKey))
+                    continue; //another region of the transaction table answers for it
+                TxnMessage.Txn transaction;
+                if (isOld) {
+                    transaction = lifecycleStore.getOldTransaction(txnId);
+                } else {
+                    transaction = lifecycleStore.getTransaction(txnId);
+                }
+                if(transaction==null || transaction.getInfo().getTxnId()<0)
+                    response.addMissingTxnIds(txnId); //the lifecycle store stands in a dummy record for missing ones
+                else
+                    response.addTxns(transaction);
+            }
+            done.run(response.build());
+        }catch(IOException ioe){
+            ResponseConverter.setControllerException(controller,ioe);
+        }
+    }
+
     @Override
     public void getActiveTransactionIds(RpcController controller,TxnMessage.ActiveTxnRequest request,RpcCallback<TxnMessage.ActiveTxnIdResponse> done){
         long endTxnId=request.getEndTxnId();
@@ -232,6 +375,31 @@ public class TxnLifecycleEndpoint extends TxnMessage.TxnLifecycleService impleme
 
     }
 
+    @SuppressFBWarnings(value = "SF_SWITCH_NO_DEFAULT",justification = "Intentional")
+    private TxnMessage.ActionResponse performAction(TxnMessage.TxnLifecycleMessage request) throws IOException{
+        TxnMessage.ActionResponse response=null;
+        switch(request.getAction()){
+            case COMMIT:
+                response=TxnMessage.ActionResponse.newBuilder().setCommitTs(commit(request.getTxnId())).build();
+                break;
+            case TIMEOUT:
+            case ROLLBACk:
+                rollback(request.getTxnId());
+                response=TxnMessage.ActionResponse.getDefaultInstance();
+                break;
+            case KEEPALIVE:
+                boolean b=keepAlive(request.getTxnId());
+                response=TxnMessage.ActionResponse.newBuilder().setContinue(b).build();
+                break;
+            case ROLLBACK_SUBTRANSACTIONS:
+                long[] ids = Longs.toArray(request.getRolledbackSubTxnsList());
+                rollbackSubtransactions(request.getTxnId(), ids);
+                response=TxnMessage.ActionResponse.getDefaultInstance();
+                break;
+        }
+        return response;
+    }
+
     public long commit(long txnId) throws IOException{
         return lifecycleStore.commitTransaction(txnId);
     }
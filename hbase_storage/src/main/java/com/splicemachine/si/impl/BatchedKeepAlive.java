@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.si.impl;
+
+import com.carrotsearch.hppc.LongOpenHashSet;
+import com.splicemachine.si.coprocessor.TxnMessage;
+import org.apache.hadoop.hbase.util.Bytes;
+
+import java.io.IOException;
+import java.util.Collection;
+
+/**
+ * Keeps many transactions alive at once, with one {@code keepAliveTransactions} call to the transaction table.
+ *
+ * The call goes to every region which holds some of the transactions, and each region keeps its share alive the
+ * same way a single keep-alive does: under the transaction's lock, as of the region server's clock. The regions
+ * perform the keep-alives concurrently and write them together, so the cost no longer grows with the number of
+ * live transactions the way one endpoint call per transaction does.
+ */
+public class BatchedKeepAlive{
+
+    public enum Outcome{
+        /** The transaction's keep-alive time was updated */
+        KEPT_ALIVE,
+        /** The transaction is no longer active (or has no record), so it no longer needs keep-alives */
+        NOT_ACTIVE,
+        /** The transaction has already timed out */
+        TIMED_OUT,
+        /** The batch couldn't keep the transaction alive, so it should be kept alive on its own */
+        DEFERRED
+    }
+
+    private final TxnNetworkLayerFactory tableFactory;
+
+    public BatchedKeepAlive(TxnNetworkLayerFactory tableFactory){
+        this.tableFactory=tableFactory;
+    }
+
+    /**
+     * @param txnIds the transactions to keep alive
+     * @return the outcome for each transaction, in the same order
+     * @throws IOException if the transaction table could not be reached. In that case, some of the
+     * transactions may have been kept alive and others not.
+     */
+    public Outcome[] keepAlive(long[] txnIds) throws IOException{
+        Outcome[] outcomes=new Outcome[txnIds.length];
+        if(txnIds.length==0) return outcomes;
+        TxnMessage.KeepAliveRequest.Builder request=TxnMessage.KeepAliveRequest.newBuilder();
+        byte[] startRow=null;
+        byte[] endRow=null;
+        for(long txnId : txnIds){
+            request.addTxnIds(txnId);
+            byte[] rowKey=TxnUtils.getRowKey(txnId);
+            if(startRow==null || Bytes.compareTo(rowKey,startRow)<0) startRow=rowKey;
+            if(endRow==null || Bytes.compareTo(rowKey,endRow)>0) endRow=rowKey;
+        }
+        LongOpenHashSet keptAlive=LongOpenHashSet.newInstance();
+        LongOpenHashSet notActive=LongOpenHashSet.newInstance();
+        LongOpenHashSet timedOut=LongOpenHashSet.newInstance();
+        try(TxnNetworkLayer table=tableFactory.accessTxnNetwork()){
+            Collection<TxnMessage.KeepAliveResponse> responses=table.keepAlive(startRow,endRow,request.build());
+            for(TxnMessage.KeepAliveResponse response : responses){
+                for(long txnId : response.getKeptAliveTxnIdsList()) keptAlive.add(txnId);
+                for(long txnId : response.getNotActiveTxnIdsList()) notActive.add(txnId);
+                for(long txnId : response.getTimedOutTxnIdsList()) timedOut.add(txnId);
+            }
+        }
+        for(int i=0;i<txnIds.length;i++){
+            long txnId=txnIds[i];
+            if(keptAlive.contains(txnId))
+                outcomes[i]=Outcome.KEPT_ALIVE;
+            else if(notActive.contains(txnId))
+                outcomes[i]=Outcome.NOT_ACTIVE;
+            else if(timedOut.contains(txnId))
+                outcomes[i]=Outcome.TIMED_OUT;
+            else
+                outcomes[i]=Outcome.DEFERRED;
+        }
+        return outcomes;
+    }
+}
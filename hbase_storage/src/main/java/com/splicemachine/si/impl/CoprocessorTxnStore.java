@@ -14,6 +14,7 @@
 
 package com.splicemachine.si.impl;
 
+import com.carrotsearch.hppc.LongObjectOpenHashMap;
 import com.carrotsearch.hppc.LongOpenHashSet;
 import org.apache.hadoop.hbase.ipc.ServerRpcController;
 import org.spark_project.guava.collect.Iterators;
@@ -30,6 +31,7 @@ import com.splicemachine.si.api.txn.Txn;
 import com.splicemachine.si.api.txn.TxnStore;
 import com.splicemachine.si.api.txn.TxnSupplier;
 import com.splicemachine.si.api.txn.TxnView;
+import com.splicemachine.si.constants.SIConstants;
 import com.splicemachine.si.coprocessor.TxnMessage;
 import com.splicemachine.si.impl.txn.InheritingTxnView;
 import com.splicemachine.timestamp.api.TimestampSource;
@@ -52,6 +54,7 @@ import java.util.concurrent.atomic.AtomicLong;
 @ThreadSafe
 public class CoprocessorTxnStore implements TxnStore {
     private final TxnNetworkLayerFactory tableFactory;
+    private final TxnLifecycleBatcher[] batchers; //one per bucket of the transaction table, null when not batching
     private TxnSupplier cache; //a transaction store which uses a global cache for us
     private volatile long oldTransactions;
     
@@ -67,8 +70,16 @@ public class CoprocessorTxnStore implements TxnStore {
 
     public CoprocessorTxnStore(TxnNetworkLayerFactory tableFactory,
                                TimestampSource timestampSource,
-                               @ThreadSafe TxnSupplier txnCache){
+                               @ThreadSafe TxnSupplier txnCache,
+                               boolean batchLifecycle){
         this.tableFactory=tableFactory;
+        if(batchLifecycle){
+            this.batchers=new TxnLifecycleBatcher[SIConstants.TRANSACTION_TABLE_BUCKET_COUNT];
+            for(int i=0;i<batchers.length;i++){
+                batchers[i]=new TxnLifecycleBatcher(tableFactory);
+            }
+        }else
+            this.batchers=null;
         this.cache = txnCache==null?this:txnCache; // Not Used...
         this.timestampSource=timestampSource;
     }
@@ -103,10 +114,14 @@ public class CoprocessorTxnStore implements TxnStore {
             request=request.setDestinationTables(bs);
         }
 
-        try(TxnNetworkLayer table = tableFactory.accessTxnNetwork()){
-            table.beginTransaction(rowKey,request.build());
-            txnsCreated.incrementAndGet();
+        if(batchers!=null)
+            batcher(rowKey).submit(rowKey,TxnMessage.TxnLifecycleOp.newBuilder().setBegin(request).build());
+        else{
+            try(TxnNetworkLayer table = tableFactory.accessTxnNetwork()){
+                table.beginTransaction(rowKey,request.build());
+            }
         }
+        txnsCreated.incrementAndGet();
     }
 
 
@@ -115,10 +130,8 @@ public class CoprocessorTxnStore implements TxnStore {
         byte[] rowKey=getTransactionRowKey(txnId);
         TxnMessage.TxnLifecycleMessage lifecycle=TxnMessage.TxnLifecycleMessage.newBuilder()
                 .setTxnId(txnId).setAction(TxnMessage.LifecycleAction.ROLLBACk).build();
-        try(TxnNetworkLayer table = tableFactory.accessTxnNetwork()){
-            table.lifecycleAction(rowKey,lifecycle);
-            rollbacks.incrementAndGet();
-        }
+        lifecycleAction(rowKey,lifecycle);
+        rollbacks.incrementAndGet();
     }
 
     @Override
@@ -127,10 +140,8 @@ public class CoprocessorTxnStore implements TxnStore {
         TxnMessage.TxnLifecycleMessage lifecycle=TxnMessage.TxnLifecycleMessage.newBuilder()
                 .setTxnId(txnId).addAllRolledbackSubTxns(Longs.asList(subtransactions.toArray()))
                 .setAction(TxnMessage.LifecycleAction.ROLLBACK_SUBTRANSACTIONS).build();
-        try(TxnNetworkLayer table = tableFactory.accessTxnNetwork()){
-            table.lifecycleAction(rowKey,lifecycle);
-            rollbacks.incrementAndGet();
-        }
+        lifecycleAction(rowKey,lifecycle);
+        rollbacks.incrementAndGet();
     }
 
     @Override
@@ -138,12 +149,9 @@ public class CoprocessorTxnStore implements TxnStore {
         byte[] rowKey=getTransactionRowKey(txnId);
         TxnMessage.TxnLifecycleMessage lifecycle=TxnMessage.TxnLifecycleMessage.newBuilder()
                 .setTxnId(txnId).setAction(TxnMessage.LifecycleAction.COMMIT).build();
-
-        try(TxnNetworkLayer table = tableFactory.accessTxnNetwork()){
-            TxnMessage.ActionResponse response = table.lifecycleAction(rowKey,lifecycle);
-            commits.incrementAndGet();
-            return response.getCommitTs();
-        }
+        TxnMessage.ActionResponse response=lifecycleAction(rowKey,lifecycle);
+        commits.incrementAndGet();
+        return response.getCommitTs();
     }
 
     @Override
@@ -152,10 +160,8 @@ public class CoprocessorTxnStore implements TxnStore {
 
         TxnMessage.TxnLifecycleMessage lifecycle=TxnMessage.TxnLifecycleMessage.newBuilder()
                 .setTxnId(txnId).setAction(TxnMessage.LifecycleAction.KEEPALIVE).build();
-        try(TxnNetworkLayer table = tableFactory.accessTxnNetwork()){
-            TxnMessage.ActionResponse actionResponse=table.lifecycleAction(rowKey,lifecycle);
-            return actionResponse.getContinue();
-        }
+        TxnMessage.ActionResponse actionResponse=lifecycleAction(rowKey,lifecycle);
+        return actionResponse.getContinue();
     }
 
     @Override
@@ -256,6 +262,63 @@ public class CoprocessorTxnStore implements TxnStore {
         }
     }
 
+    /**
+     * Looks up every transaction with one endpoint call, which each region of the transaction table answers
+     * for the transactions it stores. Transactions which no region answered for (e.g. because a region moved
+     * during the call) are looked up one at a time.
+     */
+    @Override
+    public TxnView[] getTransactions(long[] txnIds) throws IOException{
+        lookups.addAndGet(txnIds.length);
+        TxnView[] txns=new TxnView[txnIds.length];
+        if(txnIds.length==0) return txns;
+
+        TxnMessage.TxnsRequest.Builder request=TxnMessage.TxnsRequest.newBuilder();
+        byte[][] rowKeys=new byte[txnIds.length][];
+        byte[] startRow=null;
+        byte[] endRow=null;
+        for(int i=0;i<txnIds.length;i++){
+            long txnId=txnIds[i];
+            TxnMessage.TxnRequest.Builder txnRequest=TxnMessage.TxnRequest.newBuilder().setTxnId(txnId);
+            if(txnId<oldTransactions){
+                rowKeys[i]=getOldTransactionRowKey(txnId);
+                txnRequest.setIsOld(true);
+            }else
+                rowKeys[i]=getTransactionRowKey(txnId);
+            request.addRequests(txnRequest);
+            if(startRow==null || Bytes.compareTo(rowKeys[i],startRow)<0) startRow=rowKeys[i];
+            if(endRow==null || Bytes.compareTo(rowKeys[i],endRow)>0) endRow=rowKeys[i];
+        }
+
+        try (TxnNetworkLayer table = tableFactory.accessTxnNetwork()){
+            Collection<TxnMessage.TxnsResponse> responses=table.getTxns(startRow,endRow,request.build());
+            LongObjectOpenHashMap<TxnMessage.Txn> found=LongObjectOpenHashMap.newInstance(txnIds.length,0.75f);
+            LongOpenHashSet missing=LongOpenHashSet.newInstance();
+            for(TxnMessage.TxnsResponse response : responses){
+                for(TxnMessage.Txn message : response.getTxnsList()){
+                    found.put(message.getInfo().getTxnId(),message);
+                }
+                for(int i=0;i<response.getMissingTxnIdsCount();i++){
+                    missing.add(response.getMissingTxnIds(i));
+                }
+            }
+            for(int i=0;i<txnIds.length;i++){
+                long txnId=txnIds[i];
+                if(found.containsKey(txnId))
+                    txns[i]=decode(found.get(txnId));
+                else if(!missing.contains(txnId)){
+                    TxnMessage.TxnRequest.Builder txnRequest=TxnMessage.TxnRequest.newBuilder().setTxnId(txnId);
+                    if(txnId<oldTransactions)
+                        txnRequest.setIsOld(true);
+                    txns[i]=decode(table.getTxn(rowKeys[i],txnRequest.build()));
+                }
+            }
+        } catch(Throwable throwable){
+            throw new IOException(throwable);
+        }
+        return txns;
+    }
+
     public TxnView getOldTransaction(long txnId, boolean getDestinationTables) throws IOException {
         byte[] rowKey = getOldTransactionRowKey(txnId);
         TxnMessage.TxnRequest request = TxnMessage.TxnRequest.newBuilder().setTxnId(txnId).setIsOld(true).build();
@@ -439,6 +502,21 @@ public class CoprocessorTxnStore implements TxnStore {
         return encoder.build();
     }
 
+    /**
+     * Perform a lifecycle action, together with those of concurrent callers for the same bucket when batching.
+     */
+    private TxnMessage.ActionResponse lifecycleAction(byte[] rowKey,TxnMessage.TxnLifecycleMessage lifecycle) throws IOException{
+        if(batchers!=null)
+            return batcher(rowKey).submit(rowKey,TxnMessage.TxnLifecycleOp.newBuilder().setAction(lifecycle).build());
+        try(TxnNetworkLayer table = tableFactory.accessTxnNetwork()){
+            return table.lifecycleAction(rowKey,lifecycle);
+        }
+    }
+
+    private TxnLifecycleBatcher batcher(byte[] rowKey){
+        return batchers[rowKey[0]&(batchers.length-1)];
+    }
+
     private static byte[] getTransactionRowKey(long txnId){
         return TxnUtils.getRowKey(txnId);
     }
@@ -23,12 +23,25 @@ import com.splicemachine.si.api.txn.TxnStore;
 import com.splicemachine.utils.SpliceLogUtils;
 import org.apache.log4j.Logger;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
+ * Keeps transactions alive until they complete.
+ *
+ * When constructed with a {@link BatchedKeepAlive}, a single heartbeat runs once every keep-alive interval and keeps
+ * every live transaction in this JVM alive with one batched call; transactions which the batch couldn't keep alive
+ * fall back to their own keep-alive call. Otherwise, every transaction is kept alive by its own task, rescheduled
+ * after a random wait to spread the calls out.
+ *
  * @author Scott Fines
  *         Date: 6/25/14
  */
@@ -43,11 +56,25 @@ public class QueuedKeepAliveScheduler implements KeepAliveScheduler{
     @ThreadSafe
     TxnStore txnStore;
 
+    private final BatchedKeepAlive batchedKeepAlive;
+    private final Set<KeepAlive> liveTxns=Collections.newSetFromMap(new ConcurrentHashMap<KeepAlive, Boolean>());
+
+    /*monitoring fields*/
+    private final AtomicLong heartbeats=new AtomicLong(0l);
+    private final AtomicLong batchedKeepAlives=new AtomicLong(0l);
+    private final AtomicLong heartbeatTimeMs=new AtomicLong(0l);
+    private volatile int lastHeartbeatSize;
+
     private volatile boolean shutdown=false;
 
 
     public QueuedKeepAliveScheduler(long maxWaitIntervalMs,long maxKeepAliveIntervalMs,
                                     int numKeepers,TxnStore txnStore){
+        this(maxWaitIntervalMs,maxKeepAliveIntervalMs,numKeepers,txnStore,null);
+    }
+
+    public QueuedKeepAliveScheduler(long maxWaitIntervalMs,long maxKeepAliveIntervalMs,
+                                    int numKeepers,TxnStore txnStore,BatchedKeepAlive batchedKeepAlive){
         this.maxWaitIntervalMs=maxWaitIntervalMs;
         ThreadFactory factory=new ThreadFactoryBuilder().setNameFormat("keepAlive-thread-%d").setDaemon(true).build();
 
@@ -55,20 +82,59 @@ public class QueuedKeepAliveScheduler implements KeepAliveScheduler{
         this.random=ThreadLocalRandom.current();
         this.txnStore=txnStore;
         this.maxKeepAliveIntervalMs=maxKeepAliveIntervalMs;
+        this.batchedKeepAlive=batchedKeepAlive;
+        if(batchedKeepAlive!=null)
+            threadPool.scheduleWithFixedDelay(new Heartbeat(),maxWaitIntervalMs,maxWaitIntervalMs,TimeUnit.MILLISECONDS);
     }
 
     @Override
     public void scheduleKeepAlive(Txn txn){
         if(shutdown) return;
 
-//				activeTxns.add(txn);
-        threadPool.schedule(new KeepAlive(txn),random.nextLong(maxWaitIntervalMs),TimeUnit.MILLISECONDS);
+        reschedule(new KeepAlive(txn));
+    }
+
+    /**
+     * @return the number of heartbeats which have kept transactions alive in a batch
+     */
+    public long getTotalHeartbeats(){
+        return heartbeats.get();
+    }
+
+    /**
+     * @return the total number of transactions which were kept alive in a batch
+     */
+    public long getTotalBatchedKeepAlives(){
+        return batchedKeepAlives.get();
+    }
+
+    /**
+     * @return the total time (in ms) spent performing batched keep-alives
+     */
+    public long getTotalHeartbeatTime(){
+        return heartbeatTimeMs.get();
+    }
+
+    /**
+     * @return the number of transactions in the most recent heartbeat
+     */
+    public int getLastHeartbeatSize(){
+        return lastHeartbeatSize;
     }
 
     @Override
     public void start(){
     }
 
+    private void reschedule(KeepAlive keepAlive){
+        if(batchedKeepAlive!=null)
+            liveTxns.add(keepAlive); //picked up by the next heartbeat
+        else{
+            //use a random slop factor to load-balance our keep alive requests.
+            threadPool.schedule(keepAlive,random.nextLong(maxWaitIntervalMs),TimeUnit.MILLISECONDS);
+        }
+    }
+
     @Override
     public void stop(){
         shutdown=true;
@@ -86,14 +152,45 @@ public class QueuedKeepAliveScheduler implements KeepAliveScheduler{
 
         @Override
         public void run(){
+            if(!shouldKeepAlive()) return;
+
+            try{
+                long time=System.currentTimeMillis();
+                boolean reschedule=txnStore.keepAlive(txn.getTxnId());
+                time=System.currentTimeMillis()-time; //measure our latency
+                if(reschedule){
+                    lastKeepAliveTime=System.currentTimeMillis(); //include network latency in our wait period
+                    reschedule(this);
+                }
+                if(time>0.1*maxKeepAliveIntervalMs)
+                    SpliceLogUtils.warn(LOG,"It took longer than 10% of the keep-alive interval to perform"+
+                            "keep alive for transaction %d. This may be a sign that load will begin interfering"+
+                            "with the transaction system",txn.getTxnId());
+            }catch(HTransactionTimeout tte){
+                timedOut();
+            }catch(IOException e){
+								/*
+								 * This could be a real problem, but we don't have anything that we can really do about this,
+								 * so we just log the error and hope it resolves itself.
+								 */
+                LOG.error("Unable to keep transaction "+txn.getTxnId()+" alive. Will try again in a bit",e);
+                reschedule(this);
+            }
+        }
+
+        /**
+         * @return true if the transaction still needs keep-alives. If we have waited so long that it must have timed
+         * out already, it is rolled back here.
+         */
+        boolean shouldKeepAlive(){
             if(txn.getEffectiveState()!=Txn.State.ACTIVE){
-                return; //nothing to do, we no longer need to keep anything alive
+                return false; //nothing to do, we no longer need to keep anything alive
             }
             long keepAliveTime=System.currentTimeMillis()-lastKeepAliveTime;
 
             if(keepAliveTime>2*maxKeepAliveIntervalMs){
                 SpliceLogUtils.warn(LOG,"It has been %d ms since the last time we tried to perform"+
-                        "a keep alive, which is longer than the maximum interval");
+                        "a keep alive, which is longer than the maximum interval",keepAliveTime);
                                 /*
 								 * We are the only ones trying to keep this transaction alive. If we know
 								 * for a fact that we had to wait longer than the transaction timeout, then
@@ -110,41 +207,88 @@ public class QueuedKeepAliveScheduler implements KeepAliveScheduler{
                     LOG.info("Unable to roll back transaction "+txn.getTxnId()
                             +" but nothing to be concerned with, since it has already timed out",e);
                 }
-                return;
+                return false;
             }
+            return true;
+        }
 
+        void timedOut(){
+            LOG.error("Transaction "+txn.getTxnId()+" has timed out");
+            /*
+             * We attempted to keep alive a transaction that has already timed out for a different
+             * reason. Ensure that the transaction is rolled back
+             */
             try{
-                long time=System.currentTimeMillis();
-                boolean reschedule=txnStore.keepAlive(txn.getTxnId());
-                time=System.currentTimeMillis()-time; //measure our latency
-                if(reschedule){
-                    //use a random slop factor to load-balance our keep alive requests.
-                    threadPool.schedule(this,random.nextLong(maxWaitIntervalMs),TimeUnit.MILLISECONDS);
-                    lastKeepAliveTime=System.currentTimeMillis(); //include network latency in our wait period
-                }
-                if(time>0.1*maxKeepAliveIntervalMs)
-                    SpliceLogUtils.warn(LOG,"It took longer than 10% of the keep-alive interval to perform"+
-                            "keep alive for transaction %d. This may be a sign that load will begin interfering"+
-                            "with the transaction system",txn.getTxnId());
-            }catch(HTransactionTimeout tte){
-                LOG.error("Transaction "+txn.getTxnId()+" has timed out");
-									/*
-									 * We attempted to keep alive a transaction that has already timed out for a different
-									 * reason. Ensure that the transaction is rolled back
-									 */
-                try{
-                    txn.rollback();
-                }catch(IOException e){
-                    LOG.info("Unable to roll back transaction "+
-                            txn.getTxnId()+" but nothing to be concerned with, since it has already timed out",e);
-                }
+                txn.rollback();
             }catch(IOException e){
-								/*
-								 * This could be a real problem, but we don't have anything that we can really do about this,
-								 * so we just log the error and hope it resolves itself.
-								 */
-                LOG.error("Unable to keep transaction "+txn.getTxnId()+" alive. Will try again in a bit",e);
-                threadPool.schedule(this,random.nextLong(maxWaitIntervalMs),TimeUnit.MILLISECONDS);
+                LOG.info("Unable to roll back transaction "+
+                        txn.getTxnId()+" but nothing to be concerned with, since it has already timed out",e);
+            }
+        }
+    }
+
+    private class Heartbeat implements Runnable{
+        @Override
+        public void run(){
+            if(shutdown) return;
+            try{
+                keepAllAlive();
+            }catch(RuntimeException e){
+                //an exception would cancel all future heartbeats, so log it and carry on
+                LOG.error("Unexpected error during keep-alive heartbeat",e);
+            }
+        }
+
+        private void keepAllAlive(){
+            List<KeepAlive> keepAlives=new ArrayList<>(liveTxns.size());
+            for(KeepAlive keepAlive : liveTxns){
+                liveTxns.remove(keepAlive);
+                if(keepAlive.shouldKeepAlive())
+                    keepAlives.add(keepAlive);
+            }
+            if(keepAlives.isEmpty()) return;
+
+            long[] txnIds=new long[keepAlives.size()];
+            for(int i=0;i<txnIds.length;i++){
+                txnIds[i]=keepAlives.get(i).txn.getTxnId();
+            }
+            long time=System.currentTimeMillis();
+            BatchedKeepAlive.Outcome[] outcomes;
+            try{
+                outcomes=batchedKeepAlive.keepAlive(txnIds);
+            }catch(IOException|RuntimeException e){
+                LOG.error("Unable to keep "+txnIds.length+" transactions alive in a batch. Will try again in a bit",e);
+                liveTxns.addAll(keepAlives);
+                return;
+            }
+            long now=System.currentTimeMillis();
+            time=now-time;
+            heartbeats.incrementAndGet();
+            batchedKeepAlives.addAndGet(txnIds.length);
+            heartbeatTimeMs.addAndGet(time);
+            lastHeartbeatSize=txnIds.length;
+            if(LOG.isDebugEnabled())
+                SpliceLogUtils.debug(LOG,"Kept %d transactions alive in %d ms",txnIds.length,time);
+            if(time>0.1*maxKeepAliveIntervalMs)
+                SpliceLogUtils.warn(LOG,"It took longer than 10%% of the keep-alive interval to keep %d transactions alive. "+
+                        "This may be a sign that load will begin interfering with the transaction system",txnIds.length);
+
+            for(int i=0;i<outcomes.length;i++){
+                KeepAlive keepAlive=keepAlives.get(i);
+                switch(outcomes[i]){
+                    case KEPT_ALIVE:
+                        keepAlive.lastKeepAliveTime=now;
+                        liveTxns.add(keepAlive);
+                        break;
+                    case TIMED_OUT:
+                        keepAlive.timedOut();
+                        break;
+                    case DEFERRED:
+                        threadPool.execute(keepAlive);
+                        break;
+                    default:
+                        //no longer active, so there is nothing more to do
+                }
             }
         }
     }
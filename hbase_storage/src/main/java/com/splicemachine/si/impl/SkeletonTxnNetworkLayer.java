@@ -52,6 +52,40 @@ public abstract class SkeletonTxnNetworkLayer implements TxnNetworkLayer{
         return done.get();
     }
 
+    @Override
+    public Collection<TxnMessage.TxnLifecycleBatchResponse> lifecycleBatch(byte[] startRow,byte[] endRow,final TxnMessage.TxnLifecycleBatch batch) throws IOException{
+        Map<byte[], TxnMessage.TxnLifecycleBatchResponse> data=coprocessorService(TxnMessage.TxnLifecycleService.class,
+                startRow,endRow,new Batch.Call<TxnMessage.TxnLifecycleService, TxnMessage.TxnLifecycleBatchResponse>(){
+                    @Override
+                    public TxnMessage.TxnLifecycleBatchResponse call(TxnMessage.TxnLifecycleService instance) throws IOException{
+                        ServerRpcController controller=new ServerRpcController();
+                        BlockingRpcCallback<TxnMessage.TxnLifecycleBatchResponse> response=new BlockingRpcCallback<>();
+
+                        instance.lifecycleBatch(controller,batch,response);
+                        dealWithError(controller);
+                        return response.get();
+                    }
+                });
+        return data.values();
+    }
+
+    @Override
+    public Collection<TxnMessage.KeepAliveResponse> keepAlive(byte[] startRow,byte[] endRow,final TxnMessage.KeepAliveRequest request) throws IOException{
+        Map<byte[], TxnMessage.KeepAliveResponse> data=coprocessorService(TxnMessage.TxnLifecycleService.class,
+                startRow,endRow,new Batch.Call<TxnMessage.TxnLifecycleService, TxnMessage.KeepAliveResponse>(){
+                    @Override
+                    public TxnMessage.KeepAliveResponse call(TxnMessage.TxnLifecycleService instance) throws IOException{
+                        ServerRpcController controller=new ServerRpcController();
+                        BlockingRpcCallback<TxnMessage.KeepAliveResponse> response=new BlockingRpcCallback<>();
+
+                        instance.keepAliveTransactions(controller,request,response);
+                        dealWithError(controller);
+                        return response.get();
+                    }
+                });
+        return data.values();
+    }
+
     @Override
     public void elevate(byte[] rowKey,TxnMessage.ElevateRequest elevateRequest) throws IOException{
         TxnMessage.TxnLifecycleService service=getLifecycleService(rowKey);
@@ -116,6 +150,23 @@ public abstract class SkeletonTxnNetworkLayer implements TxnNetworkLayer{
         return done.get();
     }
 
+    @Override
+    public Collection<TxnMessage.TxnsResponse> getTxns(byte[] startRow,byte[] endRow,final TxnMessage.TxnsRequest request) throws IOException{
+        Map<byte[], TxnMessage.TxnsResponse> data=coprocessorService(TxnMessage.TxnLifecycleService.class,
+                startRow,endRow,new Batch.Call<TxnMessage.TxnLifecycleService, TxnMessage.TxnsResponse>(){
+                    @Override
+                    public TxnMessage.TxnsResponse call(TxnMessage.TxnLifecycleService instance) throws IOException{
+                        ServerRpcController controller=new ServerRpcController();
+                        BlockingRpcCallback<TxnMessage.TxnsResponse> response=new BlockingRpcCallback<>();
+
+                        instance.getTransactions(controller,request,response);
+                        dealWithError(controller);
+                        return response.get();
+                    }
+                });
+        return data.values();
+    }
+
     protected abstract TxnMessage.TxnLifecycleService getLifecycleService(byte[] rowKey) throws IOException;
 
     protected abstract <C> Map<byte[],C> coprocessorService(Class<TxnMessage.TxnLifecycleService> txnLifecycleServiceClass,
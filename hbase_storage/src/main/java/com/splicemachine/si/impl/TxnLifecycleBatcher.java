@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.si.impl;
+
+import com.splicemachine.si.coprocessor.TxnMessage;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.ipc.RemoteException;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Queue;
+
+/**
+ * Sends the lifecycle operations of concurrent callers which are headed for the same bucket of the transaction
+ * table in one call.
+ *
+ * The first caller to arrive while no call is in flight becomes the leader: it takes every operation queued so far
+ * (up to {@link #MAX_BATCH_SIZE}) and sends them with one {@code lifecycleBatch} call, which the transaction region
+ * performs with its puts grouped together. Callers arriving while a call is in flight queue their operations and
+ * wait; when the call returns, one of them leads the next one. A caller who finds nothing in flight sends its
+ * operation alone, with the regular single-operation call, so there is no added latency when there is no contention.
+ *
+ * Each caller returns only once its own operation has been performed, and gets its own operation's failure if it
+ * had one.
+ */
+class TxnLifecycleBatcher{
+    static final int MAX_BATCH_SIZE=1024;
+
+    private final TxnNetworkLayerFactory tableFactory;
+    private final Queue<PendingOp> queue=new ArrayDeque<>();
+    private boolean sending;
+
+    TxnLifecycleBatcher(TxnNetworkLayerFactory tableFactory){
+        this.tableFactory=tableFactory;
+    }
+
+    TxnMessage.ActionResponse submit(byte[] rowKey,TxnMessage.TxnLifecycleOp op) throws IOException{
+        PendingOp pending=new PendingOp(rowKey,op);
+        synchronized(this){
+            queue.add(pending);
+        }
+        while(true){
+            PendingOp[] batch;
+            synchronized(this){
+                while(!pending.done && sending){
+                    try{
+                        wait();
+                    }catch(InterruptedException e){
+                        queue.remove(pending);
+                        Thread.currentThread().interrupt();
+                        throw new InterruptedIOException("Interrupted while waiting for a transaction lifecycle call");
+                    }
+                }
+                if(pending.done) break;
+                sending=true;
+                batch=new PendingOp[Math.min(queue.size(),MAX_BATCH_SIZE)];
+                for(int i=0;i<batch.length;i++){
+                    batch[i]=queue.poll();
+                }
+            }
+            try{
+                send(batch);
+            }finally{
+                synchronized(this){
+                    for(PendingOp p : batch){
+                        p.done=true;
+                    }
+                    sending=false;
+                    notifyAll();
+                }
+            }
+            //when more than a full batch was queued ahead of us, our operation may still be waiting
+        }
+        return pending.getResponse();
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private void send(PendingOp[] batch){
+        try(TxnNetworkLayer table=tableFactory.accessTxnNetwork()){
+            if(batch.length==1){
+                sendOne(table,batch[0]);
+                return;
+            }
+            TxnMessage.TxnLifecycleBatch.Builder request=TxnMessage.TxnLifecycleBatch.newBuilder();
+            byte[] startRow=null;
+            byte[] endRow=null;
+            for(PendingOp p : batch){
+                request.addOps(p.op);
+                if(startRow==null || Bytes.compareTo(p.rowKey,startRow)<0) startRow=p.rowKey;
+                if(endRow==null || Bytes.compareTo(p.rowKey,endRow)>0) endRow=p.rowKey;
+            }
+            Collection<TxnMessage.TxnLifecycleBatchResponse> responses=table.lifecycleBatch(startRow,endRow,request.build());
+            for(TxnMessage.TxnLifecycleBatchResponse response : responses){
+                for(TxnMessage.TxnLifecycleResult result : response.getResultsList()){
+                    PendingOp p=batch[result.getIndex()];
+                    if(result.hasErrorClass())
+                        p.error=new RemoteException(result.getErrorClass(),result.getErrorMessage());
+                    else
+                        p.response=result.getResponse();
+                    p.answered=true;
+                }
+            }
+            //operations which no region answered for, e.g. because a region moved during the call
+            for(PendingOp p : batch){
+                if(!p.answered)
+                    sendOne(table,p);
+            }
+        }catch(Throwable t){
+            for(PendingOp p : batch){
+                if(!p.answered)
+                    p.error=t;
+            }
+        }
+    }
+
+    private void sendOne(TxnNetworkLayer table,PendingOp p){
+        try{
+            if(p.op.hasBegin()){
+                table.beginTransaction(p.rowKey,p.op.getBegin());
+                p.response=TxnMessage.ActionResponse.getDefaultInstance();
+            }else
+                p.response=table.lifecycleAction(p.rowKey,p.op.getAction());
+        }catch(Throwable t){
+            p.error=t;
+        }
+        p.answered=true;
+    }
+
+    private static class PendingOp{
+        private final byte[] rowKey;
+        private final TxnMessage.TxnLifecycleOp op;
+        private boolean done;
+        private boolean answered;
+        private TxnMessage.ActionResponse response;
+        private Throwable error;
+
+        PendingOp(byte[] rowKey,TxnMessage.TxnLifecycleOp op){
+            this.rowKey=rowKey;
+            this.op=op;
+        }
+
+        TxnMessage.ActionResponse getResponse() throws IOException{
+            if(error==null) return response;
+            if(error instanceof IOException) throw (IOException)error;
+            if(error instanceof RuntimeException) throw (RuntimeException)error;
+            if(error instanceof Error) throw (Error)error;
+            throw new IOException(error);
+        }
+    }
+}
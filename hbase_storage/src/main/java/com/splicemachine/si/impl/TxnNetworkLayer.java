@@ -29,6 +29,10 @@ public interface TxnNetworkLayer extends AutoCloseable{
 
     TxnMessage.ActionResponse lifecycleAction(byte[] rowKey,TxnMessage.TxnLifecycleMessage lifecycleMessage) throws IOException;
 
+    Collection<TxnMessage.TxnLifecycleBatchResponse> lifecycleBatch(byte[] startRow,byte[] endRow,TxnMessage.TxnLifecycleBatch batch) throws IOException;
+
+    Collection<TxnMessage.KeepAliveResponse> keepAlive(byte[] startRow,byte[] endRow,TxnMessage.KeepAliveRequest request) throws IOException;
+
     void elevate(byte[] rowKey,TxnMessage.ElevateRequest elevateRequest) throws IOException;
 
     long[] getActiveTxnIds(TxnMessage.ActiveTxnRequest request) throws IOException;
@@ -37,5 +41,7 @@ public interface TxnNetworkLayer extends AutoCloseable{
 
     TxnMessage.Txn getTxn(byte[] rowKey,TxnMessage.TxnRequest request) throws IOException;
 
+    Collection<TxnMessage.TxnsResponse> getTxns(byte[] startRow,byte[] endRow,TxnMessage.TxnsRequest request) throws IOException;
+
     void close() throws IOException;
 }
@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.si.impl.region;
+
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.client.Mutation;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.regionserver.HRegion;
+import org.apache.hadoop.hbase.regionserver.OperationStatus;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.Queue;
+
+/**
+ * Writes puts to a region, coalescing the puts of concurrent callers into a single batch.
+ *
+ * Every transaction lifecycle change is a single small put, and when many short transactions begin and commit at
+ * once, most of the time spent writing them goes to syncing the WAL once per put. Here, the first caller to arrive
+ * while no batch is being written becomes the leader: it takes every put queued so far (up to {@link #MAX_BATCH_SIZE})
+ * and writes them with one call to {@link HRegion#batchMutate(Mutation[])}, which appends them all to the WAL and
+ * syncs once. Callers arriving while a batch is in flight queue their puts and wait; when the batch finishes, one of
+ * them leads the next one. A caller who finds nothing in flight writes its put alone right away, so there is no
+ * added latency when there is no contention.
+ *
+ * Each caller returns only once its own put has been applied, and gets its own put's failure if it had one.
+ */
+class GroupCommitWriter{
+    static final int MAX_BATCH_SIZE=1024;
+
+    private final HRegion region;
+    private final Queue<PendingPut> queue=new ArrayDeque<>();
+    private boolean writing;
+
+    GroupCommitWriter(HRegion region){
+        this.region=region;
+    }
+
+    void put(Put put) throws IOException{
+        PendingPut pending=new PendingPut(put);
+        synchronized(this){
+            queue.add(pending);
+        }
+        while(true){
+            PendingPut[] batch;
+            synchronized(this){
+                while(!pending.done && writing){
+                    try{
+                        wait();
+                    }catch(InterruptedException e){
+                        queue.remove(pending);
+                        Thread.currentThread().interrupt();
+                        throw new InterruptedIOException("Interrupted while waiting for a transaction put to be written");
+                    }
+                }
+                if(pending.done) break;
+                writing=true;
+                batch=new PendingPut[Math.min(queue.size(),MAX_BATCH_SIZE)];
+                for(int i=0;i<batch.length;i++){
+                    batch[i]=queue.poll();
+                }
+            }
+            try{
+                write(batch);
+            }finally{
+                synchronized(this){
+                    for(PendingPut p : batch){
+                        p.done=true;
+                    }
+                    writing=false;
+                    notifyAll();
+                }
+            }
+            //when more than a full batch was queued ahead of us, our put may still be waiting
+        }
+        pending.throwIfFailed();
+    }
+
+    protected OperationStatus[] batchMutate(Mutation[] mutations) throws IOException{
+        return region.batchMutate(mutations);
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private void write(PendingPut[] batch){
+        Mutation[] mutations=new Mutation[batch.length];
+        for(int i=0;i<batch.length;i++){
+            mutations[i]=batch[i].put;
+        }
+        OperationStatus[] statuses;
+        try{
+            statuses=batchMutate(mutations);
+        }catch(Throwable t){
+            //every put of the batch failed with it, including those of the waiting callers
+            for(PendingPut p : batch){
+                p.error=t;
+            }
+            return;
+        }
+        for(int i=0;i<batch.length;i++){
+            OperationStatus status=statuses[i];
+            if(status.getOperationStatusCode()!=HConstants.OperationStatusCode.SUCCESS)
+                batch[i].error=new IOException("Unable to write transaction row: "+status.getOperationStatusCode()+" "+status.getExceptionMsg());
+        }
+    }
+
+    private static class PendingPut{
+        private final Put put;
+        private boolean done;
+        private Throwable error;
+
+        PendingPut(Put put){
+            this.put=put;
+        }
+
+        void throwIfFailed() throws IOException{
+            if(error==null) return;
+            if(error instanceof IOException) throw (IOException)error;
+            if(error instanceof RuntimeException) throw (RuntimeException)error;
+            if(error instanceof Error) throw (Error)error;
+            throw new IOException(error);
+        }
+    }
+}
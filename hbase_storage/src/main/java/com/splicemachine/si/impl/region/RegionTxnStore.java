@@ -58,6 +58,7 @@ public class RegionTxnStore implements TxnPartition{
     private final TransactionResolver resolver;
     private final TxnSupplier txnSupplier;
     private final HRegion region;
+    private final GroupCommitWriter writer; //null when every put is written by itself
     private final long keepAliveTimeoutMs;
     private final Clock clock;
 
@@ -66,8 +67,18 @@ public class RegionTxnStore implements TxnPartition{
                           TransactionResolver resolver,
                           long keepAliveTimeoutMs,
                           Clock keepAliveClock){
+        this(region,txnSupplier,resolver,keepAliveTimeoutMs,keepAliveClock,false);
+    }
+
+    public RegionTxnStore(HRegion region,
+                          TxnSupplier txnSupplier,
+                          TransactionResolver resolver,
+                          long keepAliveTimeoutMs,
+                          Clock keepAliveClock,
+                          boolean groupCommit){
         this.txnSupplier=txnSupplier;
         this.region=region;
+        this.writer=groupCommit?new GroupCommitWriter(region):null;
         this.resolver=resolver;
         this.keepAliveTimeoutMs = keepAliveTimeoutMs;
         this.clock = keepAliveClock;
@@ -128,7 +139,14 @@ public class RegionTxnStore implements TxnPartition{
         }
         Put put=new Put(get.getRow());
         put.add(FAMILY,destTableQualifier,newBytes);
-        region.put(put);
+        put(put);
+    }
+
+    private void put(Put put) throws IOException{
+        if(writer!=null)
+            writer.put(put);
+        else
+            region.put(put);
     }
 
     protected byte[] getRowKey(long txnId){
@@ -173,7 +191,7 @@ public class RegionTxnStore implements TxnPartition{
 
         Put newPut=new Put(getRowKey(txnId));
         newPut.add(FAMILY,V2TxnDecoder.KEEP_ALIVE_QUALIFIER_BYTES,Encoding.encode(currTime));
-        region.put(newPut); //TODO -sf- does this work when the region is splitting?
+        put(newPut); //TODO -sf- does this work when the region is splitting?
         return true;
     }
 
@@ -208,7 +226,7 @@ public class RegionTxnStore implements TxnPartition{
         if(LOG.isTraceEnabled())
             SpliceLogUtils.trace(LOG,"recordTransaction txn=%s",txn);
         Put put=newTransactionDecoder.encodeForPut(txn,getRowKey(txn.getTxnId()));
-        region.put(put);
+        put(put);
     }
 
     @Override
@@ -218,14 +236,14 @@ public class RegionTxnStore implements TxnPartition{
         Put put=new Put(getRowKey(txnId));
         put.add(FAMILY,V2TxnDecoder.COMMIT_QUALIFIER_BYTES,Encoding.encode(commitTs));
         put.add(FAMILY,V2TxnDecoder.STATE_QUALIFIER_BYTES,Txn.State.COMMITTED.encode());
-        region.put(put);
+        put(put);
     }
 
     @Override
     public void recordGlobalCommit(long txnId,long globalCommitTs) throws IOException{
         Put put=new Put(getRowKey(txnId));
         put.add(FAMILY,V2TxnDecoder.GLOBAL_COMMIT_QUALIFIER_BYTES,Encoding.encode(globalCommitTs));
-        region.put(put);
+        put(put);
     }
 
     @Override
@@ -252,7 +270,7 @@ public class RegionTxnStore implements TxnPartition{
         put.add(FAMILY,V2TxnDecoder.STATE_QUALIFIER_BYTES,Txn.State.ROLLEDBACK.encode());
         put.add(FAMILY,V2TxnDecoder.COMMIT_QUALIFIER_BYTES,Encoding.encode(-1));
         put.add(FAMILY,V2TxnDecoder.GLOBAL_COMMIT_QUALIFIER_BYTES,Encoding.encode(-1));
-        region.put(put);
+        put(put);
     }
 
     @Override
@@ -361,7 +379,7 @@ public class RegionTxnStore implements TxnPartition{
             first = false;
         }
         put.add(FAMILY,V2TxnDecoder.ROLLBACK_SUBTRANSACTIONS_QUALIFIER_BYTES,baos.toByteArray());
-        region.put(put);
+        put(put);
     }
 
     /******************************************************************************************************************/
@@ -14,6 +14,9 @@
 
 package com.splicemachine.si.impl.server;
 
+import com.carrotsearch.hppc.LongArrayList;
+import com.carrotsearch.hppc.LongObjectOpenHashMap;
+import com.carrotsearch.hppc.LongOpenHashSet;
 import com.splicemachine.hbase.CellUtils;
 import com.splicemachine.primitives.Bytes;
 import com.splicemachine.si.api.readresolve.RollForward;
@@ -25,104 +28,388 @@ import com.splicemachine.si.impl.store.ActiveTxnCacheSupplier;
 import com.splicemachine.si.impl.txn.CommittedTxn;
 import com.splicemachine.si.impl.txn.RolledBackTxn;
 import com.splicemachine.storage.CellType;
+import com.splicemachine.storage.EntryAccumulator;
+import com.splicemachine.storage.EntryDecoder;
+import com.splicemachine.storage.EntryPredicateFilter;
 import com.splicemachine.utils.ByteSlice;
 import com.splicemachine.utils.SpliceLogUtils;
 import org.apache.hadoop.hbase.Cell;
 import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.KeyValueUtil;
 import org.apache.log4j.Logger;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
-import java.util.SortedSet;
-import java.util.TreeSet;
 
 /**
  * Captures the SI logic to perform when a data table is compacted (without explicit HBase dependencies). Provides the
  * guts for SICompactionScanner.
  * <p/>
- * It is handed key-values and can change them.
+ * It is handed the key-values of a row and can change them. Key-values arrive sorted, so they are filtered in
+ * place, and the commit timestamps which have to be added are merged into their sorted position. Scratch space is
+ * reused from row to row.
+ * <p/>
+ * The transactions which wrote the rows are resolved with one bulk lookup per batch of rows: the scanner hands a
+ * batch to {@link #resolveTransactions(Collection)} before mutating its rows one at a time.
  */
 public class SICompactionState {
     private static final Logger LOG = Logger.getLogger(SICompactionState.class);
     private final TxnSupplier transactionStore;
-    private SortedSet<Cell> dataToReturn;
     private final RollForward rollForward;
     private ByteSlice rowSlice = new ByteSlice();
+    private final long versionGCWatermark;
+    private long reclaimedBytes;
+    private EntryDecoder entryDecoder;
+
+    /* transactions of the current batch of rows */
+    private final LongObjectOpenHashMap<TxnView> batchTxns = new LongObjectOpenHashMap<>();
+    private final LongArrayList batchTxnIds = new LongArrayList();
+
+    /* per-row scratch space */
+    private final LongObjectOpenHashMap<TxnView> rowTxns = new LongObjectOpenHashMap<>();
+    private final LongArrayList rowTxnIds = new LongArrayList();
+    private final LongOpenHashSet commitTimestamps = new LongOpenHashSet();
+    private final List<Cell> newCommitTimestamps = new ArrayList<>();
+    private List<Cell> rowCells = new ArrayList<>();
+    private List<Cell> mergeBuffer = new ArrayList<>();
+    private CellType[] cellTypes = new CellType[16];
+    private boolean[] settled = new boolean[16];
+    private boolean[] removed = new boolean[16];
 
     public SICompactionState(TxnSupplier transactionStore,RollForward rollForward,int activeTransactionCacheSize) {
+        this(transactionStore,rollForward,activeTransactionCacheSize,0l);
+    }
+
+    /**
+     * @param versionGCWatermark a timestamp such that every version committed before it is visible to every running
+     *                           and future transaction, or 0 to keep every committed version. Must only be set when
+     *                           the compaction sees every version of a row, i.e. when it compacts all store files.
+     */
+    public SICompactionState(TxnSupplier transactionStore,RollForward rollForward,int activeTransactionCacheSize,long versionGCWatermark) {
         this.rollForward = rollForward;
         this.transactionStore = new ActiveTxnCacheSupplier(transactionStore,activeTransactionCacheSize);
-        this.dataToReturn  =new TreeSet<>(KeyValue.COMPARATOR);
+        this.versionGCWatermark = versionGCWatermark;
     }
 
     /**
-     * Given a list of key-values, populate the results list with possibly mutated values.
+     * @return the number of bytes of superseded versions removed by version GC so far
+     */
+    public long getReclaimedBytes(){
+        return reclaimedBytes;
+    }
+
+    /**
+     * Look up the transactions which wrote a batch of rows at once, so that mutating the rows of the batch
+     * doesn't go back to the transaction store. Replaces the transactions of the previous batch.
+     *
+     * @param rows the key values of the rows which are about to be mutated
+     */
+    public void resolveTransactions(Collection<List<Cell>> rows) throws IOException {
+        batchTxns.clear();
+        batchTxnIds.clear();
+        for (List<Cell> row : rows) {
+            for (int i = 0; i < row.size(); i++) {
+                Cell element = row.get(i);
+                long timestamp = element.getTimestamp();
+                switch (getKeyValueType(element)) {
+                    case COMMIT_TIMESTAMP:
+                        ensureTransactionCached(timestamp,element);
+                        break;
+                    case TOMBSTONE:
+                    case ANTI_TOMBSTONE:
+                    case USER_DATA:
+                        if (!batchTxns.containsKey(timestamp)) {
+                            batchTxns.put(timestamp, null);
+                            batchTxnIds.add(timestamp);
+                        }
+                        break;
+                    default:
+                }
+            }
+        }
+        if (batchTxnIds.isEmpty())
+            return;
+        long[] txnIds = batchTxnIds.toArray();
+        TxnView[] txns = transactionStore.getTransactions(txnIds);
+        for (int i = 0; i < txnIds.length; i++) {
+            batchTxns.put(txnIds[i], txns[i]);
+        }
+    }
+
+    /**
+     * Given the sorted key-values of a row, populate the results list with possibly mutated values.
      *
      * @param rawList - the input of key values to process
      * @param results - the output key values
      */
     public void mutate(List<Cell> rawList, List<Cell> results, boolean purgeDeletedRows) throws IOException {
-        dataToReturn.clear();
+        int size = rawList.size();
+        if (cellTypes.length < size)
+            cellTypes = new CellType[Math.max(size, 2 * cellTypes.length)];
+        rowTxns.clear();
+        rowTxnIds.clear();
+        commitTimestamps.clear();
+        newCommitTimestamps.clear();
+        rowCells.clear();
+
+        /*
+         * Classify the key-values and collect the transactions which wrote them. Commit timestamps already
+         * tell us the outcome of their transactions, so we cache them before looking anything up.
+         */
+        for (int i = 0; i < size; i++) {
+            Cell element = rawList.get(i);
+            CellType cellType = getKeyValueType(element);
+            cellTypes[i] = cellType;
+            long timestamp = element.getTimestamp();
+            switch (cellType) {
+                case COMMIT_TIMESTAMP:
+                    ensureTransactionCached(timestamp,element);
+                    commitTimestamps.add(timestamp);
+                    break;
+                case TOMBSTONE:
+                case ANTI_TOMBSTONE:
+                case USER_DATA:
+                    if (!rowTxns.containsKey(timestamp)) {
+                        rowTxns.put(timestamp, null);
+                        rowTxnIds.add(timestamp);
+                    }
+                    break;
+                default:
+                    if(LOG.isDebugEnabled()){
+                        String famString = Bytes.toString(element.getFamilyArray(),element.getFamilyOffset(),element.getFamilyLength());
+                        String qualString = Bytes.toString(element.getQualifierArray(),element.getQualifierOffset(),element.getQualifierLength());
+                        SpliceLogUtils.debug(LOG,"KeyValue with family %s and column %s are not SI-managed, ignoring",
+                                famString,qualString);
+                    }
+            }
+        }
+        resolveTransactions();
+
         long maxTombstone = 0;
-        for (Cell aRawList : rawList) {
-            long t = mutate(aRawList);
-            if (t > maxTombstone) {
-                maxTombstone = t;
+        for (int i = 0; i < size; i++) {
+            Cell element = rawList.get(i);
+            CellType cellType = cellTypes[i];
+            switch (cellType) {
+                case TOMBSTONE:
+                case ANTI_TOMBSTONE:
+                case USER_DATA:
+                    if (!mutateCommitTimestamp(element))
+                        continue;
+                    if (cellType == CellType.TOMBSTONE && element.getTimestamp() > maxTombstone)
+                        maxTombstone = element.getTimestamp();
+                    break;
+                default:
             }
+            rowCells.add(element);
         }
-        if (purgeDeletedRows && maxTombstone > 0) {
-            removeTombStone(maxTombstone);
+        if (!newCommitTimestamps.isEmpty()) {
+            mergeCommitTimestamps();
+        }
+        if (versionGCWatermark > 0) {
+            collectVersions();
+        }
+        boolean purge = purgeDeletedRows && maxTombstone > 0;
+        for (Cell element : rowCells) {
+            if (purge && element.getTimestamp() <= maxTombstone)
+                continue;
+            results.add(element);
         }
-        results.addAll(dataToReturn);
     }
 
-    private void removeTombStone(long maxTombstone) {
-        SortedSet<Cell> cp = (SortedSet<Cell>)((TreeSet<Cell>)dataToReturn).clone();
-        for (Cell element : cp) {
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+
+    /**
+     * Look up every transaction which wrote to the row and wasn't resolved with its batch at once.
+     */
+    private void resolveTransactions() throws IOException {
+        int pending = 0;
+        for (int i = 0; i < rowTxnIds.size(); i++) {
+            long txnId = rowTxnIds.get(i);
+            if (batchTxns.containsKey(txnId))
+                rowTxns.put(txnId, batchTxns.lget());
+            else
+                rowTxnIds.set(pending++, txnId);
+        }
+        if (pending == 0)
+            return;
+        rowTxnIds.removeRange(pending, rowTxnIds.size());
+        long[] txnIds = rowTxnIds.toArray();
+        TxnView[] txns = transactionStore.getTransactions(txnIds);
+        for (int i = 0; i < txnIds.length; i++) {
+            rowTxns.put(txnIds[i], txns[i]);
+        }
+    }
+
+    /**
+     * Merge the commit timestamps we've added into the (sorted) cells of the row.
+     */
+    private void mergeCommitTimestamps() {
+        if (newCommitTimestamps.size() > 1)
+            Collections.sort(newCommitTimestamps, KeyValue.COMPARATOR);
+        mergeBuffer.clear();
+        int i = 0, j = 0;
+        while (i < rowCells.size() && j < newCommitTimestamps.size()) {
+            if (KeyValue.COMPARATOR.compare(rowCells.get(i), newCommitTimestamps.get(j)) <= 0)
+                mergeBuffer.add(rowCells.get(i++));
+            else
+                mergeBuffer.add(newCommitTimestamps.get(j++));
+        }
+        while (i < rowCells.size())
+            mergeBuffer.add(rowCells.get(i++));
+        while (j < newCommitTimestamps.size())
+            mergeBuffer.add(newCommitTimestamps.get(j++));
+
+        List<Cell> merged = mergeBuffer;
+        mergeBuffer = rowCells;
+        rowCells = merged;
+    }
+
+    /**
+     * Remove versions of the row which no transaction can read anymore.
+     * <p/>
+     * A version is settled when its transaction committed before the watermark, since then every transaction
+     * sees it. Readers merge the visible versions of a row newest first, column by column, and stop at the newest
+     * visible tombstone or anti-tombstone, so every settled version which is older than the unsettled ones can be
+     * replaced with what a reader would make of them: the newest tombstone and anti-tombstone, and a single
+     * version holding the merge of the user data which they don't hide.
+     */
+    private void collectVersions() throws IOException {
+        int size = rowCells.size();
+        if (settled.length < size) {
+            settled = new boolean[Math.max(size, 2 * settled.length)];
+            removed = new boolean[settled.length];
+        }
+        if (cellTypes.length < size)
+            cellTypes = new CellType[Math.max(size, 2 * cellTypes.length)];
+
+        long minUnsettled = Long.MAX_VALUE;
+        int settledCount = 0;
+        for (int i = 0; i < size; i++) {
+            Cell element = rowCells.get(i);
+            CellType cellType = getKeyValueType(element);
+            cellTypes[i] = cellType;
+            removed[i] = false;
+            settled[i] = false;
+            if (!isVersion(cellType))
+                continue;
             long timestamp = element.getTimestamp();
-            if (timestamp <= maxTombstone) {
-                dataToReturn.remove(element);
+            TxnView txn = rowTxns.get(timestamp);
+            if (txn != null && txn.getEffectiveState() == Txn.State.COMMITTED
+                    && txn.getEffectiveCommitTimestamp() < versionGCWatermark) {
+                settled[i] = true;
+                settledCount++;
+            } else if (timestamp < minUnsettled) {
+                minUnsettled = timestamp;
+            }
+        }
+        if (settledCount < 2)
+            return;
+
+        // the newest settled tombstone and anti-tombstone are the only ones a reader looks at
+        long tombstone = -1;
+        long antiTombstone = -1;
+        for (int i = 0; i < size; i++) {
+            long timestamp = rowCells.get(i).getTimestamp();
+            if (!settled[i] || timestamp >= minUnsettled) continue;
+            if (cellTypes[i] == CellType.TOMBSTONE && timestamp > tombstone)
+                tombstone = timestamp;
+            else if (cellTypes[i] == CellType.ANTI_TOMBSTONE && timestamp > antiTombstone)
+                antiTombstone = timestamp;
+        }
+
+        // cells are sorted newest first within a column, so the first visible version is the newest one
+        int firstVisible = -1;
+        List<Cell> visible = null;
+        boolean anyRemoved = false;
+        for (int i = 0; i < size; i++) {
+            long timestamp = rowCells.get(i).getTimestamp();
+            if (!settled[i] || timestamp >= minUnsettled) continue;
+            switch (cellTypes[i]) {
+                case USER_DATA:
+                    if (timestamp > tombstone && timestamp >= antiTombstone) {
+                        if (firstVisible < 0) {
+                            firstVisible = i;
+                            visible = new ArrayList<>();
+                        } else
+                            removed[i] = true;
+                        visible.add(rowCells.get(i));
+                    } else
+                        removed[i] = true;
+                    break;
+                case TOMBSTONE:
+                    removed[i] = timestamp != tombstone;
+                    break;
+                default:
+                    removed[i] = timestamp != antiTombstone;
             }
+            anyRemoved |= removed[i];
         }
+        if (!anyRemoved)
+            return;
+
+        // drop the commit timestamps of versions which have nothing left in the row
+        LongOpenHashSet removedTimestamps = new LongOpenHashSet();
+        LongOpenHashSet remainingTimestamps = new LongOpenHashSet();
+        for (int i = 0; i < size; i++) {
+            if (cellTypes[i] == CellType.COMMIT_TIMESTAMP) continue;
+            long timestamp = rowCells.get(i).getTimestamp();
+            if (removed[i])
+                removedTimestamps.add(timestamp);
+            else
+                remainingTimestamps.add(timestamp);
+        }
+        for (int i = 0; i < size; i++) {
+            if (cellTypes[i] != CellType.COMMIT_TIMESTAMP) continue;
+            long timestamp = rowCells.get(i).getTimestamp();
+            removed[i] = removedTimestamps.contains(timestamp) && !remainingTimestamps.contains(timestamp);
+        }
+
+        int pos = 0;
+        for (int i = 0; i < size; i++) {
+            Cell element = rowCells.get(i);
+            if (removed[i]) {
+                reclaimedBytes += KeyValueUtil.length(element);
+                continue;
+            }
+            if (i == firstVisible && visible.size() > 1) {
+                Cell merged = mergeUserData(visible);
+                reclaimedBytes += KeyValueUtil.length(element) - KeyValueUtil.length(merged);
+                element = merged;
+            }
+            rowCells.set(pos++, element);
+        }
+        rowCells.subList(pos, size).clear();
+    }
+
+    private static boolean isVersion(CellType cellType) {
+        return cellType == CellType.USER_DATA || cellType == CellType.TOMBSTONE || cellType == CellType.ANTI_TOMBSTONE;
     }
+
     /**
-     * Apply SI mutation logic to an individual key-value. Return the "new" key-value.
+     * Merge user data versions, newest first, the same way a read without predicates would.
      */
-    private long mutate(Cell element) throws IOException {
-        final CellType cellType= getKeyValueType(element);
-        long timestamp = element.getTimestamp();
-        switch (cellType) {
-            case COMMIT_TIMESTAMP:
-                /*
-                 * Older versions of SI code would put an "SI Fail" element in the commit timestamp
-                 * field when a row has been rolled back. While newer versions will just outright delete the entry,
-                 * we still need to deal with entries which are in the old form. As time goes on, this should
-                 * be less and less frequent, but you still have to check
-                 */
-                ensureTransactionCached(timestamp,element);
-                dataToReturn.add(element);
-                return 0;
-            case TOMBSTONE:
-            case ANTI_TOMBSTONE:
-            case USER_DATA:
-                if(mutateCommitTimestamp(timestamp,element))
-                    dataToReturn.add(element);
-                if (cellType == CellType.TOMBSTONE) {
-                    return timestamp;
-                }
-                else {
-                    return 0;
-                }
-            default:
-                if(LOG.isDebugEnabled()){
-                    String famString = Bytes.toString(element.getFamilyArray(),element.getFamilyOffset(),element.getFamilyLength());
-                    String qualString = Bytes.toString(element.getQualifierArray(),element.getQualifierOffset(),element.getQualifierLength());
-                       SpliceLogUtils.debug(LOG,"KeyValue with family %s and column %s are not SI-managed, ignoring",
-                               famString,qualString);
-                }
-                dataToReturn.add(element);
-                return 0;
+    private Cell mergeUserData(List<Cell> versions) throws IOException {
+        if (entryDecoder == null)
+            entryDecoder = new EntryDecoder();
+        // accumulators which accept every field stay finished once completed, so every merge needs its own
+        EntryAccumulator entryAccumulator = EntryPredicateFilter.emptyPredicate().newAccumulator();
+        for (Cell version : versions) {
+            entryDecoder.set(version.getValueArray(), version.getValueOffset(), version.getValueLength());
+            EntryPredicateFilter.emptyPredicate().match(entryDecoder, entryAccumulator);
+            if (entryAccumulator.isFinished())
+                break;
         }
+        byte[] value = entryAccumulator.finish();
+        Cell newest = versions.get(0);
+        return new KeyValue(newest.getRowArray(), newest.getRowOffset(), newest.getRowLength(),
+                newest.getFamilyArray(), newest.getFamilyOffset(), newest.getFamilyLength(),
+                newest.getQualifierArray(), newest.getQualifierOffset(), newest.getQualifierLength(),
+                newest.getTimestamp(), KeyValue.Type.Put,
+                value, 0, value.length);
     }
 
     private void ensureTransactionCached(long timestamp,Cell element) {
@@ -138,9 +425,12 @@ public class SICompactionState {
 
     /**
      * Replace unknown commit timestamps with actual commit times.
+     *
+     * @return false if the key-value must be removed
      */
-    private boolean mutateCommitTimestamp(long timestamp,Cell element) throws IOException {
-        TxnView transaction = transactionStore.getTransaction(timestamp);
+    private boolean mutateCommitTimestamp(Cell element) throws IOException {
+        long timestamp = element.getTimestamp();
+        TxnView transaction = rowTxns.get(timestamp);
         if (transaction == null) {
             // If the database is restored from a backup, it may contain data that were written by a transaction which
             // is not present in SPLICE_TXN table, because SPLICE_TXN table is copied before the transaction begins.
@@ -155,6 +445,8 @@ public class SICompactionState {
             recordResolved(element,transaction);
             return false;
         }
+        if (commitTimestamps.contains(timestamp))
+            return true;
         TxnView t = transaction;
         while(t.getState()== Txn.State.COMMITTED){
             t = t.getParentTxnView();
@@ -165,7 +457,8 @@ public class SICompactionState {
              * commit timestamp can be placed on it.
              */
             long globalCommitTimestamp = transaction.getEffectiveCommitTimestamp();
-            dataToReturn.add(newTransactionTimeStampKeyValue(element, Bytes.toBytes(globalCommitTimestamp)));
+            newCommitTimestamps.add(newTransactionTimeStampKeyValue(element, Bytes.toBytes(globalCommitTimestamp)));
+            commitTimestamps.add(timestamp);
             recordResolved(element, transaction);
         }
         return true;
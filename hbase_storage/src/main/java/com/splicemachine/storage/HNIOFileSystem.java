@@ -20,6 +20,7 @@ import com.splicemachine.si.api.data.ExceptionFactory;
 import com.splicemachine.utils.SpliceLogUtils;
 import org.apache.commons.io.FileUtils;
 import org.apache.hadoop.fs.ContentSummary;
+import org.apache.hadoop.fs.FSDataInputStream;
 import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.permission.AclStatus;
 import org.apache.hadoop.fs.permission.FsAction;
@@ -132,6 +133,14 @@ public class HNIOFileSystem extends DistributedFileSystem{
         return fs.open(path);
     }
 
+    @Override
+    public InputStream newInputStream(String fullPath, long position, OpenOption... options) throws IOException {
+        org.apache.hadoop.fs.Path path=new org.apache.hadoop.fs.Path(fullPath);
+        FSDataInputStream is=fs.open(path);
+        is.seek(position);
+        return is;
+    }
+
     @Override
     public boolean createDirectory(String fullPath,boolean errorIfExists) throws IOException{
         boolean isTrace = LOG.isTraceEnabled();
@@ -14,6 +14,7 @@
 
 package com.splicemachine.storage;
 
+import org.apache.hadoop.hbase.HConstants;
 import org.apache.hadoop.hbase.client.Scan;
 import org.apache.hadoop.hbase.filter.Filter;
 import org.apache.hadoop.hbase.filter.FilterList;
@@ -69,6 +70,19 @@ public class HScan implements DataScan{
         return this;
     }
 
+    @Override
+    public DataScan rowRanges(byte[][] startKeys,byte[][] stopKeys){
+        assert startKeys.length==stopKeys.length:"Every range needs a start and a stop key";
+        assert !scan.isReversed():"Row ranges are not supported for reversed scans";
+        byte[][] starts = new byte[startKeys.length][];
+        byte[][] stops = new byte[stopKeys.length][];
+        for(int i=0;i<startKeys.length;i++){
+            starts[i] = startKeys[i]==null?HConstants.EMPTY_START_ROW:startKeys[i];
+            stops[i] = stopKeys[i]==null?HConstants.EMPTY_END_ROW:stopKeys[i];
+        }
+        return filter(new HFilterWrapper(new MultiRangeFilter(starts,stops)));
+    }
+
     @Override
     public byte[] getStartKey(){
         return scan.getStartRow();
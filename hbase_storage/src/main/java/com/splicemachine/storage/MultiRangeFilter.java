@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.storage;
+
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.KeyValueUtil;
+import org.apache.hadoop.hbase.exceptions.DeserializationException;
+import org.apache.hadoop.hbase.filter.FilterBase;
+import org.apache.hadoop.hbase.util.Bytes;
+
+import java.io.*;
+
+/**
+ * Filter which restricts a forward scan to a sorted list of non-overlapping row ranges.
+ *
+ * Rows inside a range pass through untouched. On the first row past the end of a range, the filter
+ * asks the scanner to seek directly to the start of the next range, so that the rows between ranges
+ * are never read. Once the last range is exhausted, the rest of the region is skipped.
+ *
+ * @see DataScan#rowRanges(byte[][], byte[][])
+ */
+public class MultiRangeFilter extends FilterBase{
+    private byte[][] startKeys;
+    private byte[][] stopKeys;
+
+    private int currentRange;
+    private boolean seekToNextRange;
+    private boolean done;
+
+    @SuppressWarnings("unused") //serialization constructor: REQUIRED
+    public MultiRangeFilter(){
+        super();
+    }
+
+    public MultiRangeFilter(byte[][] startKeys,byte[][] stopKeys){
+        this.startKeys=startKeys;
+        this.stopKeys=stopKeys;
+    }
+
+    @Override
+    public boolean filterRowKey(byte[] buffer,int offset,int length) throws IOException{
+        seekToNextRange=false;
+        if(done) return true;
+        int range = findRange(buffer,offset,length);
+        if(range<0){
+            //before the first range
+            currentRange=0;
+            seekToNextRange=true;
+            return false;
+        }
+        currentRange=range;
+        if(inRange(range,buffer,offset,length))
+            return false;
+        if(range+1>=startKeys.length){
+            done=true;
+            return true;
+        }
+        currentRange=range+1;
+        //let filterKeyValue() issue the seek, rather than skipping row-by-row
+        seekToNextRange=true;
+        return false;
+    }
+
+    @Override
+    public ReturnCode filterKeyValue(Cell ignored) throws IOException{
+        return seekToNextRange?ReturnCode.SEEK_NEXT_USING_HINT:ReturnCode.INCLUDE;
+    }
+
+    @Override
+    public Cell getNextCellHint(Cell currentKV) throws IOException{
+        return KeyValueUtil.createFirstOnRow(startKeys[currentRange]);
+    }
+
+    @Override
+    public boolean filterAllRemaining() throws IOException{
+        return done;
+    }
+
+    @Override
+    public void reset() throws IOException{
+        seekToNextRange=false;
+    }
+
+    /**
+     * @return the index of the last range starting at or before the row, or -1 if the row is
+     * before the first range
+     */
+    private int findRange(byte[] buffer,int offset,int length){
+        //rows arrive in ascending order, so the current range is almost always the answer
+        if(Bytes.compareTo(startKeys[currentRange],0,startKeys[currentRange].length,buffer,offset,length)<=0
+                && (currentRange+1>=startKeys.length
+                    || Bytes.compareTo(startKeys[currentRange+1],0,startKeys[currentRange+1].length,buffer,offset,length)>0))
+            return currentRange;
+        int low=0;
+        int high=startKeys.length-1;
+        while(low<=high){
+            int mid=(low+high)>>>1;
+            int c=Bytes.compareTo(startKeys[mid],0,startKeys[mid].length,buffer,offset,length);
+            if(c<=0) low=mid+1;
+            else high=mid-1;
+        }
+        return high;
+    }
+
+    private boolean inRange(int range,byte[] buffer,int offset,int length){
+        byte[] stop=stopKeys[range];
+        return stop.length==0 || Bytes.compareTo(buffer,offset,length,stop,0,stop.length)<0;
+    }
+
+    /**
+     * @return The filter serialized as the number of ranges followed by each start and stop key
+     */
+    @Override
+    public byte[] toByteArray() throws IOException{
+        ByteArrayOutputStream baos=new ByteArrayOutputStream();
+        DataOutputStream out=new DataOutputStream(baos);
+        out.writeInt(startKeys.length);
+        for(int i=0;i<startKeys.length;i++){
+            writeKey(out,startKeys[i]);
+            writeKey(out,stopKeys[i]);
+        }
+        out.flush();
+        return baos.toByteArray();
+    }
+
+    /**
+     * @param bytes A serialized {@code MultiRangeFilter} instance
+     * @return An instance of {@code MultiRangeFilter} made from <code>bytes</code>
+     * @throws DeserializationException
+     * @see #toByteArray
+     */
+    @SuppressWarnings("unused") //Deserialization method-- REQUIRED
+    public static MultiRangeFilter parseFrom(final byte[] bytes) throws DeserializationException{
+        try{
+            DataInputStream in=new DataInputStream(new ByteArrayInputStream(bytes));
+            int size=in.readInt();
+            byte[][] startKeys=new byte[size][];
+            byte[][] stopKeys=new byte[size][];
+            for(int i=0;i<size;i++){
+                startKeys[i]=readKey(in);
+                stopKeys[i]=readKey(in);
+            }
+            return new MultiRangeFilter(startKeys,stopKeys);
+        }catch(IOException e){
+            throw new DeserializationException(e);
+        }
+    }
+
+    private static void writeKey(DataOutput out,byte[] key) throws IOException{
+        out.writeInt(key.length);
+        out.write(key);
+    }
+
+    private static byte[] readKey(DataInput in) throws IOException{
+        byte[] key=new byte[in.readInt()];
+        in.readFully(key);
+        return key;
+    }
+}
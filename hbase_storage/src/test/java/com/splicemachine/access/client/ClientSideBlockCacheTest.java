@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.access.client;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.io.hfile.CacheConfig;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import static org.junit.Assert.*;
+
+public class ClientSideBlockCacheTest {
+
+    @Test
+    public void configuresOffHeapCache() {
+        Configuration conf = new Configuration(false);
+        conf.setBoolean(CacheConfig.EVICT_BLOCKS_ON_CLOSE_KEY, true);
+        conf.set(HConstants.BUCKET_CACHE_IOENGINE_KEY, "file:/tmp/bucketcache");
+
+        Configuration cacheConf = ClientSideBlockCache.configure(conf, 512 * 1024 * 1024L);
+        assertEquals("offheap", cacheConf.get(HConstants.BUCKET_CACHE_IOENGINE_KEY));
+        assertEquals(512f, cacheConf.getFloat(HConstants.BUCKET_CACHE_SIZE_KEY, 0f), 0f);
+        assertEquals(ClientSideBlockCache.INDEX_CACHE_HEAP_FRACTION, cacheConf.getFloat(HConstants.HFILE_BLOCK_CACHE_SIZE_KEY, 0f), 0f);
+        assertFalse(cacheConf.getBoolean(CacheConfig.EVICT_BLOCKS_ON_CLOSE_KEY, true));
+        assertEquals("the table's configuration must not change", "file:/tmp/bucketcache", conf.get(HConstants.BUCKET_CACHE_IOENGINE_KEY));
+
+        Configuration unchanged = ClientSideBlockCache.configure(conf, 0);
+        assertEquals("file:/tmp/bucketcache", unchanged.get(HConstants.BUCKET_CACHE_IOENGINE_KEY));
+        assertFalse(unchanged.getBoolean(CacheConfig.EVICT_BLOCKS_ON_CLOSE_KEY, true));
+    }
+
+    @Test
+    public void retiresRemovedFiles() {
+        assertEquals(Collections.emptySet(), ClientSideBlockCache.retireFiles("retiresRemovedFiles", new HashSet<>(Arrays.asList("a", "b"))));
+        assertEquals(Collections.emptySet(), ClientSideBlockCache.retireFiles("retiresRemovedFiles", new HashSet<>(Arrays.asList("a", "b", "c"))));
+        // a compaction replaced a and b with d
+        assertEquals(new HashSet<>(Arrays.asList("a", "b")), ClientSideBlockCache.retireFiles("retiresRemovedFiles", new HashSet<>(Arrays.asList("c", "d"))));
+        assertEquals(Collections.emptySet(), ClientSideBlockCache.retireFiles("otherRegion", new HashSet<>(Arrays.asList("c"))));
+    }
+
+    @Test
+    public void forgetsLeastRecentlyOpenedRegions() {
+        ClientSideBlockCache.retireFiles("forgottenRegion", new HashSet<>(Arrays.asList("a")));
+        for (int i = 0; i < ClientSideBlockCache.MAX_TRACKED_REGIONS; i++) {
+            ClientSideBlockCache.retireFiles("region" + i, new HashSet<>(Arrays.asList("a")));
+        }
+        assertEquals("the region should have been forgotten", Collections.emptySet(),
+                ClientSideBlockCache.retireFiles("forgottenRegion", new HashSet<String>()));
+    }
+}
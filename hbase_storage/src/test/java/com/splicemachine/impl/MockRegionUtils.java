@@ -24,6 +24,7 @@ import org.apache.hadoop.hbase.HRegionInfo;
 import org.apache.hadoop.hbase.KeyValue;
 import org.apache.hadoop.hbase.client.*;
 import org.apache.hadoop.hbase.regionserver.HRegion;
+import org.apache.hadoop.hbase.regionserver.OperationStatus;
 import org.apache.hadoop.hbase.regionserver.RegionScanner;
 import org.apache.hadoop.hbase.util.Bytes;
 import org.mockito.invocation.InvocationOnMock;
@@ -99,6 +100,18 @@ public class MockRegionUtils{
             }
         };
         doAnswer(putAnswer).when(fakeRegion).put(any(Put.class));
+        when(fakeRegion.batchMutate(any(Mutation[].class))).thenAnswer(new Answer<OperationStatus[]>(){
+            @Override
+            public OperationStatus[] answer(InvocationOnMock invocationOnMock) throws Throwable{
+                Mutation[] mutations=(Mutation[])invocationOnMock.getArguments()[0];
+                OperationStatus[] statuses=new OperationStatus[mutations.length];
+                for(int i=0;i<mutations.length;i++){
+                    fakeRegion.put((Put)mutations[i]);
+                    statuses[i]=new OperationStatus(HConstants.OperationStatusCode.SUCCESS);
+                }
+                return statuses;
+            }
+        });
 
         Answer<Void> deleteAnswer=new Answer<Void>(){
             @Override
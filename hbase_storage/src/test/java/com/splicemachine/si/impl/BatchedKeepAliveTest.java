@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.si.impl;
+
+import com.splicemachine.si.coprocessor.TxnMessage;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.mockito.Matchers.any;
+
+public class BatchedKeepAliveTest{
+
+    @Test
+    public void mapsEachRegionsAnswerToItsTransactions() throws Exception{
+        long[] txnIds={0x100,0x200,0x300,0x400};
+        TxnNetworkLayer table=Mockito.mock(TxnNetworkLayer.class);
+        Mockito.when(table.keepAlive(any(byte[].class),any(byte[].class),any(TxnMessage.KeepAliveRequest.class))).thenReturn(Arrays.asList(
+                TxnMessage.KeepAliveResponse.newBuilder().addKeptAliveTxnIds(0x100).addTimedOutTxnIds(0x300).build(),
+                TxnMessage.KeepAliveResponse.newBuilder().addNotActiveTxnIds(0x200).build()));
+
+        BatchedKeepAlive.Outcome[] outcomes=keepAlive(table).keepAlive(txnIds);
+        //no region answered for 0x400, so it has to be kept alive on its own
+        Assert.assertArrayEquals(new BatchedKeepAlive.Outcome[]{
+                BatchedKeepAlive.Outcome.KEPT_ALIVE,
+                BatchedKeepAlive.Outcome.NOT_ACTIVE,
+                BatchedKeepAlive.Outcome.TIMED_OUT,
+                BatchedKeepAlive.Outcome.DEFERRED},outcomes);
+
+        ArgumentCaptor<byte[]> startRow=ArgumentCaptor.forClass(byte[].class);
+        ArgumentCaptor<byte[]> endRow=ArgumentCaptor.forClass(byte[].class);
+        ArgumentCaptor<TxnMessage.KeepAliveRequest> request=ArgumentCaptor.forClass(TxnMessage.KeepAliveRequest.class);
+        Mockito.verify(table).keepAlive(startRow.capture(),endRow.capture(),request.capture());
+        Assert.assertEquals(Arrays.asList(0x100l,0x200l,0x300l,0x400l),request.getValue().getTxnIdsList());
+        //the call covers the rows of every transaction
+        for(long txnId : txnIds){
+            byte[] rowKey=TxnUtils.getRowKey(txnId);
+            Assert.assertTrue(Bytes.compareTo(startRow.getValue(),rowKey)<=0);
+            Assert.assertTrue(Bytes.compareTo(endRow.getValue(),rowKey)>=0);
+        }
+    }
+
+    @Test
+    public void nothingIsSentWithoutTransactions() throws Exception{
+        TxnNetworkLayer table=Mockito.mock(TxnNetworkLayer.class);
+        Mockito.when(table.keepAlive(any(byte[].class),any(byte[].class),any(TxnMessage.KeepAliveRequest.class)))
+                .thenReturn(Collections.<TxnMessage.KeepAliveResponse>emptyList());
+        Assert.assertEquals(0,keepAlive(table).keepAlive(new long[]{}).length);
+        Mockito.verify(table,Mockito.never()).keepAlive(any(byte[].class),any(byte[].class),any(TxnMessage.KeepAliveRequest.class));
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private static BatchedKeepAlive keepAlive(TxnNetworkLayer table) throws Exception{
+        TxnNetworkLayerFactory factory=Mockito.mock(TxnNetworkLayerFactory.class);
+        Mockito.when(factory.accessTxnNetwork()).thenReturn(table);
+        return new BatchedKeepAlive(factory);
+    }
+}
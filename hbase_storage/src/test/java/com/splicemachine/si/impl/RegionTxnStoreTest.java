@@ -108,6 +108,24 @@ public class RegionTxnStoreTest{
 
     }
 
+    @Test
+    public void testCanCommitATransactionWithGroupCommit() throws Exception{
+        HRegion region=MockRegionUtils.getMockRegion();
+        RegionTxnStore store=new RegionTxnStore(region,txnSupplier,getTransactionResolver(),Long.MAX_VALUE,clock,true);
+
+        TxnMessage.TxnInfo info=TxnMessage.TxnInfo.newBuilder()
+                .setTxnId(1)
+                .setBeginTs(1)
+                .setAllowsWrites(true)
+                .setIsAdditive(true)
+                .setIsolationLevel(Txn.IsolationLevel.SNAPSHOT_ISOLATION.getLevel())
+                .build();
+        store.recordTransaction(info);
+        Assert.assertEquals("Incorrect current state!",Txn.State.ACTIVE,store.getState(1));
+        store.recordCommit(1,2l);
+        Assert.assertEquals("Incorrect current state!",Txn.State.COMMITTED,store.getState(1));
+    }
+
     @Test
     public void testCanRollbackATransaction() throws Exception{
         HRegion region=MockRegionUtils.getMockRegion();
@@ -0,0 +1,194 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.si.impl;
+
+import com.splicemachine.si.coprocessor.TxnMessage;
+import org.apache.hadoop.ipc.RemoteException;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class TxnLifecycleBatcherTest{
+
+    @Test
+    public void concurrentOperationsAreSentInBatches() throws Exception{
+        final List<Integer> batchSizes=Collections.synchronizedList(new ArrayList<Integer>());
+        TxnNetworkLayer table=mock(TxnNetworkLayer.class);
+        when(table.lifecycleAction(any(byte[].class),any(TxnMessage.TxnLifecycleMessage.class))).thenAnswer(new Answer<TxnMessage.ActionResponse>(){
+            @Override
+            public TxnMessage.ActionResponse answer(InvocationOnMock invocation) throws Throwable{
+                batchSizes.add(1);
+                Thread.sleep(5);
+                TxnMessage.TxnLifecycleMessage message=(TxnMessage.TxnLifecycleMessage)invocation.getArguments()[1];
+                return TxnMessage.ActionResponse.newBuilder().setCommitTs(message.getTxnId()+1).build();
+            }
+        });
+        when(table.lifecycleBatch(any(byte[].class),any(byte[].class),any(TxnMessage.TxnLifecycleBatch.class))).thenAnswer(new Answer<List<TxnMessage.TxnLifecycleBatchResponse>>(){
+            @Override
+            public List<TxnMessage.TxnLifecycleBatchResponse> answer(InvocationOnMock invocation) throws Throwable{
+                TxnMessage.TxnLifecycleBatch batch=(TxnMessage.TxnLifecycleBatch)invocation.getArguments()[2];
+                batchSizes.add(batch.getOpsCount());
+                Thread.sleep(5);
+                TxnMessage.TxnLifecycleBatchResponse.Builder response=TxnMessage.TxnLifecycleBatchResponse.newBuilder();
+                for(int i=0;i<batch.getOpsCount();i++){
+                    long txnId=batch.getOps(i).getAction().getTxnId();
+                    response.addResults(TxnMessage.TxnLifecycleResult.newBuilder().setIndex(i)
+                            .setResponse(TxnMessage.ActionResponse.newBuilder().setCommitTs(txnId+1)));
+                }
+                return Collections.singletonList(response.build());
+            }
+        });
+        final TxnLifecycleBatcher batcher=new TxnLifecycleBatcher(factory(table));
+
+        int threads=16;
+        final int opsPerThread=20;
+        ExecutorService executor=Executors.newFixedThreadPool(threads);
+        try{
+            List<Future<Void>> futures=new ArrayList<>();
+            for(int t=0;t<threads;t++){
+                final int thread=t;
+                futures.add(executor.submit(new Callable<Void>(){
+                    @Override
+                    public Void call() throws Exception{
+                        for(int i=0;i<opsPerThread;i++){
+                            long txnId=(thread*opsPerThread+i)*256L;
+                            TxnMessage.ActionResponse response=batcher.submit(TxnUtils.getRowKey(txnId),commit(txnId));
+                            //every caller gets the response to its own operation
+                            Assert.assertEquals(txnId+1,response.getCommitTs());
+                        }
+                        return null;
+                    }
+                }));
+            }
+            for(Future<Void> future : futures){
+                future.get();
+            }
+        }finally{
+            executor.shutdownNow();
+        }
+        int total=0;
+        for(int size : batchSizes){
+            total+=size;
+        }
+        Assert.assertEquals(threads*opsPerThread,total);
+        Assert.assertTrue("Operations were not batched: "+batchSizes.size()+" calls",batchSizes.size()<threads*opsPerThread);
+    }
+
+    @Test
+    public void failuresAreReportedToTheirOwnCaller() throws Exception{
+        TxnNetworkLayer table=mock(TxnNetworkLayer.class);
+        when(table.lifecycleAction(any(byte[].class),any(TxnMessage.TxnLifecycleMessage.class)))
+                .thenThrow(new IOException("cannot commit"));
+        TxnLifecycleBatcher batcher=new TxnLifecycleBatcher(factory(table));
+        try{
+            batcher.submit(TxnUtils.getRowKey(256),commit(256));
+            Assert.fail("Expected the failed operation to throw");
+        }catch(IOException e){
+            Assert.assertEquals("cannot commit",e.getMessage());
+        }
+    }
+
+    @Test
+    public void batchedFailuresAreReportedToTheirOwnCaller() throws Exception{
+        final CountDownLatch firstCallStarted=new CountDownLatch(1);
+        final CountDownLatch releaseFirstCall=new CountDownLatch(1);
+        TxnNetworkLayer table=mock(TxnNetworkLayer.class);
+        when(table.lifecycleAction(any(byte[].class),any(TxnMessage.TxnLifecycleMessage.class))).thenAnswer(new Answer<TxnMessage.ActionResponse>(){
+            @Override
+            public TxnMessage.ActionResponse answer(InvocationOnMock invocation) throws Throwable{
+                firstCallStarted.countDown();
+                releaseFirstCall.await();
+                return TxnMessage.ActionResponse.getDefaultInstance();
+            }
+        });
+        when(table.lifecycleBatch(any(byte[].class),any(byte[].class),any(TxnMessage.TxnLifecycleBatch.class))).thenAnswer(new Answer<List<TxnMessage.TxnLifecycleBatchResponse>>(){
+            @Override
+            public List<TxnMessage.TxnLifecycleBatchResponse> answer(InvocationOnMock invocation) throws Throwable{
+                TxnMessage.TxnLifecycleBatch batch=(TxnMessage.TxnLifecycleBatch)invocation.getArguments()[2];
+                TxnMessage.TxnLifecycleBatchResponse.Builder response=TxnMessage.TxnLifecycleBatchResponse.newBuilder();
+                for(int i=0;i<batch.getOpsCount();i++){
+                    TxnMessage.TxnLifecycleResult.Builder result=TxnMessage.TxnLifecycleResult.newBuilder().setIndex(i);
+                    if(batch.getOps(i).getAction().getTxnId()==512)
+                        result.setErrorClass(IOException.class.getName()).setErrorMessage("cannot commit");
+                    else
+                        result.setResponse(TxnMessage.ActionResponse.getDefaultInstance());
+                    response.addResults(result);
+                }
+                return Collections.singletonList(response.build());
+            }
+        });
+        final TxnLifecycleBatcher batcher=new TxnLifecycleBatcher(factory(table));
+        ExecutorService executor=Executors.newFixedThreadPool(3);
+        try{
+            Future<Void> first=executor.submit(commitTask(batcher,128));
+            firstCallStarted.await();
+            Future<Void> good=executor.submit(commitTask(batcher,256));
+            Future<Void> bad=executor.submit(commitTask(batcher,512));
+            //give both time to queue behind the first call
+            Thread.sleep(200);
+            releaseFirstCall.countDown();
+            first.get();
+            good.get();
+            try{
+                bad.get();
+                Assert.fail("Expected the failed operation to throw");
+            }catch(ExecutionException e){
+                Assert.assertTrue(String.valueOf(e.getCause()),e.getCause() instanceof RemoteException);
+                Assert.assertEquals(IOException.class.getName(),((RemoteException)e.getCause()).getClassName());
+            }
+        }finally{
+            executor.shutdownNow();
+        }
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private static TxnNetworkLayerFactory factory(TxnNetworkLayer table) throws IOException{
+        TxnNetworkLayerFactory factory=mock(TxnNetworkLayerFactory.class);
+        when(factory.accessTxnNetwork()).thenReturn(table);
+        return factory;
+    }
+
+    private static Callable<Void> commitTask(final TxnLifecycleBatcher batcher,final long txnId){
+        return new Callable<Void>(){
+            @Override
+            public Void call() throws Exception{
+                batcher.submit(TxnUtils.getRowKey(txnId),commit(txnId));
+                return null;
+            }
+        };
+    }
+
+    private static TxnMessage.TxnLifecycleOp commit(long txnId){
+        return TxnMessage.TxnLifecycleOp.newBuilder().setAction(TxnMessage.TxnLifecycleMessage.newBuilder()
+                .setTxnId(txnId).setAction(TxnMessage.LifecycleAction.COMMIT)).build();
+    }
+}
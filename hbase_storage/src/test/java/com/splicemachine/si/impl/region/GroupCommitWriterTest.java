@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.si.impl.region;
+
+import com.splicemachine.primitives.Bytes;
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.client.Mutation;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.regionserver.OperationStatus;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class GroupCommitWriterTest{
+
+    @Test
+    public void concurrentPutsAreWrittenInBatches() throws Exception{
+        final List<Integer> batchSizes=Collections.synchronizedList(new ArrayList<Integer>());
+        final Set<String> written=Collections.synchronizedSet(new HashSet<String>());
+        final GroupCommitWriter writer=new GroupCommitWriter(null){
+            @Override
+            protected OperationStatus[] batchMutate(Mutation[] mutations) throws IOException{
+                batchSizes.add(mutations.length);
+                OperationStatus[] statuses=new OperationStatus[mutations.length];
+                for(int i=0;i<mutations.length;i++){
+                    written.add(Bytes.toString(mutations[i].getRow()));
+                    statuses[i]=new OperationStatus(HConstants.OperationStatusCode.SUCCESS);
+                }
+                try{
+                    Thread.sleep(5);
+                }catch(InterruptedException e){
+                    throw new IOException(e);
+                }
+                return statuses;
+            }
+        };
+        int threads=16;
+        final int putsPerThread=50;
+        ExecutorService executor=Executors.newFixedThreadPool(threads);
+        try{
+            List<Future<Void>> futures=new ArrayList<>();
+            for(int t=0;t<threads;t++){
+                final int thread=t;
+                futures.add(executor.submit(new Callable<Void>(){
+                    @Override
+                    public Void call() throws Exception{
+                        for(int i=0;i<putsPerThread;i++){
+                            String row=thread+"-"+i;
+                            writer.put(new Put(Bytes.toBytes(row)));
+                            //the put must have been applied by the time put() returns
+                            Assert.assertTrue(written.contains(row));
+                        }
+                        return null;
+                    }
+                }));
+            }
+            for(Future<Void> future : futures){
+                future.get();
+            }
+        }finally{
+            executor.shutdownNow();
+        }
+        Assert.assertEquals(threads*putsPerThread,written.size());
+        int total=0;
+        for(int size : batchSizes){
+            total+=size;
+        }
+        Assert.assertEquals(threads*putsPerThread,total);
+        Assert.assertTrue("Puts were not batched: "+batchSizes.size()+" batches",batchSizes.size()<threads*putsPerThread);
+    }
+
+    @Test
+    public void failuresAreReportedToTheirOwnCaller() throws Exception{
+        GroupCommitWriter writer=new GroupCommitWriter(null){
+            @Override
+            protected OperationStatus[] batchMutate(Mutation[] mutations) throws IOException{
+                OperationStatus[] statuses=new OperationStatus[mutations.length];
+                for(int i=0;i<mutations.length;i++){
+                    boolean bad=Bytes.toString(mutations[i].getRow()).equals("bad");
+                    statuses[i]=bad?new OperationStatus(HConstants.OperationStatusCode.BAD_FAMILY,"no such family"):new OperationStatus(HConstants.OperationStatusCode.SUCCESS);
+                }
+                return statuses;
+            }
+        };
+        writer.put(new Put(Bytes.toBytes("good")));
+        try{
+            writer.put(new Put(Bytes.toBytes("bad")));
+            Assert.fail("Expected the failed put to throw");
+        }catch(IOException e){
+            Assert.assertTrue(e.getMessage(),e.getMessage().contains("no such family"));
+        }
+        writer.put(new Put(Bytes.toBytes("good")));
+    }
+
+    @Test
+    public void errorsFailEveryWaitingCaller() throws Exception{
+        final CountDownLatch firstBatchStarted=new CountDownLatch(1);
+        final CountDownLatch releaseFirstBatch=new CountDownLatch(1);
+        final GroupCommitWriter writer=new GroupCommitWriter(null){
+            @Override
+            protected OperationStatus[] batchMutate(Mutation[] mutations) throws IOException{
+                if(Bytes.toString(mutations[0].getRow()).equals("first")){
+                    firstBatchStarted.countDown();
+                    try{
+                        releaseFirstBatch.await();
+                    }catch(InterruptedException e){
+                        throw new IOException(e);
+                    }
+                    return new OperationStatus[]{new OperationStatus(HConstants.OperationStatusCode.SUCCESS)};
+                }
+                throw new AssertionError("batch failed");
+            }
+        };
+        int waiters=4;
+        ExecutorService executor=Executors.newFixedThreadPool(waiters+1);
+        try{
+            Future<Void> first=executor.submit(putTask(writer,"first"));
+            firstBatchStarted.await();
+            List<Future<Void>> futures=new ArrayList<>();
+            for(int i=0;i<waiters;i++){
+                futures.add(executor.submit(putTask(writer,"waiter-"+i)));
+            }
+            //give the waiters time to queue behind the first batch
+            Thread.sleep(200);
+            releaseFirstBatch.countDown();
+            first.get();
+            for(Future<Void> future : futures){
+                try{
+                    future.get();
+                    Assert.fail("Expected the failed batch to fail every caller");
+                }catch(ExecutionException e){
+                    Assert.assertTrue(String.valueOf(e.getCause()),e.getCause() instanceof AssertionError);
+                }
+            }
+        }finally{
+            executor.shutdownNow();
+        }
+    }
+
+    private static Callable<Void> putTask(final GroupCommitWriter writer,final String row){
+        return new Callable<Void>(){
+            @Override
+            public Void call() throws Exception{
+                writer.put(new Put(Bytes.toBytes(row)));
+                return null;
+            }
+        };
+    }
+}
@@ -0,0 +1,290 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.splicemachine.si.impl.server;
+
+import com.carrotsearch.hppc.BitSet;
+import com.splicemachine.encoding.Encoding;
+import com.splicemachine.encoding.MultiFieldEncoder;
+import com.splicemachine.si.api.readresolve.RollForward;
+import com.splicemachine.si.api.txn.Txn;
+import com.splicemachine.si.api.txn.TxnSupplier;
+import com.splicemachine.si.api.txn.TxnView;
+import com.splicemachine.si.constants.SIConstants;
+import com.splicemachine.si.impl.txn.ActiveWriteTxn;
+import com.splicemachine.si.impl.txn.CommittedTxn;
+import com.splicemachine.si.impl.txn.RolledBackTxn;
+import com.splicemachine.storage.CellType;
+import com.splicemachine.storage.EntryDecoder;
+import com.splicemachine.storage.EntryEncoder;
+import com.splicemachine.utils.kryo.KryoPool;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.CellUtil;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class SICompactionStateTest{
+    private static final KryoPool KRYO_POOL=new KryoPool(10);
+    private static final byte[] ROW=Bytes.toBytes("row");
+
+    private final Map<Long,TxnView> txns=new HashMap<>();
+    private TxnSupplier supplier;
+
+    @Test
+    public void mergesSettledUpdates() throws Exception{
+        committed(1,2);
+        committed(3,4);
+        committed(5,6);
+        SICompactionState state=newState(10);
+        List<Cell> results=compact(state,
+                userData(1,1,10,2,20),
+                userData(3,2,30),
+                userData(5,1,50));
+
+        Assert.assertEquals(Arrays.asList("COMMIT_TIMESTAMP@5","USER_DATA@5"),describe(state,results));
+        Assert.assertArrayEquals(new Integer[]{null,50,30},decode(results.get(1),3));
+        Assert.assertTrue(state.getReclaimedBytes()>0);
+    }
+
+    @Test
+    public void keepsVersionsNewerThanUnsettledOnes() throws Exception{
+        committed(1,2);
+        committed(3,4);
+        committed(5,12); // committed after the watermark
+        committed(7,8);
+        SICompactionState state=newState(10);
+        List<Cell> results=compact(state,
+                userData(1,1,10,2,20),
+                userData(3,2,30),
+                userData(5,1,50),
+                userData(7,1,70));
+
+        Assert.assertEquals(Arrays.asList("COMMIT_TIMESTAMP@7","COMMIT_TIMESTAMP@5","COMMIT_TIMESTAMP@3",
+                "USER_DATA@7","USER_DATA@5","USER_DATA@3"),describe(state,results));
+        Assert.assertArrayEquals(new Integer[]{null,10,30},decode(results.get(5),3));
+    }
+
+    @Test
+    public void dropsVersionsHiddenByTombstones() throws Exception{
+        committed(1,2);
+        committed(3,4);
+        committed(5,6);
+        SICompactionState state=newState(10);
+        List<Cell> results=compact(state,
+                userData(1,1,10,2,20),
+                tombstone(3),
+                userData(5,1,50),
+                antiTombstone(5));
+
+        Assert.assertEquals(Arrays.asList("COMMIT_TIMESTAMP@5","COMMIT_TIMESTAMP@3",
+                "ANTI_TOMBSTONE@5","TOMBSTONE@3","USER_DATA@5"),describe(state,results));
+    }
+
+    @Test
+    public void ignoresActiveTransactions() throws Exception{
+        committed(1,2);
+        txns.put(3l,new ActiveWriteTxn(3,3,Txn.ROOT_TRANSACTION,false,Txn.IsolationLevel.SNAPSHOT_ISOLATION));
+        committed(5,6);
+        SICompactionState state=newState(10);
+        List<Cell> results=compact(state,
+                userData(1,1,10),
+                userData(3,1,30),
+                userData(5,1,50));
+
+        Assert.assertEquals(Arrays.asList("COMMIT_TIMESTAMP@5","COMMIT_TIMESTAMP@1",
+                "USER_DATA@5","USER_DATA@3","USER_DATA@1"),describe(state,results));
+        Assert.assertEquals(0,state.getReclaimedBytes());
+    }
+
+    @Test
+    public void keepsEverythingWithoutAWatermark() throws Exception{
+        committed(1,2);
+        committed(3,4);
+        SICompactionState state=newState(0);
+        List<Cell> results=compact(state,
+                userData(1,1,10),
+                userData(3,1,30));
+
+        Assert.assertEquals(Arrays.asList("COMMIT_TIMESTAMP@3","COMMIT_TIMESTAMP@1",
+                "USER_DATA@3","USER_DATA@1"),describe(state,results));
+        Assert.assertEquals(0,state.getReclaimedBytes());
+    }
+
+    @Test
+    public void resolvesTransactionsOfTheRow() throws Exception{
+        committed(1,2);
+        txns.put(3l,new RolledBackTxn(3));
+        committed(5,6);
+        SICompactionState state=newState(0);
+        List<Cell> results=compact(state,
+                commitTimestamp(1,2),
+                userData(1,1,10),
+                userData(3,1,30),
+                tombstone(3),
+                userData(5,1,50),
+                userData(7,1,70)); // unknown transaction
+
+        Assert.assertEquals(Arrays.asList("COMMIT_TIMESTAMP@5","COMMIT_TIMESTAMP@1",
+                "USER_DATA@5","USER_DATA@1"),describe(state,results));
+        Assert.assertEquals(6,Bytes.toLong(CellUtil.cloneValue(results.get(0))));
+    }
+
+    @Test
+    public void purgesDeletedVersions() throws Exception{
+        committed(1,2);
+        committed(3,4);
+        committed(5,6);
+        SICompactionState state=newState(0);
+        List<Cell> results=compact(state,true,
+                userData(1,1,10),
+                tombstone(3),
+                userData(5,1,50),
+                antiTombstone(5));
+
+        Assert.assertEquals(Arrays.asList("COMMIT_TIMESTAMP@5","ANTI_TOMBSTONE@5","USER_DATA@5"),describe(state,results));
+    }
+
+    @Test
+    public void resolvesTransactionsOncePerBatch() throws Exception{
+        committed(1,2);
+        committed(3,4);
+        committed(5,6);
+        SICompactionState state=newState(0);
+        List<Cell> first=new ArrayList<>(Arrays.asList(userData(1,1,10),userData(3,1,30)));
+        List<Cell> second=new ArrayList<>(Arrays.asList(userData(3,2,20),userData(5,2,50)));
+        Collections.sort(first,KeyValue.COMPARATOR);
+        Collections.sort(second,KeyValue.COMPARATOR);
+        state.resolveTransactions(Arrays.asList(first,second));
+
+        List<Cell> results=new ArrayList<>();
+        state.mutate(first,results,false);
+        state.mutate(second,results,false);
+
+        verify(supplier,times(1)).getTransactions(any(long[].class));
+        Assert.assertEquals(Arrays.asList("COMMIT_TIMESTAMP@3","COMMIT_TIMESTAMP@1","USER_DATA@3","USER_DATA@1",
+                "COMMIT_TIMESTAMP@5","COMMIT_TIMESTAMP@3","USER_DATA@5","USER_DATA@3"),describe(state,results));
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private void committed(long begin,long commit){
+        txns.put(begin,new CommittedTxn(begin,commit));
+    }
+
+    private SICompactionState newState(long watermark) throws Exception{
+        supplier=mock(TxnSupplier.class);
+        when(supplier.getTransaction(anyLong(),anyBoolean())).thenAnswer(new Answer<TxnView>(){
+            @Override
+            public TxnView answer(InvocationOnMock invocation) throws Throwable{
+                return txns.get((Long)invocation.getArguments()[0]);
+            }
+        });
+        when(supplier.getTransactions(any(long[].class))).thenAnswer(new Answer<TxnView[]>(){
+            @Override
+            public TxnView[] answer(InvocationOnMock invocation) throws Throwable{
+                long[] txnIds=(long[])invocation.getArguments()[0];
+                TxnView[] views=new TxnView[txnIds.length];
+                for(int i=0;i<txnIds.length;i++){
+                    views[i]=txns.get(txnIds[i]);
+                }
+                return views;
+            }
+        });
+        return new SICompactionState(supplier,mock(RollForward.class),16,watermark);
+    }
+
+    private static List<Cell> compact(SICompactionState state,Cell... cells) throws Exception{
+        return compact(state,false,cells);
+    }
+
+    private static List<Cell> compact(SICompactionState state,boolean purgeDeletedRows,Cell... cells) throws Exception{
+        // the store scanner hands over the cells of a row in sorted order
+        List<Cell> row=new ArrayList<>(Arrays.asList(cells));
+        Collections.sort(row,KeyValue.COMPARATOR);
+        List<Cell> results=new ArrayList<>();
+        state.mutate(row,results,purgeDeletedRows);
+        return results;
+    }
+
+    private static List<String> describe(SICompactionState state,List<Cell> cells){
+        List<String> descriptions=new ArrayList<>();
+        for(Cell cell : cells){
+            CellType type=state.getKeyValueType(cell);
+            descriptions.add(type+"@"+cell.getTimestamp());
+        }
+        return descriptions;
+    }
+
+    private static Integer[] decode(Cell cell,int columns) throws Exception{
+        EntryDecoder decoder=new EntryDecoder();
+        decoder.set(CellUtil.cloneValue(cell));
+        Integer[] values=new Integer[columns];
+        for(int i=0;i<columns;i++){
+            if(decoder.isSet(i))
+                values[i]=Encoding.decodeInt(decoder.getData(i));
+        }
+        return values;
+    }
+
+    /**
+     * @param columnsAndValues pairs of (column, value)
+     */
+    private static Cell userData(long timestamp,int... columnsAndValues) throws Exception{
+        BitSet setCols=new BitSet();
+        BitSet scalarFields=new BitSet();
+        for(int i=0;i<columnsAndValues.length;i+=2){
+            setCols.set(columnsAndValues[i]);
+            scalarFields.set(columnsAndValues[i]);
+        }
+        EntryEncoder encoder=EntryEncoder.create(KRYO_POOL,3,setCols,scalarFields,null,null);
+        MultiFieldEncoder fields=encoder.getEntryEncoder();
+        for(int i=1;i<columnsAndValues.length;i+=2){
+            fields.encodeNext(columnsAndValues[i]);
+        }
+        return new KeyValue(ROW,SIConstants.DEFAULT_FAMILY_BYTES,SIConstants.PACKED_COLUMN_BYTES,timestamp,encoder.encode());
+    }
+
+    private static Cell commitTimestamp(long timestamp,long commitTimestamp){
+        return new KeyValue(ROW,SIConstants.DEFAULT_FAMILY_BYTES,SIConstants.SNAPSHOT_ISOLATION_COMMIT_TIMESTAMP_COLUMN_BYTES,
+                timestamp,Bytes.toBytes(commitTimestamp));
+    }
+
+    private static Cell tombstone(long timestamp){
+        return new KeyValue(ROW,SIConstants.DEFAULT_FAMILY_BYTES,SIConstants.SNAPSHOT_ISOLATION_TOMBSTONE_COLUMN_BYTES,
+                timestamp,SIConstants.EMPTY_BYTE_ARRAY);
+    }
+
+    private static Cell antiTombstone(long timestamp){
+        return new KeyValue(ROW,SIConstants.DEFAULT_FAMILY_BYTES,SIConstants.SNAPSHOT_ISOLATION_TOMBSTONE_COLUMN_BYTES,
+                timestamp,SIConstants.SNAPSHOT_ISOLATION_ANTI_TOMBSTONE_VALUE_BYTES);
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.storage;
+
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.CellUtil;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.filter.Filter;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+public class MultiRangeFilterTest {
+
+    private static final byte[][] STARTS = {Bytes.toBytes("b"), Bytes.toBytes("f"), Bytes.toBytes("m")};
+    private static final byte[][] STOPS = {Bytes.toBytes("c"), Bytes.toBytes("h"), Bytes.toBytes("n")};
+
+    @Test
+    public void testRowsInsideRangesAreIncluded() throws IOException {
+        MultiRangeFilter filter = new MultiRangeFilter(STARTS, STOPS);
+        for (String row : new String[]{"b", "bz", "f", "g", "gzz", "m"}) {
+            assertEquals("row " + row, Filter.ReturnCode.INCLUDE, filterRow(filter, row));
+        }
+    }
+
+    @Test
+    public void testSeeksToNextRange() throws IOException {
+        MultiRangeFilter filter = new MultiRangeFilter(STARTS, STOPS);
+        assertEquals(Filter.ReturnCode.SEEK_NEXT_USING_HINT, filterRow(filter, "a"));
+        assertHint(filter, "b");
+        assertEquals(Filter.ReturnCode.INCLUDE, filterRow(filter, "b"));
+        assertEquals(Filter.ReturnCode.SEEK_NEXT_USING_HINT, filterRow(filter, "c"));
+        assertHint(filter, "f");
+        // a region may start anywhere, including past several ranges
+        filter = new MultiRangeFilter(STARTS, STOPS);
+        assertEquals(Filter.ReturnCode.SEEK_NEXT_USING_HINT, filterRow(filter, "i"));
+        assertHint(filter, "m");
+    }
+
+    @Test
+    public void testStopsAfterLastRange() throws IOException {
+        MultiRangeFilter filter = new MultiRangeFilter(STARTS, STOPS);
+        assertEquals(Filter.ReturnCode.INCLUDE, filterRow(filter, "m"));
+        assertFalse(filter.filterAllRemaining());
+        assertTrue(filter.filterRowKey(Bytes.toBytes("n"), 0, 1));
+        assertTrue(filter.filterAllRemaining());
+    }
+
+    @Test
+    public void testOpenEndedLastRange() throws IOException {
+        MultiRangeFilter filter = new MultiRangeFilter(new byte[][]{Bytes.toBytes("b"), Bytes.toBytes("d")},
+                new byte[][]{Bytes.toBytes("c"), new byte[0]});
+        assertEquals(Filter.ReturnCode.INCLUDE, filterRow(filter, "zzz"));
+        assertFalse(filter.filterAllRemaining());
+    }
+
+    @Test
+    public void testSerializationRoundTrip() throws Exception {
+        MultiRangeFilter filter = MultiRangeFilter.parseFrom(new MultiRangeFilter(STARTS, STOPS).toByteArray());
+        assertEquals(Filter.ReturnCode.SEEK_NEXT_USING_HINT, filterRow(filter, "d"));
+        assertHint(filter, "f");
+        assertEquals(Filter.ReturnCode.INCLUDE, filterRow(filter, "mm"));
+    }
+
+    private static Filter.ReturnCode filterRow(MultiRangeFilter filter, String row) throws IOException {
+        filter.reset();
+        byte[] key = Bytes.toBytes(row);
+        assertFalse("row " + row + " should reach filterKeyValue", filter.filterRowKey(key, 0, key.length));
+        return filter.filterKeyValue(new KeyValue(key, Bytes.toBytes("V"), Bytes.toBytes("7"), 10, Bytes.toBytes("v")));
+    }
+
+    private static void assertHint(MultiRangeFilter filter, String expectedRow) throws IOException {
+        Cell hint = filter.getNextCellHint(null);
+        assertEquals(expectedRow, Bytes.toString(CellUtil.cloneRow(hint)));
+    }
+}
@@ -94,6 +94,16 @@ public class ControlOnlyDataSetProcessorFactory implements DataSetProcessorFacto
                 return operation.getExecRowIterator();
             }
 
+            @Override
+            public long getTimeToFirstRow() {
+                return -1;
+            }
+
+            @Override
+            public double getThroughput() {
+                return 0;
+            }
+
             @Override
             public void close() throws Exception {
                 // no-op
@@ -18,6 +18,7 @@ import com.splicemachine.SqlExceptionFactory;
 import com.splicemachine.access.api.SConfiguration;
 import com.splicemachine.derby.iapi.sql.PartitionLoadWatcher;
 import com.splicemachine.derby.iapi.sql.PropertyManager;
+import com.splicemachine.derby.iapi.sql.StoreFileStatisticsReader;
 import com.splicemachine.derby.iapi.sql.execute.DataSetProcessorFactory;
 import com.splicemachine.derby.iapi.sql.execute.OperationManager;
 import com.splicemachine.derby.iapi.sql.execute.OperationManagerImpl;
@@ -84,6 +85,12 @@ public class MEngineSqlEnv extends EngineSqlEnvironment{
         return partitionLoadWatcher;
     }
 
+    @Override
+    public StoreFileStatisticsReader getStoreFileStatisticsReader(){
+        //the in-memory storage has no store files
+        return null;
+    }
+
     @Override
     public DataSetProcessorFactory getProcessorFactory(){
         return dspFactory;
@@ -101,6 +101,8 @@ public class MemDatabase{
             builder.ipcThreads = 100;
             builder.partitionserverPort = 16020;
             builder.storageFactoryHome = System.getProperty("user.dir");
+            builder.slowQueryThreshold = 0L; // log every statement, so that SYSCS_GET_SLOW_QUERIES can be tested
+            builder.slowQueryLogSize = 1000;
         }
     }
 }
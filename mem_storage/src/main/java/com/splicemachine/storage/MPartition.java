@@ -18,6 +18,7 @@ import com.splicemachine.access.util.ByteComparisons;
 import org.spark_project.guava.base.Predicate;
 import org.spark_project.guava.collect.BiMap;
 import org.spark_project.guava.collect.HashBiMap;
+import org.spark_project.guava.collect.Iterators;
 import org.spark_project.guava.collect.Sets;
 import com.splicemachine.collections.EmptyNavigableSet;
 import com.splicemachine.kvpair.KVPair;
@@ -153,8 +154,26 @@ public class MPartition implements Partition{
 
     @Override
     public DataScanner openScanner(DataScan scan,MetricFactory metricFactory) throws IOException{
-        NavigableSet<DataCell> dataCells=getAscendingScanSet(scan);
-        Iterator<DataCell> iter = scan.isDescendingScan()? dataCells.descendingIterator(): dataCells.iterator();
+        Iterator<DataCell> iter;
+        byte[][] rangeStarts = ((MScan)scan).getRangeStartKeys();
+        if(rangeStarts==null){
+            NavigableSet<DataCell> dataCells=getAscendingScanSet(scan.getStartKey(),scan.getStopKey(),scan);
+            iter = scan.isDescendingScan()? dataCells.descendingIterator(): dataCells.iterator();
+        }else{
+            /*
+             * Chain the ranges together, so that the cells between them are never visited. Descending
+             * scans walk the ranges from last to first.
+             */
+            byte[][] rangeStops = ((MScan)scan).getRangeStopKeys();
+            List<Iterator<DataCell>> rangeIters = new ArrayList<>(rangeStarts.length);
+            for(int i=0;i<rangeStarts.length;i++){
+                NavigableSet<DataCell> dataCells=getAscendingScanSet(rangeStarts[i],rangeStops[i],scan);
+                rangeIters.add(scan.isDescendingScan()? dataCells.descendingIterator(): dataCells.iterator());
+            }
+            if(scan.isDescendingScan())
+                Collections.reverse(rangeIters);
+            iter = Iterators.concat(rangeIters.iterator());
+        }
 
         long curSeq = sequenceGen.get();
         return new SetScanner(curSeq,iter,scan.lowVersion(),scan.highVersion(),scan.getFilter(),this,metricFactory);
@@ -500,13 +519,11 @@ public class MPartition implements Partition{
         }
     }
 
-    private NavigableSet<DataCell> getAscendingScanSet(DataScan scan){
+    private NavigableSet<DataCell> getAscendingScanSet(byte[] startKey,byte[] stopKey,DataScan scan){
         NavigableSet<DataCell> dataCells;
         if(memstore.size()<=0)
             dataCells = EmptyNavigableSet.instance();
         else{
-            byte[] startKey=scan.getStartKey();
-            byte[] stopKey=scan.getStopKey();
             DataCell start;
             DataCell stop;
             if(startKey==null|| startKey.length==0) {
@@ -27,6 +27,8 @@ public class MScan implements DataScan{
     private byte[] startKey;
     private byte[] stopKey;
     private DataFilter filter;
+    private byte[][] rangeStartKeys;
+    private byte[][] rangeStopKeys;
 
     private Map<String,byte[]> attrs = new HashMap<>();
     private long highTs = Long.MAX_VALUE;
@@ -63,6 +65,28 @@ public class MScan implements DataScan{
         return this;
     }
 
+    @Override
+    @SuppressFBWarnings("EI_EXPOSE_REP2")
+    public DataScan rowRanges(byte[][] startKeys,byte[][] stopKeys){
+        assert startKeys.length==stopKeys.length:"Every range needs a start and a stop key";
+        this.rangeStartKeys = startKeys;
+        this.rangeStopKeys = stopKeys;
+        return this;
+    }
+
+    /**
+     * @return the start keys of the row ranges, or {@code null} if the scan is a single range
+     */
+    @SuppressFBWarnings("EI_EXPOSE_REP")
+    public byte[][] getRangeStartKeys(){
+        return rangeStartKeys;
+    }
+
+    @SuppressFBWarnings("EI_EXPOSE_REP")
+    public byte[][] getRangeStopKeys(){
+        return rangeStopKeys;
+    }
+
     @Override
     public DataScan reverseOrder(){
         this.descending= !descending; //swap the order
@@ -22,10 +22,14 @@ import org.apache.log4j.Logger;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.SeekableByteChannel;
 import java.nio.file.*;
 import java.nio.file.attribute.*;
 import java.nio.file.spi.FileSystemProvider;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
 import java.util.regex.Pattern;
 
@@ -104,6 +108,13 @@ public class MemFileSystem extends DistributedFileSystem{
         return localDelegate.newInputStream(Paths.get(fullPath),options);
     }
 
+    @Override
+    public InputStream newInputStream(String fullPath, long position, OpenOption... options) throws IOException {
+        SeekableByteChannel channel=localDelegate.newByteChannel(Paths.get(fullPath),new HashSet<>(Arrays.asList(options)));
+        channel.position(position);
+        return Channels.newInputStream(channel);
+    }
+
     public boolean createDirectory(Path dir,boolean errorIfExists) throws IOException{
         if (LOG.isDebugEnabled())
             SpliceLogUtils.debug(LOG, "createDirectory(): path = %s", dir);
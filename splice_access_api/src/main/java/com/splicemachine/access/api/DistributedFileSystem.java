@@ -53,6 +53,26 @@ public abstract class DistributedFileSystem {
 
     public abstract InputStream newInputStream(String fullPath, OpenOption... options) throws IOException;
 
+    /**
+     * Open a file for reading, starting at {@code position} rather than at the beginning.
+     *
+     * The default implementation skips over the leading bytes, which may mean reading them.
+     * File systems which can seek should override it.
+     */
+    public InputStream newInputStream(String fullPath, long position, OpenOption... options) throws IOException {
+        InputStream is = newInputStream(fullPath, options);
+        while (position > 0) {
+            long skipped = is.skip(position);
+            if (skipped <= 0) {
+                if (is.read() < 0)
+                    break;
+                skipped = 1;
+            }
+            position -= skipped;
+        }
+        return is;
+    }
+
     public abstract boolean createDirectory(String fullPath,boolean errorIfExists) throws IOException;
 
     public abstract void touchFile(String dir, String fileName) throws IOException;
@@ -135,6 +135,8 @@ public interface SConfiguration {
 
     int getSparkResultStreamingBatchSize();
 
+    boolean getSparkResultStreamingUnordered();
+
     double getBulkImportSampleFraction();
 
     int getBulkImportTasksPerRegion();
@@ -176,6 +178,16 @@ public interface SConfiguration {
 
     long getTransactionTimeout();
 
+    boolean getTransactionBatchedKeepAlive();
+
+    boolean getTransactionLifecycleBatching();
+
+    long getTransactionReadOnlyMaxStaleness();
+
+    boolean getVersionGCEnabled();
+
+    long getVersionGCReadOnlyWindow();
+
     // SQLConfiguration
     boolean debugDumpBindTree();
 
@@ -193,10 +205,22 @@ public interface SConfiguration {
 
     int getImportMaxQuotedColumnLines();
 
+    int getImportControlParallelism();
+
+    int getImportControlChunkSize();
+
     int getIndexBatchSize();
 
     int getIndexLookupBlocks();
 
+    int getIndexLookupThreads();
+
+    long getIndexLookupTargetLatency();
+
+    int getBatchAggregationSize();
+
+    boolean getPrimitiveHashAggregation();
+
     int getKryoPoolSize();
 
     int getNetworkBindPort();
@@ -223,6 +247,8 @@ public interface SConfiguration {
 
     int getNestedLoopJoinBatchSize();
 
+    int getNestedLoopJoinLookupBatchSize();
+
     // StatsConfiguration
     double getFallbackNullFraction();
 
@@ -248,6 +274,10 @@ public interface SConfiguration {
 
     long getPartitionCacheExpiration();
 
+    boolean getStoreFileStatisticsEnabled();
+
+    int getStoreFileStatisticsPrecision();
+
     // StorageConfiguration
     int getSplitBlockSize();
 
@@ -255,6 +285,8 @@ public interface SConfiguration {
 
     long getTableSplitSleepInterval();
 
+    long getClientScanBlockCacheSize();
+
     /**
      * Dump splice configuration, including hadoop config, to the log.
      */
@@ -275,4 +307,14 @@ public interface SConfiguration {
     int getOlapServerTickLimit();
 
     long getControlExecutionRowLimit();
+
+    String getStatementCacheDirectory();
+
+    int getProfileStatementRate();
+
+    int getProfileRowSampleRate();
+
+    long getSlowQueryThreshold();
+
+    int getSlowQueryLogSize();
 }
@@ -36,6 +36,11 @@ public class ConfigurationBuilder {
     public int transactionLockStripes;
     public long transactionKeepAliveInterval;
     public long transactionTimeout;
+    public boolean transactionBatchedKeepAlive;
+    public boolean transactionLifecycleBatching;
+    public long transactionReadOnlyMaxStaleness;
+    public boolean versionGCEnabled;
+    public long versionGCReadOnlyWindow;
 
     // OperationConfiguration
     public int sequenceBlockSize;
@@ -71,11 +76,14 @@ public class ConfigurationBuilder {
     public long fallbackRegionRowCount;
     public long fallbackRemoteLatencyRatio;
     public long partitionCacheExpiration;
+    public boolean storeFileStatisticsEnabled;
+    public int storeFileStatisticsPrecision;
 
     // StorageConfiguration
     public int splitBlockSize;
     public long regionMaxFileSize;
     public long tableSplitSleepInterval;
+    public long clientScanBlockCacheSize;
 
     // HConfiguration
     public int regionServerHandlerCount;
@@ -98,8 +106,14 @@ public class ConfigurationBuilder {
     public boolean upgradeForced;
     public int batchOnceBatchSize;
     public int importMaxQuotedColumnLines;
+    public int importControlParallelism;
+    public int importControlChunkSize;
     public int indexBatchSize;
     public int indexLookupBlocks;
+    public int indexLookupThreads;
+    public long indexLookupTargetLatency;
+    public int batchAggregationSize;
+    public boolean primitiveHashAggregation;
     public int kryoPoolSize;
     public int networkBindPort;
     public int olapClientWaitTime;
@@ -118,6 +132,7 @@ public class ConfigurationBuilder {
     public String upgradeForcedFrom;
     public String storageFactoryHome;
     public int nestedLoopJoinBatchSize;
+    public int nestedLoopJoinLookupBatchSize;
 
     // PipelineConfiguration
     public int coreWriterThreads;
@@ -136,6 +151,7 @@ public class ConfigurationBuilder {
     public String sparkIoCompressionCodec;
     public int sparkResultStreamingBatchSize;
     public int sparkResultStreamingBatches;
+    public boolean sparkResultStreamingUnordered;
     public int compactionReservedSlots;
     public int reservedSlotsTimeout;
     public int olapCompactionMaximumWait;
@@ -144,6 +160,11 @@ public class ConfigurationBuilder {
     public int bulkImportTasksPerRegion;
     public int regionToLoadPerTask;
     public long controlExecutionRowLimit;
+    public String statementCacheDirectory;
+    public int profileStatementRate;
+    public int profileRowSampleRate;
+    public long slowQueryThreshold;
+    public int slowQueryLogSize;
     public int olapShufflePartitions;
 
     /**
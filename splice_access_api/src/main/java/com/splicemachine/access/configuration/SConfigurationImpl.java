@@ -96,6 +96,7 @@ public final class SConfigurationImpl implements SConfiguration {
     private final  String sparkIoCompressionCodec;
     private final int sparkResultStreamingBatches;
     private final int sparkResultStreamingBatchSize;
+    private final boolean sparkResultStreamingUnordered;
     private final int compactionReservedSlots;
     private final int olapCompactionMaximumWait;
     private final int reservedSlotsTimeout;
@@ -124,6 +125,11 @@ public final class SConfigurationImpl implements SConfiguration {
     private final  int transactionLockStripes;
     private final  long transactionKeepAliveInterval;
     private final  long transactionTimeout;
+    private final  boolean transactionBatchedKeepAlive;
+    private final  boolean transactionLifecycleBatching;
+    private final  long transactionReadOnlyMaxStaleness;
+    private final  boolean versionGCEnabled;
+    private final  long versionGCReadOnlyWindow;
 
     // SQLConfiguration
     private final  boolean debugDumpBindTree;
@@ -134,8 +140,14 @@ public final class SConfigurationImpl implements SConfiguration {
     private final  boolean upgradeForced;
     private final  int batchOnceBatchSize;
     private final  int importMaxQuotedColumnLines;
+    private final int importControlParallelism;
+    private final int importControlChunkSize;
     private final  int indexBatchSize;
     private final  int indexLookupBlocks;
+    private final int indexLookupThreads;
+    private final long indexLookupTargetLatency;
+    private final int batchAggregationSize;
+    private final boolean primitiveHashAggregation;
     private final  int kryoPoolSize;
     private final  int networkBindPort;
     private final  int partitionserverJmxPort;
@@ -149,7 +161,13 @@ public final class SConfigurationImpl implements SConfiguration {
     private final  String upgradeForcedFrom;
     private final String storageFactoryHome;
     private final int nestedLoopJoinBatchSize;
+    private final int nestedLoopJoinLookupBatchSize;
     private final long controlExecutionRowLimit;
+    private final String statementCacheDirectory;
+    private final int profileStatementRate;
+    private final int profileRowSampleRate;
+    private final long slowQueryThreshold;
+    private final int slowQueryLogSize;
 
     // StatsConfiguration
     private final  double fallbackNullFraction;
@@ -164,11 +182,14 @@ public final class SConfigurationImpl implements SConfiguration {
     private final  long fallbackRegionRowCount;
     private final  long fallbackRemoteLatencyRatio;
     private final  long partitionCacheExpiration;
+    private final  boolean storeFileStatisticsEnabled;
+    private final  int storeFileStatisticsPrecision;
 
     // StorageConfiguration
     private final  int splitBlockSize;
     private final  long regionMaxFileSize;
     private final  long tableSplitSleepInterval;
+    private final  long clientScanBlockCacheSize;
 
     // Gateway to hadoop config
     private final ConfigurationSource configSource;
@@ -381,6 +402,11 @@ public final class SConfigurationImpl implements SConfiguration {
         return sparkResultStreamingBatchSize;
     }
 
+    @Override
+    public boolean getSparkResultStreamingUnordered() {
+        return sparkResultStreamingUnordered;
+    }
+
     // SIConfigurations
     @Override
     public int getActiveTransactionCacheSize() {
@@ -450,6 +476,26 @@ public final class SConfigurationImpl implements SConfiguration {
     public long getTransactionTimeout() {
         return transactionTimeout;
     }
+    @Override
+    public boolean getTransactionBatchedKeepAlive() {
+        return transactionBatchedKeepAlive;
+    }
+    @Override
+    public boolean getTransactionLifecycleBatching() {
+        return transactionLifecycleBatching;
+    }
+    @Override
+    public long getTransactionReadOnlyMaxStaleness() {
+        return transactionReadOnlyMaxStaleness;
+    }
+    @Override
+    public boolean getVersionGCEnabled() {
+        return versionGCEnabled;
+    }
+    @Override
+    public long getVersionGCReadOnlyWindow() {
+        return versionGCReadOnlyWindow;
+    }
 
     // SQLConfiguration
     @Override
@@ -485,6 +531,14 @@ public final class SConfigurationImpl implements SConfiguration {
         return importMaxQuotedColumnLines;
     }
     @Override
+    public int getImportControlParallelism() {
+        return importControlParallelism;
+    }
+    @Override
+    public int getImportControlChunkSize() {
+        return importControlChunkSize;
+    }
+    @Override
     public int getIndexBatchSize() {
         return indexBatchSize;
     }
@@ -493,6 +547,22 @@ public final class SConfigurationImpl implements SConfiguration {
         return indexLookupBlocks;
     }
     @Override
+    public int getIndexLookupThreads() {
+        return indexLookupThreads;
+    }
+    @Override
+    public long getIndexLookupTargetLatency() {
+        return indexLookupTargetLatency;
+    }
+    @Override
+    public int getBatchAggregationSize() {
+        return batchAggregationSize;
+    }
+    @Override
+    public boolean getPrimitiveHashAggregation() {
+        return primitiveHashAggregation;
+    }
+    @Override
     public int getKryoPoolSize() {
         return kryoPoolSize;
     }
@@ -540,6 +610,10 @@ public final class SConfigurationImpl implements SConfiguration {
     public int getNestedLoopJoinBatchSize() {
         return nestedLoopJoinBatchSize;
     }
+    @Override
+    public int getNestedLoopJoinLookupBatchSize() {
+        return nestedLoopJoinLookupBatchSize;
+    }
 
     // StatsConfiguration
     @Override
@@ -591,6 +665,14 @@ public final class SConfigurationImpl implements SConfiguration {
         return partitionCacheExpiration;
     }
     @Override
+    public boolean getStoreFileStatisticsEnabled() {
+        return storeFileStatisticsEnabled;
+    }
+    @Override
+    public int getStoreFileStatisticsPrecision() {
+        return storeFileStatisticsPrecision;
+    }
+    @Override
     public String getStorageFactoryHome() { return storageFactoryHome;}
 
     // StorageConfiguration
@@ -606,6 +688,10 @@ public final class SConfigurationImpl implements SConfiguration {
     public long getTableSplitSleepInterval() {
         return tableSplitSleepInterval;
     }
+    @Override
+    public long getClientScanBlockCacheSize() {
+        return clientScanBlockCacheSize;
+    }
 
     // ===========
 
@@ -634,6 +720,11 @@ public final class SConfigurationImpl implements SConfiguration {
         transactionLockStripes = builder.transactionLockStripes;
         transactionKeepAliveInterval = builder.transactionKeepAliveInterval;
         transactionTimeout = builder.transactionTimeout;
+        transactionBatchedKeepAlive = builder.transactionBatchedKeepAlive;
+        transactionLifecycleBatching = builder.transactionLifecycleBatching;
+        transactionReadOnlyMaxStaleness = builder.transactionReadOnlyMaxStaleness;
+        versionGCEnabled = builder.versionGCEnabled;
+        versionGCReadOnlyWindow = builder.versionGCReadOnlyWindow;
         sequenceBlockSize = builder.sequenceBlockSize;
         threadPoolMaxSize = builder.threadPoolMaxSize;
         ddlDrainingInitialWait = builder.ddlDrainingInitialWait;
@@ -660,9 +751,12 @@ public final class SConfigurationImpl implements SConfiguration {
         fallbackRegionRowCount = builder.fallbackRegionRowCount;
         fallbackRemoteLatencyRatio = builder.fallbackRemoteLatencyRatio;
         partitionCacheExpiration = builder.partitionCacheExpiration;
+        storeFileStatisticsEnabled = builder.storeFileStatisticsEnabled;
+        storeFileStatisticsPrecision = builder.storeFileStatisticsPrecision;
         splitBlockSize = builder.splitBlockSize;
         regionMaxFileSize = builder.regionMaxFileSize;
         tableSplitSleepInterval = builder.tableSplitSleepInterval;
+        clientScanBlockCacheSize = builder.clientScanBlockCacheSize;
         regionServerHandlerCount = builder.regionServerHandlerCount;
         timestampBlockSize = builder.timestampBlockSize;
         regionLoadUpdateInterval = builder.regionLoadUpdateInterval;
@@ -680,8 +774,14 @@ public final class SConfigurationImpl implements SConfiguration {
         ignoreSavePoints = builder.ignoreSavePoints;
         upgradeForced = builder.upgradeForced;
         importMaxQuotedColumnLines = builder.importMaxQuotedColumnLines;
+        importControlParallelism = builder.importControlParallelism;
+        importControlChunkSize = builder.importControlChunkSize;
         indexBatchSize = builder.indexBatchSize;
         indexLookupBlocks = builder.indexLookupBlocks;
+        indexLookupThreads = builder.indexLookupThreads;
+        indexLookupTargetLatency = builder.indexLookupTargetLatency;
+        batchAggregationSize = builder.batchAggregationSize;
+        primitiveHashAggregation = builder.primitiveHashAggregation;
         kryoPoolSize = builder.kryoPoolSize;
         networkBindPort = builder.networkBindPort;
         partitionserverJmxPort = builder.partitionserverJmxPort;
@@ -718,12 +818,19 @@ public final class SConfigurationImpl implements SConfiguration {
         olapShufflePartitions = builder.olapShufflePartitions;
         sparkResultStreamingBatches = builder.sparkResultStreamingBatches;
         sparkResultStreamingBatchSize = builder.sparkResultStreamingBatchSize;
+        sparkResultStreamingUnordered = builder.sparkResultStreamingUnordered;
         compactionReservedSlots = builder.compactionReservedSlots;
         olapCompactionMaximumWait = builder.olapCompactionMaximumWait;
         reservedSlotsTimeout = builder.reservedSlotsTimeout;
         storageFactoryHome = builder.storageFactoryHome;
         nestedLoopJoinBatchSize = builder.nestedLoopJoinBatchSize;
+        nestedLoopJoinLookupBatchSize = builder.nestedLoopJoinLookupBatchSize;
         controlExecutionRowLimit = builder.controlExecutionRowLimit;
+        statementCacheDirectory = builder.statementCacheDirectory;
+        profileStatementRate = builder.profileStatementRate;
+        profileRowSampleRate = builder.profileRowSampleRate;
+        slowQueryThreshold = builder.slowQueryThreshold;
+        slowQueryLogSize = builder.slowQueryLogSize;
         bulkImportSampleFraction = builder.bulkImportSampleFraction;
         bulkImportTasksPerRegion = builder.bulkImportTasksPerRegion;
         regionToLoadPerTask = builder.regionToLoadPerTask;
@@ -782,4 +889,29 @@ public final class SConfigurationImpl implements SConfiguration {
         return controlExecutionRowLimit;
     }
 
+    @Override
+    public String getStatementCacheDirectory() {
+        return statementCacheDirectory;
+    }
+
+    @Override
+    public int getProfileStatementRate() {
+        return profileStatementRate;
+    }
+
+    @Override
+    public int getProfileRowSampleRate() {
+        return profileRowSampleRate;
+    }
+
+    @Override
+    public long getSlowQueryThreshold() {
+        return slowQueryThreshold;
+    }
+
+    @Override
+    public int getSlowQueryLogSize() {
+        return slowQueryLogSize;
+    }
+
 }
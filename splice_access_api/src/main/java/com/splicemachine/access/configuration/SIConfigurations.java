@@ -16,6 +16,8 @@ package com.splicemachine.access.configuration;
 
 import com.splicemachine.primitives.Bytes;
 
+import java.util.concurrent.TimeUnit;
+
 /**
  * Repository for holding configuration keys for SI.
  * <p/>
@@ -41,6 +43,40 @@ public class SIConfigurations implements ConfigurationDefault {
     public static final String TRANSACTION_TIMEOUT="splice.txn.timeout";
     public static final long DEFAULT_TRANSACTION_TIMEOUT=10*DEFAULT_TRANSACTION_KEEP_ALIVE_INTERVAL; // 2.5 Minutes
 
+    /**
+     * When true, the keep-alives of all the active transactions in a JVM are sent together once every
+     * keep-alive interval, with one bulk keep-alive call to the regions of the transaction table, instead of
+     * one endpoint call per transaction.
+     *
+     * Defaults to true
+     */
+    public static final String TRANSACTION_BATCHED_KEEP_ALIVE="splice.txn.batchedKeepAlive";
+    public static final boolean DEFAULT_TRANSACTION_BATCHED_KEEP_ALIVE=true;
+
+    /**
+     * When true, the begin, commit and rollback calls which are made concurrently in a JVM are sent together
+     * with one batch endpoint call per bucket of the transaction table, and the transaction table regions
+     * group-commit the writes of concurrent lifecycle operations. When false, every call is its own endpoint
+     * call and its own region write.
+     *
+     * Defaults to false
+     */
+    public static final String TRANSACTION_LIFECYCLE_BATCHING="splice.txn.lifecycleBatching";
+    public static final boolean DEFAULT_TRANSACTION_LIFECYCLE_BATCHING=false;
+
+    /**
+     * The longest time (in milliseconds) for which a begin timestamp which was taken from the timestamp oracle
+     * may be reused as the begin timestamp of later transactions of read-only connections. A transaction which
+     * reuses a timestamp doesn't see commits which happened on other servers since the timestamp was taken, so
+     * this is the most stale a read-only connection's snapshot can be. Commits which happen in the same JVM
+     * always force a fresh timestamp. Version GC is turned off unless this is below
+     * splice.txn.versionGC.readOnlyWindow.
+     *
+     * Defaults to 0 (every transaction takes its own timestamp from the oracle)
+     */
+    public static final String TRANSACTION_READ_ONLY_MAX_STALENESS="splice.txn.readOnly.maxStaleness";
+    public static final long DEFAULT_TRANSACTION_READ_ONLY_MAX_STALENESS=0l;
+
     public static final String TRANSACTION_KEEP_ALIVE_THREADS="splice.txn.keepAliveThreads";
     public static final int DEFAULT_KEEP_ALIVE_THREADS=4;
 
@@ -154,6 +190,25 @@ public class SIConfigurations implements ConfigurationDefault {
     public static final String ACTIVE_TRANSACTION_CACHE_SIZE="splice.txn.activeCacheSize";
     private static final int DEFAULT_ACTIVE_TRANSACTION_CACHE_SIZE = 1<<12;
 
+    /**
+     * Whether compactions which rewrite all the files of a store remove row versions that no transaction can
+     * read anymore, i.e. versions superseded by a newer version which committed before the oldest active
+     * transaction began. It stays off while splice.txn.readOnly.maxStaleness is not below
+     * splice.txn.versionGC.readOnlyWindow, since a read-only transaction could then begin before the watermark.
+     * Defaults to false
+     */
+    public static final String VERSION_GC_ENABLED = "splice.txn.versionGC.enabled";
+    private static final boolean DEFAULT_VERSION_GC_ENABLED = false;
+
+    /**
+     * Read-only transactions are not recorded in the transaction table, so version GC never removes versions
+     * which were superseded less than this many milliseconds ago, which must be longer than any read-only
+     * transaction is expected to run.
+     * Defaults to 3600000 (1 hour)
+     */
+    public static final String VERSION_GC_READ_ONLY_WINDOW = "splice.txn.versionGC.readOnlyWindow";
+    private static final long DEFAULT_VERSION_GC_READ_ONLY_WINDOW = TimeUnit.HOURS.toMillis(1);
+
     @Override
     public void setDefaults(ConfigurationBuilder builder, ConfigurationSource configurationSource) {
         builder.completedTxnConcurrency  = configurationSource.getInt(completedTxnConcurrency, DEFAULT_COMPLETED_TRANSACTION_CONCURRENCY);
@@ -175,6 +230,12 @@ public class SIConfigurations implements ConfigurationDefault {
 
         builder.transactionTimeout = configurationSource.getLong(TRANSACTION_TIMEOUT, DEFAULT_TRANSACTION_TIMEOUT);
         builder.transactionKeepAliveInterval = configurationSource.getLong(TRANSACTION_KEEP_ALIVE_INTERVAL, DEFAULT_TRANSACTION_KEEP_ALIVE_INTERVAL);
+        builder.transactionBatchedKeepAlive = configurationSource.getBoolean(TRANSACTION_BATCHED_KEEP_ALIVE, DEFAULT_TRANSACTION_BATCHED_KEEP_ALIVE);
+        builder.transactionLifecycleBatching = configurationSource.getBoolean(TRANSACTION_LIFECYCLE_BATCHING, DEFAULT_TRANSACTION_LIFECYCLE_BATCHING);
+        builder.transactionReadOnlyMaxStaleness = configurationSource.getLong(TRANSACTION_READ_ONLY_MAX_STALENESS, DEFAULT_TRANSACTION_READ_ONLY_MAX_STALENESS);
+        builder.versionGCReadOnlyWindow = configurationSource.getLong(VERSION_GC_READ_ONLY_WINDOW, DEFAULT_VERSION_GC_READ_ONLY_WINDOW);
+        builder.versionGCEnabled = configurationSource.getBoolean(VERSION_GC_ENABLED, DEFAULT_VERSION_GC_ENABLED)
+                && builder.transactionReadOnlyMaxStaleness < builder.versionGCReadOnlyWindow;
 
     }
 }
@@ -62,6 +62,24 @@ public class SQLConfiguration implements ConfigurationDefault {
     public static final String IMPORT_MAX_QUOTED_COLUMN_LINES="splice.import.maxQuotedColumnLines";
     private static final int DEFAULT_IMPORT_MAX_QUOTED_COLUMN_LINES = 50000;
 
+    /**
+     * The number of threads which parse an imported file when the import runs on the control side
+     * (i.e. not in Spark). The file is split into chunks that are parsed concurrently while the
+     * parsed rows are being written. A value of 0 or 1 parses the file on the importing thread.
+     *
+     * Defaults to the number of available processors
+     */
+    public static final String IMPORT_CONTROL_PARALLELISM = "splice.import.control.parallelism";
+
+    /**
+     * The size (in bytes) of the chunks a control side import splits its files into. Files smaller
+     * than two chunks are parsed on the importing thread.
+     *
+     * Defaults to 2 MB
+     */
+    public static final String IMPORT_CONTROL_CHUNK_SIZE = "splice.import.control.chunkSize";
+    private static final int DEFAULT_IMPORT_CONTROL_CHUNK_SIZE = 2*1024*1024;
+
     public static final String BATCH_ONCE_BATCH_SIZE = "splice.batchonce.batchsize";
     private static final int DEFAULT_BATCH_ONCE_BATCH_SIZE = 50_000;
 
@@ -204,15 +222,115 @@ public class SQLConfiguration implements ConfigurationDefault {
     public static final String INDEX_LOOKUP_BLOCKS = "splice.index.numConcurrentLookups";
     private static final int DEFAULT_INDEX_LOOKUP_BLOCKS = 5;
 
+    /**
+     * The maximum number of threads fetching base rows for index lookups. Lookups run on their own
+     * pool, so that they neither wait behind nor hold up the other users of the engine thread pool.
+     *
+     * Defaults to 64
+     */
+    public static final String INDEX_LOOKUP_THREADS = "splice.index.lookupThreads";
+    private static final int DEFAULT_INDEX_LOOKUP_THREADS = 64;
+
+    /**
+     * The time (in milliseconds) that a single bulk fetch of base rows should take. Index lookups start
+     * with small fetches, so that the first rows come back quickly, then grow them (up to
+     * splice.index.batchSize) while fetches finish well within this time, and shrink them when fetches
+     * take much longer.
+     *
+     * Defaults to 20
+     */
+    public static final String INDEX_LOOKUP_TARGET_LATENCY = "splice.index.lookupTargetLatency";
+    private static final long DEFAULT_INDEX_LOOKUP_TARGET_LATENCY = 20L;
+
+    /**
+     * The number of rows that scalar aggregates over a plain table scan gather into a column batch when they
+     * run in control. The rows of a batch are filtered and aggregated a column at a time, over primitive
+     * arrays. Set to 0 to aggregate row by row.
+     *
+     * Defaults to 1024
+     */
+    public static final String BATCH_AGGREGATION_SIZE = "splice.execution.batchAggregationSize";
+    private static final int DEFAULT_BATCH_AGGREGATION_SIZE = 1024;
+
+    /**
+     * Whether grouped aggregates which run in control, group on numeric columns and compute only counts, sums,
+     * minimums and maximums use a hash table of primitive keys and running values, rather than a map of rows.
+     *
+     * Defaults to true
+     */
+    public static final String PRIMITIVE_HASH_AGGREGATION = "splice.execution.primitiveHashAggregation";
+    private static final boolean DEFAULT_PRIMITIVE_HASH_AGGREGATION = true;
+
     public static final String PARTITIONSERVER_JMX_PORT = "hbase.regionserver.jmx.port";
     private static final int DEFAULT_PARTITIONSERVER_JMX_PORT = 10102;
 
     public static final String NESTEDLOOPJOIN_BATCH_SIZE = "splice.nestedLoopJoin.batchSize";
     private static final int DEFAULT_NESTEDLOOPJOIN_BATCH_SIZE = 10;
 
+    /**
+     * The number of outer rows an inner nested loop join collects before looking up the inner
+     * table. When the inner side is a plain keyed table scan, the start/stop keys of all rows in
+     * the batch are computed, sorted and deduplicated, and each distinct range is scanned only
+     * once; every outer row sharing that range is then joined against the same inner rows.
+     *
+     * The inner rows of a whole batch are held in memory, so this should stay small. A value
+     * of 0 or 1 disables batched lookups.
+     *
+     * Defaults to 0
+     */
+    public static final String NESTEDLOOPJOIN_LOOKUP_BATCH_SIZE = "splice.nestedLoopJoin.lookupBatchSize";
+    private static final int DEFAULT_NESTEDLOOPJOIN_LOOKUP_BATCH_SIZE = 0;
+
     public static final String CONTROL_EXECUTION_ROWS_LIMIT = "splice.controlExecution.rowsLimit";
     private static final int DEFAULT_CONTROL_EXECUTION_ROWS_LIMIT = 1000000;
 
+    /**
+     * A local directory in which compiled statement plans are saved, so that a restarted server can load them
+     * instead of compiling every statement again. Plans are checked against the current dictionary before they
+     * are used, and are compiled afresh when anything they depend on has changed.
+     *
+     * Defaults to null (plans are not saved)
+     */
+    public static final String STATEMENT_CACHE_DIRECTORY = "splice.statementCache.directory";
+    private static final String DEFAULT_STATEMENT_CACHE_DIRECTORY = null;
+
+    /**
+     * Profile one in this many statements which run in control: the time, rows and bytes read of each of
+     * their operations are recorded, and kept with the statement if it turns out to be slow. EXPLAIN ANALYZE
+     * always profiles. Set to 0 to profile only EXPLAIN ANALYZE.
+     *
+     * Defaults to 0
+     */
+    public static final String PROFILE_STATEMENT_RATE = "splice.execution.profile.statementRate";
+    private static final int DEFAULT_PROFILE_STATEMENT_RATE = 0;
+
+    /**
+     * When a statement is profiled, time one in this many of the rows each operation produces. Thread cpu time
+     * is expensive to read, so timing every row would noticeably slow down the statement being profiled.
+     *
+     * Defaults to 16
+     */
+    public static final String PROFILE_ROW_SAMPLE_RATE = "splice.execution.profile.rowSampleRate";
+    private static final int DEFAULT_PROFILE_ROW_SAMPLE_RATE = 16;
+
+    /**
+     * Statements which spend longer than this (in milliseconds) executing are kept in the slow query log, which
+     * SYSCS_UTIL.SYSCS_GET_SLOW_QUERIES returns. Execution is the time spent opening the statement and fetching
+     * its rows; the time a client takes between fetches doesn't count. Set to a negative value to keep no log.
+     *
+     * Defaults to -1 (off)
+     */
+    public static final String SLOW_QUERY_THRESHOLD = "splice.execution.slowQueryThreshold";
+    private static final long DEFAULT_SLOW_QUERY_THRESHOLD = -1L;
+
+    /**
+     * The number of slow statements kept on each server; the oldest are dropped first. Set to 0 to keep none.
+     *
+     * Defaults to 100
+     */
+    public static final String SLOW_QUERY_LOG_SIZE = "splice.execution.slowQueryLogSize";
+    private static final int DEFAULT_SLOW_QUERY_LOG_SIZE = 100;
+
     @Override
     public void setDefaults(ConfigurationBuilder builder, ConfigurationSource configurationSource) {
         // FIXME: JC - some of these are not referenced anywhere outside. Do we need them?
@@ -221,12 +339,24 @@ public class SQLConfiguration implements ConfigurationDefault {
         builder.kryoPoolSize = configurationSource.getInt(KRYO_POOL_SIZE, DEFAULT_KRYO_POOL_SIZE);
         builder.indexBatchSize = configurationSource.getInt(INDEX_BATCH_SIZE, DEFAULT_INDEX_BATCH_SIZE);
         builder.indexLookupBlocks = configurationSource.getInt(INDEX_LOOKUP_BLOCKS, DEFAULT_INDEX_LOOKUP_BLOCKS);
+        builder.indexLookupThreads = configurationSource.getInt(INDEX_LOOKUP_THREADS, DEFAULT_INDEX_LOOKUP_THREADS);
+        builder.indexLookupTargetLatency = configurationSource.getLong(INDEX_LOOKUP_TARGET_LATENCY, DEFAULT_INDEX_LOOKUP_TARGET_LATENCY);
+        builder.batchAggregationSize = configurationSource.getInt(BATCH_AGGREGATION_SIZE, DEFAULT_BATCH_AGGREGATION_SIZE);
+        builder.primitiveHashAggregation = configurationSource.getBoolean(PRIMITIVE_HASH_AGGREGATION, DEFAULT_PRIMITIVE_HASH_AGGREGATION);
         builder.importMaxQuotedColumnLines = configurationSource.getInt(IMPORT_MAX_QUOTED_COLUMN_LINES, DEFAULT_IMPORT_MAX_QUOTED_COLUMN_LINES);
+        builder.importControlParallelism = configurationSource.getInt(IMPORT_CONTROL_PARALLELISM, Runtime.getRuntime().availableProcessors());
+        builder.importControlChunkSize = configurationSource.getInt(IMPORT_CONTROL_CHUNK_SIZE, DEFAULT_IMPORT_CONTROL_CHUNK_SIZE);
         builder.batchOnceBatchSize = configurationSource.getInt(BATCH_ONCE_BATCH_SIZE, DEFAULT_BATCH_ONCE_BATCH_SIZE);
         builder.partitionserverJmxPort = configurationSource.getInt(PARTITIONSERVER_JMX_PORT, DEFAULT_PARTITIONSERVER_JMX_PORT);
         builder.partitionserverPort = configurationSource.getInt(PARTITIONSERVER_PORT, DEFAULT_PARTITIONSERVER_PORT);
         builder.nestedLoopJoinBatchSize = configurationSource.getInt(NESTEDLOOPJOIN_BATCH_SIZE, DEFAULT_NESTEDLOOPJOIN_BATCH_SIZE);
+        builder.nestedLoopJoinLookupBatchSize = configurationSource.getInt(NESTEDLOOPJOIN_LOOKUP_BATCH_SIZE, DEFAULT_NESTEDLOOPJOIN_LOOKUP_BATCH_SIZE);
         builder.controlExecutionRowLimit = configurationSource.getLong(CONTROL_EXECUTION_ROWS_LIMIT, DEFAULT_CONTROL_EXECUTION_ROWS_LIMIT);
+        builder.statementCacheDirectory = configurationSource.getString(STATEMENT_CACHE_DIRECTORY, DEFAULT_STATEMENT_CACHE_DIRECTORY);
+        builder.profileStatementRate = configurationSource.getInt(PROFILE_STATEMENT_RATE, DEFAULT_PROFILE_STATEMENT_RATE);
+        builder.profileRowSampleRate = configurationSource.getInt(PROFILE_ROW_SAMPLE_RATE, DEFAULT_PROFILE_ROW_SAMPLE_RATE);
+        builder.slowQueryThreshold = configurationSource.getLong(SLOW_QUERY_THRESHOLD, DEFAULT_SLOW_QUERY_THRESHOLD);
+        builder.slowQueryLogSize = configurationSource.getInt(SLOW_QUERY_LOG_SIZE, DEFAULT_SLOW_QUERY_LOG_SIZE);
 
         // Where to place jar files...
         String defaultStorageFactoryHome;
@@ -124,6 +124,24 @@ public class StatsConfiguration implements ConfigurationDefault {
     public static final String FALLBACK_ROW_WIDTH="splice.statistics.fallbackMinimumRowWidth";
     public static final int DEFAULT_FALLBACK_ROW_WIDTH=170;
 
+    /**
+     * When enabled, every flush and compaction of a user table writes a small set of sketches (row count,
+     * per-column cardinality and null counts) next to the resulting store file. These are merged per region
+     * on demand, and replace the region load estimates for tables which were never analyzed. They are not
+     * used for tables which have ANALYZE statistics, even stale ones.
+     *
+     * Defaults to false
+     */
+    public static final String STORE_FILE_STATISTICS_ENABLED="splice.statistics.storeFile.enabled";
+    public static final boolean DEFAULT_STORE_FILE_STATISTICS_ENABLED=false;
+
+    /*
+     * The log2 of the nominal number of entries kept in each store file cardinality sketch. This is deliberately
+     * much smaller than CARDINALITY_PRECISION, since we keep one sketch per column for every store file.
+     */
+    public static final String STORE_FILE_STATISTICS_PRECISION="splice.statistics.storeFile.precision";
+    public static final int DEFAULT_STORE_FILE_STATISTICS_PRECISION=10;
+
     @Override
     public void setDefaults(ConfigurationBuilder builder, ConfigurationSource configurationSource) {
         // FIXME: JC - some of these are not referenced anywhere outside. Do we need them?
@@ -133,6 +151,8 @@ public class StatsConfiguration implements ConfigurationDefault {
         builder.indexFetchSampleSize = configurationSource.getInt(INDEX_FETCH_SAMPLE_SIZE, DEFAULT_INDEX_FETCH_SAMPLE_SIZE);
         builder.topkSize = configurationSource.getInt(TOPK_SIZE, DEFAULT_TOPK_PRECISION);
         builder.cardinalityPrecision = configurationSource.getInt(CARDINALITY_PRECISION, DEFAULT_CARDINALITY_PRECISION);
+        builder.storeFileStatisticsEnabled = configurationSource.getBoolean(STORE_FILE_STATISTICS_ENABLED, DEFAULT_STORE_FILE_STATISTICS_ENABLED);
+        builder.storeFileStatisticsPrecision = configurationSource.getInt(STORE_FILE_STATISTICS_PRECISION, DEFAULT_STORE_FILE_STATISTICS_PRECISION);
 
         builder.fallbackMinimumRowCount = configurationSource.getLong(FALLBACK_MINIMUM_ROW_COUNT, DEFAULT_FALLBACK_MINIMUM_ROW_COUNT);
         builder.fallbackOpencloseLatency = configurationSource.getLong(FALLBACK_OPENCLOSE_LATENCY, DEFAULT_FALLBACK_OPENCLOSE_LATENCY);
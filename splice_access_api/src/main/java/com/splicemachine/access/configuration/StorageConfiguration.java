@@ -36,9 +36,24 @@ public class StorageConfiguration implements ConfigurationDefault {
     public static final String SPLIT_BLOCK_SIZE = "splice.splitBlockSize";
     public static final int DEFAULT_SPLIT_BLOCK_SIZE=32*1024*1024;
 
+    /**
+     * The size (in bytes) of the off-heap block cache which is shared by all the client-side region scanners
+     * in a JVM, such as the scans of the tasks in a Spark executor. Data blocks are cached off-heap, while index
+     * and bloom blocks are kept in a small on-heap cache. Set to 0 to leave the block cache as hbase-site.xml
+     * configures it.
+     *
+     * The cache is allocated outside the heap, so when enabling it for Spark executors, add its size to
+     * spark.yarn.executor.memoryOverhead.
+     *
+     * Defaults to 0 (off)
+     */
+    public static final String CLIENT_SCAN_BLOCK_CACHE_SIZE = "splice.clientScan.blockCacheSize";
+    public static final long DEFAULT_CLIENT_SCAN_BLOCK_CACHE_SIZE=0L;
+
     @Override
     public void setDefaults(ConfigurationBuilder builder, ConfigurationSource configurationSource) {
         builder.splitBlockSize = configurationSource.getInt(SPLIT_BLOCK_SIZE, DEFAULT_SPLIT_BLOCK_SIZE);
+        builder.clientScanBlockCacheSize = configurationSource.getLong(CLIENT_SCAN_BLOCK_CACHE_SIZE, DEFAULT_CLIENT_SCAN_BLOCK_CACHE_SIZE);
 
         builder.tableSplitSleepInterval = configurationSource.getLong(TABLE_SPLIT_SLEEP_INTERVAL, DEFAULT_SPLIT_WAIT_INTERVAL);
     }
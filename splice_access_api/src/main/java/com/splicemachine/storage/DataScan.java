@@ -26,6 +26,21 @@ public interface DataScan extends Attributable{
 
     DataScan filter(DataFilter df);
 
+    /**
+     * Restrict this scan to a set of row ranges. The scan returns only rows which fall in one of the
+     * ranges, and skips directly from the end of one range to the start of the next one instead of
+     * reading the rows in between.
+     *
+     * The ranges must be sorted in ascending order and must not overlap; range {@code i} covers
+     * {@code [startKeys[i], stopKeys[i])}, and an empty stop key is only allowed for the last range.
+     * The start and stop keys of the scan itself should enclose all the ranges.
+     *
+     * @param startKeys the inclusive start key of each range
+     * @param stopKeys the exclusive stop key of each range
+     * @return a scan restricted to the specified ranges
+     */
+    DataScan rowRanges(byte[][] startKeys,byte[][] stopKeys);
+
     /**
      * Reverse the order in which this scan is operating.
      *
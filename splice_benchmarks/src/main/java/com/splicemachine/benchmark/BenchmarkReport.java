@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.benchmark;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compares two sets of JMH results, a baseline and a candidate, written with
+ * {@code -rf json}. Every benchmark is matched on its name, mode and parameters,
+ * and reported with both scores and the change between them. A change counts as
+ * faster or slower only when it is larger than the threshold (5% by default) and
+ * the two error intervals don't overlap; the command exits with 1 if any
+ * benchmark got slower, so that it can be used as a check.
+ *
+ * <pre>
+ * git checkout master &amp;&amp; mvn -Pcore,mem install -DskipTests
+ * java -jar splice_benchmarks/target/benchmarks.jar -rf json -rff baseline.json
+ * git checkout my-branch &amp;&amp; mvn -Pcore,mem install -DskipTests
+ * java -jar splice_benchmarks/target/benchmarks.jar -rf json -rff candidate.json
+ * java -cp splice_benchmarks/target/benchmarks.jar com.splicemachine.benchmark.BenchmarkReport baseline.json candidate.json [threshold%]
+ * </pre>
+ *
+ * Only results taken on the same machine, with the same JVM, can be compared.
+ */
+public class BenchmarkReport{
+    private static final double DEFAULT_THRESHOLD=5d;
+
+    public static void main(String... args) throws IOException{
+        if(args.length<2 || args.length>3){
+            System.err.println("Usage: BenchmarkReport <baseline.json> <candidate.json> [threshold%]");
+            System.exit(2);
+        }
+        double threshold=args.length==3?Double.parseDouble(args[2]):DEFAULT_THRESHOLD;
+        int slower=report(read(args[0]),read(args[1]),threshold,System.out);
+        System.exit(slower>0?1:0);
+    }
+
+    /**
+     * Print the comparison of every benchmark in either set of results.
+     *
+     * @return the number of benchmarks that got slower
+     */
+    public static int report(Map<String,Result> baseline,Map<String,Result> candidate,double threshold,PrintStream out){
+        Map<String,Result[]> all=new TreeMap<>();
+        for(Map.Entry<String,Result> e : baseline.entrySet()){
+            all.put(e.getKey(),new Result[]{e.getValue(),null});
+        }
+        for(Map.Entry<String,Result> e : candidate.entrySet()){
+            Result[] pair=all.get(e.getKey());
+            if(pair==null)
+                all.put(e.getKey(),new Result[]{null,e.getValue()});
+            else
+                pair[1]=e.getValue();
+        }
+
+        int width="Benchmark".length();
+        for(Result[] pair : all.values()){
+            width=Math.max(width,(pair[0]!=null?pair[0]:pair[1]).name.length());
+        }
+        String format="%-"+width+"s  %5s  %-8s  %22s  %22s  %8s  %s%n";
+        out.printf(format,"Benchmark","Mode","Units","Baseline","Candidate","Change","");
+
+        int faster=0;
+        int slower=0;
+        for(Map.Entry<String,Result[]> e : all.entrySet()){
+            Result base=e.getValue()[0];
+            Result cand=e.getValue()[1];
+            Result any=base!=null?base:cand;
+            String verdict;
+            String change="";
+            if(base==null){
+                verdict="added";
+            }else if(cand==null){
+                verdict="removed";
+            }else{
+                double delta=100d*(cand.score-base.score)/base.score;
+                change=String.format("%+.1f%%",delta);
+                boolean overlaps=Math.abs(cand.score-base.score)<=base.error+cand.error;
+                if(overlaps || Math.abs(delta)<threshold || Double.isNaN(delta)){
+                    verdict="";
+                }else if((delta>0)==any.higherIsBetter()){
+                    verdict="faster";
+                    faster++;
+                }else{
+                    verdict="SLOWER";
+                    slower++;
+                }
+            }
+            out.printf(format,any.name,any.mode,any.unit,base==null?"":base.toString(),cand==null?"":cand.toString(),change,verdict);
+        }
+        out.printf("%n%d benchmarks: %d faster, %d slower (threshold %.1f%%)%n",all.size(),faster,slower,threshold);
+        return slower;
+    }
+
+    /**
+     * Read a JMH json result file, keyed by benchmark name and parameters.
+     */
+    public static Map<String,Result> read(String file) throws IOException{
+        Map<String,Result> results=new LinkedHashMap<>();
+        try(Reader reader=Files.newBufferedReader(Paths.get(file),StandardCharsets.UTF_8)){
+            JsonArray runs=new JsonParser().parse(reader).getAsJsonArray();
+            for(JsonElement element : runs){
+                JsonObject run=element.getAsJsonObject();
+                String benchmark=run.get("benchmark").getAsString();
+                //drop the package, the class and method names are enough to tell them apart
+                int dot=benchmark.lastIndexOf('.',benchmark.lastIndexOf('.')-1);
+                StringBuilder name=new StringBuilder(benchmark.substring(dot+1));
+                JsonObject params=run.getAsJsonObject("params");
+                if(params!=null){
+                    Map<String,JsonElement> sorted=new TreeMap<>();
+                    for(Map.Entry<String,JsonElement> param : params.entrySet()){
+                        sorted.put(param.getKey(),param.getValue());
+                    }
+                    char sep=':';
+                    for(Map.Entry<String,JsonElement> param : sorted.entrySet()){
+                        name.append(sep).append(param.getKey()).append('=').append(param.getValue().getAsString());
+                        sep=',';
+                    }
+                }
+                JsonObject metric=run.getAsJsonObject("primaryMetric");
+                String mode=run.get("mode").getAsString();
+                results.put(name+" "+mode,new Result(name.toString(),mode,metric.get("scoreUnit").getAsString(),
+                        metric.get("score").getAsDouble(),errorOf(metric)));
+            }
+        }
+        return results;
+    }
+
+    public static class Result{
+        final String name;
+        final String mode;
+        final String unit;
+        final double score;
+        final double error;
+
+        Result(String name,String mode,String unit,double score,double error){
+            this.name=name;
+            this.mode=mode;
+            this.unit=unit;
+            this.score=score;
+            this.error=error;
+        }
+
+        boolean higherIsBetter(){
+            return "thrpt".equals(mode);
+        }
+
+        @Override
+        public String toString(){
+            return String.format("%.3f +- %.3f",score,error);
+        }
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    /** Single shot runs and runs with a single iteration have no error. */
+    private static double errorOf(JsonObject metric){
+        JsonElement error=metric.get("scoreError");
+        if(error==null || !error.isJsonPrimitive()) return 0d;
+        double e=error.getAsDouble();
+        return Double.isNaN(e)?0d:e;
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.benchmark;
+
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.types.SQLDecimal;
+import com.splicemachine.db.iapi.types.SQLInteger;
+import com.splicemachine.db.iapi.types.SQLVarchar;
+import com.splicemachine.db.impl.sql.execute.ValueRow;
+import com.splicemachine.derby.impl.sql.JoinTable;
+import com.splicemachine.derby.impl.sql.execute.operations.BroadcastJoinCache;
+import com.splicemachine.stream.Stream;
+import com.splicemachine.stream.Streams;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Builds the hash table of a broadcast join through the {@link BroadcastJoinCache}
+ * from {@code innerRows} rows of (int key, varchar, decimal), then probes it with
+ * 1000 outer rows of which about half find a match. Every invocation uses a new
+ * operation id, and closing the table evicts it again, so every invocation pays
+ * for a full build.
+ *
+ * <pre>
+ * java -jar splice_benchmarks/target/benchmarks.jar BroadcastJoinCacheBenchmark
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class BroadcastJoinCacheBenchmark{
+    private static final int OUTER_ROWS=1000;
+    private static final int[] HASH_KEYS={0};
+
+    @Param({"1000","50000"})
+    public int innerRows;
+
+    private BroadcastJoinCache cache;
+    private ExecRow[] inner;
+    private ExecRow[] outer;
+    private long operationId;
+
+    @Setup(Level.Trial)
+    public void setUp() throws StandardException{
+        Random random=new Random(3);
+        cache=new BroadcastJoinCache();
+        inner=new ExecRow[innerRows];
+        for(int i=0;i<innerRows;i++){
+            inner[i]=row(random.nextInt(innerRows),"inner-"+i,BigDecimal.valueOf(random.nextInt(100000),2));
+        }
+        outer=new ExecRow[OUTER_ROWS];
+        for(int i=0;i<OUTER_ROWS;i++){
+            outer[i]=row(random.nextInt(2*innerRows),"outer-"+i,BigDecimal.ONE);
+        }
+    }
+
+    @Benchmark
+    public void build() throws IOException, StandardException{
+        JoinTable table=newTable();
+        table.close();
+    }
+
+    @Benchmark
+    public void buildAndProbe(Blackhole bh) throws IOException, StandardException{
+        JoinTable table=newTable();
+        try{
+            for(ExecRow row : outer){
+                Iterator<ExecRow> matches=table.fetchInner(row);
+                while(matches.hasNext()){
+                    bh.consume(matches.next());
+                }
+            }
+        }finally{
+            table.close();
+        }
+    }
+
+    private JoinTable newTable() throws IOException, StandardException{
+        Callable<Stream<ExecRow>> loader=new Callable<Stream<ExecRow>>(){
+            @Override
+            public Stream<ExecRow> call(){
+                return Streams.wrap(Arrays.asList(inner));
+            }
+        };
+        return cache.get(operationId++,loader,HASH_KEYS,HASH_KEYS,outer[0]).newTable();
+    }
+
+    private static ExecRow row(int key,String name,BigDecimal amount) throws StandardException{
+        ValueRow row=new ValueRow(3);
+        row.setColumn(1,new SQLInteger(key));
+        row.setColumn(2,new SQLVarchar(name));
+        row.setColumn(3,new SQLDecimal(amount));
+        return row;
+    }
+}
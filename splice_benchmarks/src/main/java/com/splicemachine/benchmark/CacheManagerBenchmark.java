@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.benchmark;
+
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.services.cache.CacheFactory;
+import com.splicemachine.db.iapi.services.cache.CacheManager;
+import com.splicemachine.db.iapi.services.cache.Cacheable;
+import com.splicemachine.db.iapi.services.cache.CacheableFactory;
+import com.splicemachine.db.impl.services.cache.ClockFactory;
+import com.splicemachine.db.impl.services.cache.ConcurrentCacheFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the {@code Clock} and {@code ConcurrentCache} cache managers under
+ * 64 threads doing find/release on a shared cache. With {@code keySpace}
+ * larger than {@code cacheSize} part of the lookups miss and force an
+ * eviction, which exercises the replacement policy as well as the lookup
+ * path.
+ *
+ * <pre>
+ * java -jar splice_benchmarks/target/benchmarks.jar CacheManagerBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@Threads(64)
+public class CacheManagerBenchmark{
+
+    @Param({"clock","concurrent"})
+    public String implementation;
+
+    @Param({"1000"})
+    public int cacheSize;
+
+    /** Number of distinct keys looked up; 1000 always hits, 4000 mostly misses. */
+    @Param({"1000","4000"})
+    public int keySpace;
+
+    private CacheManager cache;
+    private Integer[] keys;
+
+    @Setup(Level.Trial)
+    public void setUp(){
+        CacheFactory factory="clock".equals(implementation)?new ClockFactory():new ConcurrentCacheFactory();
+        cache=factory.newCacheManager(new CacheableFactory(){
+            @Override
+            public Cacheable newCacheable(CacheManager cm){
+                return new BenchmarkCacheable();
+            }
+        },"benchmark",cacheSize/2,cacheSize);
+        keys=new Integer[keySpace];
+        for(int i=0;i<keySpace;i++){
+            keys[i]=i;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws StandardException{
+        cache.shutdown();
+    }
+
+    @Benchmark
+    public Object findAndRelease() throws StandardException{
+        Cacheable c=cache.find(keys[ThreadLocalRandom.current().nextInt(keySpace)]);
+        cache.release(c);
+        return c;
+    }
+
+    private static final class BenchmarkCacheable implements Cacheable{
+        private Object identity;
+
+        @Override
+        public Cacheable setIdentity(Object key){
+            identity=key;
+            return this;
+        }
+
+        @Override
+        public Cacheable createIdentity(Object key,Object createParameter){
+            identity=key;
+            return this;
+        }
+
+        @Override
+        public void clearIdentity(){
+            identity=null;
+        }
+
+        @Override
+        public Object getIdentity(){
+            return identity;
+        }
+
+        @Override
+        public boolean isDirty(){
+            return false;
+        }
+
+        @Override
+        public void clean(boolean forRemove){
+        }
+    }
+}
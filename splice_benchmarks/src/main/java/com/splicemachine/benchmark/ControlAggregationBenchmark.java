@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.benchmark;
+
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.types.SQLInteger;
+import com.splicemachine.db.iapi.types.SQLLongint;
+import com.splicemachine.db.impl.sql.execute.ValueRow;
+import com.splicemachine.derby.iapi.sql.execute.SpliceOperation;
+import com.splicemachine.derby.stream.control.ControlPairDataSet;
+import com.splicemachine.derby.stream.function.SpliceFunction2;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import scala.Tuple2;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Aggregates {@code rows} keyed rows into {@code groups} groups on the control
+ * side, both by reducing them with a sum and by grouping them. The sum stands in
+ * for the operation's aggregators, so this measures the hashing, key cloning and
+ * iteration done by {@link ControlPairDataSet} rather than the aggregates.
+ *
+ * <pre>
+ * java -jar splice_benchmarks/target/benchmarks.jar ControlAggregationBenchmark
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class ControlAggregationBenchmark{
+
+    @Param({"100000"})
+    public int rows;
+
+    @Param({"16","10000"})
+    public int groups;
+
+    private List<Tuple2<ExecRow,ExecRow>> pairs;
+
+    @Setup(Level.Trial)
+    public void setUp() throws StandardException{
+        Random random=new Random(5);
+        pairs=new ArrayList<>(rows);
+        for(int i=0;i<rows;i++){
+            ValueRow key=new ValueRow(1);
+            key.setColumn(1,new SQLInteger(random.nextInt(groups)));
+            ValueRow value=new ValueRow(1);
+            value.setColumn(1,new SQLLongint(random.nextInt(1000)));
+            pairs.add(new Tuple2<ExecRow,ExecRow>(key,value));
+        }
+    }
+
+    @Benchmark
+    public void reduceByKey(Blackhole bh){
+        Iterator<ExecRow> sums=new ControlPairDataSet<>(pairs.iterator()).reduceByKey(new SumFunction()).values().toLocalIterator();
+        while(sums.hasNext()){
+            bh.consume(sums.next());
+        }
+    }
+
+    @Benchmark
+    public void groupByKey(Blackhole bh){
+        Iterator<Iterable<ExecRow>> grouped=new ControlPairDataSet<>(pairs.iterator()).groupByKey(null).values().toLocalIterator();
+        while(grouped.hasNext()){
+            for(ExecRow row : grouped.next()){
+                bh.consume(row);
+            }
+        }
+    }
+
+    public static class SumFunction extends SpliceFunction2<SpliceOperation,ExecRow,ExecRow,ExecRow>{
+        @Override
+        public ExecRow call(ExecRow sum,ExecRow value) throws Exception{
+            //the first value of a group is copied, so the sum never writes into the input rows
+            if(sum==null)
+                return value.getClone();
+            SQLLongint total=(SQLLongint)sum.getColumn(1);
+            total.setValue(total.getLong()+value.getColumn(1).getLong());
+            return sum;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.benchmark;
+
+import com.carrotsearch.hppc.BitSet;
+import com.splicemachine.encoding.MultiFieldDecoder;
+import com.splicemachine.encoding.MultiFieldEncoder;
+import com.splicemachine.storage.EntryDecoder;
+import com.splicemachine.storage.EntryEncoder;
+import com.splicemachine.storage.index.BitIndex;
+import com.splicemachine.utils.ByteSlice;
+import com.splicemachine.utils.kryo.KryoPool;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads columns out of packed rows with an {@link EntryDecoder}, the way a table
+ * scan does. Even columns are longs and odd columns are strings. With
+ * {@code nulls} set, a quarter of the columns of every row are null, so the
+ * decoder has to rebuild its bit index for most rows instead of reusing it.
+ *
+ * <pre>
+ * java -jar splice_benchmarks/target/benchmarks.jar EntryDecoderBenchmark
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class EntryDecoderBenchmark{
+    private static final int ROWS=1024;
+
+    @Param({"8","64"})
+    public int columns;
+
+    @Param({"false","true"})
+    public boolean nulls;
+
+    private byte[][] entries;
+    private EntryDecoder entryDecoder;
+    private ByteSlice field;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException{
+        Random random=new Random(31);
+        entries=new byte[ROWS][];
+        for(int i=0;i<ROWS;i++){
+            BitSet setCols=new BitSet(columns);
+            BitSet scalarCols=new BitSet(columns);
+            for(int c=0;c<columns;c++){
+                //the first and last columns are always set, so every row has them to read
+                if(!nulls || c==0 || c==columns-1 || random.nextInt(4)!=0)
+                    setCols.set(c);
+                if((c&1)==0)
+                    scalarCols.set(c);
+            }
+            EntryEncoder encoder=EntryEncoder.create(new KryoPool(1),columns,setCols,scalarCols,null,null);
+            MultiFieldEncoder fields=encoder.getEntryEncoder();
+            for(int c=setCols.nextSetBit(0);c>=0;c=setCols.nextSetBit(c+1)){
+                if((c&1)==0)
+                    fields.encodeNext(random.nextLong());
+                else
+                    fields.encodeNext("value-"+random.nextInt(100000));
+            }
+            entries[i]=encoder.encode();
+        }
+        entryDecoder=new EntryDecoder();
+        field=new ByteSlice();
+    }
+
+    @Benchmark
+    public long firstColumn() throws IOException{
+        entryDecoder.set(entries[nextRow()]);
+        return entryDecoder.getEntryDecoder().decodeNextLong();
+    }
+
+    /** Seek past every other set column to get to the last one. */
+    @Benchmark
+    public String lastColumn() throws IOException{
+        entryDecoder.set(entries[nextRow()]);
+        MultiFieldDecoder decoder=entryDecoder.getEntryDecoder();
+        BitIndex index=entryDecoder.getCurrentIndex();
+        int last=columns-1;
+        for(int c=index.nextSetBit(0);c>=0 && c<last;c=index.nextSetBit(c+1)){
+            entryDecoder.seekForward(decoder,c);
+        }
+        return decoder.decodeNextString();
+    }
+
+    /** Slice out every set column, as the scan path does before deserializing them. */
+    @Benchmark
+    public int allColumns() throws IOException{
+        entryDecoder.set(entries[nextRow()]);
+        MultiFieldDecoder decoder=entryDecoder.getEntryDecoder();
+        BitIndex index=entryDecoder.getCurrentIndex();
+        int length=0;
+        for(int c=index.nextSetBit(0);c>=0;c=index.nextSetBit(c+1)){
+            entryDecoder.nextField(decoder,c,field);
+            length+=field.length();
+        }
+        return length;
+    }
+
+    private int nextRow(){
+        int n=next;
+        next=(n+1)&(ROWS-1);
+        return n;
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.benchmark;
+
+import com.splicemachine.encoding.MultiFieldDecoder;
+import com.splicemachine.encoding.MultiFieldEncoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encodes and decodes rows of (int, long, double, varchar, decimal) with a reused
+ * {@link MultiFieldEncoder} and {@link MultiFieldDecoder}, which is the work done
+ * for every row key and every packed row that is written or read.
+ *
+ * <pre>
+ * java -jar splice_benchmarks/target/benchmarks.jar MultiFieldEncodingBenchmark
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class MultiFieldEncodingBenchmark{
+    private static final int ROWS=1024;
+
+    private int[] ints;
+    private long[] longs;
+    private double[] doubles;
+    private String[] strings;
+    private BigDecimal[] decimals;
+    private byte[][] encoded;
+
+    private MultiFieldEncoder encoder;
+    private MultiFieldDecoder decoder;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp(){
+        Random random=new Random(17);
+        ints=new int[ROWS];
+        longs=new long[ROWS];
+        doubles=new double[ROWS];
+        strings=new String[ROWS];
+        decimals=new BigDecimal[ROWS];
+        encoded=new byte[ROWS][];
+        encoder=MultiFieldEncoder.create(5);
+        decoder=MultiFieldDecoder.create();
+        for(int i=0;i<ROWS;i++){
+            ints[i]=random.nextInt();
+            longs[i]=random.nextLong();
+            doubles[i]=random.nextDouble()*1000d;
+            strings[i]="customer#"+random.nextInt(1000000);
+            decimals[i]=BigDecimal.valueOf(random.nextInt(10000000),2);
+            encoded[i]=encode(i);
+        }
+    }
+
+    @Benchmark
+    public byte[] encode(){
+        return encode(nextRow());
+    }
+
+    @Benchmark
+    public void decode(Blackhole bh){
+        decoder.set(encoded[nextRow()]);
+        bh.consume(decoder.decodeNextInt());
+        bh.consume(decoder.decodeNextLong());
+        bh.consume(decoder.decodeNextDouble());
+        bh.consume(decoder.decodeNextString());
+        bh.consume(decoder.decodeNextBigDecimal());
+    }
+
+    /** Seek to the last field, as a scan does when it only wants a trailing column. */
+    @Benchmark
+    public BigDecimal skipToLast(){
+        decoder.set(encoded[nextRow()]);
+        decoder.skipLong();
+        decoder.skipLong();
+        decoder.skipDouble();
+        decoder.skip();
+        return decoder.decodeNextBigDecimal();
+    }
+
+    private int nextRow(){
+        int n=next;
+        next=(n+1)&(ROWS-1);
+        return n;
+    }
+
+    private byte[] encode(int row){
+        encoder.reset();
+        return encoder.encodeNext(ints[row])
+                .encodeNext(longs[row])
+                .encodeNext(doubles[row])
+                .encodeNext(strings[row])
+                .encodeNext(decimals[row])
+                .build();
+    }
+}
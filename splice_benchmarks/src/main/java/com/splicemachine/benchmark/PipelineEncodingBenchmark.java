@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.benchmark;
+
+import com.splicemachine.kvpair.KVPair;
+import com.splicemachine.pipeline.client.BulkWrite;
+import com.splicemachine.pipeline.client.BulkWrites;
+import com.splicemachine.pipeline.client.PipelineEncoding;
+import com.splicemachine.primitives.Bytes;
+import com.splicemachine.si.MemSIEnvironment;
+import com.splicemachine.si.api.data.TxnOperationFactory;
+import com.splicemachine.si.api.txn.Txn;
+import com.splicemachine.si.impl.ClientTxnLifecycleManager;
+import com.splicemachine.storage.MPartitionFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encodes and decodes the bulk writes that the write pipeline sends to a region
+ * server: {@code partitions} bulk writes of {@code rows} inserts each, under a
+ * transaction from the in-memory transaction store. Decoding reads every
+ * mutation, since the bulk writes are only decoded as they are iterated.
+ *
+ * <pre>
+ * java -jar splice_benchmarks/target/benchmarks.jar PipelineEncodingBenchmark
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class PipelineEncodingBenchmark{
+
+    @Param({"1","16"})
+    public int partitions;
+
+    @Param({"1000"})
+    public int rows;
+
+    private TxnOperationFactory operationFactory;
+    private BulkWrites bulkWrites;
+    private byte[] encoded;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException{
+        MemSIEnvironment env=new MemSIEnvironment(new MPartitionFactory());
+        ClientTxnLifecycleManager lifecycleManager=new ClientTxnLifecycleManager(env.timestampSource(),env.exceptionFactory());
+        lifecycleManager.setTxnStore(env.txnStore());
+        lifecycleManager.setKeepAliveScheduler(env.keepAliveScheduler());
+        Txn txn=lifecycleManager.beginTransaction(Bytes.toBytes("benchmark"));
+        operationFactory=env.operationFactory();
+
+        Random random=new Random(7);
+        List<BulkWrite> writes=new ArrayList<>(partitions);
+        for(int p=0;p<partitions;p++){
+            List<KVPair> mutations=new ArrayList<>(rows);
+            for(int r=0;r<rows;r++){
+                byte[] value=new byte[64+random.nextInt(64)];
+                random.nextBytes(value);
+                mutations.add(new KVPair(Bytes.toBytes(random.nextLong()),value,KVPair.Type.INSERT));
+            }
+            writes.add(new BulkWrite(mutations,"partition-"+p));
+        }
+        bulkWrites=new BulkWrites(writes,txn);
+        encoded=PipelineEncoding.encode(operationFactory,bulkWrites);
+    }
+
+    @Benchmark
+    public byte[] encode(){
+        return PipelineEncoding.encode(operationFactory,bulkWrites);
+    }
+
+    @Benchmark
+    public void decode(Blackhole bh){
+        BulkWrites decoded=PipelineEncoding.decode(operationFactory,encoded);
+        bh.consume(decoded.getTxn());
+        for(BulkWrite bulkWrite : decoded.getBulkWrites()){
+            for(KVPair kvPair : bulkWrite.getMutations()){
+                bh.consume(kvPair);
+            }
+        }
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.benchmark;
+
+import com.splicemachine.primitives.Bytes;
+import com.splicemachine.si.MemSIEnvironment;
+import com.splicemachine.si.api.data.OperationFactory;
+import com.splicemachine.si.api.txn.Txn;
+import com.splicemachine.si.constants.SIConstants;
+import com.splicemachine.si.impl.ClientTxnLifecycleManager;
+import com.splicemachine.si.impl.SimpleTxnFilter;
+import com.splicemachine.si.impl.readresolve.NoOpReadResolver;
+import com.splicemachine.storage.DataCell;
+import com.splicemachine.storage.DataFilter;
+import com.splicemachine.storage.MPartitionFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the cells of a scan through a {@link SimpleTxnFilter}, against transactions
+ * kept in the in-memory transaction store. Every row has {@code versions} versions,
+ * each written by a committed transaction; runs of rows share their writers, as
+ * they do after a bulk insert. When {@code resolved} is set every version carries
+ * a commit timestamp cell, so visibility is decided without asking the transaction
+ * store; otherwise every new writer has to be looked up.
+ *
+ * Scores are per row.
+ *
+ * <pre>
+ * java -jar splice_benchmarks/target/benchmarks.jar SimpleTxnFilterBenchmark
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class SimpleTxnFilterBenchmark{
+    private static final int ROWS=1024;
+    private static final int WRITERS=64;
+    private static final int ROWS_PER_WRITER=16;
+
+    @Param({"1","4"})
+    public int versions;
+
+    @Param({"false","true"})
+    public boolean resolved;
+
+    private MemSIEnvironment env;
+    private Txn reader;
+    private DataCell[][] rows;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException{
+        env=new MemSIEnvironment(new MPartitionFactory());
+        ClientTxnLifecycleManager lifecycleManager=new ClientTxnLifecycleManager(env.timestampSource(),env.exceptionFactory());
+        lifecycleManager.setTxnStore(env.txnStore());
+        lifecycleManager.setKeepAliveScheduler(env.keepAliveScheduler());
+
+        byte[] table=Bytes.toBytes("benchmark");
+        Txn[] writers=new Txn[WRITERS];
+        long[] commitTimestamps=new long[WRITERS];
+        for(int i=0;i<WRITERS;i++){
+            writers[i]=lifecycleManager.beginTransaction(table);
+            writers[i].commit();
+            commitTimestamps[i]=writers[i].getCommitTimestamp();
+        }
+        reader=lifecycleManager.beginTransaction();
+
+        OperationFactory opFactory=env.baseOperationFactory();
+        byte[] family=SIConstants.DEFAULT_FAMILY_BYTES;
+        byte[] value=Bytes.toBytes("some packed row data");
+        rows=new DataCell[ROWS][];
+        for(int r=0;r<ROWS;r++){
+            byte[] key=Bytes.toBytes(r);
+            DataCell[] cells=new DataCell[resolved?2*versions:versions];
+            int c=0;
+            //cells are sorted by qualifier, then by descending version, so commit timestamps come first
+            if(resolved){
+                for(int v=versions-1;v>=0;v--){
+                    int w=writer(r,v);
+                    cells[c++]=opFactory.newCell(key,family,SIConstants.SNAPSHOT_ISOLATION_COMMIT_TIMESTAMP_COLUMN_BYTES,
+                            writers[w].getTxnId(),Bytes.toBytes(commitTimestamps[w]));
+                }
+            }
+            for(int v=versions-1;v>=0;v--){
+                cells[c++]=opFactory.newCell(key,family,SIConstants.PACKED_COLUMN_BYTES,writers[writer(r,v)].getTxnId(),value);
+            }
+            rows[r]=cells;
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public int filterRows() throws IOException{
+        SimpleTxnFilter filter=new SimpleTxnFilter(null,reader,NoOpReadResolver.INSTANCE,env.txnStore());
+        int included=0;
+        for(DataCell[] row : rows){
+            filter.nextRow();
+            for(DataCell cell : row){
+                if(filter.filterCell(cell)==DataFilter.ReturnCode.INCLUDE)
+                    included++;
+            }
+        }
+        return included;
+    }
+
+    /** Every version of a row is written by a different transaction. */
+    private static int writer(int row,int version){
+        return (row/ROWS_PER_WRITER+version*17)%WRITERS;
+    }
+}
@@ -22,6 +22,7 @@ import com.splicemachine.access.api.DatabaseVersion;
 import com.splicemachine.access.api.SConfiguration;
 import com.splicemachine.derby.iapi.sql.PartitionLoadWatcher;
 import com.splicemachine.derby.iapi.sql.PropertyManager;
+import com.splicemachine.derby.iapi.sql.StoreFileStatisticsReader;
 import com.splicemachine.derby.iapi.sql.execute.DataSetProcessorFactory;
 import com.splicemachine.derby.iapi.sql.execute.FileStatementLogger;
 import com.splicemachine.derby.iapi.sql.execute.OperationManager;
@@ -29,6 +30,7 @@ import com.splicemachine.derby.iapi.sql.execute.StatementLogger;
 import com.splicemachine.derby.iapi.sql.olap.OlapClient;
 import com.splicemachine.derby.impl.sql.execute.sequence.SequenceKey;
 import com.splicemachine.derby.impl.sql.execute.sequence.SpliceSequence;
+import com.splicemachine.derby.stream.profile.SlowQueryLog;
 import com.splicemachine.hbase.ManagedThreadPool;
 import com.splicemachine.management.DatabaseAdministrator;
 import com.splicemachine.management.Manager;
@@ -50,6 +52,7 @@ public class EngineDriver{
     private final DatabaseVersion version;
     private final SConfiguration config;
     private final PartitionLoadWatcher loadWatcher;
+    private final StoreFileStatisticsReader storeFileStatisticsReader;
     private final DataSetProcessorFactory processorFactory;
     private final PropertyManager propertyManager;
     private final SqlExceptionFactory exceptionFactory;
@@ -58,15 +61,19 @@ public class EngineDriver{
     private final OperationManager operationManager;
     private final SqlEnvironment environment;
     private final ExecutorService threadPool;
+    private final ExecutorService indexLookupPool;
     private final StatementLogger statementLogger;
+    private final SlowQueryLog slowQueryLog;
 
     public static void loadDriver(SqlEnvironment environment){
         INSTANCE=new EngineDriver(environment);
     }
 
     public static void shutdownDriver() {
-        if (INSTANCE != null)
+        if (INSTANCE != null) {
             INSTANCE.threadPool.shutdownNow();
+            INSTANCE.indexLookupPool.shutdownNow();
+        }
         INSTANCE = null;
     }
 
@@ -81,6 +88,7 @@ public class EngineDriver{
         this.version=environment.getVersion();
         this.config=environment.getConfiguration();
         this.loadWatcher = environment.getLoadWatcher();
+        this.storeFileStatisticsReader = environment.getStoreFileStatisticsReader();
         this.processorFactory = environment.getProcessorFactory();
         this.olapClient = environment.getOlapClient();
         this.propertyManager = environment.getPropertyManager();
@@ -115,7 +123,21 @@ public class EngineDriver{
         tpe.allowCoreThreadTimeOut(false);
         tpe.prestartAllCoreThreads();
         this.threadPool = new ManagedThreadPool(tpe);
+
+        /* Create a thread pool for index lookups, which otherwise contend with everything else for the general one */
+        final AtomicLong lookupCount = new AtomicLong(0);
+        ThreadPoolExecutor lookupTpe = new ThreadPoolExecutor(0, Math.max(1, config.getIndexLookupThreads()),
+                60L, TimeUnit.SECONDS,
+                new SynchronousQueue<>(),
+                (runnable) -> {
+                    Thread t = new Thread(runnable, "SpliceIndexLookup-" + lookupCount.getAndIncrement());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        this.indexLookupPool = new ManagedThreadPool(lookupTpe);
         this.statementLogger = new FileStatementLogger();
+        this.slowQueryLog = new SlowQueryLog(config.getSlowQueryLogSize());
     }
 
     public DatabaseAdministrator dbAdministrator(){
@@ -154,6 +176,10 @@ public class EngineDriver{
         return loadWatcher;
     }
 
+    public StoreFileStatisticsReader storeFileStatisticsReader(){
+        return storeFileStatisticsReader;
+    }
+
     public Manager manager(){
         return environment.getManager();
     }
@@ -174,9 +200,17 @@ public class EngineDriver{
         return threadPool;
     }
 
+    public ExecutorService getIndexLookupExecutor() {
+        return indexLookupPool;
+    }
+
     public OperationManager getOperationManager() { return operationManager; }
 
     public StatementLogger getStatementLogger() {
         return statementLogger;
     }
+
+    public SlowQueryLog getSlowQueryLog() {
+        return slowQueryLog;
+    }
 }
@@ -61,6 +61,9 @@ import com.splicemachine.derby.ddl.TentativeAddColumnDesc;
 import com.splicemachine.derby.ddl.TentativeAddConstraintDesc;
 import com.splicemachine.derby.ddl.TentativeDropColumnDesc;
 import com.splicemachine.derby.impl.sql.catalog.Splice_DD_Version;
+import com.splicemachine.derby.impl.sql.execute.LazyChar;
+import com.splicemachine.derby.impl.sql.execute.LazyDecimal;
+import com.splicemachine.derby.impl.sql.execute.LazyVarchar;
 import com.splicemachine.derby.impl.sql.execute.actions.DeleteConstantOperation;
 import com.splicemachine.derby.impl.sql.execute.actions.InsertConstantOperation;
 import com.splicemachine.derby.impl.sql.execute.actions.UpdateConstantOperation;
@@ -77,6 +80,7 @@ import com.splicemachine.derby.serialization.ActivationSerializer;
 import com.splicemachine.derby.serialization.SpliceObserverInstructions;
 import com.splicemachine.derby.stream.function.*;
 import com.splicemachine.derby.utils.kryo.DataValueDescriptorSerializer;
+import com.splicemachine.derby.utils.kryo.LazyDataValueDescriptorSerializer;
 import com.splicemachine.derby.utils.kryo.ValueRowSerializer;
 import com.splicemachine.kvpair.KVPair;
 import com.splicemachine.pipeline.client.BulkWrite;
@@ -832,6 +836,9 @@ public class SpliceKryoRegistry implements KryoPool.KryoRegistry{
         instance.register(MergeStatisticsHolder.class,EXTERNALIZABLE_SERIALIZER,291);
         instance.register(ColumnStatisticsMerge.class,EXTERNALIZABLE_SERIALIZER,292);
         instance.register(SpliceUDAVariance.class,EXTERNALIZABLE_SERIALIZER,293);
+        instance.register(LazyVarchar.class,new LazyDataValueDescriptorSerializer<LazyVarchar>(),294);
+        instance.register(LazyChar.class,new LazyDataValueDescriptorSerializer<LazyChar>(),295);
+        instance.register(LazyDecimal.class,new LazyDataValueDescriptorSerializer<LazyDecimal>(),296);
 
 
     }
@@ -17,6 +17,7 @@ package com.splicemachine;
 import com.splicemachine.access.api.SConfiguration;
 import com.splicemachine.derby.iapi.sql.PartitionLoadWatcher;
 import com.splicemachine.derby.iapi.sql.PropertyManager;
+import com.splicemachine.derby.iapi.sql.StoreFileStatisticsReader;
 import com.splicemachine.derby.iapi.sql.execute.DataSetProcessorFactory;
 import com.splicemachine.access.api.DatabaseVersion;
 import com.splicemachine.derby.iapi.sql.execute.OperationManager;
@@ -44,6 +45,8 @@ public interface SqlEnvironment{
 
     PartitionLoadWatcher getLoadWatcher();
 
+    StoreFileStatisticsReader getStoreFileStatisticsReader();
+
     DataSetProcessorFactory getProcessorFactory();
 
     PropertyManager getPropertyManager();
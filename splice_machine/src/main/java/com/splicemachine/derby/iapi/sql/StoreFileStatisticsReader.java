@@ -0,0 +1,36 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.iapi.sql;
+
+import com.splicemachine.derby.impl.stats.StoreFileStatistics;
+import com.splicemachine.storage.Partition;
+
+import java.io.IOException;
+
+/**
+ * Provides access to the statistics which are written alongside each store file during flushes
+ * and compactions.
+ */
+public interface StoreFileStatisticsReader{
+
+    /**
+     * @param partition the partition to fetch statistics for
+     * @param refresh if {@code true}, ignore any cached value and go back to storage
+     * @return the merged statistics for all store files in the partition, or {@code null} if
+     * no statistics are available for the partition.
+     * @throws IOException if something goes wrong reading the statistics
+     */
+    StoreFileStatistics partitionStatistics(Partition partition,boolean refresh) throws IOException;
+}
@@ -89,6 +89,8 @@ public class SpliceDatabase extends BasicDatabase{
         // Set 60 Second Default if Missing from startup parameters
         if (System.getProperty("derby.drda.timeSlice") == null)
             System.setProperty("derby.drda.timeSlice","60000");
+        if (config.getStatementCacheDirectory() != null && System.getProperty(Property.LANG_STATEMENT_CACHE_DIRECTORY) == null)
+            System.setProperty(Property.LANG_STATEMENT_CACHE_DIRECTORY,config.getStatementCacheDirectory());
 
         //  System.setProperty("derby.language.logQueryPlan", Boolean.toString(true));
         if(config.debugLogStatementContext()) {
@@ -579,6 +579,16 @@ public class SpliceSystemProcedures extends DefaultSystemProcedureGenerator {
                             .build();
                     procedures.add(runningOperations);
 
+                    /*
+                     * Procedure to get the most recent slow statements on this server
+                     */
+                    Procedure slowQueries = Procedure.newBuilder().name("SYSCS_GET_SLOW_QUERIES")
+                            .numOutputParams(0)
+                            .numResultSets(1)
+                            .ownerClass(SpliceAdmin.class.getCanonicalName())
+                            .build();
+                    procedures.add(slowQueries);
+
 
         			/*
         			 * Procedure to kill an executing operation
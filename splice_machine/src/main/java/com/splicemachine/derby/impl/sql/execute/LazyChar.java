@@ -0,0 +1,307 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.impl.sql.execute;
+
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.services.io.ArrayInputStream;
+import com.splicemachine.db.iapi.services.i18n.LocaleFinder;
+import com.splicemachine.db.iapi.types.DataTypeDescriptor;
+import com.splicemachine.db.iapi.types.DataValueDescriptor;
+import com.splicemachine.db.iapi.types.SQLChar;
+import com.splicemachine.db.iapi.types.StringDataValue;
+import com.splicemachine.encoding.Encoding;
+import com.splicemachine.encoding.MultiFieldEncoder;
+import com.splicemachine.utils.ByteSlice;
+import com.yahoo.sketches.theta.UpdateSketch;
+import org.apache.hadoop.hbase.util.Order;
+import org.apache.hadoop.hbase.util.PositionedByteRange;
+import org.apache.spark.sql.Row;
+import org.apache.spark.sql.catalyst.expressions.UnsafeArrayData;
+import org.apache.spark.sql.catalyst.expressions.UnsafeRow;
+import org.apache.spark.sql.catalyst.expressions.codegen.UnsafeArrayWriter;
+import org.apache.spark.sql.catalyst.expressions.codegen.UnsafeRowWriter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.sql.Clob;
+import java.text.CollationKey;
+import java.text.RuleBasedCollator;
+
+/**
+ * A CHAR which holds the bytes it was decoded from until its value is needed.
+ *
+ * @see LazyVarchar
+ */
+public class LazyChar extends SQLChar implements LazyDataValueDescriptor{
+    private final ByteSlice encoded=new ByteSlice();
+    private boolean encodedDesc;
+
+    public LazyChar(){
+    }
+
+    @Override
+    public void setEncoded(byte[] data,int offset,int length,boolean desc){
+        if(LazyEncoding.isEmptyString(data,offset,length,desc)){
+            setValue("");
+            return;
+        }
+        super.restoreToNull();
+        encoded.set(data,offset,length);
+        encodedDesc=desc;
+        setIsNull(false);
+    }
+
+    @Override
+    public ByteSlice getEncodedSlice(){
+        return encoded;
+    }
+
+    @Override
+    public boolean isEncodedDescending(){
+        return encodedDesc;
+    }
+
+    @Override
+    public byte[] getEncoded(boolean desc) throws StandardException{
+        if(isLazy())
+            return LazyEncoding.copy(encoded,encodedDesc,desc);
+        return Encoding.encode(getString(),desc);
+    }
+
+    @Override
+    public void encodeInto(MultiFieldEncoder encoder,boolean desc) throws StandardException{
+        if(isLazy())
+            LazyEncoding.encodeInto(encoder,encoded,encodedDesc,desc);
+        else
+            encoder.encodeNext(getString(),desc);
+    }
+
+    @Override
+    public boolean isLazy(){
+        return encoded.length()>0;
+    }
+
+    /* ****************************************************************************************************************/
+    /*accessors, which decode the held bytes first*/
+
+    @Override
+    public String getString() throws StandardException{
+        materialize();
+        return super.getString();
+    }
+
+    @Override
+    public char[] getCharArray() throws StandardException{
+        materialize();
+        return super.getCharArray();
+    }
+
+    @Override
+    public char[] getRawDataAndZeroIt(){
+        materialize();
+        return super.getRawDataAndZeroIt();
+    }
+
+    @Override
+    public int getLength() throws StandardException{
+        materialize();
+        return super.getLength();
+    }
+
+    @Override
+    public StringDataValue getValue(RuleBasedCollator collatorForComparison){
+        if(collatorForComparison!=null)
+            materialize();
+        return super.getValue(collatorForComparison);
+    }
+
+    @Override
+    public void setWidth(int desiredWidth,int desiredScale,boolean errorOnTrunc) throws StandardException{
+        materialize();
+        super.setWidth(desiredWidth,desiredScale,errorOnTrunc);
+    }
+
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException{
+        materialize();
+        super.writeExternal(out);
+    }
+
+    @Override
+    public void write(UnsafeRowWriter unsafeRowWriter,int ordinal){
+        materialize();
+        super.write(unsafeRowWriter,ordinal);
+    }
+
+    @Override
+    public void writeArray(UnsafeArrayWriter unsafeArrayWriter,int ordinal) throws StandardException{
+        materialize();
+        super.writeArray(unsafeArrayWriter,ordinal);
+    }
+
+    @Override
+    public int encodedKeyLength() throws StandardException{
+        materialize();
+        return super.encodedKeyLength();
+    }
+
+    @Override
+    public void encodeIntoKey(PositionedByteRange src,Order order) throws StandardException{
+        materialize();
+        super.encodeIntoKey(src,order);
+    }
+
+    @Override
+    public void updateThetaSketch(UpdateSketch updateSketch){
+        materialize();
+        super.updateThetaSketch(updateSketch);
+    }
+
+    @Override
+    public String toString(){
+        materialize();
+        return super.toString();
+    }
+
+    @Override
+    public int hashCode(){
+        if(isLazy())
+            return LazyEncoding.hashString(encoded,encodedDesc);
+        return super.hashCode();
+    }
+
+    @Override
+    public int estimateMemoryUsage(){
+        return super.estimateMemoryUsage()+encoded.length();
+    }
+
+    @Override
+    public DataValueDescriptor cloneValue(boolean forceMaterialization){
+        if(!isLazy())
+            return super.cloneValue(forceMaterialization);
+        LazyChar clone=new LazyChar();
+        byte[] bytes=encoded.getByteCopy();
+        clone.setEncoded(bytes,0,bytes.length,encodedDesc);
+        return clone;
+    }
+
+    @Override
+    public DataValueDescriptor getNewNull(){
+        return new LazyChar();
+    }
+
+    /* ****************************************************************************************************************/
+    /*mutators, which drop the held bytes*/
+
+    @Override
+    public void restoreToNull(){
+        encoded.reset();
+        super.restoreToNull();
+    }
+
+    @Override
+    public void setValue(String theValue){
+        encoded.reset();
+        super.setValue(theValue);
+    }
+
+    @Override
+    public void setValue(Clob theValue){
+        encoded.reset();
+        super.setValue(theValue);
+    }
+
+    @Override
+    public void setStream(InputStream newStream){
+        encoded.reset();
+        super.setStream(newStream);
+    }
+
+    @Override
+    public void copyState(String otherValue,char[] otherRawData,int otherRawLength,CollationKey otherCKey,
+                          InputStream otherStream,Clob otherClobValue,LocaleFinder otherLocaleFinder){
+        encoded.reset();
+        super.copyState(otherValue,otherRawData,otherRawLength,otherCKey,otherStream,otherClobValue,otherLocaleFinder);
+    }
+
+    @Override
+    protected void normalize(DataTypeDescriptor desiredType,String sourceValue) throws StandardException{
+        encoded.reset();
+        super.normalize(desiredType,sourceValue);
+    }
+
+    @Override
+    public void readExternal(ObjectInput in) throws IOException{
+        encoded.reset();
+        super.readExternal(in);
+    }
+
+    @Override
+    public void readExternalFromArray(ArrayInputStream in) throws IOException{
+        encoded.reset();
+        super.readExternalFromArray(in);
+    }
+
+    @Override
+    public void read(UnsafeArrayData unsafeArrayData,int ordinal) throws StandardException{
+        encoded.reset();
+        super.read(unsafeArrayData,ordinal);
+    }
+
+    @Override
+    public void read(UnsafeRow unsafeRow,int ordinal) throws StandardException{
+        encoded.reset();
+        super.read(unsafeRow,ordinal);
+    }
+
+    @Override
+    public void read(Row row,int ordinal) throws StandardException{
+        encoded.reset();
+        super.read(row,ordinal);
+    }
+
+    @Override
+    public void decodeFromKey(PositionedByteRange src) throws StandardException{
+        encoded.reset();
+        super.decodeFromKey(src);
+    }
+
+    @Override
+    public void setSparkObject(Object sparkObject) throws StandardException{
+        encoded.reset();
+        super.setSparkObject(sparkObject);
+    }
+
+    /* ****************************************************************************************************************/
+    /*comparisons, which work on the bytes when both sides hold them; the SQL operators all compare through here*/
+
+    @Override
+    protected int stringCompare(StringDataValue char1,StringDataValue char2) throws StandardException{
+        if(LazyEncoding.areEncodedStrings(char1,char2))
+            return LazyEncoding.compareStrings(char1,char2,true);
+        return super.stringCompare(char1,char2);
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private void materialize(){
+        if(!isLazy()) return;
+        String value=Encoding.decodeString(encoded.array(),encoded.offset(),encoded.length(),encodedDesc);
+        encoded.reset();
+        super.setValue(value);
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.impl.sql.execute;
+
+import com.splicemachine.db.iapi.types.DataValueDescriptor;
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.encoding.MultiFieldEncoder;
+import com.splicemachine.utils.ByteSlice;
+
+/**
+ * A data value which can hold its value as the bytes it was encoded to in a row, and only decodes them when
+ * the value itself is asked for. Comparing, hashing and re-encoding two such values works on the bytes.
+ *
+ * {@link #isLazy()} is true while the value is held as bytes. Setting the value any other way, or asking for it,
+ * replaces the bytes with the decoded value.
+ */
+public interface LazyDataValueDescriptor extends DataValueDescriptor{
+
+    /**
+     * Hold the encoded form of a non-null value. The bytes are not copied, so they must not change
+     * until this value is set again.
+     *
+     * @param desc whether the bytes were encoded in descending order
+     */
+    void setEncoded(byte[] data,int offset,int length,boolean desc);
+
+    /**
+     * @return the held bytes; only meaningful while {@link #isLazy()} is true.
+     */
+    ByteSlice getEncodedSlice();
+
+    /**
+     * @return whether the held bytes are in descending order.
+     */
+    boolean isEncodedDescending();
+
+    /**
+     * @return the non-null value encoded in the given order; held bytes are copied rather than re-encoded.
+     */
+    byte[] getEncoded(boolean desc) throws StandardException;
+
+    /**
+     * Encode the non-null value as the next field of {@code encoder}, in the given order.
+     */
+    void encodeInto(MultiFieldEncoder encoder,boolean desc) throws StandardException;
+}
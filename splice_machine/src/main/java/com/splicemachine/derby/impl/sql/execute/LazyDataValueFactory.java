@@ -16,6 +16,7 @@ package com.splicemachine.derby.impl.sql.execute;
 
 import com.splicemachine.db.iapi.error.StandardException;
 import com.splicemachine.db.iapi.services.io.StoredFormatIds;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
 import com.splicemachine.db.iapi.types.*;
 import java.math.BigDecimal;
 
@@ -75,4 +76,25 @@ public class LazyDataValueFactory extends J2SEDataValueFactory{
                 throw new RuntimeException("No Data Descriptor for type=" + formatId);
         }
     }
+
+    /**
+     * Replace the null CHAR, VARCHAR and DECIMAL columns of a row with values which hold the bytes they are
+     * decoded from until they are needed, see {@link LazyDataValueDescriptor}. Collated strings keep their type.
+     */
+    public static void makeLazy(ExecRow row){
+        DataValueDescriptor[] dvds=row.getRowArray();
+        for(int i=0;i<dvds.length;i++){
+            DataValueDescriptor dvd=dvds[i];
+            if(dvd==null || !dvd.isNull()) continue;
+            Class<?> type=dvd.getClass();
+            if(type==SQLVarchar.class)
+                dvds[i]=new LazyVarchar();
+            else if(type==SQLChar.class)
+                dvds[i]=new LazyChar();
+            else if(type==SQLDecimal.class){
+                SQLDecimal decimal=(SQLDecimal)dvd;
+                dvds[i]=new LazyDecimal(decimal.getPrecision(),decimal.getScale());
+            }
+        }
+    }
 }
@@ -0,0 +1,311 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.impl.sql.execute;
+
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.services.io.ArrayInputStream;
+import com.splicemachine.db.iapi.types.DataValueDescriptor;
+import com.splicemachine.db.iapi.types.SQLDecimal;
+import com.splicemachine.encoding.Encoding;
+import com.splicemachine.encoding.MultiFieldEncoder;
+import com.splicemachine.utils.ByteSlice;
+import com.yahoo.sketches.theta.UpdateSketch;
+import org.apache.hadoop.hbase.util.Order;
+import org.apache.hadoop.hbase.util.PositionedByteRange;
+import org.apache.spark.sql.Row;
+import org.apache.spark.sql.catalyst.expressions.UnsafeArrayData;
+import org.apache.spark.sql.catalyst.expressions.UnsafeRow;
+import org.apache.spark.sql.catalyst.expressions.codegen.UnsafeArrayWriter;
+import org.apache.spark.sql.catalyst.expressions.codegen.UnsafeRowWriter;
+import org.apache.spark.sql.types.StructField;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.math.BigDecimal;
+
+/**
+ * A DECIMAL which holds the bytes it was decoded from until its value is needed.
+ *
+ * The encoding is order preserving and has a single form for every numeric value, so two encoded values are
+ * compared without decoding either of them. Hashing still decodes, since the hash has to agree with the
+ * other numeric types.
+ */
+public class LazyDecimal extends SQLDecimal implements LazyDataValueDescriptor{
+    private final ByteSlice encoded=new ByteSlice();
+    private boolean encodedDesc;
+
+    public LazyDecimal(){
+    }
+
+    public LazyDecimal(int precision,int scale){
+        setPrecision(precision);
+        setScale(scale);
+    }
+
+    @Override
+    public void setEncoded(byte[] data,int offset,int length,boolean desc){
+        super.restoreToNull();
+        encoded.set(data,offset,length);
+        encodedDesc=desc;
+        setIsNull(false);
+    }
+
+    @Override
+    public ByteSlice getEncodedSlice(){
+        return encoded;
+    }
+
+    @Override
+    public boolean isEncodedDescending(){
+        return encodedDesc;
+    }
+
+    @Override
+    public byte[] getEncoded(boolean desc) throws StandardException{
+        if(isLazy())
+            return LazyEncoding.copy(encoded,encodedDesc,desc);
+        return Encoding.encode(getBigDecimal(),desc);
+    }
+
+    @Override
+    public void encodeInto(MultiFieldEncoder encoder,boolean desc) throws StandardException{
+        if(isLazy())
+            LazyEncoding.encodeInto(encoder,encoded,encodedDesc,desc);
+        else
+            encoder.encodeNext(getBigDecimal(),desc);
+    }
+
+    @Override
+    public boolean isLazy(){
+        return encoded.length()>0;
+    }
+
+    /* ****************************************************************************************************************/
+    /*accessors, which decode the held bytes first*/
+
+    @Override
+    public BigDecimal getBigDecimal(){
+        materialize();
+        return super.getBigDecimal();
+    }
+
+    @Override
+    public int getDecimalValueScale(){
+        materialize();
+        return super.getDecimalValueScale();
+    }
+
+    @Override
+    public int getPrecision(){
+        materialize();
+        return super.getPrecision();
+    }
+
+    @Override
+    public int getScale(){
+        materialize();
+        return super.getScale();
+    }
+
+    @Override
+    public StructField getStructField(String columnName){
+        materialize();
+        return super.getStructField(columnName);
+    }
+
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException{
+        materialize();
+        super.writeExternal(out);
+    }
+
+    @Override
+    public void write(UnsafeRowWriter unsafeRowWriter,int ordinal){
+        materialize();
+        super.write(unsafeRowWriter,ordinal);
+    }
+
+    @Override
+    public void writeArray(UnsafeArrayWriter unsafeArrayWriter,int ordinal) throws StandardException{
+        materialize();
+        super.writeArray(unsafeArrayWriter,ordinal);
+    }
+
+    @Override
+    public void encodeIntoKey(PositionedByteRange src,Order order) throws StandardException{
+        materialize();
+        super.encodeIntoKey(src,order);
+    }
+
+    @Override
+    public void updateThetaSketch(UpdateSketch updateSketch){
+        materialize();
+        super.updateThetaSketch(updateSketch);
+    }
+
+    @Override
+    public int estimateMemoryUsage(){
+        return super.estimateMemoryUsage()+encoded.length();
+    }
+
+    @Override
+    public DataValueDescriptor cloneValue(boolean forceMaterialization){
+        if(!isLazy())
+            return super.cloneValue(forceMaterialization);
+        LazyDecimal clone=new LazyDecimal(super.getPrecision(),super.getScale());
+        byte[] bytes=encoded.getByteCopy();
+        clone.setEncoded(bytes,0,bytes.length,encodedDesc);
+        return clone;
+    }
+
+    @Override
+    public DataValueDescriptor getNewNull(){
+        return new LazyDecimal(super.getPrecision(),super.getScale());
+    }
+
+    /* ****************************************************************************************************************/
+    /*mutators, which drop the held bytes*/
+
+    @Override
+    public void restoreToNull(){
+        encoded.reset();
+        super.restoreToNull();
+    }
+
+    @Override
+    public void setValue(String theValue) throws StandardException{
+        encoded.reset();
+        super.setValue(theValue);
+    }
+
+    @Override
+    public void setValue(double theValue) throws StandardException{
+        encoded.reset();
+        super.setValue(theValue);
+    }
+
+    @Override
+    public void setValue(float theValue) throws StandardException{
+        encoded.reset();
+        super.setValue(theValue);
+    }
+
+    @Override
+    public void setValue(long theValue){
+        encoded.reset();
+        super.setValue(theValue);
+    }
+
+    @Override
+    public void setValue(int theValue){
+        encoded.reset();
+        super.setValue(theValue);
+    }
+
+    @Override
+    public void setValue(BigDecimal theValue){
+        encoded.reset();
+        super.setValue(theValue);
+    }
+
+    @Override
+    public void setBigDecimal(Number theValue) throws StandardException{
+        encoded.reset();
+        super.setBigDecimal(theValue);
+    }
+
+    @Override
+    public void setValue(Number theValue) throws StandardException{
+        encoded.reset();
+        super.setValue(theValue);
+    }
+
+    @Override
+    public void setValue(boolean theValue){
+        encoded.reset();
+        super.setValue(theValue);
+    }
+
+    @Override
+    protected void setFrom(DataValueDescriptor theValue) throws StandardException{
+        BigDecimal value=SQLDecimal.getBigDecimal(theValue);
+        encoded.reset();
+        super.setValue(value);
+    }
+
+    @Override
+    public void readExternal(ObjectInput in) throws IOException{
+        encoded.reset();
+        super.readExternal(in);
+    }
+
+    @Override
+    public void readExternalFromArray(ArrayInputStream in) throws IOException{
+        encoded.reset();
+        super.readExternalFromArray(in);
+    }
+
+    @Override
+    public void read(UnsafeArrayData unsafeArrayData,int ordinal) throws StandardException{
+        encoded.reset();
+        super.read(unsafeArrayData,ordinal);
+    }
+
+    @Override
+    public void read(UnsafeRow unsafeRow,int ordinal) throws StandardException{
+        encoded.reset();
+        super.read(unsafeRow,ordinal);
+    }
+
+    @Override
+    public void read(Row row,int ordinal) throws StandardException{
+        encoded.reset();
+        super.read(row,ordinal);
+    }
+
+    @Override
+    public void decodeFromKey(PositionedByteRange src) throws StandardException{
+        encoded.reset();
+        super.decodeFromKey(src);
+    }
+
+    @Override
+    public void setSparkObject(Object sparkObject) throws StandardException{
+        encoded.reset();
+        super.setSparkObject(sparkObject);
+    }
+
+    /* ****************************************************************************************************************/
+    /*comparisons, which work on the bytes when both sides hold them*/
+
+    @Override
+    protected int typeCompare(DataValueDescriptor arg) throws StandardException{
+        if(isLazy() && arg instanceof LazyDecimal && arg.isLazy()){
+            LazyDecimal other=(LazyDecimal)arg;
+            return LazyEncoding.compare(encoded,encodedDesc,other.encoded,other.encodedDesc);
+        }
+        return super.typeCompare(arg);
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private void materialize(){
+        if(!isLazy()) return;
+        BigDecimal value=Encoding.decodeBigDecimal(encoded.array(),encoded.offset(),encoded.length(),encodedDesc);
+        encoded.reset();
+        super.setValue(value);
+    }
+}
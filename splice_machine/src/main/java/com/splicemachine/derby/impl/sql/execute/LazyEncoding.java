@@ -0,0 +1,197 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.impl.sql.execute;
+
+import com.splicemachine.db.iapi.types.DataValueDescriptor;
+import com.splicemachine.db.iapi.types.StringDataValue;
+import com.splicemachine.encoding.MultiFieldEncoder;
+import com.splicemachine.utils.ByteSlice;
+
+/**
+ * Operations on the encoded bytes held by lazy data values.
+ *
+ * Descending values are the ascending encoding with every bit flipped, so two values encoded in different orders
+ * can still be compared by flipping the bytes of one of them as they are read.
+ */
+final class LazyEncoding{
+    private static final int PAD=' ';
+
+    private LazyEncoding(){ }
+
+    /**
+     * @return true if the bytes are the encoding of the empty string, which isn't worth holding lazily.
+     */
+    static boolean isEmptyString(byte[] data,int offset,int length,boolean desc){
+        return length==1 && ((data[offset]^mask(desc))&0xff)==0x01;
+    }
+
+    static byte[] copy(ByteSlice encoded,boolean encodedDesc,boolean desc){
+        byte[] bytes=encoded.getByteCopy();
+        if(encodedDesc!=desc){
+            for(int i=0;i<bytes.length;i++){
+                bytes[i]^=0xff;
+            }
+        }
+        return bytes;
+    }
+
+    static void encodeInto(MultiFieldEncoder encoder,ByteSlice encoded,boolean encodedDesc,boolean desc){
+        if(encodedDesc==desc)
+            encoder.setRawBytes(encoded);
+        else
+            encoder.setRawBytes(copy(encoded,encodedDesc,desc));
+    }
+
+    /**
+     * @return true if both values are strings which hold their encoded bytes.
+     */
+    static boolean areEncodedStrings(DataValueDescriptor left,DataValueDescriptor right){
+        return left instanceof LazyDataValueDescriptor && left instanceof StringDataValue && left.isLazy()
+                && right instanceof LazyDataValueDescriptor && right instanceof StringDataValue && right.isLazy();
+    }
+
+    /**
+     * Compare two encodings in the order of the values they encode, which for order-preserving encodings is
+     * the unsigned order of their (ascending) bytes.
+     */
+    static int compare(ByteSlice left,boolean leftDesc,ByteSlice right,boolean rightDesc){
+        byte[] l=left.array();
+        byte[] r=right.array();
+        int lo=left.offset();
+        int ro=right.offset();
+        int lm=mask(leftDesc);
+        int rm=mask(rightDesc);
+        int length=Math.min(left.length(),right.length());
+        for(int i=0;i<length;i++){
+            int a=(l[lo+i]^lm)&0xff;
+            int b=(r[ro+i]^rm)&0xff;
+            if(a!=b)
+                return a<b?-1:1;
+        }
+        return Integer.compare(left.length(),right.length());
+    }
+
+    /**
+     * Compare two strings which both hold their encoded bytes, see {@link #areEncodedStrings}.
+     */
+    static int compareStrings(DataValueDescriptor left,DataValueDescriptor right,boolean padded){
+        LazyDataValueDescriptor l=(LazyDataValueDescriptor)left;
+        LazyDataValueDescriptor r=(LazyDataValueDescriptor)right;
+        return compareStrings(l.getEncodedSlice(),l.isEncodedDescending(),r.getEncodedSlice(),r.isEncodedDescending(),padded);
+    }
+
+    /**
+     * Compare two encoded strings the way their Strings would be compared.
+     *
+     * The encoding is UTF-8, which orders characters by code point, while Strings order them by UTF-16 unit. The
+     * two only disagree between a supplementary character (whose UTF-16 form starts with a surrogate) and a
+     * character at or above U+E000, so those are the only bytes which need special treatment.
+     *
+     * @param padded whether the shorter string is compared as though it were padded with blanks, as CHAR values are
+     */
+    static int compareStrings(ByteSlice left,boolean leftDesc,ByteSlice right,boolean rightDesc,boolean padded){
+        byte[] l=left.array();
+        byte[] r=right.array();
+        int lo=left.offset();
+        int ro=right.offset();
+        int lm=mask(leftDesc);
+        int rm=mask(rightDesc);
+        int leftLength=left.length();
+        int rightLength=right.length();
+        int length=Math.min(leftLength,rightLength);
+        for(int i=0;i<length;i++){
+            int a=utf8(l,lo+i,lm);
+            int b=utf8(r,ro+i,rm);
+            if(a!=b){
+                if(a>=0xF0 && (b==0xEE || b==0xEF)) return -1;
+                if(b>=0xF0 && (a==0xEE || a==0xEF)) return 1;
+                return a<b?-1:1;
+            }
+        }
+        if(leftLength==rightLength) return 0;
+        if(!padded) return leftLength<rightLength?-1:1;
+
+        //multi-byte characters never contain a byte <= 0x7F, so a byte-wise comparison with blanks is enough
+        if(leftLength>rightLength){
+            for(int i=length;i<leftLength;i++){
+                int a=utf8(l,lo+i,lm);
+                if(a!=PAD) return a<PAD?-1:1;
+            }
+        }else{
+            for(int i=length;i<rightLength;i++){
+                int b=utf8(r,ro+i,rm);
+                if(b!=PAD) return b<PAD?1:-1;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * @return the hash code of an encoded string, which is the same as the one {@code SQLChar} computes from the
+     * decoded String: the String hash of the value without its trailing blanks.
+     */
+    static int hashString(ByteSlice encoded,boolean desc){
+        byte[] data=encoded.array();
+        int m=mask(desc);
+        int start=encoded.offset();
+        int end=start+encoded.length();
+        while(end>start && utf8(data,end-1,m)==PAD)
+            end--;
+
+        int hash=0;
+        int i=start;
+        while(i<end){
+            int b=utf8(data,i,m);
+            int codePoint;
+            int length;
+            if(b<0x80){
+                codePoint=b;
+                length=1;
+            }else if(b<0xE0){
+                codePoint=b&0x1F;
+                length=2;
+            }else if(b<0xF0){
+                codePoint=b&0x0F;
+                length=3;
+            }else{
+                codePoint=b&0x07;
+                length=4;
+            }
+            for(int j=1;j<length;j++){
+                codePoint=(codePoint<<6)|(utf8(data,i+j,m)&0x3F);
+            }
+            i+=length;
+            if(Character.isBmpCodePoint(codePoint))
+                hash=31*hash+codePoint;
+            else
+                hash=31*(31*hash+Character.highSurrogate(codePoint))+Character.lowSurrogate(codePoint);
+        }
+        return hash;
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private static int mask(boolean desc){
+        return desc?0xff:0;
+    }
+
+    /**
+     * @return the UTF-8 byte at the position; strings are encoded with 2 added to every byte to keep them clear
+     * of the field separator.
+     */
+    private static int utf8(byte[] data,int position,int mask){
+        return ((data[position]^mask)&0xff)-2;
+    }
+}
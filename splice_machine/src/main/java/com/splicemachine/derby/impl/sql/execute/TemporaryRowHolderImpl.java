@@ -43,6 +43,13 @@ import com.splicemachine.derby.impl.sql.execute.operations.TemporaryRowHolderOpe
 * on the number of rows.  
 * <p>
 * It is used for deferred DML processing.
+* <p>
+* Nothing in Splice creates one: user DML and triggers
+* don't hold their rows in a temporary row holder, and
+* its result set, {@link TemporaryRowHolderOperation},
+* is stubbed out. The data dictionary's deferred index
+* inserts use the db-engine holder, which overflows to
+* a local file rather than to a conglomerate.
 *
 */
 public class TemporaryRowHolderImpl implements TemporaryRowHolder {
@@ -343,6 +343,11 @@ public class DerbyScanInformation implements ScanInformation<ExecRow>, Externali
     }
 
 
+    @Override
+    public boolean hasStartPosition() {
+        return startKeyGetterMethodName != null;
+    }
+
     @Override
     public List<DataScan> getScans(TxnView txn, ExecRow startKeyOverride, Activation activation, int[] keyDecodingMap) throws StandardException {
         throw new RuntimeException("getScans is not supported");
@@ -14,6 +14,7 @@
 
 package com.splicemachine.derby.impl.sql.execute.operations;
 
+import com.splicemachine.EngineDriver;
 import com.splicemachine.db.impl.sql.compile.FromBaseTable;
 import org.spark_project.guava.base.Function;
 import com.splicemachine.db.iapi.sql.compile.CompilerContext;
@@ -31,6 +32,8 @@ import com.splicemachine.derby.iapi.sql.execute.SpliceOperationContext;
 import com.splicemachine.derby.stream.iapi.DataSet;
 import com.splicemachine.derby.stream.iapi.DataSetProcessor;
 import com.splicemachine.derby.stream.iapi.OperationContext;
+import com.splicemachine.derby.stream.profile.OperationProfile;
+import com.splicemachine.derby.stream.profile.QueryProfile;
 import javax.annotation.Nullable;
 import java.io.IOException;
 import java.io.ObjectInput;
@@ -43,6 +46,9 @@ import java.util.*;
  *
  * "explain <statement>"
  *
+ * or for "explain analyze <statement>", which runs the statement before showing its plan, and then shows
+ * the rows and time of each of its operations.
+ *
  * @author Jun Yuan
  * Date: 6/9/14
  */
@@ -50,6 +56,7 @@ public class ExplainOperation extends SpliceBaseOperation {
     protected static final String NAME = ExplainOperation.class.getSimpleName().replaceAll("Operation", "");
     protected SpliceOperation source;
     protected ExecRow currentTemplate;
+    protected boolean analyze;
 
     List<String> explainString = new ArrayList<>();
 
@@ -81,9 +88,18 @@ public class ExplainOperation extends SpliceBaseOperation {
      * @throws StandardException
      */
     public ExplainOperation(SpliceOperation source, Activation activation, int resultSetNumber) throws StandardException {
+        this(source, activation, resultSetNumber, false);
+    }
+
+    /**
+     *
+     * @param analyze whether to run the source and show the profile of each of its operations
+     */
+    public ExplainOperation(SpliceOperation source, Activation activation, int resultSetNumber, boolean analyze) throws StandardException {
         super(activation, resultSetNumber, 0, 0);
         this.activation = activation;
         this.source = source;
+        this.analyze = analyze;
         init();
     }
 
@@ -105,9 +121,36 @@ public class ExplainOperation extends SpliceBaseOperation {
     @Override
     public void openCore() throws StandardException {
         getPlanInformation();
+        if (analyze)
+            analyze();
         super.openCore();
     }
 
+    /**
+     * Run the source to completion with every one of its operations profiled, and add the profiles to the plan.
+     */
+    private void analyze() throws StandardException {
+        QueryProfile profile = QueryProfile.attach(source, EngineDriver.driver().getConfiguration().getProfileRowSampleRate());
+        long start = System.nanoTime();
+        try {
+            source.openCore();
+            while (source.getNextRowCore() != null) {
+                // only the profile is wanted
+            }
+        } finally {
+            try {
+                source.close();
+            } finally {
+                QueryProfile.detach(source);
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        explainString.add(String.format("Execution(totalTime=%.3fms,rows=%d,cpuTime=%s,blockedTime=%s,bytesRead=%d)",
+                elapsed / 1000000d, profile.getRows(), OperationProfile.millis(profile.getCpuTime()), OperationProfile.millis(profile.getBlockedTime()),
+                profile.getBytesRead()));
+        explainString.addAll(profile.toLines());
+    }
+
     @Override
     public void close() throws StandardException {
         clearState();
@@ -223,6 +266,7 @@ public class ExplainOperation extends SpliceBaseOperation {
     @Override
     public void writeExternal(ObjectOutput out) throws IOException {
         super.writeExternal(out);
+        out.writeBoolean(analyze);
         out.writeInt(explainString.size());
         for (int i = 0; i < explainString.size(); ++i) {
             out.writeUTF(explainString.get(i));
@@ -232,6 +276,7 @@ public class ExplainOperation extends SpliceBaseOperation {
     @Override
     public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException{
         super.readExternal(in);
+        analyze = in.readBoolean();
         int size = in.readInt();
         explainString = new ArrayList<>();
         for (int i = 0; i < size; ++i) {
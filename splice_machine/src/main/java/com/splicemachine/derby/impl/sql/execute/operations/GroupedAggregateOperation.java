@@ -14,14 +14,17 @@
 
 package com.splicemachine.derby.impl.sql.execute.operations;
 
+import com.splicemachine.EngineDriver;
 import com.splicemachine.db.iapi.error.StandardException;
 import com.splicemachine.db.iapi.services.loader.GeneratedMethod;
 import com.splicemachine.db.iapi.sql.Activation;
 import com.splicemachine.db.iapi.sql.execute.ExecRow;
 import com.splicemachine.derby.iapi.sql.execute.SpliceOperation;
 import com.splicemachine.derby.iapi.sql.execute.SpliceOperationContext;
+import com.splicemachine.derby.impl.sql.execute.operations.framework.SpliceGenericAggregator;
 import com.splicemachine.derby.impl.sql.execute.operations.groupedaggregate.DerbyGroupedAggregateContext;
 import com.splicemachine.derby.impl.sql.execute.operations.groupedaggregate.GroupedAggregateContext;
+import com.splicemachine.derby.impl.sql.execute.operations.groupedaggregate.PrimitiveHashAggregator;
 import com.splicemachine.derby.stream.function.*;
 import com.splicemachine.derby.stream.iapi.DataSet;
 import com.splicemachine.derby.stream.iapi.DataSetProcessor;
@@ -158,6 +161,18 @@ public class GroupedAggregateOperation extends GenericAggregateOperation {
         operationContext.pushScope();
         set = set.map(new CountReadFunction(operationContext));
         operationContext.popScope();
+
+        if (usePrimitiveHashAggregation(dsp)) {
+            operationContext.pushScopeForOp(OperationContext.Scope.REDUCE);
+            DataSet grouped = set.mapPartitions(new PrimitiveHashAggregateFunction(operationContext));
+            operationContext.popScope();
+
+            operationContext.pushScopeForOp(OperationContext.Scope.FINALIZE);
+            DataSet finished = grouped.map(new AggregateFinisherFunction(operationContext), true);
+            operationContext.popScope();
+            return finished;
+        }
+
         // Have distinct Aggregates?
         boolean hasMultipleDistinct = false;
         int numOfGroupKeys = groupedAggregateContext.getGroupingKeys().length;
@@ -215,6 +230,20 @@ public class GroupedAggregateOperation extends GenericAggregateOperation {
 
                 set = set4;
             }
+        } else if (isRollup && allAggregatesMergeable()) {
+            // aggregate the finest grouping level first, so that every rollup level is built by merging the
+            // states of its children rather than by aggregating every source row again
+            operationContext.pushScopeForOp(OperationContext.Scope.GROUP_AGGREGATE_KEYER);
+            PairDataSet set2 = set.keyBy(new KeyerFunction(operationContext, groupedAggregateContext.getGroupingKeys()));
+            operationContext.popScope();
+
+            operationContext.pushScopeForOp(OperationContext.Scope.REDUCE);
+            PairDataSet set3 = set2.reduceByKey(new MergeAllAggregatesFunction(operationContext));
+            operationContext.popScope();
+
+            operationContext.pushScopeForOp(OperationContext.Scope.READ);
+            set = set3.values();
+            operationContext.popScope();
         }
         
         if (isRollup) { // OLAP Rollup Functionality
@@ -272,4 +301,28 @@ public class GroupedAggregateOperation extends GenericAggregateOperation {
         return set5;
     }
 
+    /**
+     * Group through a hash table of primitive keys and running values when running in control, without
+     * distinct aggregates or rollups, and when the grouping columns and aggregates allow it.
+     */
+    private boolean usePrimitiveHashAggregation(DataSetProcessor dsp) throws StandardException {
+        if (dsp.getType() != DataSetProcessor.Type.CONTROL || isRollup
+                || !EngineDriver.driver().getConfiguration().getPrimitiveHashAggregation())
+            return false;
+        int[] distinctColumns = groupedAggregateContext.getNonGroupedUniqueColumns();
+        if (distinctColumns != null && distinctColumns.length > 0)
+            return false;
+        return PrimitiveHashAggregator.create(groupedAggregateContext.getGroupingKeys(), aggregates, source.getExecRowDefinition()) != null;
+    }
+
+    private boolean allAggregatesMergeable() {
+        if (aggregates == null)
+            return false;
+        for (SpliceGenericAggregator aggregator : aggregates) {
+            if (!aggregator.isMergeable())
+                return false;
+        }
+        return true;
+    }
+
 }
@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.impl.sql.execute.operations;
+
+/**
+ * Sizes the bulk fetches of an index lookup from how long they take, and how often the caller has to wait for them.
+ *
+ * Fetches start small, so that the first base rows come back quickly, and are resized after every fetch toward the
+ * number of rows that fits in the target latency at the rate the fetch achieved, by at most a factor of two at a time.
+ * The number of fetches in flight grows while the caller keeps waiting for fetches to finish, and shrinks while
+ * fetches are finished before they are needed, which would only hold on to more rows than necessary.
+ *
+ * Not thread safe; it belongs to the thread consuming the lookups.
+ */
+class IndexLookupSizer{
+    static final int MIN_BATCH_SIZE=64;
+
+    private final int minBatchSize;
+    private final int maxBatchSize;
+    private final int maxInFlight;
+    private final long targetLatency;
+
+    private int batchSize;
+    private int inFlight;
+
+    /**
+     * @param maxBatchSize the most rows to fetch at once
+     * @param maxInFlight the most fetches to have in flight at once
+     * @param targetLatency the time (in nanoseconds) that a fetch should take
+     */
+    IndexLookupSizer(int maxBatchSize,int maxInFlight,long targetLatency){
+        this.maxBatchSize=Math.max(1,maxBatchSize);
+        this.minBatchSize=Math.min(MIN_BATCH_SIZE,this.maxBatchSize);
+        this.maxInFlight=Math.max(1,maxInFlight);
+        this.targetLatency=targetLatency;
+        this.batchSize=minBatchSize;
+        this.inFlight=this.maxInFlight;
+    }
+
+    int batchSize(){
+        return batchSize;
+    }
+
+    int maxInFlight(){
+        return inFlight;
+    }
+
+    /**
+     * @param rows the number of rows which were fetched
+     * @param latency the time (in nanoseconds) the fetch took
+     * @param waited whether the caller had to wait for the fetch to finish
+     */
+    void lookupCompleted(int rows,long latency,boolean waited){
+        if(rows>0){
+            long ideal=latency<=0?Long.MAX_VALUE:rows*targetLatency/latency;
+            long next=Math.max(batchSize/2,Math.min(2L*batchSize,ideal));
+            batchSize=(int)Math.max(minBatchSize,Math.min(maxBatchSize,next));
+        }
+        if(waited)
+            inFlight=Math.min(maxInFlight,inFlight+1);
+        else if(inFlight>1)
+            inFlight--;
+    }
+}
@@ -17,12 +17,14 @@ package com.splicemachine.derby.impl.sql.execute.operations;
 import com.splicemachine.EngineDriver;
 import org.spark_project.guava.collect.Lists;
 import com.splicemachine.access.api.PartitionFactory;
+import com.splicemachine.access.api.SConfiguration;
 import com.splicemachine.db.iapi.error.StandardException;
 import com.splicemachine.db.iapi.sql.execute.ExecRow;
 import com.splicemachine.db.iapi.types.HBaseRowLocation;
 import com.splicemachine.derby.utils.marshall.KeyDecoder;
 import com.splicemachine.derby.utils.marshall.KeyHashDecoder;
 import com.splicemachine.pipeline.Exceptions;
+import com.splicemachine.primitives.Bytes;
 import com.splicemachine.si.api.data.TxnOperationFactory;
 import com.splicemachine.si.api.txn.TxnView;
 import com.splicemachine.si.constants.SIConstants;
@@ -33,23 +35,32 @@ import org.apache.log4j.Logger;
 import java.io.IOException;
 import java.io.InterruptedIOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Utility for executing "look-ahead" index lookups, where the index lookup is backgrounded,
  * while other processes occur on the caller thread.
  *
+ * Lookups run on their own thread pool. The size of each lookup and the number of lookups in flight
+ * adapt to how long lookups take (see {@link IndexLookupSizer}), and a lookup whose rows live in several
+ * regions fetches the rows of each region concurrently.
+ *
  * @author Scott Fines
  *         Created on: 9/4/13
  */
 public class IndexRowReader implements Iterator<ExecRow>, Iterable<ExecRow>{
     protected static Logger LOG=Logger.getLogger(IndexRowReader.class);
-    private final int batchSize;
-    private final int numBlocks;
+    /* lookups with fewer rows than this are not split by region */
+    static final int MIN_REGION_SPLIT_SIZE=2*IndexLookupSizer.MIN_BATCH_SIZE;
+    private final IndexLookupSizer sizer;
+    private final ExecutorService lookupExecutor;
     private final ExecRow outputTemplate;
     private final long mainTableConglomId;
     private final byte[] predicateFilterBytes;
@@ -61,8 +72,9 @@ public class IndexRowReader implements Iterator<ExecRow>, Iterable<ExecRow>{
     private final PartitionFactory tableFactory;
 
     private List<Pair<ExecRow, DataResult>> currentResults;
-    private List<Future<List<Pair<ExecRow, DataResult>>>> resultFutures;
-    private boolean populated=false;
+    private int currentPosition;
+    private List<Pair<Lookup, Future<List<Pair<ExecRow, DataResult>>>>> resultFutures;
+    private boolean sourceExhausted=false;
     private EntryDecoder entryDecoder;
     protected Iterator<ExecRow> sourceIterator;
 
@@ -84,8 +96,11 @@ public class IndexRowReader implements Iterator<ExecRow>, Iterable<ExecRow>{
         this.sourceIterator=sourceIterator;
         this.outputTemplate=outputTemplate;
         this.txn=txn;
-        batchSize=lookupBatchSize;
-        this.numBlocks=numConcurrentLookups;
+        SConfiguration config=EngineDriver.driver().getConfiguration();
+        //with no concurrent lookups, there is still the one lookup which the caller waits for
+        this.sizer=new IndexLookupSizer(lookupBatchSize,Math.max(numConcurrentLookups,1),
+                TimeUnit.MILLISECONDS.toNanos(config.getIndexLookupTargetLatency()));
+        this.lookupExecutor=EngineDriver.driver().getIndexLookupExecutor();
         this.mainTableConglomId=mainTableConglomId;
         this.predicateFilterBytes=predicateFilterBytes;
         this.tableFactory=tableFactory;
@@ -120,14 +135,15 @@ public class IndexRowReader implements Iterator<ExecRow>, Iterable<ExecRow>{
     @Override
     public boolean hasNext(){
         try{
-            if(currentResults==null || currentResults.size()<=0)
+            if(currentResults==null || currentPosition>=currentResults.size())
                 getMoreData();
 
-            if(currentResults==null || currentResults.size()<=0){
+            if(currentResults==null || currentPosition>=currentResults.size()){
                 return false; // No More Data
             }
 
-            Pair<ExecRow, DataResult> next=currentResults.remove(0);
+            Pair<ExecRow, DataResult> next=currentResults.get(currentPosition);
+            currentResults.set(currentPosition++,null);
             //merge the results
             ExecRow nextScannedRow=next.getFirst();
             DataResult nextFetchedData=next.getSecond();
@@ -150,11 +166,26 @@ public class IndexRowReader implements Iterator<ExecRow>, Iterable<ExecRow>{
     /**********************************************************************************************************************************/
         /*private helper methods*/
     private void getMoreData() throws StandardException, IOException{
+        currentResults=null;
+        currentPosition=0;
+        //keep as many lookups in flight as allowed, so that they run while the caller works through earlier results
+        while(!sourceExhausted && resultFutures.size()<sizer.maxInFlight()){
+            if(!submitLookup(sizer.batchSize()))
+                break;
+        }
+        if(!resultFutures.isEmpty()){
+            waitForBlockCompletion();
+        }
+    }
+
+    private boolean submitLookup(int batchSize) throws StandardException{
         //read up to batchSize rows from the source, then submit them to the background thread for processing
         List<Pair<byte[],ExecRow>> sourceRows=Lists.newArrayListWithCapacity(batchSize);
         for(int i=0;i<batchSize;i++){
-            if(!sourceIterator.hasNext())
+            if(!sourceIterator.hasNext()){
+                sourceExhausted=true;
                 break;
+            }
             ExecRow next=sourceIterator.next();
             for(int index=0;index<indexCols.length;index++){
                 if(indexCols[index]!=-1){
@@ -164,25 +195,21 @@ public class IndexRowReader implements Iterator<ExecRow>, Iterable<ExecRow>{
             HBaseRowLocation rl=(HBaseRowLocation)next.getColumn(next.nColumns());
             sourceRows.add(new Pair(rl.getBytes(), outputTemplate.getClone()));
         }
-        if(!sourceRows.isEmpty()){
-            //submit to the background thread
-            Lookup task=new Lookup(sourceRows);
-            resultFutures.add(EngineDriver.driver().getExecutorService().submit(task));
-        }
-
-        //if there is only one submitted future, call this again to set off an additional background process
-        if(resultFutures.size()<numBlocks && sourceRows.size()==batchSize)
-            getMoreData();
-        else if(!resultFutures.isEmpty()){
-            waitForBlockCompletion();
-        }
+        if(sourceRows.isEmpty())
+            return false;
+        Lookup task=new Lookup(sourceRows);
+        resultFutures.add(Pair.newPair(task,lookupExecutor.submit(task)));
+        return true;
     }
 
     private void waitForBlockCompletion() throws StandardException, IOException{
         //wait for the first future to return correctly or error-out
         try{
-            Future<List<Pair<ExecRow, DataResult>>> future=resultFutures.remove(0);
+            Pair<Lookup, Future<List<Pair<ExecRow, DataResult>>>> lookup=resultFutures.remove(0);
+            Future<List<Pair<ExecRow, DataResult>>> future=lookup.getSecond();
+            boolean waited=!future.isDone();
             currentResults=future.get();
+            sizer.lookupCompleted(currentResults.size(),lookup.getFirst().latency,waited);
         }catch(InterruptedException e){
             throw new InterruptedIOException(e.getMessage());
         }catch(ExecutionException e){
@@ -192,8 +219,51 @@ public class IndexRowReader implements Iterator<ExecRow>, Iterable<ExecRow>{
         }
     }
 
+    /**
+     * Group the positions of row keys by the region they belong to.
+     *
+     * @param rowKeys the keys to group
+     * @param startKeys the start keys of the regions, in ascending order; the first region starts at the
+     *                  beginning of the table whatever its start key is
+     * @return for every region holding at least one of the keys, the positions of its keys in ascending order
+     */
+    static List<int[]> groupByRegion(List<byte[]> rowKeys,byte[][] startKeys){
+        int[] counts=new int[startKeys.length];
+        int[] regions=new int[rowKeys.size()];
+        for(int i=0;i<regions.length;i++){
+            byte[] key=rowKeys.get(i);
+            //find the last region starting at or before the key
+            int low=1, high=startKeys.length-1, region=0;
+            while(low<=high){
+                int mid=(low+high)>>>1;
+                if(Bytes.BASE_COMPARATOR.compare(startKeys[mid],key)<=0){
+                    region=mid;
+                    low=mid+1;
+                }else
+                    high=mid-1;
+            }
+            regions[i]=region;
+            counts[region]++;
+        }
+        List<int[]> groups=new ArrayList<>();
+        int[][] byRegion=new int[startKeys.length][];
+        for(int r=0;r<counts.length;r++){
+            if(counts[r]>0){
+                byRegion[r]=new int[counts[r]];
+                groups.add(byRegion[r]);
+                counts[r]=0;
+            }
+        }
+        for(int i=0;i<regions.length;i++){
+            byRegion[regions[i]][counts[regions[i]]++]=i;
+        }
+        return groups;
+    }
+
     public class Lookup implements Callable<List<Pair<ExecRow, DataResult>>>{
         private final List<Pair<byte[],ExecRow>> sourceRows;
+        /* the time (in nanoseconds) the lookup took, read once its future is done */
+        private long latency;
 
         public Lookup(List<Pair<byte[],ExecRow>> sourceRows){
             this.sourceRows=sourceRows;
@@ -201,6 +271,7 @@ public class IndexRowReader implements Iterator<ExecRow>, Iterable<ExecRow>{
 
         @Override
         public List<Pair<ExecRow, DataResult>> call() throws Exception{
+            long start=System.nanoTime();
             List<byte[]> rowKeys = new ArrayList<>(sourceRows.size());
             for(Pair<byte[],ExecRow> sourceRow : sourceRows){
                 rowKeys.add(sourceRow.getFirst());
@@ -209,19 +280,83 @@ public class IndexRowReader implements Iterator<ExecRow>, Iterable<ExecRow>{
             attributable.addAttribute(SIConstants.ENTRY_PREDICATE_LABEL,predicateFilterBytes);
             operationFactory.encodeForReads(attributable,txn,false);
 
+            DataResult[] results=new DataResult[rowKeys.size()];
+            List<int[]> groups=null;
+            if(rowKeys.size()>=MIN_REGION_SPLIT_SIZE){
+                try(Partition table = tableFactory.getTable(Long.toString(mainTableConglomId))){
+                    List<Partition> regions=table.subPartitions();
+                    if(regions.size()>1)
+                        groups=groupByRegion(rowKeys,startKeys(regions));
+                }
+            }
+            if(groups==null || groups.size()<=1){
+                fetch(attributable,rowKeys,null,results);
+            }else{
+                //fetch every region's rows concurrently, fetching the last region's on this thread
+                List<Future<Void>> fetches=new ArrayList<>(groups.size()-1);
+                try{
+                    for(int i=0;i<groups.size()-1;i++){
+                        final int[] positions=groups.get(i);
+                        fetches.add(lookupExecutor.submit(() -> {
+                            fetch(attributable,rowKeys,positions,results);
+                            return null;
+                        }));
+                    }
+                    fetch(attributable,rowKeys,groups.get(groups.size()-1),results);
+                    for(Future<Void> fetch : fetches){
+                        fetch.get();
+                    }
+                }catch(ExecutionException e){
+                    Throwable t=e.getCause();
+                    if(t instanceof Exception) throw (Exception)t;
+                    throw e;
+                }finally{
+                    for(Future<Void> fetch : fetches){
+                        fetch.cancel(true);
+                    }
+                }
+            }
+
+            List<Pair<ExecRow, DataResult>> locations=Lists.newArrayListWithCapacity(sourceRows.size());
+            for(int i=0;i<results.length;i++){
+                locations.add(Pair.newPair(sourceRows.get(i).getSecond(),results[i]));
+            }
+            latency=System.nanoTime()-start;
+            return locations;
+        }
+
+        /**
+         * Fetch the rows of the keys at the given positions (or of every key if {@code positions} is null),
+         * each on its own table, as tables can't be shared between threads.
+         */
+        private void fetch(Attributable attributable,List<byte[]> rowKeys,int[] positions,DataResult[] results) throws IOException{
+            List<byte[]> keys=rowKeys;
+            if(positions!=null){
+                keys=new ArrayList<>(positions.length);
+                for(int position : positions){
+                    keys.add(rowKeys.get(position));
+                }
+            }
             try(Partition table = tableFactory.getTable(Long.toString(mainTableConglomId))){
-                Iterator<DataResult> results=table.batchGet(attributable,rowKeys);
-                List<Pair<ExecRow, DataResult>> locations=Lists.newArrayListWithCapacity(sourceRows.size());
-                for(Pair<byte[],ExecRow> sourceRow : sourceRows){
-                    if(!results.hasNext())
+                Iterator<DataResult> fetched=table.batchGet(attributable,keys);
+                for(int i=0;i<keys.size();i++){
+                    if(!fetched.hasNext())
                         throw new IllegalStateException("Programmer error: incompatible iterator sizes!");
-                    locations.add(Pair.newPair(sourceRow.getSecond(),results.next().getClone()));
+                    results[positions==null?i:positions[i]]=fetched.next().getClone();
                 }
-                return locations;
             }
         }
     }
 
+    private static byte[][] startKeys(List<Partition> regions){
+        byte[][] startKeys=new byte[regions.size()][];
+        for(int i=0;i<startKeys.length;i++){
+            startKeys[i]=regions.get(i).getStartKey();
+        }
+        Arrays.sort(startKeys,Bytes.BASE_COMPARATOR);
+        return startKeys;
+    }
+
     @Override
     public Iterator<ExecRow> iterator(){
         return this;
@@ -24,6 +24,7 @@ import com.splicemachine.db.iapi.sql.execute.ExecRow;
 import com.splicemachine.db.iapi.store.access.Qualifier;
 import com.splicemachine.db.iapi.store.access.ScanController;
 import com.splicemachine.db.iapi.types.DataValueDescriptor;
+import com.splicemachine.primitives.Bytes;
 import com.splicemachine.storage.DataScan;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 
@@ -31,6 +32,7 @@ import java.io.IOException;
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -106,6 +108,55 @@ public class MultiProbeDerbyScanInformation extends DerbyScanInformation{
         return scans;
     }
 
+    /**
+     * Build a single scan which covers every probe value, restricted to one row range per probe value.
+     *
+     * The ranges must come out in the same order as the probe values, so that the scan returns rows
+     * in the order the probe values were sorted in; if they would not (for example because the key
+     * column is stored in descending order), or if the ranges overlap, this returns {@code null} and
+     * the caller should fall back to one scan per probe value.
+     *
+     * @return a scan over all probe values, or {@code null} if the probe ranges cannot be combined
+     * @throws StandardException
+     */
+    public DataScan getMultiRangeScan(TxnView txn, Activation activation, int[] keyDecodingMap) throws StandardException {
+        if (!hasStartPosition())
+            return null;
+        List<DataScan> scans = getScans(txn, null, activation, keyDecodingMap);
+        byte[][] startKeys = new byte[scans.size()][];
+        byte[][] stopKeys = new byte[scans.size()][];
+        int numRanges = 0;
+        for (DataScan scan : scans) {
+            byte[] start = scan.getStartKey();
+            byte[] stop = scan.getStopKey();
+            if (start == null || start.length == 0)
+                return null;
+            if (numRanges > 0) {
+                byte[] previousStop = stopKeys[numRanges - 1];
+                int c = Bytes.BASE_COMPARATOR.compare(startKeys[numRanges - 1], start);
+                if (c == 0 && Bytes.equals(previousStop, stop))
+                    continue; // duplicate probe value
+                if (c > 0 || previousStop == null || previousStop.length == 0
+                        || Bytes.BASE_COMPARATOR.compare(previousStop, start) > 0)
+                    return null;
+            }
+            startKeys[numRanges] = start;
+            stopKeys[numRanges] = stop;
+            numRanges++;
+        }
+        /*
+         * Every row of the combined scan falls in exactly one probe range, so the in-list qualifier holds
+         * by construction; clearing the probe value makes populateQualifiers() drop it.
+         */
+        probeValue = null;
+        DataScan scan = scans.get(0);
+        if (numRanges == 1)
+            return scan;
+        return scan.startKey(startKeys[0])
+                .stopKey(stopKeys[numRanges - 1])
+                .rowRanges(Arrays.copyOf(startKeys, numRanges), Arrays.copyOf(stopKeys, numRanges));
+    }
+
 	@Override
     protected Qualifier[][] populateQualifiers() throws StandardException {
 		Qualifier[][] qualifiers = super.populateQualifiers();
@@ -115,13 +166,21 @@ public class MultiProbeDerbyScanInformation extends DerbyScanInformation{
 			 * set it on that field.
 			 */
 			Qualifier[] ands  = qualifiers[0];
-			if(ands!=null){
+			if(ands!=null && ands.length>0){
 					Qualifier first = ands[0];
 					if(first!=null && probeValue != null){
 							first.clearOrderableCache();
 							//Qualifiers are sorted in the code generation phase,
 						    //and inlist will already be put in the first
 							first.getOrderable().setValue(probeValue);
+					}else if(first!=null && hasStartPosition()){
+							/*
+							 * No single probe value: we are scanning the ranges of all of them at once, and
+							 * the start and stop keys already enforce the in-list, so leave it out.
+							 */
+							Qualifier[][] withoutInList = qualifiers.clone();
+							withoutInList[0] = Arrays.copyOfRange(ands, 1, ands.length);
+							return withoutInList;
 					}
 			}
 		}
@@ -243,10 +243,40 @@ public class MultiProbeTableScanOperation extends TableScanOperation  {
         return "MultiProbe"+super.toString();
     }
 
+    /**
+     * The probe values, not the start and stop keys, decide which rows a multi-probe scan returns.
+     */
+    @Override
+    public boolean isRangeLookup() throws StandardException {
+        return false;
+    }
+
     @Override
     public DataSet<ExecRow> getDataSet(DataSetProcessor dsp) throws StandardException {
         try {
             TxnView txn = getCurrentTransaction();
+            DataScan multiRangeScan = ((MultiProbeDerbyScanInformation) scanInformation).getMultiRangeScan(txn, activation, getKeyDecodingMap());
+            if (multiRangeScan != null) {
+                deSiify(multiRangeScan);
+                return dsp.<MultiProbeTableScanOperation, ExecRow>newScanSet(this, tableName)
+                        .tableDisplayName(tableDisplayName)
+                        .activation(activation)
+                        .transaction(txn)
+                        .scan(multiRangeScan)
+                        .template(currentTemplate)
+                        .tableVersion(tableVersion)
+                        .indexName(indexName)
+                        .reuseRowLocation(true)
+                        .keyColumnEncodingOrder(scanInformation.getColumnOrdering())
+                        .keyColumnSortOrder(scanInformation.getConglomerate().getAscDescInfo())
+                        .keyColumnTypes(getKeyFormatIds())
+                        .accessedKeyColumns(scanInformation.getAccessedPkColumns())
+                        .keyDecodingMap(getKeyDecodingMap())
+                        .rowDecodingMap(getRowDecodingMap())
+                        .baseColumnMap(baseColumnMap)
+                        .buildDataSet(this);
+            }
+            // The probe ranges could not be combined, scan each probe value on its own
             List<DataScan> scans = scanInformation.getScans(getCurrentTransaction(), null, activation, getKeyDecodingMap());
             DataSet<ExecRow> dataSet = dsp.getEmpty();
             OperationContext<MultiProbeTableScanOperation> operationContext = dsp.<MultiProbeTableScanOperation>createOperationContext(this);
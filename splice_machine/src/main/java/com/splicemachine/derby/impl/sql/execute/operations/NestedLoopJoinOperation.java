@@ -14,10 +14,12 @@
 
 package com.splicemachine.derby.impl.sql.execute.operations;
 
+import com.splicemachine.EngineDriver;
 import com.splicemachine.db.iapi.sql.execute.ExecRow;
 import com.splicemachine.derby.iapi.sql.execute.SpliceOperation;
 import com.splicemachine.derby.iapi.sql.execute.SpliceOperationContext;
 import com.splicemachine.derby.stream.function.NLJAntiJoinFunction;
+import com.splicemachine.derby.stream.function.NLJBatchedInnerJoinFunction;
 import com.splicemachine.derby.stream.function.NLJInnerJoinFunction;
 import com.splicemachine.derby.stream.function.NLJOneRowInnerJoinFunction;
 import com.splicemachine.derby.stream.function.NLJOuterJoinFunction;
@@ -105,6 +107,8 @@ public class NestedLoopJoinOperation extends JoinOperation {
 				else {
 					if (oneRowRightSide)
 						return left.mapPartitions(new NLJOneRowInnerJoinFunction(operationContext), true);
+					else if (canBatchLookups())
+						return left.mapPartitions(new NLJBatchedInnerJoinFunction(operationContext), true);
 					else
 						return left.mapPartitions(new NLJInnerJoinFunction(operationContext), true);
 				}
@@ -114,4 +118,15 @@ public class NestedLoopJoinOperation extends JoinOperation {
             operationContext.popScope();
         }
     }
+
+    /**
+     * Inner lookups can be batched when the right side is a plain table scan whose rows depend
+     * on the left row only through its start and stop keys.
+     */
+    private boolean canBatchLookups() throws StandardException {
+        if (EngineDriver.driver().getConfiguration().getNestedLoopJoinLookupBatchSize() <= 1)
+            return false;
+        return rightResultSet instanceof TableScanOperation
+                && ((TableScanOperation) rightResultSet).isRangeLookup();
+    }
 }
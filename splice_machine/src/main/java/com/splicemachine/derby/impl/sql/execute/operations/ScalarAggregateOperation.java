@@ -16,20 +16,33 @@ package com.splicemachine.derby.impl.sql.execute.operations;
 
 import com.splicemachine.derby.iapi.sql.execute.SpliceOperation;
 import com.splicemachine.derby.iapi.sql.execute.SpliceOperationContext;
+import com.splicemachine.derby.impl.sql.execute.operations.framework.SpliceGenericAggregator;
 import com.splicemachine.derby.stream.function.ScalarAggregateFlatMapFunction;
 import com.splicemachine.derby.stream.iapi.DataSet;
 import com.splicemachine.derby.stream.iapi.DataSetProcessor;
 import com.splicemachine.derby.stream.iapi.OperationContext;
+import com.splicemachine.derby.stream.iterator.TableScannerIterator;
+import com.splicemachine.derby.stream.profile.ProfiledIterator;
+import com.splicemachine.derby.stream.vector.BatchAggregate;
+import com.splicemachine.derby.stream.vector.BatchQualifier;
+import com.splicemachine.derby.stream.vector.ColumnBatch;
 import com.splicemachine.derby.utils.EngineUtils;
+import com.splicemachine.EngineDriver;
+import com.splicemachine.pipeline.Exceptions;
 import com.splicemachine.utils.SpliceLogUtils;
 import com.splicemachine.db.iapi.error.StandardException;
 import com.splicemachine.db.iapi.services.loader.GeneratedMethod;
 import com.splicemachine.db.iapi.sql.Activation;
+import com.splicemachine.db.iapi.sql.execute.ExecAggregator;
 import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.store.access.Qualifier;
+import com.splicemachine.db.impl.sql.execute.AggregatorInfo;
 import org.apache.log4j.Logger;
 import java.io.IOException;
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
+import java.util.Arrays;
+import java.util.Iterator;
 
 /**
  * Operation for performing Scalar Aggregations (sum, avg, max/min, etc.). 
@@ -118,10 +131,92 @@ public class ScalarAggregateOperation extends GenericAggregateOperation {
 
     @Override
     public DataSet<ExecRow> getDataSet(DataSetProcessor dsp) throws StandardException {
+        DataSet<ExecRow> batched = getBatchDataSet(dsp);
+        if (batched != null)
+            return batched;
         OperationContext<ScalarAggregateOperation> operationContext = dsp.createOperationContext(this);
         DataSet<ExecRow> dsSource = source.getDataSet(dsp);
         DataSet<ExecRow> ds = dsSource.mapPartitions(new ScalarAggregateFlatMapFunction(operationContext, false), false, /*pushScope=*/true, "First Aggregation");
         DataSet<ExecRow> ds2 = ds.coalesce(1, /*shuffle=*/true, /*isLast=*/false, operationContext, /*pushScope=*/true, "Coalesce");
         return ds2.mapPartitions(new ScalarAggregateFlatMapFunction(operationContext, true), /*isLast=*/true, /*pushScope=*/true, "Final Aggregation");
     }
+
+    /**
+     * Aggregate in column batches when running in control over a plain table scan, with nothing but a projection
+     * of columns in between. The scanned rows are gathered into batches of the configured size; the scan
+     * qualifiers and the aggregates then run over one column at a time, in loops over primitive arrays.
+     *
+     * @return the aggregated row, or {@code null} if the plan, the aggregates or the column types don't allow
+     * batching, in which case the rows are aggregated one at a time.
+     */
+    private DataSet<ExecRow> getBatchDataSet(DataSetProcessor dsp) throws StandardException {
+        int batchSize = EngineDriver.driver().getConfiguration().getBatchAggregationSize();
+        if (batchSize <= 0 || dsp.getType() != DataSetProcessor.Type.CONTROL || !(source instanceof ProjectRestrictOperation))
+            return null;
+        ProjectRestrictOperation projectRestrict = (ProjectRestrictOperation) source;
+        if (projectRestrict.getRestrictionMethodName() != null || projectRestrict.getConstantRestrictionMethodName() != null
+                || !(projectRestrict.getSource() instanceof TableScanOperation))
+            return null;
+        TableScanOperation scan = (TableScanOperation) projectRestrict.getSource();
+        if (!scan.isBatchScannable())
+            return null;
+
+        ExecRow template = scan.getExecRowDefinition();
+        ExecRow aggResult = sourceExecIndexRow.getClone();
+        BatchAggregate[] batchAggregates = new BatchAggregate[aggregates.length];
+        int[] columns = new int[aggregates.length];
+        int nColumns = 0;
+        for (int i = 0; i < aggregates.length; i++) {
+            SpliceGenericAggregator aggregate = aggregates[i];
+            AggregatorInfo aggInfo = aggregate.getAggregatorInfo();
+            if (aggInfo == null || aggInfo.isDistinct())
+                return null;
+            int column = -1;
+            if (!"COUNT(*)".equals(aggInfo.getAggregateName())) {
+                int mapped = projectRestrict.projectMapping[aggregate.getInputColumnId() - 1];
+                if (mapped <= 0)
+                    return null; // an expression rather than a column
+                column = mapped - 1;
+            }
+            aggregate.initialize(aggResult);
+            ExecAggregator aggregator = (ExecAggregator) aggResult.getColumn(aggregate.getAggregatorColumnId()).getObject();
+            batchAggregates[i] = BatchAggregate.create(aggInfo.getAggregateName(), aggregator, column, template);
+            if (batchAggregates[i] == null)
+                return null;
+            if (column >= 0)
+                columns[nColumns++] = column;
+        }
+        BatchQualifier qualifier = null;
+        Qualifier[][] qualifiers = scan.getScanInformation().getScanQualifiers();
+        if (qualifiers != null) {
+            qualifier = BatchQualifier.create(qualifiers, scan.getOperationInformation().getBaseColumnMap(), template);
+            if (qualifier == null)
+                return null;
+            int[] qualifierColumns = qualifier.getColumns();
+            columns = Arrays.copyOf(columns, nColumns + qualifierColumns.length);
+            System.arraycopy(qualifierColumns, 0, columns, nColumns, qualifierColumns.length);
+            nColumns = columns.length;
+        }
+        ColumnBatch batch = ColumnBatch.forTemplate(template, Arrays.copyOf(columns, nColumns), batchSize);
+        if (batch == null)
+            return null;
+        Iterator<ExecRow> rows = ProfiledIterator.unwrap(scan.getDataSet(dsp).toLocalIterator(), scan.getProfile());
+        if (!(rows instanceof TableScannerIterator))
+            return null;
+
+        TableScannerIterator scanner = (TableScannerIterator) rows;
+        try {
+            while (scanner.nextBatch(batch)) {
+                if (qualifier != null)
+                    qualifier.apply(batch);
+                for (BatchAggregate batchAggregate : batchAggregates) {
+                    batchAggregate.aggregate(batch);
+                }
+            }
+        } catch (IOException e) {
+            throw Exceptions.parseException(e);
+        }
+        finishAggregation(aggResult);
+        return dsp.singleRowDataSet(aggResult);
+    }
 }
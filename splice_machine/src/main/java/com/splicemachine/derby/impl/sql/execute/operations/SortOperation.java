@@ -15,6 +15,10 @@
 package com.splicemachine.derby.impl.sql.execute.operations;
 
 import com.splicemachine.derby.stream.function.CloneFunction;
+import com.splicemachine.derby.stream.function.EncodedKeyComparator;
+import com.splicemachine.derby.stream.function.ShuffleDecodeFunction;
+import com.splicemachine.derby.stream.function.ShuffleEncodeFunction;
+import com.splicemachine.derby.utils.marshall.ShuffleRowCodec;
 import org.spark_project.guava.base.Strings;
 import com.splicemachine.db.iapi.error.StandardException;
 import com.splicemachine.db.iapi.services.io.FormatableArrayHolder;
@@ -39,6 +43,7 @@ import java.io.ObjectInput;
 import java.io.ObjectOutput;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Properties;
 
@@ -198,6 +203,11 @@ public class SortOperation extends SpliceBaseOperation{
     @SuppressWarnings({"rawtypes","unchecked"})
     public DataSet<ExecRow> getDataSet(DataSetProcessor dsp) throws StandardException{
         OperationContext operationContext=dsp.createOperationContext(this);
+        if(dsp.getType()==DataSetProcessor.Type.SPARK && !distinct){
+            ShuffleRowCodec codec=ShuffleRowCodec.forTemplate(source.getExecRowDefinition(),keyColumns,descColumns,nullsOrderedLow);
+            if(codec!=null)
+                return getEncodedDataSet(dsp,operationContext,codec);
+        }
         DataSet dataSet=source.getDataSet(dsp).map(new CloneFunction<>(operationContext));
 
         if (distinct) {
@@ -234,6 +244,21 @@ public class SortOperation extends SpliceBaseOperation{
         }
     }
 
+    /**
+     * Sort rows which cross the shuffle as encoded bytes. Encoding copies the row, and the key is either encoded or
+     * cloned, so there is no need to clone the row first. When the sort key is byte ordered the shuffle compares the
+     * encoded keys directly.
+     */
+    @SuppressWarnings({"rawtypes","unchecked"})
+    private DataSet<ExecRow> getEncodedDataSet(DataSetProcessor dsp,OperationContext operationContext,ShuffleRowCodec codec) throws StandardException{
+        PairDataSet pair=source.getDataSet(dsp).index(new ShuffleEncodeFunction<>(operationContext,codec,keyColumns));
+        Comparator comparator=codec.isKeyOrdered()?new EncodedKeyComparator():new RowComparator(descColumns,nullsOrderedLow);
+        PairDataSet sortedByKey=pair.sortByKey(comparator,OperationContext.Scope.SORT.displayName(),operationContext);
+        DataSet sortedValues=sortedByKey.values(OperationContext.Scope.READ_SORTED.displayName());
+        return sortedValues.map(new ShuffleDecodeFunction<>(operationContext,codec))
+                .map(new SetCurrentLocatedRowFunction(operationContext),true);
+    }
+
     public String getScopeName(){
         return (distinct ? "Sort Distinct" : "Sort");
     }
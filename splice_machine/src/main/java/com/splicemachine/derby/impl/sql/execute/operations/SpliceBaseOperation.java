@@ -15,6 +15,7 @@
 package com.splicemachine.derby.impl.sql.execute.operations;
 
 import com.splicemachine.EngineDriver;
+import com.splicemachine.access.api.SConfiguration;
 import com.splicemachine.client.SpliceClient;
 import com.splicemachine.db.iapi.error.StandardException;
 import com.splicemachine.db.iapi.reference.SQLState;
@@ -40,6 +41,9 @@ import com.splicemachine.derby.impl.sql.execute.operations.iapi.OperationInforma
 import com.splicemachine.derby.impl.store.access.BaseSpliceTransaction;
 import com.splicemachine.derby.impl.store.access.SpliceTransaction;
 import com.splicemachine.derby.stream.iapi.*;
+import com.splicemachine.derby.stream.profile.OperationProfile;
+import com.splicemachine.derby.stream.profile.QueryProfile;
+import com.splicemachine.derby.stream.profile.SlowQueryLog;
 import com.splicemachine.pipeline.Exceptions;
 import com.splicemachine.si.api.txn.TxnView;
 import com.splicemachine.si.impl.txn.ActiveWriteTxn;
@@ -80,7 +84,16 @@ public abstract class SpliceBaseOperation implements SpliceOperation, ScopeNamed
     protected long modifiedRowCount = 0;
     protected long badRecords = 0;
     protected boolean returnedRows = false;
+    protected OperationProfile profile;
     private volatile UUID uuid = null;
+    private QueryProfile queryProfile;
+    private String engine;
+    private long openTime;
+    private boolean timeExecution;
+    private long executionNanos;
+    private long streamedRows = -1;
+    private long timeToFirstRow = -1;
+    private double streamingThroughput = -1;
     private volatile boolean isKilled = false;
 
     public SpliceBaseOperation(){
@@ -193,10 +206,17 @@ public abstract class SpliceBaseOperation implements SpliceOperation, ScopeNamed
             EngineDriver.driver().getOperationManager().unregisterOperation(uuid);
             logExecutionEnd();
         }
+        boolean finishProfile = uuid != null;
         try{
             if(LOG_CLOSE.isTraceEnabled())
                 LOG_CLOSE.trace(String.format("closing operation %s",this));
             if (remoteQueryClient != null) {
+                if (finishProfile) {
+                    // kept with the statement if it turns out to be slow
+                    streamedRows = remoteQueryClient.getRowsReturned();
+                    timeToFirstRow = remoteQueryClient.getTimeToFirstRow();
+                    streamingThroughput = remoteQueryClient.getThroughput();
+                }
                 remoteQueryClient.close();
             }
             if(closeables!=null){
@@ -235,6 +255,9 @@ public abstract class SpliceBaseOperation implements SpliceOperation, ScopeNamed
             operationContext = null;
         }catch(Exception e){
             throw Exceptions.parseException(e);
+        }finally{
+            if(finishProfile)
+                finishProfile();
         }
     }
 
@@ -261,9 +284,19 @@ public abstract class SpliceBaseOperation implements SpliceOperation, ScopeNamed
             uuid = EngineDriver.driver().getOperationManager().registerOperation(this, Thread.currentThread());
             DataSetProcessor dsp = EngineDriver.driver().processorFactory().chooseProcessor(activation, this);
             logExecutionStart(dsp);
-            openCore();
+            startProfile(dsp);
+            if (timeExecution) {
+                long start = System.nanoTime();
+                openCore();
+                executionNanos += System.nanoTime() - start;
+            } else
+                openCore();
         } catch (Exception e) {
             EngineDriver.driver().getOperationManager().unregisterOperation(uuid);
+            if (queryProfile != null) {
+                QueryProfile.detach(this);
+                queryProfile = null;
+            }
             checkInterruptedException(e);
             throw e;
         }
@@ -465,6 +498,40 @@ public abstract class SpliceBaseOperation implements SpliceOperation, ScopeNamed
 
     }
 
+    private void startProfile(DataSetProcessor dsp) {
+        openTime = System.currentTimeMillis();
+        executionNanos = 0;
+        engine = dsp.getType().toString();
+        streamedRows = -1;
+        timeToFirstRow = -1;
+        streamingThroughput = -1;
+        SConfiguration config = EngineDriver.driver().getConfiguration();
+        timeExecution = config.getSlowQueryThreshold() >= 0;
+        if (dsp.getType() == DataSetProcessor.Type.CONTROL && QueryProfile.shouldProfile(config.getProfileStatementRate()))
+            queryProfile = QueryProfile.attach(this, config.getProfileRowSampleRate());
+    }
+
+    /**
+     * Stop profiling the statement, and keep it in the slow query log if it spent long enough executing to belong
+     * there. Only the top operation of a statement, which was registered when it was opened, does this.
+     */
+    private void finishProfile() {
+        if (queryProfile != null)
+            QueryProfile.detach(this);
+        if (engine == null)
+            return; // never got as far as choosing where to run
+        long elapsed = executionNanos / 1000000L;
+        if (timeExecution && elapsed >= EngineDriver.driver().getConfiguration().getSlowQueryThreshold()) {
+            LanguageConnectionContext lcc = activation.getLanguageConnectionContext();
+            EngineDriver.driver().getSlowQueryLog().record(new SlowQueryLog.SlowQuery(uuid.toString(),
+                    lcc.getCurrentUserId(activation), activation.getPreparedStatement().getSource(), engine,
+                    openTime, elapsed, queryProfile, streamedRows, timeToFirstRow, streamingThroughput));
+        }
+        queryProfile = null;
+        engine = null;
+        timeExecution = false;
+    }
+
     private void logExecutionEnd() {
         LanguageConnectionContext lccToUse = activation.getLanguageConnectionContext();
         if (lccToUse.getLogStatementText()) {
@@ -611,7 +678,14 @@ public abstract class SpliceBaseOperation implements SpliceOperation, ScopeNamed
         if(!isOpen)
             throw StandardException.newException(SQLState.LANG_RESULT_SET_NOT_OPEN,NEXT);
         attachStatementContext();
-        return getNextRowCore();
+        if (!timeExecution)
+            return getNextRowCore();
+        long start = System.nanoTime();
+        try {
+            return getNextRowCore();
+        } finally {
+            executionNanos += System.nanoTime() - start;
+        }
     }
 
     @Override
@@ -859,6 +933,17 @@ public abstract class SpliceBaseOperation implements SpliceOperation, ScopeNamed
         return operationContext;
     }
 
+    /**
+     * @return the profile this operation's rows are recorded in, or null if its statement isn't being profiled.
+     */
+    public OperationProfile getProfile(){
+        return profile;
+    }
+
+    public void setProfile(OperationProfile profile){
+        this.profile=profile;
+    }
+
     @Override
     public void setOperationContext(OperationContext operationContext){
         this.operationContext=operationContext;
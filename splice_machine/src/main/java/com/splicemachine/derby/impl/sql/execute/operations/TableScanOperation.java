@@ -303,6 +303,31 @@ public class TableScanOperation extends ScanOperation{
         return getTableScannerBuilder(dsp);
     }
 
+    /**
+     *
+     * Whether the rows returned by this scan are fully determined by its start and stop keys. When
+     * true, nested loop join lookups which produce the same keys can share a single scan.
+     *
+     * @return true if the scan is keyed, has no qualifiers, and reads from the regular store
+     * @throws StandardException
+     */
+    public boolean isRangeLookup() throws StandardException{
+        return storedAs==null && !pin
+                && scanInformation.hasStartPosition()
+                && scanInformation.getScanQualifiers()==null;
+    }
+
+    /**
+     *
+     * Whether the rows of this scan can be read in column batches, with the scan qualifiers applied to the
+     * whole batch rather than row by row.
+     *
+     * @return true if this is a plain scan of the regular store
+     */
+    public boolean isBatchScannable(){
+        return getClass()==TableScanOperation.class && storedAs==null && !pin && !rowIdKey;
+    }
+
     /**
      *
      * Return the string representation for TableScan.
@@ -21,6 +21,7 @@ import com.splicemachine.db.iapi.sql.Activation;
 import com.splicemachine.db.iapi.sql.ResultDescription;
 import com.splicemachine.db.iapi.sql.conn.LanguageConnectionContext;
 import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.types.DataValueDescriptor;
 import com.splicemachine.db.impl.jdbc.EmbedConnection;
 import com.splicemachine.db.impl.sql.execute.TriggerEvent;
 import com.splicemachine.db.impl.sql.execute.TriggerEventActivator;
@@ -51,11 +52,25 @@ public class TriggerHandler {
      */
     private static final int AFTER_ROW_BUFFER_SIZE = 1000;
 
+    /**
+     * When the AFTER row trigger is fired for a whole batch of rows at once, its action runs once per batch, so the
+     * buffer may grow to this many rows.
+     */
+    private static final int AFTER_ROW_BATCH_SIZE = 100000;
+
+    /**
+     * Whatever the number of rows, we fire once the buffered rows take up about this much memory.
+     */
+    private static final long AFTER_ROW_BUFFER_BYTES = Math.min(64L << 20, Runtime.getRuntime().maxMemory() / 64);
+
     private TriggerEventActivator triggerActivator;
     private ResultDescription resultDescription;
     private TriggerEvent beforeEvent;
     private TriggerEvent afterEvent;
     private List<ExecRow> pendingAfterRows;
+    private long pendingAfterRowBytes;
+    private final boolean fireAfterRowsAsBatch;
+    private final int afterRowBufferSize;
 
     private final boolean hasBeforeRow;
     private final boolean hasBeforeStatement;
@@ -81,6 +96,9 @@ public class TriggerHandler {
         this.hasAfterStatement = triggerInfo.hasAfterStatementTrigger();
 
         initTriggerActivator(activation, constantAction);
+
+        this.fireAfterRowsAsBatch = hasAfterRow && triggerActivator.canNotifyRowEventForBatch(afterEvent);
+        this.afterRowBufferSize = fireAfterRowsAsBatch ? AFTER_ROW_BATCH_SIZE : AFTER_ROW_BUFFER_SIZE;
     }
 
     private void initTriggerActivator(Activation activation, WriteCursorConstantOperation constantAction) throws StandardException {
@@ -133,8 +151,14 @@ public class TriggerHandler {
     }
 
     public void fireAfterRowTriggers(ExecRow row, Callable<Void> flushCallback) throws Exception {
-        pendingAfterRows.add(row.getClone());
-        if (pendingAfterRows.size() == AFTER_ROW_BUFFER_SIZE) {
+        ExecRow clone = row.getClone();
+        pendingAfterRows.add(clone);
+        for (DataValueDescriptor dvd : clone.getRowArray()) {
+            if (dvd != null) {
+                pendingAfterRowBytes += dvd.estimateMemoryUsage();
+            }
+        }
+        if (pendingAfterRows.size() >= afterRowBufferSize || pendingAfterRowBytes >= AFTER_ROW_BUFFER_BYTES) {
             firePendingAfterTriggers(flushCallback);
         }
     }
@@ -145,14 +169,23 @@ public class TriggerHandler {
         try {
             flushCallback.call();
         } catch (Exception e) {
-            pendingAfterRows.clear();
+            clearPendingAfterRows();
             throw e;
         }
 
-        for (ExecRow flushedRow : pendingAfterRows) {
-            fireAfterRowTriggers(flushedRow);
+        if (fireAfterRowsAsBatch) {
+            triggerActivator.notifyRowEvent(afterEvent, pendingAfterRows);
+        } else {
+            for (ExecRow flushedRow : pendingAfterRows) {
+                fireAfterRowTriggers(flushedRow);
+            }
         }
+        clearPendingAfterRows();
+    }
+
+    private void clearPendingAfterRows() {
         pendingAfterRows.clear();
+        pendingAfterRowBytes = 0;
     }
 
     private void fireAfterRowTriggers(ExecRow row) throws StandardException {
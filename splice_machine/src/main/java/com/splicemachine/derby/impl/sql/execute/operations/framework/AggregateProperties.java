@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.impl.sql.execute.operations.framework;
+
+/**
+ * Describes how the partial states of an aggregate may be combined, so that operators which keep aggregates
+ * over changing sets of rows (window frames, rollup levels) can pick the cheapest way of maintaining them.
+ */
+public interface AggregateProperties{
+
+    /**
+     * @return true if a value can be taken back out of a state it was accumulated into, without looking at
+     * the other values of the state (e.g. SUM and COUNT, but not MAX).
+     */
+    boolean isInvertible();
+
+    /**
+     * @return true if two states built from disjoint sets of values can be merged into the state of
+     * their union.
+     */
+    boolean isMergeable();
+
+    /**
+     * @return true if the result depends on the order in which values are accumulated (e.g. RANK or LAG),
+     * in which case states can't be regrouped, even if they are mergeable.
+     */
+    boolean isOrderSensitive();
+}
@@ -34,7 +34,7 @@ import java.io.Serializable;
  *  
  * @author Scott Fines
  */
-public class SpliceGenericAggregator implements Serializable{
+public class SpliceGenericAggregator implements Serializable, AggregateProperties{
 	private static final long serialVersionUID = 1l;
 	private AggregatorInfo aggInfo;
 	final int aggregatorColumnId;
@@ -96,6 +96,25 @@ public class SpliceGenericAggregator implements Serializable{
 	public boolean isDistinct(){
 		return aggInfo.isDistinct();
 	}
+
+	@Override
+	public boolean isInvertible(){
+		return false;
+	}
+
+	/**
+	 * Grouped aggregates can always merge their states, except for distinct ones: two distinct states may have
+	 * seen the same value, which the merged state would count twice.
+	 */
+	@Override
+	public boolean isMergeable(){
+		return aggInfo==null || !aggInfo.isDistinct();
+	}
+
+	@Override
+	public boolean isOrderSensitive(){
+		return false;
+	}
 	
 	public DataValueDescriptor getInputColumnValue(ExecRow row) throws StandardException{
 		return row.getColumn(inputColumnId); 
@@ -0,0 +1,397 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.impl.sql.execute.operations.groupedaggregate;
+
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.reference.SQLState;
+import com.splicemachine.db.iapi.sql.execute.ExecAggregator;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.types.DataValueDescriptor;
+import com.splicemachine.db.iapi.types.SQLLongint;
+import com.splicemachine.db.impl.sql.execute.AggregatorInfo;
+import com.splicemachine.db.impl.sql.execute.DoubleBufferedSumAggregator;
+import com.splicemachine.db.impl.sql.execute.LongBufferedSumAggregator;
+import com.splicemachine.derby.impl.sql.execute.operations.framework.SpliceGenericAggregator;
+import com.splicemachine.derby.stream.vector.ColumnVector;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Grouped aggregation over numeric grouping keys, without any objects per input row.
+ *
+ * Groups are found through an open addressing (linear probing) table whose keys are the grouping columns'
+ * values as longs (doubles by their bits), laid out flat in a single array along with a null mask per group.
+ * Every group gets a dense number; the aggregates keep their running values in primitive arrays indexed by
+ * that number. The only objects created are a copy of the first row of each group and, once the input is
+ * exhausted, one aggregator per group and aggregate, which is handed the group's partial result so that the
+ * usual finishing step produces the same values as aggregating row by row.
+ *
+ * Only {@code COUNT}, {@code COUNT(*)}, and {@code SUM}, {@code MIN} and {@code MAX} of numeric columns are
+ * supported; see {@link #create}.
+ */
+public class PrimitiveHashAggregator{
+    private static final int COUNT_STAR=0;
+    private static final int COUNT=1;
+    private static final int LONG_SUM=2;
+    private static final int DOUBLE_SUM=3;
+    private static final int LONG_MIN=4;
+    private static final int LONG_MAX=5;
+    private static final int DOUBLE_MIN=6;
+    private static final int DOUBLE_MAX=7;
+
+    private static final int INITIAL_GROUPS=64;
+
+    private final int[] keyColumns;
+    private final boolean[] doubleKeys;
+    private final SpliceGenericAggregator[] aggregates;
+    private final int[] kinds;
+    private final int[] inputColumns;
+    private final DataValueDescriptor[] inputTypes;
+
+    private final long[] scratchKey;
+    private long[] keys;
+    private long[] nullMasks;
+    private int[] slots;
+    private int mask;
+    private int groups;
+
+    private ExecRow[] groupRows;
+    private long[][] longValues;
+    private double[][] doubleValues;
+    private long[][] counts;
+    private boolean[][] nullsSeen;
+
+    private PrimitiveHashAggregator(int[] keyColumns,boolean[] doubleKeys,SpliceGenericAggregator[] aggregates,
+                                    int[] kinds,int[] inputColumns,DataValueDescriptor[] inputTypes){
+        this.keyColumns=keyColumns;
+        this.doubleKeys=doubleKeys;
+        this.aggregates=aggregates;
+        this.kinds=kinds;
+        this.inputColumns=inputColumns;
+        this.inputTypes=inputTypes;
+        this.scratchKey=new long[keyColumns.length];
+
+        int capacity=2*INITIAL_GROUPS;
+        this.slots=new int[capacity];
+        Arrays.fill(slots,-1);
+        this.mask=capacity-1;
+        this.keys=new long[INITIAL_GROUPS*keyColumns.length];
+        this.nullMasks=new long[INITIAL_GROUPS];
+        this.groupRows=new ExecRow[INITIAL_GROUPS];
+        this.longValues=new long[aggregates.length][INITIAL_GROUPS];
+        this.doubleValues=new double[aggregates.length][INITIAL_GROUPS];
+        this.counts=new long[aggregates.length][INITIAL_GROUPS];
+        this.nullsSeen=new boolean[aggregates.length][INITIAL_GROUPS];
+    }
+
+    /**
+     * @param keyColumns the (0-based) grouping columns
+     * @param aggregates the aggregates to compute
+     * @param template a row with the types of the input rows
+     * @return an aggregator for the given grouping, or {@code null} if a grouping column isn't numeric, or an
+     * aggregate is distinct, not one of {@code COUNT}, {@code COUNT(*)}, {@code SUM}, {@code MIN} or
+     * {@code MAX}, or (other than for {@code COUNT}) isn't over a numeric column.
+     */
+    public static PrimitiveHashAggregator create(int[] keyColumns,SpliceGenericAggregator[] aggregates,ExecRow template) throws StandardException{
+        if(keyColumns==null || keyColumns.length==0 || keyColumns.length>Long.SIZE || aggregates==null) return null;
+        DataValueDescriptor[] dvds=template.getRowArray();
+        boolean[] doubleKeys=new boolean[keyColumns.length];
+        for(int i=0;i<keyColumns.length;i++){
+            if(keyColumns[i]<0 || keyColumns[i]>=dvds.length) return null;
+            ColumnVector.Kind kind=ColumnVector.kindOf(dvds[keyColumns[i]]);
+            if(kind==null) return null;
+            doubleKeys[i]=kind==ColumnVector.Kind.DOUBLE;
+        }
+        int[] kinds=new int[aggregates.length];
+        int[] inputColumns=new int[aggregates.length];
+        DataValueDescriptor[] inputTypes=new DataValueDescriptor[aggregates.length];
+        for(int i=0;i<aggregates.length;i++){
+            AggregatorInfo aggInfo=aggregates[i].getAggregatorInfo();
+            if(aggInfo==null || aggInfo.isDistinct()) return null;
+            String name=aggInfo.getAggregateName();
+            int column=aggregates[i].getInputColumnId()-1;
+            inputColumns[i]=column;
+            if("COUNT(*)".equals(name)){
+                kinds[i]=COUNT_STAR;
+                continue;
+            }
+            if(column<0 || column>=dvds.length || dvds[column]==null) return null;
+            inputTypes[i]=dvds[column];
+            if("COUNT".equals(name)){
+                kinds[i]=COUNT;
+                continue;
+            }
+            ColumnVector.Kind kind=ColumnVector.kindOf(dvds[column]);
+            if(kind==null) return null;
+            boolean isLong=kind==ColumnVector.Kind.LONG;
+            switch(name){
+                case "SUM":
+                    ExecAggregator aggregator=aggregates[i].getAggregatorInstance();
+                    if(isLong && aggregator instanceof LongBufferedSumAggregator)
+                        kinds[i]=LONG_SUM;
+                    else if(!isLong && aggregator instanceof DoubleBufferedSumAggregator)
+                        kinds[i]=DOUBLE_SUM;
+                    else
+                        return null;
+                    break;
+                case "MIN":
+                    kinds[i]=isLong?LONG_MIN:DOUBLE_MIN;
+                    break;
+                case "MAX":
+                    kinds[i]=isLong?LONG_MAX:DOUBLE_MAX;
+                    break;
+                default:
+                    return null;
+            }
+        }
+        return new PrimitiveHashAggregator(keyColumns,doubleKeys,aggregates,kinds,inputColumns,inputTypes);
+    }
+
+    /**
+     * Add a row to its group.
+     */
+    public void add(ExecRow row) throws StandardException{
+        DataValueDescriptor[] dvds=row.getRowArray();
+        long nullMask=0L;
+        for(int i=0;i<keyColumns.length;i++){
+            DataValueDescriptor dvd=dvds[keyColumns[i]];
+            if(dvd==null || dvd.isNull()){
+                nullMask|=1L<<i;
+                scratchKey[i]=0L;
+            }else if(doubleKeys[i]){
+                double d=dvd.getDouble();
+                // -0.0 and 0.0 are equal, so they have to group together
+                scratchKey[i]=d==0d?0L:Double.doubleToLongBits(d);
+            }else
+                scratchKey[i]=dvd.getLong();
+        }
+        int group=findOrInsert(nullMask,row);
+        for(int a=0;a<kinds.length;a++){
+            accumulate(a,group,kinds[a]==COUNT_STAR?null:dvds[inputColumns[a]]);
+        }
+    }
+
+    /**
+     * @return the number of groups seen so far
+     */
+    public int size(){
+        return groups;
+    }
+
+    /**
+     * @return one row per group: the group's first row, with every aggregator set up from the group's result.
+     * The rows still have to be finished.
+     */
+    public Iterator<ExecRow> results(){
+        return new Iterator<ExecRow>(){
+            private int next;
+
+            @Override
+            public boolean hasNext(){
+                return next<groups;
+            }
+
+            @Override
+            public ExecRow next(){
+                if(next>=groups) throw new NoSuchElementException();
+                try{
+                    return resultRow(next++);
+                }catch(StandardException se){
+                    throw new RuntimeException(se);
+                }
+            }
+
+            @Override
+            public void remove(){
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private void accumulate(int a,int group,DataValueDescriptor dvd) throws StandardException{
+        int kind=kinds[a];
+        if(kind==COUNT_STAR){
+            counts[a][group]++;
+            return;
+        }
+        if(dvd.isNull()){
+            nullsSeen[a][group]=true;
+            return;
+        }
+        long count=counts[a][group]++;
+        switch(kind){
+            case LONG_SUM:
+                try{
+                    longValues[a][group]=Math.addExact(longValues[a][group],dvd.getLong());
+                }catch(ArithmeticException ae){
+                    throw StandardException.newException(SQLState.LANG_OUTSIDE_RANGE_FOR_DATATYPE,"BIGINT");
+                }
+                break;
+            case DOUBLE_SUM:
+                doubleValues[a][group]+=dvd.getDouble();
+                break;
+            case LONG_MIN:{
+                long l=dvd.getLong();
+                if(count==0 || l<longValues[a][group]) longValues[a][group]=l;
+                break;
+            }
+            case LONG_MAX:{
+                long l=dvd.getLong();
+                if(count==0 || l>longValues[a][group]) longValues[a][group]=l;
+                break;
+            }
+            case DOUBLE_MIN:{
+                double d=dvd.getDouble();
+                if(count==0 || d<doubleValues[a][group]) doubleValues[a][group]=d;
+                break;
+            }
+            case DOUBLE_MAX:{
+                double d=dvd.getDouble();
+                if(count==0 || d>doubleValues[a][group]) doubleValues[a][group]=d;
+                break;
+            }
+            default:
+                // COUNT only needs the count
+        }
+    }
+
+    private ExecRow resultRow(int group) throws StandardException{
+        ExecRow row=groupRows[group];
+        groupRows[group]=null;
+        for(int a=0;a<aggregates.length;a++){
+            SpliceGenericAggregator aggregate=aggregates[a];
+            ExecAggregator aggregator=aggregate.getAggregatorInstance();
+            row.getColumn(aggregate.getAggregatorColumnId()).setValue(aggregator);
+            long count=counts[a][group];
+            if(nullsSeen[a][group])
+                aggregator.accumulate(inputTypes[a].getNewNull(),aggregate);
+            if(count==0) continue;
+            switch(kinds[a]){
+                case COUNT_STAR:
+                case COUNT:
+                    aggregator.add(new SQLLongint(count));
+                    break;
+                case LONG_SUM:
+                    aggregator.add(new SQLLongint(longValues[a][group]));
+                    break;
+                case DOUBLE_SUM:
+                    ((DoubleBufferedSumAggregator)aggregator).addDirect(doubleValues[a][group]);
+                    break;
+                case LONG_MIN:
+                case LONG_MAX:{
+                    DataValueDescriptor value=inputTypes[a].getNewNull();
+                    value.setValue(longValues[a][group]);
+                    aggregator.add(value);
+                    break;
+                }
+                default:{
+                    DataValueDescriptor value=inputTypes[a].getNewNull();
+                    value.setValue(doubleValues[a][group]);
+                    aggregator.add(value);
+                }
+            }
+        }
+        return row;
+    }
+
+    private int findOrInsert(long nullMask,ExecRow row) throws StandardException{
+        int width=scratchKey.length;
+        int slot=hash(nullMask)&mask;
+        while(true){
+            int group=slots[slot];
+            if(group<0) break;
+            if(nullMasks[group]==nullMask && keyEquals(group,width))
+                return group;
+            slot=(slot+1)&mask;
+        }
+        int group=groups++;
+        if(group==groupRows.length)
+            growGroups();
+        System.arraycopy(scratchKey,0,keys,group*width,width);
+        nullMasks[group]=nullMask;
+        groupRows[group]=row.getClone();
+        slots[slot]=group;
+        if(2*groups>slots.length)
+            rehash();
+        return group;
+    }
+
+    private boolean keyEquals(int group,int width){
+        int offset=group*width;
+        for(int i=0;i<width;i++){
+            if(keys[offset+i]!=scratchKey[i]) return false;
+        }
+        return true;
+    }
+
+    private int hash(long nullMask){
+        long h=nullMask;
+        for(long k : scratchKey){
+            h=h*31+k;
+        }
+        return mix(h);
+    }
+
+    private int hashOf(int group){
+        int width=scratchKey.length;
+        long h=nullMasks[group];
+        for(int i=0;i<width;i++){
+            h=h*31+keys[group*width+i];
+        }
+        return mix(h);
+    }
+
+    private static int mix(long h){
+        // the finalizer of MurmurHash3, so that keys which differ only in their high bits spread over the table
+        h^=h>>>33;
+        h*=0xff51afd7ed558ccdL;
+        h^=h>>>33;
+        h*=0xc4ceb9fe1a85ec53L;
+        h^=h>>>33;
+        return (int)h;
+    }
+
+    private void growGroups(){
+        int capacity=2*groupRows.length;
+        keys=Arrays.copyOf(keys,capacity*scratchKey.length);
+        nullMasks=Arrays.copyOf(nullMasks,capacity);
+        groupRows=Arrays.copyOf(groupRows,capacity);
+        for(int a=0;a<aggregates.length;a++){
+            longValues[a]=Arrays.copyOf(longValues[a],capacity);
+            doubleValues[a]=Arrays.copyOf(doubleValues[a],capacity);
+            counts[a]=Arrays.copyOf(counts[a],capacity);
+            nullsSeen[a]=Arrays.copyOf(nullsSeen[a],capacity);
+        }
+    }
+
+    private void rehash(){
+        int[] newSlots=new int[2*slots.length];
+        Arrays.fill(newSlots,-1);
+        int newMask=newSlots.length-1;
+        for(int group=0;group<groups;group++){
+            int slot=hashOf(group)&newMask;
+            while(newSlots[slot]>=0){
+                slot=(slot+1)&newMask;
+            }
+            newSlots[slot]=group;
+        }
+        slots=newSlots;
+        mask=newMask;
+    }
+}
@@ -72,4 +72,10 @@ public interface ScanInformation<T> {
     SpliceConglomerate getConglomerate() throws StandardException;
 
     ExecIndexRow getStartPosition() throws StandardException;
+
+    /**
+     * @return true if the scan is bounded by a generated start key, rather than scanning from the
+     * beginning of the conglomerate.
+     */
+    boolean hasStartPosition();
 }
@@ -23,6 +23,7 @@ import com.splicemachine.db.iapi.services.io.FormatableBitSet;
 import com.splicemachine.db.iapi.services.io.StoredFormatIds;
 import com.splicemachine.db.iapi.sql.execute.ExecRow;
 import com.splicemachine.db.iapi.types.RowLocation;
+import com.splicemachine.derby.impl.sql.execute.LazyDataValueFactory;
 import com.splicemachine.derby.impl.store.ExecRowAccumulator;
 import com.splicemachine.db.iapi.types.HBaseRowLocation;
 import com.splicemachine.derby.utils.StandardIterator;
@@ -85,7 +86,7 @@ public class SITableScanner<Data> implements StandardIterator<ExecRow>,AutoClose
     private SIFilterFactory filterFactory;
     private ExecRowAccumulator accumulator;
     private EntryDecoder entryDecoder;
-    private final Counter outputBytesCounter;
+    private Counter outputBytesCounter;
     private long demarcationPoint;
     private DataValueDescriptor optionalProbeValue;
 
@@ -109,6 +110,7 @@ public class SITableScanner<Data> implements StandardIterator<ExecRow>,AutoClose
         regionId.set(region.getRegionName());
         this.scan = scan;
         this.template = template;
+        LazyDataValueFactory.makeLazy(template); //strings and decimals are only decoded when they are read
         this.rowDecodingMap = rowDecodingMap;
         this.keyColumnSortOrder = keyColumnSortOrder;
         this.indexName = indexName;
@@ -219,6 +221,13 @@ public class SITableScanner<Data> implements StandardIterator<ExecRow>,AutoClose
         return outputBytesCounter.getTotal();
     }
 
+    /**
+     * Count the encoded size of the cells this scanner returns, with a counter from {@code metricFactory}.
+     */
+    void measureBytesOutput(MetricFactory metricFactory){
+        this.outputBytesCounter=metricFactory.newCounter();
+    }
+
     private void measureOutputSize(List<DataCell> keyValues){
         if(outputBytesCounter.isActive()){
             for(DataCell cell:keyValues){
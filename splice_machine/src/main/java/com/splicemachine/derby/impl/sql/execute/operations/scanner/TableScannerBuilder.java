@@ -387,7 +387,7 @@ public abstract class TableScannerBuilder<V> implements Externalizable, ScanSetB
     }
 
     public SITableScanner build(){
-            return new SITableScanner(
+            SITableScanner tableScanner=new SITableScanner(
                     scanner,
                     region,
                     template,
@@ -405,6 +405,9 @@ public abstract class TableScannerBuilder<V> implements Externalizable, ScanSetB
                     filterFactory,
                     demarcationPoint,
                     optionalProbeValue);
+            if(metricFactory.isActive())
+                tableScanner.measureBytesOutput(metricFactory);
+            return tableScanner;
     }
 
     @Override
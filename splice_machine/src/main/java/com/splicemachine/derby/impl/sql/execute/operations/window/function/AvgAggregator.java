@@ -67,21 +67,45 @@ public class AvgAggregator extends SpliceGenericWindowFunction {
     }
 
     public DataValueDescriptor getResult() throws StandardException {
-        // Iterate through each chunk, compute the max/min of each chunk
-        WindowChunk first = chunks.get(0);
+        // every chunk but the first and the last one is full
         long count = first.last - first.first;
-        NumberDataValue result = (NumberDataValue)first.getResult().cloneValue(false);
-        long r = result.getLong();
-        for (int i = 1; i < chunks.size(); ++i) {
-            WindowChunk chunk = chunks.get(i);
-            NumberDataValue dvd = (NumberDataValue)chunk.getResult();
-            r += dvd.getLong();
-            count += chunk.last - chunk.first;
+        if (first != last) {
+            count += (chunks.size() - 2) * (long) CHUNKSIZE + last.last - last.first;
         }
+        NumberDataValue result = (NumberDataValue)getMergedResult().cloneValue(false);
+        long r = result.getLong();
         result.setValue((r*1.0)/count);
         return result;
     }
 
+    @Override
+    protected DataValueDescriptor mergeResults(DataValueDescriptor left, DataValueDescriptor right) throws StandardException {
+        if (right == null || right.isNull()) {
+            return left == null ? right : left;
+        }
+        if (left == null || left.isNull()) {
+            return right;
+        }
+        NumberDataValue nv = (NumberDataValue) left.cloneValue(false);
+        nv.plus(nv, (NumberDataValue) right, nv);
+        return nv;
+    }
+
+    @Override
+    public boolean isInvertible() {
+        return true;
+    }
+
+    @Override
+    public boolean isMergeable() {
+        return true;
+    }
+
+    @Override
+    public boolean isOrderSensitive() {
+        return false;
+    }
+
     public WindowFunction newWindowFunction() {
         return new AvgAggregator();
     }
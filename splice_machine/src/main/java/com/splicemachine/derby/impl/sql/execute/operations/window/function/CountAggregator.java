@@ -62,12 +62,34 @@ public class CountAggregator extends SpliceGenericWindowFunction {
     }
 
     public DataValueDescriptor getResult() throws StandardException {
-        // Iterate through each chunk, compute the max/min of each chunk
-        long count = 0;
-        for (WindowChunk chunk : chunks) {
-            count += chunk.getResult().getLong();
+        DataValueDescriptor count = getMergedResult();
+        return new SQLLongint(count == null ? 0 : count.getLong());
+    }
+
+    @Override
+    protected DataValueDescriptor mergeResults(DataValueDescriptor left, DataValueDescriptor right) throws StandardException {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
         }
-        return new SQLLongint(count);
+        return new SQLLongint(left.getLong() + right.getLong());
+    }
+
+    @Override
+    public boolean isInvertible() {
+        return true;
+    }
+
+    @Override
+    public boolean isMergeable() {
+        return true;
+    }
+
+    @Override
+    public boolean isOrderSensitive() {
+        return false;
     }
 
     public WindowFunction newWindowFunction() {
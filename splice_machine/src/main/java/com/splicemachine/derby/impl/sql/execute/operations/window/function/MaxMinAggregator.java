@@ -67,43 +67,30 @@ public class MaxMinAggregator extends SpliceGenericWindowFunction {
         }
     }
 
-    private void recalculate(WindowChunk chunk) throws StandardException{
-        DataValueDescriptor result = chunk.get(chunk.first)[0];
+    public DataValueDescriptor getResult() throws StandardException {
+        return getMergedResult();
+    }
 
-        for (int i = chunk.first+1; i < chunk.last; ++i) {
-            DataValueDescriptor dvd = chunk.get(i)[0];
-            if (isMax) {
-                if (dvd.compare(result) > 0) {
-                    result = dvd;
-                }
-            }
-            else {
-                if (dvd.compare(result) < 0) {
-                    result = dvd;
-                }
-            }
+    @Override
+    protected DataValueDescriptor mergeResults(DataValueDescriptor left, DataValueDescriptor right) throws StandardException {
+        if (right == null || right.isNull()) {
+            return left == null ? right : left;
         }
-        chunk.setResult(result);
+        if (left == null || left.isNull()) {
+            return right;
+        }
+        int cmp = right.compare(left);
+        return (isMax ? cmp > 0 : cmp < 0) ? right : left;
     }
 
-    public DataValueDescriptor getResult() throws StandardException {
-        // Iterate through each chunk, compute the max/min of each chunk
-        WindowChunk first = chunks.get(0);
-        DataValueDescriptor result = first.getResult();
-        for (int i = 1; i < chunks.size(); ++i) {
-            DataValueDescriptor dvd = chunks.get(i).getResult();
-            if (isMax) {
-                if (dvd.compare(result) > 0) {
-                    result = dvd;
-                }
-            }
-            else {
-                if (dvd.compare(result) < 0) {
-                    result = dvd;
-                }
-            }
-        }
-        return result;
+    @Override
+    public boolean isMergeable() {
+        return true;
+    }
+
+    @Override
+    public boolean isOrderSensitive() {
+        return false;
     }
 
     @Override
@@ -27,21 +27,34 @@ import com.splicemachine.db.iapi.sql.execute.ExecAggregator;
 import com.splicemachine.db.iapi.sql.execute.WindowFunction;
 import com.splicemachine.db.iapi.types.DataTypeDescriptor;
 import com.splicemachine.db.iapi.types.DataValueDescriptor;
+import com.splicemachine.derby.impl.sql.execute.operations.framework.AggregateProperties;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 
 /**
  * Base class for all window functions. Contains frame "chucking" mechanism for
  * window frames.
  *
+ * Values are only ever added to the last chunk and removed from the first one, so the chunks in between are
+ * full and never change. For mergeable functions, the merged result of those chunks is kept as a queue made of
+ * two stacks: the suffix results of the older chunks, and the running result of the newer ones. Sliding the
+ * frame then costs amortized constant time however large the frame is, and {@link #getMergedResult()} merges
+ * three values instead of every chunk of the frame.
+ *
  * Created by jyuan on 7/28/14.
  */
-public abstract class SpliceGenericWindowFunction implements WindowFunction {
+public abstract class SpliceGenericWindowFunction implements WindowFunction, AggregateProperties {
 
     public static final int CHUNKSIZE = 100;
     protected DataValueDescriptor resultType;
     protected ArrayList<WindowChunk> chunks;
     protected WindowChunk first, last;
 
+    // results of the chunks between the first and the last one, see the class comment
+    private DataValueDescriptor[] frontResults;
+    private int frontStart, frontEnd;
+    private ArrayList<DataValueDescriptor> backResults;
+    private DataValueDescriptor backResult;
+
     public SpliceGenericWindowFunction() {
         reset();
     }
@@ -67,6 +80,9 @@ public abstract class SpliceGenericWindowFunction implements WindowFunction {
         }
 
         if (last.isFull()) {
+            if (last != first && isMergeable()) {
+                pushMiddle(last.getResult());
+            }
             last = new WindowChunk();
             chunks.add(last);
         }
@@ -84,6 +100,9 @@ public abstract class SpliceGenericWindowFunction implements WindowFunction {
                 return null;
             }
             first = chunks.get(0);
+            if (first != last && isMergeable()) {
+                popMiddle();
+            }
         }
         else {
             calculateOnRemove(first, dvd);
@@ -95,6 +114,61 @@ public abstract class SpliceGenericWindowFunction implements WindowFunction {
 
     protected abstract void calculateOnRemove(WindowChunk chunk, DataValueDescriptor[] dvds) throws StandardException;
 
+    /**
+     * Merge the results of two sets of values. Only called on {@link #isMergeable() mergeable} functions, with
+     * either argument possibly null when its set is empty; neither argument may be modified.
+     */
+    protected DataValueDescriptor mergeResults(DataValueDescriptor left, DataValueDescriptor right) throws StandardException {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " is not mergeable");
+    }
+
+    /**
+     * @return the merged result of every chunk of the frame, or null if the frame is empty. Only valid for
+     * {@link #isMergeable() mergeable} functions.
+     */
+    protected DataValueDescriptor getMergedResult() throws StandardException {
+        if (first == null) {
+            return null;
+        }
+        DataValueDescriptor result = first.getResult();
+        if (first != last) {
+            if (frontStart < frontEnd) {
+                result = mergeResults(result, frontResults[frontStart]);
+            }
+            if (backResult != null) {
+                result = mergeResults(result, backResult);
+            }
+            result = mergeResults(result, last.getResult());
+        }
+        return result;
+    }
+
+    /**
+     * Recompute the result of a chunk from the values it still holds, for functions which can't take a value
+     * back out of a result.
+     */
+    protected void recalculate(WindowChunk chunk) throws StandardException {
+        chunk.result = null;
+        for (int i = chunk.first; i < chunk.last; i++) {
+            calculateOnAdd(chunk, chunk.get(i));
+        }
+    }
+
+    @Override
+    public boolean isInvertible() {
+        return false;
+    }
+
+    @Override
+    public boolean isMergeable() {
+        return false;
+    }
+
+    @Override
+    public boolean isOrderSensitive() {
+        return true;
+    }
+
     /**
      * Return the first non-zero comparison of each array item in order.<br/>
      * DVD arrays of differing size are handled like this:
@@ -142,6 +216,40 @@ public abstract class SpliceGenericWindowFunction implements WindowFunction {
         first = last = chunk;
         chunks = new ArrayList<>();
         chunks.add(chunk);
+        frontResults = null;
+        frontStart = frontEnd = 0;
+        backResults = null;
+        backResult = null;
+    }
+
+    private void pushMiddle(DataValueDescriptor result) throws StandardException {
+        // the chunk may become the first one later on, and change as its values are removed
+        DataValueDescriptor copy = result == null ? null : result.cloneValue(false);
+        if (backResults == null) {
+            backResults = new ArrayList<>();
+        }
+        backResults.add(copy);
+        backResult = mergeResults(backResult, copy);
+    }
+
+    private void popMiddle() throws StandardException {
+        if (frontStart == frontEnd) {
+            // move the newer chunks over, keeping the merged result of every suffix
+            int n = backResults.size();
+            if (frontResults == null || frontResults.length < n) {
+                frontResults = new DataValueDescriptor[n];
+            }
+            DataValueDescriptor suffix = null;
+            for (int i = n - 1; i >= 0; i--) {
+                suffix = mergeResults(backResults.get(i), suffix);
+                frontResults[i] = suffix;
+            }
+            frontStart = 0;
+            frontEnd = n;
+            backResults.clear();
+            backResult = null;
+        }
+        frontResults[frontStart++] = null;
     }
 
 
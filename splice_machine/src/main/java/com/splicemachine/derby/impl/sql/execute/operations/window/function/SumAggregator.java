@@ -68,14 +68,35 @@ public class SumAggregator extends SpliceGenericWindowFunction {
 
     @Override
     public DataValueDescriptor getResult() throws StandardException {
-        // Iterate through each chunk, compute the max/min of each chunk
-        WindowChunk first = chunks.get(0);
-        NumberDataValue result = (NumberDataValue)first.getResult();
-        for (int i = 1; i < chunks.size(); ++i) {
-            NumberDataValue dvd = (NumberDataValue)chunks.get(i).getResult();
-            result.plus(result, dvd, result);
+        return getMergedResult();
+    }
+
+    @Override
+    protected DataValueDescriptor mergeResults(DataValueDescriptor left, DataValueDescriptor right) throws StandardException {
+        if (right == null || right.isNull()) {
+            return left == null ? right : left;
+        }
+        if (left == null || left.isNull()) {
+            return right;
         }
-        return result;
+        NumberDataValue nv = (NumberDataValue) left.cloneValue(false);
+        nv.plus(nv, (NumberDataValue) right, nv);
+        return nv;
+    }
+
+    @Override
+    public boolean isInvertible() {
+        return true;
+    }
+
+    @Override
+    public boolean isMergeable() {
+        return true;
+    }
+
+    @Override
+    public boolean isOrderSensitive() {
+        return false;
     }
 
     @Override
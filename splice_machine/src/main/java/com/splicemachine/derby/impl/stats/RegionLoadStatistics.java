@@ -14,6 +14,7 @@
 
 package com.splicemachine.derby.impl.stats;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
@@ -26,14 +27,19 @@ import com.splicemachine.db.iapi.stats.FakePartitionStatisticsImpl;
 import com.splicemachine.db.iapi.stats.PartitionStatistics;
 import com.splicemachine.db.iapi.stats.TableStatistics;
 import com.splicemachine.db.iapi.stats.TableStatisticsImpl;
+import com.splicemachine.derby.iapi.sql.StoreFileStatisticsReader;
 import com.splicemachine.storage.Partition;
 import com.splicemachine.storage.PartitionLoad;
+import com.splicemachine.utils.SpliceLogUtils;
+import org.apache.log4j.Logger;
 
 /**
  * @author Scott Fines
  *         Date: 6/8/15
  */
 public class RegionLoadStatistics{
+    private static final Logger LOG = Logger.getLogger(RegionLoadStatistics.class);
+
     public static TableStatistics getTableStatistics(String table, List<Partition> partitions, double fallbackNullFraction, double extraQualifierMultiplier) throws StandardException{
         SConfiguration config =EngineDriver.driver().getConfiguration();
 
@@ -52,7 +58,15 @@ public class RegionLoadStatistics{
         }
 
         List<PartitionStatistics> partitionStats = new ArrayList<>(partitions.size());
+        List<StoreFileStatistics> storeFileStats = new ArrayList<>(partitions.size());
         for(Partition partition:partitions){
+            StoreFileStatistics sfStats = getStoreFileStatistics(config,partition);
+            if(sfStats!=null){
+                storeFileStats.add(sfStats);
+                partitionStats.add(new StoreFilePartitionStatisticsImpl(table,partition.getName(),sfStats,
+                        fallbackNullFraction,extraQualifierMultiplier));
+                continue;
+            }
             double rowSizeRatio = 1.0d;
             long heapSize;
             String partitionName = partition.getName();
@@ -77,7 +91,28 @@ public class RegionLoadStatistics{
                     numRows,
                     heapSize,fallbackNullFraction,extraQualifierMultiplier));
         }
+        if(!storeFileStats.isEmpty() && storeFileStats.size()==partitionStats.size()){
+            /*
+             * Every partition has store file statistics, so we can merge them into one set of table-wide
+             * sketches. With only partial coverage, we stick to summing the partitions
+             */
+            return new StoreFileTableStatisticsImpl(table,partitionStats,StoreFileStatistics.merge(storeFileStats),
+                    fallbackNullFraction,extraQualifierMultiplier);
+        }
         return new TableStatisticsImpl(table,partitionStats,fallbackNullFraction,extraQualifierMultiplier);
     }
 
+    private static StoreFileStatistics getStoreFileStatistics(SConfiguration config,Partition partition){
+        if(!config.getStoreFileStatisticsEnabled()) return null;
+        StoreFileStatisticsReader reader = EngineDriver.driver().storeFileStatisticsReader();
+        if(reader==null) return null;
+        try{
+            return reader.partitionStatistics(partition,false);
+        }catch(IOException e){
+            SpliceLogUtils.warn(LOG,"Unable to read store file statistics for partition %s, falling back to region load: %s",
+                    partition.getName(),e.getMessage());
+            return null;
+        }
+    }
+
 }
@@ -154,6 +154,10 @@ public class StoreCostControllerImpl implements StoreCostController {
         if (partitionStats.isEmpty()) {
             missingPartitions = 0;
             noStats = true;
+            /*
+             * Store file statistics are only used here, for tables without ANALYZE statistics; once a table
+             * is analyzed, its statistics are used even when they are stale
+             */
             if (td.getTableType() != TableDescriptor.EXTERNAL_TYPE)
                 tableStatistics = RegionLoadStatistics.getTableStatistics(tableId, partitions,fallbackNullFraction,extraQualifierMultiplier);
             else {
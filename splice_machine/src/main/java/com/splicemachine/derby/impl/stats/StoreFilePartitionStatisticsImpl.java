@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.impl.stats;
+
+import com.splicemachine.db.iapi.stats.FakePartitionStatisticsImpl;
+
+/**
+ * Partition statistics which are derived from the sketches written alongside each store file,
+ * rather than from an explicit ANALYZE.
+ *
+ * We still don't know anything about the value distribution of a column (so min/max and range selectivity
+ * fall back to the same guesses as {@link FakePartitionStatisticsImpl}), but row counts, row widths,
+ * null counts and cardinalities are measured.
+ */
+public class StoreFilePartitionStatisticsImpl extends FakePartitionStatisticsImpl{
+    private final StoreFileStatistics statistics;
+
+    public StoreFilePartitionStatisticsImpl(String tableId,
+                                            String partitionId,
+                                            StoreFileStatistics statistics,
+                                            double fallbackNullFraction,
+                                            double extraQualifierMultiplier){
+        super(tableId,partitionId,statistics.rowCount(),statistics.totalBytes(),fallbackNullFraction,extraQualifierMultiplier);
+        this.statistics=statistics;
+    }
+
+    @Override
+    public int avgRowWidth(){
+        int width = statistics.avgRowWidth();
+        return width>0?width:super.avgRowWidth();
+    }
+
+    @Override
+    public long nullCount(int positionNumber){
+        if(positionNumber>=statistics.numColumns())
+            return super.nullCount(positionNumber);
+        return statistics.nullCount(positionNumber);
+    }
+
+    @Override
+    public long notNullCount(int positionNumber){
+        if(positionNumber>=statistics.numColumns())
+            return super.notNullCount(positionNumber);
+        return statistics.notNullCount(positionNumber);
+    }
+
+    @Override
+    public long cardinality(int positionNumber){
+        long cardinality = statistics.cardinality(positionNumber);
+        return cardinality<0?super.cardinality(positionNumber):cardinality;
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.impl.stats;
+
+import com.yahoo.memory.NativeMemory;
+import com.yahoo.sketches.theta.CompactSketch;
+import com.yahoo.sketches.theta.SetOperation;
+import com.yahoo.sketches.theta.Sketch;
+import com.yahoo.sketches.theta.Union;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Lightweight statistics for a single store file (or a merged set of store files).
+ *
+ * These are generated as a side effect of flushes and compactions, so they do not know anything about
+ * the types of the columns that they describe. Instead, they keep a theta sketch over the hash of the
+ * encoded row keys (to count distinct rows across store files) and a theta sketch over the hash of the
+ * encoded bytes of each column (to estimate per-column cardinality), along with null counts.
+ *
+ * Because theta sketches are mergeable, the statistics for a region are simply the union of the statistics
+ * for all of the store files in that region (and similarly for a table).
+ */
+public class StoreFileStatistics{
+    private static final byte VERSION = 1;
+
+    private final long rowCount;
+    private final long totalBytes;
+    private final Sketch rowKeySketch;
+    /*indexed by storage position; null entries mean the column was never seen*/
+    private final Sketch[] columnSketches;
+    private final long[] nonNullCounts;
+
+    public StoreFileStatistics(long rowCount,
+                               long totalBytes,
+                               Sketch rowKeySketch,
+                               Sketch[] columnSketches,
+                               long[] nonNullCounts){
+        assert columnSketches.length==nonNullCounts.length: "Column sketches and null counts do not match";
+        this.rowCount=rowCount;
+        this.totalBytes=totalBytes;
+        this.rowKeySketch=rowKeySketch;
+        this.columnSketches=columnSketches;
+        this.nonNullCounts=nonNullCounts;
+    }
+
+    public long rowCount(){
+        return rowCount;
+    }
+
+    public long totalBytes(){
+        return totalBytes;
+    }
+
+    public int avgRowWidth(){
+        if(rowCount<=0) return 0;
+        return (int)(totalBytes/rowCount);
+    }
+
+    public int numColumns(){
+        return columnSketches.length;
+    }
+
+    /**
+     * @param position the storage position of the column (indexed from 0)
+     * @return the estimated number of distinct non-null values for the column, or {@code -1} if
+     * nothing is known about the column.
+     */
+    public long cardinality(int position){
+        if(position<0 || position>=columnSketches.length || columnSketches[position]==null) return -1L;
+        return Math.min((long)columnSketches[position].getEstimate(),rowCount);
+    }
+
+    /**
+     * @param position the storage position of the column (indexed from 0)
+     * @return the number of rows in which the column was null (or missing)
+     */
+    public long nullCount(int position){
+        if(position<0 || position>=nonNullCounts.length) return rowCount;
+        return Math.max(0L,rowCount-nonNullCounts[position]);
+    }
+
+    public long notNullCount(int position){
+        return rowCount-nullCount(position);
+    }
+
+    /**
+     * Merge a collection of statistics together. Rows which appear in more than one of the
+     * statistics (e.g. because they were updated after the first flush) are counted only once.
+     *
+     * @param statistics the statistics to merge
+     * @return the merged statistics, or {@code null} if {@code statistics} is empty
+     */
+    public static StoreFileStatistics merge(Collection<StoreFileStatistics> statistics){
+        if(statistics.isEmpty()) return null;
+        if(statistics.size()==1) return statistics.iterator().next();
+
+        int numColumns = 0;
+        long rawRowCount = 0L;
+        long rawBytes = 0L;
+        Union rowUnion = SetOperation.builder().buildUnion();
+        for(StoreFileStatistics stats:statistics){
+            numColumns = Math.max(numColumns,stats.columnSketches.length);
+            rawRowCount+=stats.rowCount;
+            rawBytes+=stats.totalBytes;
+            rowUnion.update(stats.rowKeySketch);
+        }
+        CompactSketch rows = rowUnion.getResult();
+        long rowCount = Math.min(rawRowCount,Math.round(rows.getEstimate()));
+        /*
+         * Rows which show up in multiple store files are only counted once, so scale
+         * the additive counts down by the same amount.
+         */
+        double scale = rawRowCount==0?0d:((double)rowCount)/rawRowCount;
+
+        Union[] columnUnions = new Union[numColumns];
+        double[] nonNull = new double[numColumns];
+        for(StoreFileStatistics stats:statistics){
+            for(int i=0;i<stats.columnSketches.length;i++){
+                nonNull[i]+=stats.nonNullCounts[i];
+                if(stats.columnSketches[i]==null) continue;
+                if(columnUnions[i]==null)
+                    columnUnions[i] = SetOperation.builder().buildUnion();
+                columnUnions[i].update(stats.columnSketches[i]);
+            }
+        }
+        Sketch[] columnSketches = new Sketch[numColumns];
+        long[] nonNullCounts = new long[numColumns];
+        for(int i=0;i<numColumns;i++){
+            if(columnUnions[i]!=null)
+                columnSketches[i] = columnUnions[i].getResult();
+            nonNullCounts[i] = Math.round(nonNull[i]*scale);
+        }
+        return new StoreFileStatistics(rowCount,Math.round(rawBytes*scale),rows,columnSketches,nonNullCounts);
+    }
+
+    public byte[] toBytes() throws IOException{
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try(DataOutputStream out = new DataOutputStream(baos)){
+            out.writeByte(VERSION);
+            out.writeLong(rowCount);
+            out.writeLong(totalBytes);
+            writeSketch(out,rowKeySketch);
+            out.writeInt(columnSketches.length);
+            for(int i=0;i<columnSketches.length;i++){
+                out.writeLong(nonNullCounts[i]);
+                writeSketch(out,columnSketches[i]);
+            }
+        }
+        return baos.toByteArray();
+    }
+
+    public static StoreFileStatistics fromBytes(byte[] bytes) throws IOException{
+        try(DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))){
+            byte version = in.readByte();
+            if(version!=VERSION)
+                throw new IOException("Unknown store file statistics version "+version);
+            long rowCount = in.readLong();
+            long totalBytes = in.readLong();
+            Sketch rowKeySketch = readSketch(in);
+            int numColumns = in.readInt();
+            Sketch[] columnSketches = new Sketch[numColumns];
+            long[] nonNullCounts = new long[numColumns];
+            for(int i=0;i<numColumns;i++){
+                nonNullCounts[i] = in.readLong();
+                columnSketches[i] = readSketch(in);
+            }
+            return new StoreFileStatistics(rowCount,totalBytes,rowKeySketch,columnSketches,nonNullCounts);
+        }
+    }
+
+    @Override
+    public String toString(){
+        return "StoreFileStatistics{rowCount="+rowCount+
+                ", totalBytes="+totalBytes+
+                ", nonNullCounts="+Arrays.toString(nonNullCounts)+"}";
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private static void writeSketch(DataOutputStream out,Sketch sketch) throws IOException{
+        if(sketch==null){
+            out.writeInt(-1);
+            return;
+        }
+        byte[] sketchBytes = sketch.toByteArray();
+        out.writeInt(sketchBytes.length);
+        out.write(sketchBytes);
+    }
+
+    private static Sketch readSketch(DataInputStream in) throws IOException{
+        int length = in.readInt();
+        if(length<0) return null;
+        byte[] sketchBytes = new byte[length];
+        in.readFully(sketchBytes);
+        return Sketch.heapify(new NativeMemory(sketchBytes));
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.impl.stats;
+
+import com.splicemachine.encoding.MultiFieldDecoder;
+import com.splicemachine.hash.Hash32;
+import com.splicemachine.hash.HashFunctions;
+import com.splicemachine.storage.DataCell;
+import com.splicemachine.storage.EntryDecoder;
+import com.splicemachine.storage.index.BitIndex;
+import com.splicemachine.utils.ByteSlice;
+import com.yahoo.sketches.theta.Sketch;
+import com.yahoo.sketches.theta.UpdateSketch;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Builds {@link StoreFileStatistics} from the stream of cells which is written into a single store file.
+ *
+ * Cells are expected in store order (i.e. sorted by row, then qualifier, then timestamp descending), which is
+ * what a flush or compaction scanner emits. Because of that ordering, all of the tombstones for a row are seen
+ * before any of its user data, so we can determine whether the row is live without buffering it.
+ *
+ * The collector does not attempt to resolve transactions; rows written by rolled back or still-active
+ * transactions are counted like any other row. The result is an estimate, not an exact count.
+ */
+public class StoreFileStatisticsCollector{
+    /*
+     * Fields are hashed in place inside the packed row, so we need hashes which respect the offset;
+     * two 32-bit murmur3 hashes are combined to keep collisions rare for high-cardinality columns
+     */
+    private static final Hash32 highHash = HashFunctions.murmur3(0);
+    private static final Hash32 lowHash = HashFunctions.murmur3(0x5bd1e995);
+
+    private final int lgNominalEntries;
+    private final UpdateSketch rowKeySketch;
+    private UpdateSketch[] columnSketches = new UpdateSketch[16];
+    private long[] nonNullCounts = new long[16];
+    private long rowCount;
+    private long totalBytes;
+
+    private final EntryDecoder entryDecoder = new EntryDecoder();
+    private final ByteSlice fieldSlice = new ByteSlice();
+
+    /*state for the row that we are currently looking at*/
+    private final ByteSlice currentRow = new ByteSlice();
+    private final BitSet rowColumns = new BitSet();
+    private boolean inRow;
+    private long tombstoneTimestamp;
+    private long antiTombstoneTimestamp;
+    private long rowBytes;
+
+    public StoreFileStatisticsCollector(int lgNominalEntries){
+        this.lgNominalEntries=lgNominalEntries;
+        this.rowKeySketch = newSketch();
+    }
+
+    public void cell(DataCell cell) throws IOException{
+        byte[] row = cell.keyArray();
+        int rowOffset = cell.keyOffset();
+        int rowLength = cell.keyLength();
+        if(!inRow || !currentRow.equals(row,rowOffset,rowLength)){
+            finishRow();
+            startRow(row,rowOffset,rowLength);
+        }
+        long timestamp = cell.version();
+        switch(cell.dataType()){
+            case TOMBSTONE:
+                if(timestamp>tombstoneTimestamp)
+                    tombstoneTimestamp = timestamp;
+                break;
+            case ANTI_TOMBSTONE:
+                if(timestamp>antiTombstoneTimestamp)
+                    antiTombstoneTimestamp = timestamp;
+                break;
+            case USER_DATA:
+                if(tombstoneTimestamp>antiTombstoneTimestamp && timestamp<=tombstoneTimestamp)
+                    return; //this version has been deleted
+                if(rowBytes<0)
+                    rowBytes = rowLength+cell.valueLength(); //the newest version decides the size of the row
+                accumulateColumns(cell.valueArray(),cell.valueOffset(),cell.valueLength());
+                break;
+            default:
+                //commit timestamps and foreign key counters do not tell us anything about the row contents
+        }
+    }
+
+    public StoreFileStatistics finish(){
+        finishRow();
+        int numColumns = rowColumns.length();
+        for(int i=columnSketches.length-1;i>=0;i--){
+            if(columnSketches[i]!=null){
+                numColumns = Math.max(numColumns,i+1);
+                break;
+            }
+        }
+        Sketch[] sketches = new Sketch[numColumns];
+        for(int i=0;i<numColumns;i++){
+            if(columnSketches[i]!=null)
+                sketches[i] = columnSketches[i].compact();
+        }
+        return new StoreFileStatistics(rowCount,totalBytes,
+                rowKeySketch.compact(),
+                sketches,
+                Arrays.copyOf(nonNullCounts,numColumns));
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private void startRow(byte[] row,int rowOffset,int rowLength){
+        /*
+         * The row array may be reused by the scanner once we move on, so take a copy. Row keys
+         * are small relative to the cells, so this is cheap enough
+         */
+        byte[] rowCopy = new byte[rowLength];
+        System.arraycopy(row,rowOffset,rowCopy,0,rowLength);
+        currentRow.set(rowCopy);
+        inRow = true;
+        tombstoneTimestamp = -1L;
+        antiTombstoneTimestamp = -1L;
+        rowBytes = -1L;
+        rowColumns.clear();
+    }
+
+    private void finishRow(){
+        if(!inRow) return;
+        inRow = false;
+        if(rowBytes<0) return; //no live data for this row
+        rowCount++;
+        totalBytes+=rowBytes;
+        rowKeySketch.update(hash(currentRow.array(),currentRow.offset(),currentRow.length()));
+    }
+
+    private void accumulateColumns(byte[] value,int valueOffset,int valueLength) throws IOException{
+        if(valueLength<=0) return;
+        entryDecoder.set(value,valueOffset,valueLength);
+        BitIndex index = entryDecoder.getCurrentIndex();
+        MultiFieldDecoder decoder = entryDecoder.getEntryDecoder();
+        for(int pos=index.nextSetBit(0);pos>=0;pos=index.nextSetBit(pos+1)){
+            fieldSlice.reset();
+            entryDecoder.nextField(decoder,pos,fieldSlice);
+            /*
+             * Updates only write the columns which were changed, so the first (i.e. newest) version
+             * of the column that we see is the one that counts
+             */
+            if(rowColumns.get(pos)) continue;
+            rowColumns.set(pos);
+            if(fieldSlice.length()<=0) continue; //explicitly null
+            ensureCapacity(pos);
+            if(columnSketches[pos]==null)
+                columnSketches[pos] = newSketch();
+            columnSketches[pos].update(hash(fieldSlice.array(),fieldSlice.offset(),fieldSlice.length()));
+            nonNullCounts[pos]++;
+        }
+    }
+
+    private void ensureCapacity(int pos){
+        if(pos<columnSketches.length) return;
+        int newSize = Math.max(pos+1,2*columnSketches.length);
+        columnSketches = Arrays.copyOf(columnSketches,newSize);
+        nonNullCounts = Arrays.copyOf(nonNullCounts,newSize);
+    }
+
+    private static long hash(byte[] data,int offset,int length){
+        return ((long)highHash.hash(data,offset,length)<<32)|(lowHash.hash(data,offset,length)&0xffffffffL);
+    }
+
+    private UpdateSketch newSketch(){
+        return UpdateSketch.builder().setNominalEntries(1<<lgNominalEntries).build();
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.impl.stats;
+
+import com.splicemachine.db.iapi.stats.PartitionStatistics;
+import com.splicemachine.db.iapi.stats.TableStatisticsImpl;
+
+import java.util.List;
+
+/**
+ * Table statistics built from store file statistics.
+ *
+ * {@link TableStatisticsImpl} would collapse the partitions into a fake partition (since they carry no
+ * column statistics), so instead we use the union of the store file sketches of all partitions as the
+ * effective statistics. That way rows which moved between regions and columns with values shared by
+ * many regions are still counted correctly.
+ */
+public class StoreFileTableStatisticsImpl extends TableStatisticsImpl{
+    private final PartitionStatistics effectiveStatistics;
+
+    public StoreFileTableStatisticsImpl(String tableId,
+                                        List<? extends PartitionStatistics> partitionStatistics,
+                                        StoreFileStatistics mergedStatistics,
+                                        double fallbackNullFraction,
+                                        double extraQualifierMultiplier){
+        super(tableId,partitionStatistics,fallbackNullFraction,extraQualifierMultiplier);
+        this.effectiveStatistics = new StoreFilePartitionStatisticsImpl(tableId,null,mergedStatistics,
+                fallbackNullFraction,extraQualifierMultiplier);
+    }
+
+    @Override
+    public PartitionStatistics getEffectivePartitionStatistics(){
+        return effectiveStatistics;
+    }
+}
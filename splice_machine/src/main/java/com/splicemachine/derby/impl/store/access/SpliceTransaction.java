@@ -15,6 +15,7 @@
 package com.splicemachine.derby.impl.store.access;
 
 import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.reference.SQLState;
 import com.splicemachine.db.iapi.services.locks.CompatibilitySpace;
 import com.splicemachine.db.iapi.types.DataValueFactory;
 import com.splicemachine.pipeline.Exceptions;
@@ -97,6 +98,10 @@ public class SpliceTransaction extends BaseSpliceTransaction<TransactionImpl> {
         transaction.setActiveState(nested, additive, parentTxn, table);
     }
 
+    public void setReadOnly(boolean readOnly){
+        transaction.setReadOnly(readOnly);
+    }
+
     public int getTransactionStatus(){
         return transaction.getTransactionStatus();
     }
@@ -110,6 +115,8 @@ public class SpliceTransaction extends BaseSpliceTransaction<TransactionImpl> {
     }
 
     public Txn elevate(byte[] writeTable) throws StandardException{
+        if(transaction.isSnapshotRead())
+            throw StandardException.newException(SQLState.AUTH_WRITE_WITH_READ_ONLY_CONNECTION);
         try {
             return transaction.elevate(writeTable);
         } catch (IOException e) {
@@ -1652,6 +1652,12 @@ public class SpliceTransactionManager implements XATransactionController,
         rawtran.setNoLockWait(noWait);
     }
 
+    @Override
+    public void setReadOnly(boolean readOnly) {
+        if (rawtran instanceof SpliceTransaction)
+            ((SpliceTransaction) rawtran).setReadOnly(readOnly);
+    }
+
     /**
      * Get string id of the transaction.
      * <p>
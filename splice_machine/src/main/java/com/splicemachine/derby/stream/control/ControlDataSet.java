@@ -47,6 +47,8 @@ import com.splicemachine.derby.stream.output.insert.InsertPipelineWriter;
 import com.splicemachine.derby.stream.output.insert.InsertTableWriterBuilder;
 import com.splicemachine.derby.stream.output.update.UpdatePipelineWriter;
 import com.splicemachine.derby.stream.output.update.UpdateTableWriterBuilder;
+import com.splicemachine.derby.stream.profile.OperationProfile;
+import com.splicemachine.derby.stream.profile.ProfiledIterator;
 import com.splicemachine.pipeline.Exceptions;
 import com.splicemachine.primitives.Bytes;
 import com.splicemachine.si.impl.driver.SIDriver;
@@ -110,9 +112,13 @@ public class ControlDataSet<V> implements DataSet<V> {
     }
 
     @Override
-    public <Op extends SpliceOperation, U> DataSet<U> mapPartitions(SpliceFlatMapFunction<Op,Iterator<V>, U> f) {
+    public <Op extends SpliceOperation, U> DataSet<U> mapPartitions(final SpliceFlatMapFunction<Op,Iterator<V>, U> f) {
         try {
-            return new ControlDataSet<>(f.call(iterator));
+            OperationProfile profile = ProfiledIterator.profileOf(f);
+            if (profile == null)
+                return new ControlDataSet<>(f.call(iterator));
+            final Iterator<V> source = ProfiledIterator.unwrap(iterator, profile);
+            return new ControlDataSet<>(ProfiledIterator.wrap(ProfiledIterator.time(profile, () -> f.call(source)), profile));
         } catch (Exception e) {
             throw Exceptions.getRuntimeException(e);
         }
@@ -181,7 +187,9 @@ public class ControlDataSet<V> implements DataSet<V> {
 
     @Override
     public <Op extends SpliceOperation, U> DataSet<U> map(SpliceFunction<Op,V,U> function) {
-        return new ControlDataSet<U>(Iterators.transform(iterator, function));
+        OperationProfile profile = ProfiledIterator.profileOf(function);
+        return new ControlDataSet<U>(ProfiledIterator.wrap(
+                Iterators.transform(ProfiledIterator.unwrap(iterator, profile), function), profile));
     }
 
     @Override
@@ -250,7 +258,9 @@ public class ControlDataSet<V> implements DataSet<V> {
 
     @Override
     public <Op extends SpliceOperation> DataSet< V> filter(SplicePredicateFunction<Op, V> f) {
-        return new ControlDataSet<>(Iterators.filter(iterator,f));
+        OperationProfile profile = ProfiledIterator.profileOf(f);
+        return new ControlDataSet<>(ProfiledIterator.wrap(
+                Iterators.filter(ProfiledIterator.unwrap(iterator, profile),f), profile));
     }
 
     @Override
@@ -293,7 +303,9 @@ public class ControlDataSet<V> implements DataSet<V> {
 
     @Override
     public <Op extends SpliceOperation,U> DataSet<U> flatMap(SpliceFlatMapFunction<Op, V, U> f) {
-        return new ControlDataSet(Iterators.concat(Iterators.transform(iterator,f)));
+        OperationProfile profile = ProfiledIterator.profileOf(f);
+        return new ControlDataSet(ProfiledIterator.wrap(
+                Iterators.concat(Iterators.transform(ProfiledIterator.unwrap(iterator, profile),f)), profile));
     }
 
     @Override
@@ -31,6 +31,9 @@ import com.splicemachine.derby.stream.iapi.OperationContext;
 import com.splicemachine.derby.stream.iapi.PairDataSet;
 import com.splicemachine.derby.stream.iapi.ScanSetBuilder;
 import com.splicemachine.derby.stream.iterator.TableScannerIterator;
+import com.splicemachine.derby.stream.profile.OperationProfile;
+import com.splicemachine.derby.stream.profile.ProfiledIterator;
+import com.splicemachine.metrics.Metrics;
 import com.splicemachine.pipeline.Exceptions;
 import com.splicemachine.si.api.data.TxnOperationFactory;
 import com.splicemachine.si.api.server.Transactor;
@@ -119,13 +122,16 @@ public class ControlDataSetProcessor implements DataSetProcessor{
                     TxnRegion localRegion=new TxnRegion(p,NoopRollForward.INSTANCE,NoOpReadResolver.INSTANCE,
                             txnSupplier,transactory,txnOperationFactory);
 
+                    OperationProfile profile=ProfiledIterator.profileOf(spliceOperation);
+                    if(profile!=null)
+                        this.metricFactory(Metrics.basicMetricFactory()); //count the bytes read
                     this.region(localRegion).scanner(p.openScanner(getScan(),metricFactory)); //set the scanner
                     TableScannerIterator tableScannerIterator=new TableScannerIterator(this,spliceOperation);
                     if(spliceOperation!=null){
                         spliceOperation.registerCloseable(tableScannerIterator);
                         spliceOperation.registerCloseable(p);
                     }
-                    return new ControlDataSet(tableScannerIterator);
+                    return new ControlDataSet(ProfiledIterator.wrap(tableScannerIterator,profile));
                 }catch(IOException e){
                     throw Exceptions.parseException(e);
                 }
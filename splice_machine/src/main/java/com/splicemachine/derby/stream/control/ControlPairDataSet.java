@@ -37,6 +37,8 @@ import com.splicemachine.derby.stream.output.insert.InsertPipelineWriter;
 import com.splicemachine.derby.stream.output.insert.InsertTableWriterBuilder;
 import com.splicemachine.derby.stream.output.update.UpdatePipelineWriter;
 import com.splicemachine.derby.stream.output.update.UpdateTableWriterBuilder;
+import com.splicemachine.derby.stream.profile.OperationProfile;
+import com.splicemachine.derby.stream.profile.ProfiledIterator;
 import com.splicemachine.kvpair.KVPair;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import org.spark_project.guava.base.Predicate;
@@ -148,7 +150,7 @@ public class ControlPairDataSet<K,V> implements PairDataSet<K,V> {
     
     @Override
     public <Op extends SpliceOperation, U> DataSet<U> map(final SpliceFunction<Op,Tuple2<K, V>, U> function) {
-        return new ControlDataSet<U>(Iterators.transform(source,function));
+        return new ControlDataSet<U>(ProfiledIterator.wrap(Iterators.transform(source,function), ProfiledIterator.profileOf(function)));
     }
 
     @Override
@@ -251,9 +253,10 @@ public class ControlPairDataSet<K,V> implements PairDataSet<K,V> {
     }
 
     @Override
-    public <Op extends SpliceOperation, U> DataSet<U> mapPartitions(SpliceFlatMapFunction<Op, Iterator<Tuple2<K, V>>, U> f) {
+    public <Op extends SpliceOperation, U> DataSet<U> mapPartitions(final SpliceFlatMapFunction<Op, Iterator<Tuple2<K, V>>, U> f) {
         try {
-            return new ControlDataSet<>(f.call(source));
+            OperationProfile profile = ProfiledIterator.profileOf(f);
+            return new ControlDataSet<>(ProfiledIterator.wrap(ProfiledIterator.time(profile, () -> f.call(source)), profile));
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
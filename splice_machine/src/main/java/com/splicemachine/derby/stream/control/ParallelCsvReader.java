@@ -0,0 +1,558 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.stream.control;
+
+import com.splicemachine.EngineDriver;
+import com.splicemachine.access.api.DistributedFileSystem;
+import com.splicemachine.access.api.SConfiguration;
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.derby.stream.function.AbstractFileFunction;
+import com.splicemachine.derby.stream.iapi.OperationContext;
+import com.splicemachine.derby.stream.utils.BooleanList;
+import com.splicemachine.si.impl.driver.SIDriver;
+import org.apache.log4j.Logger;
+import org.supercsv.prefs.CsvPreference;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Reads the delimited files of a control side import by splitting them into chunks which are parsed
+ * concurrently, while the rows of earlier chunks are already being written.
+ *
+ * A chunk covers a byte range of a file, and owns the records which start in that range. Only the first
+ * chunk of a file knows where its first record starts; every other chunk guesses that it starts after
+ * the first line break at or after the beginning of the chunk. When records are one line each the guess
+ * is always right, but if quoted columns may contain line breaks the guess can land inside a record. So
+ * every chunk also reports where the record following its last record starts, and a chunk whose guess
+ * doesn't match the previous chunk's report is parsed again from the right place before its rows are
+ * returned. Rows are returned in file order.
+ *
+ * Records are split into slices of the chunk's bytes, and a column is only decoded into a String when
+ * it is converted into its row. Bad records are handed to the {@link OperationContext} from the
+ * consuming thread, in file order.
+ */
+public class ParallelCsvReader implements Iterator<ExecRow>{
+    private static final Logger LOG=Logger.getLogger(ParallelCsvReader.class);
+
+    private final DistributedFileSystem dfs;
+    private final List<Chunk> chunks;
+    private final AbstractFileFunction<?> function;
+    private final OperationContext operationContext;
+    private final boolean oneLineRecords;
+    private final byte quoteChar;
+    private final byte delimiter;
+    private final int maxLinesPerRow;
+    private final int chunkSize;
+    private final ExecutorService executor;
+
+    private final ArrayDeque<Future<ParsedChunk>> pending;
+    private int nextChunk;
+    private long expectedStart;
+
+    private ParsedChunk current;
+    private int position;
+    private ExecRow nextRow;
+
+    ParallelCsvReader(DistributedFileSystem dfs,
+                      List<Chunk> chunks,
+                      AbstractFileFunction<?> function,
+                      CsvPreference preference,
+                      OperationContext operationContext,
+                      boolean oneLineRecords,
+                      int parallelism,
+                      int chunkSize,
+                      ExecutorService executor){
+        this.dfs=dfs;
+        this.chunks=chunks;
+        this.function=function;
+        this.operationContext=operationContext;
+        this.oneLineRecords=oneLineRecords;
+        this.quoteChar=(byte)preference.getQuoteChar();
+        this.delimiter=(byte)preference.getDelimiterChar();
+        this.maxLinesPerRow=preference.getMaxLinesPerRow();
+        this.chunkSize=chunkSize;
+        this.executor=executor;
+        this.pending=new ArrayDeque<>(parallelism);
+        for(int i=0;i<parallelism;i++){
+            submitNext();
+        }
+    }
+
+    /**
+     * Open a parallel reader over an import file, or over all the files of an import directory.
+     *
+     * @param path the file or directory to import
+     * @param function the function which converts records into rows
+     * @param operationContext the context to record reads and bad records against
+     * @param oneLineRecords whether every line is a record, or quoted columns may span lines
+     * @return the rows of the file, or {@code null} if the file should be read on the importing thread
+     * (parallel reads are disabled, the file is compressed, too small, or uses non-ASCII delimiters)
+     */
+    public static Iterator<ExecRow> open(String path,
+                                         AbstractFileFunction<?> function,
+                                         OperationContext operationContext,
+                                         boolean oneLineRecords) throws IOException, URISyntaxException{
+        SConfiguration config=EngineDriver.driver().getConfiguration();
+        int parallelism=config.getImportControlParallelism();
+        int chunkSize=config.getImportControlChunkSize();
+        if(parallelism<=1 || chunkSize<=0)
+            return null;
+        CsvPreference preference=function.getPreference();
+        if(preference.getQuoteChar()>0x7F || preference.getDelimiterChar()>0x7F)
+            return null; // we search for these in the raw bytes
+
+        DistributedFileSystem dfs=SIDriver.driver().getSIEnvironment().fileSystem(path);
+        String[] files=dfs.getInfo(path).isDirectory()?dfs.getExistingFiles(path,"*"):new String[]{path};
+        List<Chunk> chunks=new ArrayList<>();
+        long totalSize=0;
+        for(String file : files){
+            if(file.endsWith("gz"))
+                return null; // compressed files can't be split
+            long size=dfs.getInfo(file).size();
+            totalSize+=size;
+            for(long start=0;start<size;start+=chunkSize){
+                chunks.add(new Chunk(file,start,Math.min(size,start+chunkSize)));
+            }
+        }
+        if(totalSize<2L*chunkSize)
+            return null;
+        return new ParallelCsvReader(dfs,chunks,function,preference,operationContext,oneLineRecords,
+                parallelism,chunkSize,EngineDriver.driver().getExecutorService());
+    }
+
+    @Override
+    public boolean hasNext(){
+        if(nextRow!=null)
+            return true;
+        try{
+            while(true){
+                if(operationContext.isFailed()){
+                    close();
+                    return false;
+                }
+                if(current==null || position==current.records.size()){
+                    if(!advance())
+                        return false;
+                    continue;
+                }
+                Object record=current.records.get(position);
+                current.records.set(position++,null);
+                if(record instanceof ExecRow){
+                    operationContext.recordRead();
+                    nextRow=(ExecRow)record;
+                    return true;
+                }
+                BadRecord badRecord=(BadRecord)record;
+                if(badRecord.read)
+                    operationContext.recordRead();
+                if(operationContext.isPermissive())
+                    operationContext.recordBadRecord(badRecord.message,badRecord.error);
+                else
+                    throw StandardException.plainWrapException(badRecord.error);
+            }
+        }catch(Exception e){
+            close();
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public ExecRow next(){
+        if(!hasNext()) throw new NoSuchElementException();
+        ExecRow row=nextRow;
+        nextRow=null;
+        return row;
+    }
+
+    @Override
+    public void remove(){
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Stop parsing the chunks which haven't been returned yet.
+     */
+    public void close(){
+        Future<ParsedChunk> future;
+        while((future=pending.poll())!=null){
+            future.cancel(true);
+        }
+        nextChunk=chunks.size();
+        current=null;
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private void submitNext(){
+        if(nextChunk<chunks.size()){
+            Chunk chunk=chunks.get(nextChunk++);
+            pending.add(executor.submit(new ChunkParser(chunk,chunk.start,chunk.start==0)));
+        }
+    }
+
+    private boolean advance() throws Exception{
+        Future<ParsedChunk> future=pending.poll();
+        if(future==null)
+            return false;
+        submitNext();
+        ParsedChunk parsed;
+        try{
+            parsed=future.get();
+        }catch(ExecutionException ee){
+            Throwable cause=ee.getCause();
+            throw cause instanceof Exception?(Exception)cause:ee;
+        }
+        Chunk chunk=parsed.chunk;
+        if(chunk.start==0)
+            expectedStart=0; // first chunk of a file
+        if(!parsed.complete || parsed.firstRecord!=expectedStart){
+            if(LOG.isDebugEnabled())
+                LOG.debug(String.format("Reparsing chunk [%d,%d) of %s from %d, guessed start %d%s",
+                        chunk.start,chunk.end,chunk.file,expectedStart,parsed.firstRecord,
+                        parsed.complete?"":" led to an overlong record"));
+            parsed=new ChunkParser(chunk,expectedStart,true).call();
+        }
+        expectedStart=parsed.nextRecord;
+        current=parsed;
+        position=0;
+        return true;
+    }
+
+    static final class Chunk{
+        final String file;
+        final long start;
+        final long end;
+
+        Chunk(String file,long start,long end){
+            this.file=file;
+            this.start=start;
+            this.end=end;
+        }
+    }
+
+    private static final class ParsedChunk{
+        private final Chunk chunk;
+        /*the offset where the first record of the chunk was taken to start*/
+        private final long firstRecord;
+        /*the offset of the first record after the records of this chunk*/
+        private final long nextRecord;
+        /*false if a guessed start led to a record which is too long to be believed*/
+        private final boolean complete;
+        /*the parsed ExecRows and BadRecords, in file order*/
+        private final List<Object> records;
+
+        ParsedChunk(Chunk chunk,long firstRecord,long nextRecord,boolean complete,List<Object> records){
+            this.chunk=chunk;
+            this.firstRecord=firstRecord;
+            this.nextRecord=nextRecord;
+            this.complete=complete;
+            this.records=records;
+        }
+    }
+
+    private static final class BadRecord{
+        private final String message;
+        private final Exception error;
+        /*whether the record got as far as being converted into a row*/
+        private final boolean read;
+
+        BadRecord(String message,Exception error,boolean read){
+            this.message=message;
+            this.error=error;
+            this.read=read;
+        }
+    }
+
+    private final class ChunkParser implements Callable<ParsedChunk>{
+        private final Chunk chunk;
+        private final long from;
+        private final boolean exact;
+        private final Calendar calendar=new GregorianCalendar();
+        private final FieldSlices fields=new FieldSlices(quoteChar,delimiter);
+
+        private InputStream in;
+        private byte[] buffer;
+        private int length;
+        private boolean eof;
+
+        /**
+         * @param chunk the chunk to parse
+         * @param from where to start reading
+         * @param exact whether {@code from} is known to be the start of a record
+         */
+        ChunkParser(Chunk chunk,long from,boolean exact){
+            this.chunk=chunk;
+            this.from=from;
+            this.exact=exact;
+        }
+
+        @Override
+        public ParsedChunk call() throws IOException{
+            List<Object> records=new ArrayList<>();
+            if(exact && from>=chunk.end) // the previous chunk's last record covers this entire chunk
+                return new ParsedChunk(chunk,from,from,true,records);
+
+            long base=exact?from:from-1;
+            try(InputStream is=dfs.newInputStream(chunk.file,base,StandardOpenOption.READ)){
+                in=is;
+                buffer=new byte[(int)(chunk.end-base)+1024];
+
+                int pos=0;
+                if(!exact){
+                    // guess that the first record starts after the first line break
+                    while(true){
+                        if(!ensure(pos))
+                            return new ParsedChunk(chunk,base+pos,base+pos,true,records);
+                        byte b=buffer[pos++];
+                        if(b=='\n')
+                            break;
+                        if(b=='\r'){
+                            if(ensure(pos) && buffer[pos]=='\n')
+                                pos++;
+                            break;
+                        }
+                    }
+                }
+                long firstRecord=base+pos;
+                int end=(int)(chunk.end-base);
+                int giveUp=exact?Integer.MAX_VALUE:end+chunkSize;
+                while(pos<end && ensure(pos)){
+                    int recordStart=pos;
+                    int recordEnd;
+                    int lines=1;
+                    boolean inQuote=false;
+                    String error=null;
+                    while(true){
+                        if(!ensure(pos)){
+                            recordEnd=pos;
+                            if(inQuote)
+                                error="partial record found while reading quoted column";
+                            break;
+                        }
+                        byte b=buffer[pos];
+                        int terminator=0;
+                        if(b=='\n'){
+                            terminator=1;
+                        }else if(b=='\r'){
+                            terminator=ensure(pos+1) && buffer[pos+1]=='\n'?2:1;
+                        }else if(oneLineRecords){
+                            terminator=unicodeLineSeparator(pos);
+                        }else if(b==quoteChar){
+                            inQuote=!inQuote;
+                        }
+                        if(terminator>0){
+                            if(!inQuote){
+                                recordEnd=pos;
+                                pos+=terminator;
+                                break;
+                            }
+                            lines++;
+                            if(maxLinesPerRow>0 && lines>=maxLinesPerRow){
+                                recordEnd=pos;
+                                pos+=terminator;
+                                error=String.format("max number of lines to read exceeded while reading quoted column"+
+                                        " spanning %d lines",lines);
+                                break;
+                            }
+                            pos+=terminator;
+                        }else
+                            pos++;
+                        if(pos>giveUp)
+                            return new ParsedChunk(chunk,firstRecord,base+pos,false,null);
+                    }
+                    if(error!=null){
+                        String row=new String(buffer,recordStart,recordEnd-recordStart,StandardCharsets.UTF_8);
+                        records.add(new BadRecord(error+" ["+row+"]",new IOException(error),false));
+                        continue;
+                    }
+                    if(recordEnd==recordStart){
+                        if(!oneLineRecords)
+                            continue; // empty lines are skipped
+                        records.add(parse(null));
+                        continue;
+                    }
+                    if(fields.split(buffer,recordStart,recordEnd)){
+                        records.add(parse(fields));
+                    }else{
+                        // a record which is a single line can't leave a quoted column open
+                        String row=new String(buffer,recordStart,recordEnd-recordStart,StandardCharsets.UTF_8);
+                        String message="partial record found ["+row+"] while reading quoted column";
+                        records.add(new BadRecord(message,new IOException(message),false));
+                    }
+                }
+                return new ParsedChunk(chunk,firstRecord,base+pos,true,records);
+            }finally{
+                in=null;
+                buffer=null;
+            }
+        }
+
+        private Object parse(FieldSlices values){
+            try{
+                return function.parseRow(values,fields.quotedColumns,calendar);
+            }catch(AbstractFileFunction.BadRecordException bre){
+                return new BadRecord(bre.getMessage(),bre.getError(),true);
+            }
+        }
+
+        /*
+         * The Scanner which reads one line records also breaks lines on U+2028, U+2029 and U+0085
+         */
+        private int unicodeLineSeparator(int pos) throws IOException{
+            byte b=buffer[pos];
+            if(b==(byte)0xE2 && ensure(pos+2) && buffer[pos+1]==(byte)0x80
+                    && (buffer[pos+2]==(byte)0xA8 || buffer[pos+2]==(byte)0xA9))
+                return 3;
+            if(b==(byte)0xC2 && ensure(pos+1) && buffer[pos+1]==(byte)0x85)
+                return 2;
+            return 0;
+        }
+
+        /**
+         * Make sure the byte at {@code pos} has been read.
+         *
+         * @return false if the file ends before {@code pos}
+         */
+        private boolean ensure(int pos) throws IOException{
+            while(pos>=length){
+                if(eof)
+                    return false;
+                if(length==buffer.length)
+                    buffer=Arrays.copyOf(buffer,buffer.length*2);
+                int n=in.read(buffer,length,buffer.length-length);
+                if(n<0)
+                    eof=true;
+                else
+                    length+=n;
+            }
+            return true;
+        }
+    }
+
+    /**
+     * The columns of a record, as slices of the bytes the record was read from. Quoting follows
+     * {@link com.splicemachine.derby.stream.function.QuoteTrackingTokenizer}: quotes may start anywhere in
+     * a column, two quotes inside a quoted section stand for one quote, and empty columns are null.
+     */
+    static final class FieldSlices extends AbstractList<String>{
+        private final byte quoteChar;
+        private final byte delimiter;
+        final BooleanList quotedColumns=new BooleanList();
+
+        private byte[] bytes;
+        private int[] starts=new int[16];
+        private int[] ends=new int[16];
+        private int size;
+
+        FieldSlices(byte quoteChar,byte delimiter){
+            this.quoteChar=quoteChar;
+            this.delimiter=delimiter;
+        }
+
+        /**
+         * Split the bytes {@code [from,to)} into columns.
+         *
+         * @return false if the last column has an unterminated quoted section
+         */
+        boolean split(byte[] bytes,int from,int to){
+            this.bytes=bytes;
+            this.size=0;
+            quotedColumns.clear();
+            int start=from;
+            boolean inQuote=false;
+            boolean quoted=false;
+            for(int i=from;i<to;i++){
+                byte b=bytes[i];
+                if(b==quoteChar){
+                    inQuote=!inQuote;
+                    quoted=true;
+                }else if(b==delimiter && !inQuote){
+                    add(start,i,quoted);
+                    start=i+1;
+                    quoted=false;
+                }
+            }
+            add(start,to,quoted);
+            return !inQuote;
+        }
+
+        @Override
+        public String get(int index){
+            if(index>=size) throw new IndexOutOfBoundsException("Index: "+index+", Size: "+size);
+            int start=starts[index];
+            int length=ends[index]-start;
+            if(length==0)
+                return null;
+            String raw=new String(bytes,start,length,StandardCharsets.UTF_8);
+            return quotedColumns.valueAt(index)?unquote(raw):raw;
+        }
+
+        @Override
+        public int size(){
+            return size;
+        }
+
+        private void add(int start,int end,boolean quoted){
+            if(size==starts.length){
+                starts=Arrays.copyOf(starts,size*2);
+                ends=Arrays.copyOf(ends,size*2);
+            }
+            starts[size]=start;
+            ends[size]=end;
+            size++;
+            quotedColumns.append(quoted);
+        }
+
+        private String unquote(String raw){
+            StringBuilder sb=new StringBuilder(raw.length());
+            boolean inQuote=false;
+            for(int i=0;i<raw.length();i++){
+                char c=raw.charAt(i);
+                if(c==quoteChar){
+                    if(inQuote && i+1<raw.length() && raw.charAt(i+1)==quoteChar){
+                        sb.append(c);
+                        i++;
+                    }else
+                        inQuote=!inQuote;
+                }else if(c=='\r'){
+                    // line breaks inside a quoted column are read back as \n
+                    sb.append('\n');
+                    if(i+1<raw.length() && raw.charAt(i+1)=='\n')
+                        i++;
+                }else
+                    sb.append(c);
+            }
+            return sb.length()>0?sb.toString():null;
+        }
+    }
+}
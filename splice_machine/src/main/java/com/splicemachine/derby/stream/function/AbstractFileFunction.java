@@ -131,15 +131,43 @@ public abstract class AbstractFileFunction<I> extends SpliceFlatMapFunction<Spli
                                  OperationContext operationContext, ExecRow execRow,
                                  Calendar calendar, String timeFormat,
                                  String dateTimeFormat, String timestampFormat)  throws Exception {
+        if (operationContext != null)
+            operationContext.recordRead();
+
+        try {
+            return parseRow(values, quotedColumns, execRow, calendar, timeFormat, dateTimeFormat, timestampFormat);
+        } catch (BadRecordException e) {
+            if (operationContext != null && operationContext.isPermissive()) {
+                operationContext.recordBadRecord(e.getMessage(), e.getError());
+                return null;
+            }
+            throw e.getError(); // Not Permissive of errors
+        }
+    }
+
+    /**
+     * Parse a row without touching the operation context, so that it can be done outside of the
+     * thread which owns the context. Reading the row and recording a bad one are left to the caller.
+     *
+     * @param values the column values of the record, or {@code null} if the record has no columns
+     * @param quotedColumns whether each column was quoted
+     * @param calendar calendar to use for date/time columns, or {@code null} to create one when needed
+     * @return the parsed row
+     * @throws BadRecordException if the record cannot be converted into a row
+     */
+    public ExecRow parseRow(List<String> values,BooleanList quotedColumns,Calendar calendar) throws BadRecordException {
+        return parseRow(values, quotedColumns, execRow, calendar, timeFormat, dateTimeFormat, timestampFormat);
+    }
+
+    private static ExecRow parseRow(List<String> values,BooleanList quotedColumns,
+                                    ExecRow execRow, Calendar calendar, String timeFormat,
+                                    String dateTimeFormat, String timestampFormat) throws BadRecordException {
         int columnID = 0;
         String columnValue = null;
         int numofColumnsinTable = 0;
         int numofColumnsinFile = 0;
         boolean columnnumbermistmatch = false;
 
-        if (operationContext != null)
-            operationContext.recordRead();
-
         try {
             ExecRow returnRow = execRow.getClone();
             if (values == null) {
@@ -192,19 +220,20 @@ public abstract class AbstractFileFunction<I> extends SpliceFlatMapFunction<Spli
             }
             return returnRow;
         } catch (Exception e) {
-            if (operationContext != null && operationContext.isPermissive()) {
-                String extendedMessage;
-                if (columnnumbermistmatch)
-                    extendedMessage = " row Data: " + values;
-                else
-                    extendedMessage = " [Columns in Table: " + numofColumnsinTable + "] [Columns in File: " + numofColumnsinFile + "] [Bad Column ID: " + columnID + "] "+ "[Bad Column Value: " + columnValue + "]" + " row Data: " + values;
-                operationContext.recordBadRecord(e.getLocalizedMessage() + extendedMessage, e);
-                return null;
-            }
-            throw e; // Not Permissive of errors
+            String extendedMessage;
+            if (columnnumbermistmatch)
+                extendedMessage = " row Data: " + values;
+            else
+                extendedMessage = " [Columns in Table: " + numofColumnsinTable + "] [Columns in File: " + numofColumnsinFile + "] [Bad Column ID: " + columnID + "] "+ "[Bad Column Value: " + columnValue + "]" + " row Data: " + values;
+            throw new BadRecordException(e.getLocalizedMessage() + extendedMessage, e);
         }
     }
 
+    public CsvPreference getPreference() {
+        checkPreference();
+        return preference;
+    }
+
     void checkPreference() {
         if (preference==null){
             SConfiguration config =EngineDriver.driver().getConfiguration();
@@ -225,6 +254,20 @@ public abstract class AbstractFileFunction<I> extends SpliceFlatMapFunction<Spli
         else return value.isEmpty() || value.equalsIgnoreCase("null");
     }
 
+    /**
+     * A record which could not be converted into a row. The message describes the record the
+     * way it is written to the bad records file.
+     */
+    public static class BadRecordException extends Exception {
+        private final Exception error;
 
+        public BadRecordException(String message, Exception error) {
+            super(message, error);
+            this.error = error;
+        }
 
+        public Exception getError() {
+            return error;
+        }
+    }
 }
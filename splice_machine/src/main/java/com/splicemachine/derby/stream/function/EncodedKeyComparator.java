@@ -0,0 +1,32 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.stream.function;
+
+import com.splicemachine.primitives.Bytes;
+
+import java.io.Serializable;
+import java.util.Comparator;
+
+/**
+ * Compares keys encoded by a {@link com.splicemachine.derby.utils.marshall.ShuffleRowCodec} byte by byte.
+ */
+public class EncodedKeyComparator implements Comparator<byte[]>, Serializable {
+    private static final long serialVersionUID = 1l;
+
+    @Override
+    public int compare(byte[] o1, byte[] o2) {
+        return Bytes.BASE_COMPARATOR.compare(o1, o2);
+    }
+}
@@ -18,15 +18,16 @@ import com.splicemachine.db.iapi.sql.execute.ExecRow;
 import com.splicemachine.db.iapi.types.DataValueDescriptor;
 import com.splicemachine.derby.iapi.sql.execute.SpliceOperation;
 import com.splicemachine.derby.impl.sql.execute.operations.GroupedAggregateOperation;
+import com.splicemachine.derby.impl.sql.execute.operations.framework.SpliceGenericAggregator;
 import com.splicemachine.derby.stream.iapi.OperationContext;
 import javax.annotation.concurrent.NotThreadSafe;
 import java.util.Arrays;
 import java.util.Iterator;
 
 /**
- *
- * TODO REVISIT (NOT SCALABLE)
- *
+ * Expands every row into one row per rollup level, with the grouping columns that the level rolls up set to null.
+ * Its input is aggregated on every grouping column first, so the reduce which follows builds each level by merging
+ * the states of the finest groups rather than the source rows.
  */
 @NotThreadSafe
 public class GroupedAggregateRollupFlatMapFunction<Op extends SpliceOperation> extends SpliceFlatMapFunction<Op,ExecRow,ExecRow> {
@@ -56,7 +57,7 @@ public class GroupedAggregateRollupFlatMapFunction<Op extends SpliceOperation> e
         do {
             rollupRows[pos] = nextRow;
             if (rollUpPos > 0) {
-                nextRow = nextRow.getClone();
+                nextRow = copyOf(nextRow);
                 DataValueDescriptor rollUpCol = nextRow.getColumn(groupColumns[rollUpPos - 1] + 1);
                 rollUpCol.setToNull();
             }
@@ -65,4 +66,20 @@ public class GroupedAggregateRollupFlatMapFunction<Op extends SpliceOperation> e
         } while (rollUpPos >= 0);
         return Arrays.asList(rollupRows).iterator();
     }
+
+    /**
+     * Clone a row, giving the clone its own copy of every aggregate state: cloning only copies the reference
+     * to a state, which the rows of the different levels would otherwise all merge into.
+     */
+    private ExecRow copyOf(ExecRow row) throws Exception {
+        ExecRow copy = row.getClone();
+        for (SpliceGenericAggregator aggregator : op.aggregates) {
+            if (aggregator.isInitialized(row)) {
+                copy.getColumn(aggregator.getAggregatorColumnId()).setToNull();
+                aggregator.initialize(copy);
+                aggregator.merge(row, copy);
+            }
+        }
+        return copy;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,236 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.stream.function;
+
+import com.splicemachine.EngineDriver;
+import com.splicemachine.access.api.SConfiguration;
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.types.HBaseRowLocation;
+import com.splicemachine.derby.iapi.sql.execute.SpliceOperation;
+import com.splicemachine.derby.impl.sql.execute.operations.JoinOperation;
+import com.splicemachine.derby.impl.sql.execute.operations.JoinUtils;
+import com.splicemachine.derby.impl.sql.execute.operations.TableScanOperation;
+import com.splicemachine.derby.stream.iapi.OperationContext;
+import com.splicemachine.derby.stream.utils.StreamLogUtils;
+import com.splicemachine.pipeline.Exceptions;
+import com.splicemachine.primitives.Bytes;
+import com.splicemachine.storage.DataScan;
+
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorCompletionService;
+
+/**
+ * Inner nested loop join which looks up the right side for a batch of left rows at a time.
+ *
+ * For every left row in the batch the start and stop keys of the right side scan are computed
+ * up front. The distinct key ranges are sorted and each one is scanned only once, concurrently,
+ * so that left rows sharing a join key (the common case when a fact table is joined to a
+ * dimension) are answered by a single lookup. The left rows are then joined in their original
+ * order against the rows fetched for their range.
+ *
+ * Only used when the right side is a {@link TableScanOperation} whose rows depend on the left
+ * row solely through its scan keys (see {@link TableScanOperation#isRangeLookup()}).
+ */
+public class NLJBatchedInnerJoinFunction<Op extends SpliceOperation> extends SpliceJoinFlatMapFunction<Op, Iterator<ExecRow>, ExecRow> {
+
+    public NLJBatchedInnerJoinFunction() {}
+
+    public NLJBatchedInnerJoinFunction(OperationContext<Op> operationContext) {
+        super(operationContext);
+    }
+
+    @Override
+    public Iterator<ExecRow> call(Iterator<ExecRow> from) throws Exception {
+        checkInit();
+        return new BatchedLookupIterator(from);
+    }
+
+    private class BatchedLookupIterator implements Iterator<ExecRow> {
+        private final Iterator<ExecRow> leftSideIterator;
+        private final int lookupBatchSize;
+        private final OperationContext keyContext;
+        private final List<OperationContext> operationContextList;
+        private final ExecutorCompletionService<RangeLookup> completionService;
+
+        private final List<ExecRow> leftRows;
+        private final List<byte[]> leftRanges;
+        private final Map<byte[], List<ExecRow>> rightRows = new TreeMap<>(Bytes.BASE_COMPARATOR);
+        private int leftPosition;
+        private List<ExecRow> currentRightRows = Collections.emptyList();
+        private int rightPosition;
+        private ExecRow populatedRow;
+        private boolean populated;
+
+        BatchedLookupIterator(Iterator<ExecRow> leftSideIterator) throws StandardException {
+            SConfiguration configuration = EngineDriver.driver().getConfiguration();
+            this.leftSideIterator = leftSideIterator;
+            this.lookupBatchSize = configuration.getNestedLoopJoinLookupBatchSize();
+            this.leftRows = new ArrayList<>(lookupBatchSize);
+            this.leftRanges = new ArrayList<>(lookupBatchSize);
+            this.completionService = new ExecutorCompletionService<>(EngineDriver.driver().getExecutorService());
+            this.populatedRow = executionFactory.getValueRow(numberOfColumns);
+            int parallelism = Math.max(1, configuration.getNestedLoopJoinBatchSize());
+            try {
+                keyContext = operationContext.getClone();
+                operationContextList = new ArrayList<>(parallelism);
+                for (int i = 0; i < parallelism; ++i) {
+                    operationContextList.add(operationContext.getClone());
+                }
+            } catch (Exception e) {
+                throw Exceptions.parseException(e);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (populated)
+                return true;
+            try {
+                while (rightPosition >= currentRightRows.size()) {
+                    if (leftPosition >= leftRows.size() && !loadBatch())
+                        return false;
+                    currentRightRows = rightRows.get(leftRanges.get(leftPosition));
+                    leftPosition++;
+                    rightPosition = 0;
+                }
+            } catch (StandardException e) {
+                throw new RuntimeException(e);
+            }
+            ExecRow leftRow = leftRows.get(leftPosition - 1);
+            ExecRow rightRow = currentRightRows.get(rightPosition++);
+            setCurrentRows(leftRow, rightRow);
+            populatedRow = JoinUtils.getMergedRow(leftRow, rightRow, op.wasRightOuterJoin, populatedRow);
+            populated = true;
+            return true;
+        }
+
+        @Override
+        public ExecRow next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            StreamLogUtils.logOperationRecord(populatedRow, operationContext);
+            populated = false;
+            op.setCurrentRow(populatedRow);
+            return populatedRow;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        /**
+         * Reads the next batch of left rows, computes their right side key ranges and looks up every
+         * distinct range once.
+         *
+         * @return false if the left side is exhausted
+         */
+        private boolean loadBatch() throws StandardException {
+            leftRows.clear();
+            leftRanges.clear();
+            rightRows.clear();
+            leftPosition = 0;
+            try {
+                JoinOperation keyOp = (JoinOperation) keyContext.getOperation();
+                TableScanOperation keyScan = (TableScanOperation) keyOp.getRightOperation();
+                Map<byte[], ExecRow> pending = new TreeMap<>(Bytes.BASE_COMPARATOR);
+                while (leftRows.size() < lookupBatchSize && leftSideIterator.hasNext()) {
+                    ExecRow leftRow = leftSideIterator.next().getClone();
+                    keyOp.getLeftOperation().setCurrentRow(leftRow);
+                    byte[] range = rangeOf(keyScan.getNonSIScan());
+                    leftRows.add(leftRow);
+                    leftRanges.add(range);
+                    if (!pending.containsKey(range))
+                        pending.put(range, leftRow);
+                }
+                if (leftRows.isEmpty())
+                    return false;
+
+                // Ranges come out of the TreeMap in key order, which keeps the lookups local
+                Iterator<Map.Entry<byte[], ExecRow>> ranges = pending.entrySet().iterator();
+                int outstanding = 0;
+                while (ranges.hasNext() || outstanding > 0) {
+                    while (ranges.hasNext() && !operationContextList.isEmpty()) {
+                        Map.Entry<byte[], ExecRow> range = ranges.next();
+                        completionService.submit(new RangeLookup(operationContextList.remove(0), range.getKey(), range.getValue()));
+                        outstanding++;
+                    }
+                    RangeLookup lookup = completionService.take().get();
+                    outstanding--;
+                    operationContextList.add(lookup.context);
+                    rightRows.put(lookup.range, lookup.rows);
+                }
+                return true;
+            } catch (Exception e) {
+                throw Exceptions.parseException(e);
+            }
+        }
+
+        private void setCurrentRows(ExecRow leftRow, ExecRow rightRow) {
+            SpliceOperation leftOperation = op.getLeftOperation();
+            leftOperation.setCurrentRow(leftRow);
+            leftOperation.setCurrentRowLocation(new HBaseRowLocation(leftRow.getKey()));
+            SpliceOperation rightOperation = op.getRightOperation();
+            rightOperation.setCurrentRow(rightRow);
+            if (rightRow.getKey() != null)
+                rightOperation.setCurrentRowLocation(new HBaseRowLocation(rightRow.getKey()));
+        }
+
+        /**
+         * Scans the right side for a single key range, using the first left row that produced it.
+         */
+        private class RangeLookup implements Callable<RangeLookup> {
+            private final OperationContext context;
+            private final byte[] range;
+            private final ExecRow leftRow;
+            private final List<ExecRow> rows = new ArrayList<>();
+
+            RangeLookup(OperationContext context, byte[] range, ExecRow leftRow) {
+                this.context = context;
+                this.range = range;
+                this.leftRow = leftRow;
+            }
+
+            @Override
+            public RangeLookup call() throws Exception {
+                JoinOperation joinOp = (JoinOperation) context.getOperation();
+                try {
+                    joinOp.getLeftOperation().setCurrentRow(leftRow);
+                    SpliceOperation rightOperation = joinOp.getRightOperation();
+                    rightOperation.openCore(EngineDriver.driver().processorFactory().localProcessor(joinOp.getActivation(), joinOp));
+                    Iterator<ExecRow> rightSide = rightOperation.getExecRowIterator();
+                    while (rightSide.hasNext()) {
+                        rows.add(rightSide.next().getClone());
+                    }
+                    return this;
+                } finally {
+                    joinOp.close();
+                }
+            }
+        }
+    }
+
+    /**
+     * Identity of a right side lookup: the start key followed by the stop key and the length of
+     * the start key, so that different splits of the same bytes never collide.
+     */
+    private static byte[] rangeOf(DataScan scan) {
+        byte[] start = scan.getStartKey() == null ? Bytes.EMPTY_BYTE_ARRAY : scan.getStartKey();
+        byte[] stop = scan.getStopKey() == null ? Bytes.EMPTY_BYTE_ARRAY : scan.getStopKey();
+        return Bytes.concat(Arrays.asList(start, stop, Bytes.toBytes(start.length)));
+    }
+}
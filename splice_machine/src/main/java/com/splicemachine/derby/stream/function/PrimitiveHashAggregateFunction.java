@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.stream.function;
+
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.derby.impl.sql.execute.operations.GroupedAggregateOperation;
+import com.splicemachine.derby.impl.sql.execute.operations.groupedaggregate.PrimitiveHashAggregator;
+import com.splicemachine.derby.stream.control.ControlUtils;
+import com.splicemachine.derby.stream.iapi.OperationContext;
+
+import java.util.Iterator;
+
+/**
+ * Groups and aggregates a partition of rows in a {@link PrimitiveHashAggregator}. Only used in control, for
+ * groupings that {@link PrimitiveHashAggregator#create} accepts; the rows it returns still have to be finished.
+ */
+public class PrimitiveHashAggregateFunction extends SpliceFlatMapFunction<GroupedAggregateOperation, Iterator<ExecRow>, ExecRow> {
+    private static final long serialVersionUID = 1l;
+
+    public PrimitiveHashAggregateFunction() {
+    }
+
+    public PrimitiveHashAggregateFunction(OperationContext<GroupedAggregateOperation> operationContext) {
+        super(operationContext);
+    }
+
+    @Override
+    public Iterator<ExecRow> call(Iterator<ExecRow> rows) throws Exception {
+        GroupedAggregateOperation op = getOperation();
+        PrimitiveHashAggregator aggregator = PrimitiveHashAggregator.create(
+                op.groupedAggregateContext.getGroupingKeys(), op.aggregates, op.getSource().getExecRowDefinition());
+        assert aggregator != null : "Grouping is not supported by the primitive hash aggregator";
+        Iterator<ExecRow> limited = ControlUtils.limit(rows, operationContext);
+        while (limited.hasNext()) {
+            operationContext.recordRead();
+            aggregator.add(limited.next());
+        }
+        return aggregator.results();
+    }
+}
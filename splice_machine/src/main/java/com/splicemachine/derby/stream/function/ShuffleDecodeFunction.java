@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.stream.function;
+
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.derby.iapi.sql.execute.SpliceOperation;
+import com.splicemachine.derby.stream.iapi.OperationContext;
+import com.splicemachine.derby.utils.marshall.ShuffleRowCodec;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+
+/**
+ * Decodes rows encoded by a {@link ShuffleEncodeFunction} once they have been shuffled.
+ */
+public class ShuffleDecodeFunction<Op extends SpliceOperation> extends SpliceFunction<Op,byte[],ExecRow> {
+    private ShuffleRowCodec codec;
+
+    public ShuffleDecodeFunction() {
+    }
+
+    public ShuffleDecodeFunction(OperationContext<Op> operationContext, ShuffleRowCodec codec) {
+        super(operationContext);
+        this.codec = codec;
+    }
+
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        super.writeExternal(out);
+        out.writeObject(codec);
+    }
+
+    @Override
+    public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+        super.readExternal(in);
+        codec = (ShuffleRowCodec) in.readObject();
+    }
+
+    @Override
+    public ExecRow call(byte[] encoded) throws Exception {
+        return codec.decodeRow(encoded);
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.stream.function;
+
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.derby.iapi.sql.execute.SpliceOperation;
+import com.splicemachine.derby.stream.iapi.OperationContext;
+import com.splicemachine.derby.utils.marshall.ShuffleRowCodec;
+import scala.Tuple2;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+
+/**
+ * Keys a row for a sort and encodes it with a {@link ShuffleRowCodec}, so that only bytes cross the shuffle.
+ *
+ * The key is the encoded sort key when the codec's keys are byte ordered, and a copy of the key columns as a row
+ * otherwise.
+ */
+public class ShuffleEncodeFunction<Op extends SpliceOperation> extends SplicePairFunction<Op,ExecRow,Object,byte[]> {
+    private ShuffleRowCodec codec;
+    private int[] keyColumns;
+    private boolean keyOrdered;
+
+    public ShuffleEncodeFunction() {
+    }
+
+    public ShuffleEncodeFunction(OperationContext<Op> operationContext, ShuffleRowCodec codec, int[] keyColumns) {
+        super(operationContext);
+        this.codec = codec;
+        this.keyColumns = keyColumns;
+        this.keyOrdered = codec.isKeyOrdered();
+    }
+
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        super.writeExternal(out);
+        out.writeObject(codec);
+        out.writeInt(keyColumns.length);
+        for (int keyColumn : keyColumns) {
+            out.writeInt(keyColumn);
+        }
+        out.writeBoolean(keyOrdered);
+    }
+
+    @Override
+    public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+        super.readExternal(in);
+        codec = (ShuffleRowCodec) in.readObject();
+        keyColumns = new int[in.readInt()];
+        for (int i = 0; i < keyColumns.length; i++) {
+            keyColumns[i] = in.readInt();
+        }
+        keyOrdered = in.readBoolean();
+    }
+
+    @Override
+    public Tuple2<Object, byte[]> call(ExecRow row) throws Exception {
+        return new Tuple2<>(genKey(row), genValue(row));
+    }
+
+    @Override
+    public Object genKey(ExecRow row) {
+        try {
+            // the source reuses its row, so a row key must not share its columns
+            return keyOrdered ? codec.encodeKey(row) : row.getKeyedExecRow(keyColumns).getClone();
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public byte[] genValue(ExecRow row) {
+        try {
+            return codec.encodeRow(row);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
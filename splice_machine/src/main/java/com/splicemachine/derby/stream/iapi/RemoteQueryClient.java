@@ -26,4 +26,19 @@ public interface RemoteQueryClient extends AutoCloseable {
     void submit() throws StandardException;
 
     Iterator<ExecRow> getIterator();
+
+    /**
+     * @return the rows returned so far
+     */
+    long getRowsReturned();
+
+    /**
+     * @return milliseconds from submission until the first row was returned, -1 if no row has been returned yet
+     */
+    long getTimeToFirstRow();
+
+    /**
+     * @return rows returned per second since the first row
+     */
+    double getThroughput();
 }
@@ -23,7 +23,9 @@ import com.splicemachine.derby.iapi.sql.execute.SpliceOperation;
 import com.splicemachine.derby.impl.sql.execute.operations.ScanOperation;
 import com.splicemachine.derby.impl.sql.execute.operations.scanner.SITableScanner;
 import com.splicemachine.derby.impl.sql.execute.operations.scanner.TableScannerBuilder;
+import com.splicemachine.derby.stream.profile.OperationProfile;
 import com.splicemachine.derby.stream.utils.StreamLogUtils;
+import com.splicemachine.derby.stream.vector.ColumnBatch;
 import com.splicemachine.derby.utils.Scans;
 import javax.annotation.concurrent.NotThreadSafe;
 import java.io.Closeable;
@@ -47,6 +49,8 @@ public class TableScannerIterator implements Iterable<ExecRow>, Iterator<ExecRow
     protected int[] baseColumnMap;
     protected boolean rowIdKey; // HACK Row ID Qualifiers point to the projection above them ?  TODO JL
     protected HBaseRowLocation hBaseRowLocation;
+    private boolean batchesDone;
+    private long bytesRecorded;
 
     public TableScannerIterator(TableScannerBuilder siTableBuilder, SpliceOperation operation) throws StandardException {
         this.siTableBuilder = siTableBuilder;
@@ -71,26 +75,12 @@ public class TableScannerIterator implements Iterable<ExecRow>, Iterator<ExecRow
                 return hasNext;
             slotted = true;
             if (!initialized) {
-                initialized = true;
-                tableScanner = siTableBuilder.build();
-                tableScanner.open();
-                if (operation!= null) {
-                    operation.registerCloseable(new Closeable() {
-                        @Override
-                        public void close() throws IOException {
-                            try {
-                                if (tableScanner != null && initialized)
-                                    tableScanner.close();
-                            } catch (Exception e) {
-                                throw new IOException(e);
-                            }
-                        }
-                    });
-                }
+                open();
             }
             while (true) {
                 execRow = tableScanner.next();
                 if (execRow == null) {
+                    recordBytesRead();
                     tableScanner.close();
                     initialized = false;
                     hasNext = false;
@@ -107,6 +97,34 @@ public class TableScannerIterator implements Iterable<ExecRow>, Iterator<ExecRow
         }
     }
 
+    /**
+     * Fill a batch with the next rows of the scan. Unlike {@link #next()}, this leaves the scan's qualifiers
+     * for the caller to apply to the whole batch.
+     *
+     * @return false if the scan had no rows left to add
+     */
+    public boolean nextBatch(ColumnBatch batch) throws StandardException, IOException {
+        batch.clear();
+        if (batchesDone)
+            return false;
+        if (!initialized) {
+            open();
+        }
+        while (!batch.isFull()) {
+            ExecRow row = tableScanner.next();
+            if (row == null) {
+                recordBytesRead();
+                tableScanner.close();
+                initialized = false;
+                batchesDone = true;
+                break;
+            }
+            batch.add(row);
+        }
+        rows += batch.size();
+        return batch.size() > 0;
+    }
+
     @Override
     public ExecRow next() {
         slotted = false;
@@ -125,10 +143,45 @@ public class TableScannerIterator implements Iterable<ExecRow>, Iterator<ExecRow
         throw new RuntimeException("Not Implemented");
     }
 
+    /**
+     * Add the bytes the scanner has returned since this was last called to the operation's profile.
+     */
+    private void recordBytesRead() {
+        OperationProfile profile = operation != null ? operation.getProfile() : null;
+        if (profile != null) {
+            long bytes = tableScanner.getBytesOutput();
+            profile.recordBytesRead(bytes - bytesRecorded);
+            bytesRecorded = bytes;
+        }
+    }
+
+    private void open() throws StandardException, IOException {
+        initialized = true;
+        tableScanner = siTableBuilder.build();
+        bytesRecorded = 0;
+        tableScanner.open();
+        if (operation!= null) {
+            operation.registerCloseable(new Closeable() {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        if (tableScanner != null && initialized) {
+                            recordBytesRead();
+                            tableScanner.close();
+                        }
+                    } catch (Exception e) {
+                        throw new IOException(e);
+                    }
+                }
+            });
+        }
+    }
+
     @Override
     public void close() throws IOException {
         if (tableScanner != null) {
             try {
+                recordBytesRead();
                 tableScanner.close();
             } catch (StandardException se) {
                 throw new IOException(se);
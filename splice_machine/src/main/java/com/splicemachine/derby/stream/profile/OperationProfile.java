@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.stream.profile;
+
+import com.splicemachine.metrics.LatencyHistogram;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * What one operation of a profiled statement did: the rows it produced, the time spent producing them and the
+ * bytes it read from storage.
+ *
+ * Time is only measured for one in every {@code sampleRate} rows, and totals are scaled up from those samples.
+ * Time is exclusive: the time an operation spends waiting on the rows of the operations below it is counted
+ * against them, not against it. Blocked time is the wall time which was not spent on the cpu of the thread
+ * which pulled the rows, whether waiting on storage, on locks or on other threads.
+ *
+ * Instances are not thread safe; control side operations are driven by one thread at a time.
+ */
+public class OperationProfile{
+    private static final ThreadMXBean THREAD_BEAN=ManagementFactory.getThreadMXBean();
+    private static final boolean CPU_TIME_SUPPORTED=THREAD_BEAN.isCurrentThreadCpuTimeSupported()
+            && THREAD_BEAN.isThreadCpuTimeEnabled();
+
+    private final String name;
+    private final int resultSetNumber;
+    private final int depth;
+    private final int sampleRate;
+
+    private long steps;
+    private long sampledSteps;
+    private long rows;
+    private long sampledWallNanos;
+    private long sampledCpuNanos;
+    private long openWallNanos;
+    private long openCpuNanos;
+    private long bytesRead;
+    private final LatencyHistogram rowLatency=new LatencyHistogram();
+
+    public OperationProfile(String name,int resultSetNumber,int depth,int sampleRate){
+        this.name=name;
+        this.resultSetNumber=resultSetNumber;
+        this.depth=depth;
+        this.sampleRate=Math.max(sampleRate,1);
+    }
+
+    /**
+     * @return the cpu time of the current thread in nanoseconds, or 0 if the jvm doesn't measure it.
+     */
+    static long cpuTime(){
+        return CPU_TIME_SUPPORTED?THREAD_BEAN.getCurrentThreadCpuTime():0L;
+    }
+
+    /**
+     * Start producing a row.
+     *
+     * @return true if the time spent producing this row should be measured.
+     */
+    boolean startStep(){
+        return (steps++)%sampleRate==0;
+    }
+
+    void recordStep(long wallNanos,long cpuNanos){
+        sampledSteps++;
+        sampledWallNanos+=wallNanos;
+        sampledCpuNanos+=cpuNanos;
+        rowLatency.record(wallNanos);
+    }
+
+    /**
+     * Record work done up front, while setting up the rows of the operation rather than while producing them.
+     */
+    void recordOpen(long wallNanos,long cpuNanos){
+        openWallNanos+=wallNanos;
+        openCpuNanos+=cpuNanos;
+    }
+
+    void recordRow(){
+        rows++;
+    }
+
+    public void recordBytesRead(long bytes){
+        bytesRead+=bytes;
+    }
+
+    public String getName(){
+        return name;
+    }
+
+    public int getResultSetNumber(){
+        return resultSetNumber;
+    }
+
+    public int getDepth(){
+        return depth;
+    }
+
+    public long getRows(){
+        return rows;
+    }
+
+    public long getBytesRead(){
+        return bytesRead;
+    }
+
+    public long getWallTime(){
+        return openWallNanos+scale(sampledWallNanos);
+    }
+
+    /**
+     * @return the cpu time in nanoseconds, or -1 if the jvm doesn't measure it.
+     */
+    public long getCpuTime(){
+        return CPU_TIME_SUPPORTED?openCpuNanos+scale(sampledCpuNanos):-1L;
+    }
+
+    /**
+     * @return the blocked time in nanoseconds, or -1 if the jvm doesn't measure cpu time.
+     */
+    public long getBlockedTime(){
+        return CPU_TIME_SUPPORTED?Math.max(getWallTime()-getCpuTime(),0L):-1L;
+    }
+
+    /**
+     * @return the (exclusive) wall time taken to produce each of the sampled rows, in nanoseconds.
+     */
+    public LatencyHistogram getRowLatency(){
+        return rowLatency;
+    }
+
+    /**
+     * @param rowsIn the rows produced by the operations right below this one
+     */
+    public String describe(long rowsIn){
+        StringBuilder sb=new StringBuilder(name)
+                .append("(n=").append(resultSetNumber)
+                .append(",rowsIn=").append(rowsIn)
+                .append(",rowsOut=").append(rows)
+                .append(",wallTime=").append(millis(getWallTime()))
+                .append(",cpuTime=").append(millis(getCpuTime()))
+                .append(",blockedTime=").append(millis(getBlockedTime()));
+        if(bytesRead>0)
+            sb.append(",bytesRead=").append(bytesRead);
+        if(rowLatency.getCount()>0){
+            sb.append(",rowLatency(p50=").append(micros(rowLatency.getP50Latency()))
+                    .append(",p99=").append(micros(rowLatency.getP99Latency()))
+                    .append(",max=").append(micros(rowLatency.getMaxLatency())).append(")");
+        }
+        return sb.append(")").toString();
+    }
+
+    /**
+     * @return {@code nanos} in milliseconds, for display, or "n/a" if it wasn't measured.
+     */
+    public static String millis(long nanos){
+        if(nanos<0) return "n/a";
+        return String.format("%.3fms",nanos/1000000d);
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private long scale(long sampled){
+        if(sampledSteps==0) return 0L;
+        return (long)(((double)sampled)*steps/sampledSteps);
+    }
+
+    private static String micros(long nanos){
+        return String.format("%.1fus",nanos/1000d);
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.stream.profile;
+
+import com.splicemachine.derby.iapi.sql.execute.SpliceOperation;
+import com.splicemachine.derby.impl.sql.execute.operations.SpliceBaseOperation;
+import com.splicemachine.derby.stream.function.AbstractSpliceFunction;
+
+import java.util.Iterator;
+import java.util.concurrent.Callable;
+
+/**
+ * Counts the rows an operation produces, and times one in every few of them, for the operation's profile.
+ *
+ * Each timed call pushes a frame onto a per-thread stack, and adds its time to the frame below it when it
+ * finishes, so an operation's own time can be told apart from the time spent in the operations it pulls rows
+ * from. Calls which aren't sampled are still timed while an operation above them is being timed, but they are
+ * only recorded in their own profile when they were sampled.
+ */
+public class ProfiledIterator<T> implements Iterator<T>{
+    private static final ThreadLocal<Frame> CURRENT_FRAME=new ThreadLocal<>();
+
+    private final Iterator<T> delegate;
+    private final OperationProfile profile;
+    private boolean sampled;
+    private long pendingWallNanos;
+    private long pendingCpuNanos;
+
+    private ProfiledIterator(Iterator<T> delegate,OperationProfile profile){
+        this.delegate=delegate;
+        this.profile=profile;
+    }
+
+    /**
+     * @return the profile of the operation that {@code function} belongs to, or null if it isn't being profiled.
+     */
+    public static OperationProfile profileOf(AbstractSpliceFunction function){
+        if(function==null || function.operationContext==null)
+            return null;
+        return profileOf(function.operationContext.getOperation());
+    }
+
+    /**
+     * @return the profile of {@code operation}, or null if it isn't being profiled.
+     */
+    public static OperationProfile profileOf(SpliceOperation operation){
+        if(operation instanceof SpliceBaseOperation)
+            return ((SpliceBaseOperation)operation).getProfile();
+        return null;
+    }
+
+    /**
+     * Profile the rows of {@code iterator} as rows of the operation which {@code profile} belongs to.
+     *
+     * @return {@code iterator} itself if {@code profile} is null.
+     */
+    public static <T> Iterator<T> wrap(Iterator<T> iterator,OperationProfile profile){
+        if(profile==null || iterator==null)
+            return iterator;
+        return new ProfiledIterator<>(iterator,profile);
+    }
+
+    /**
+     * An operation often applies several transformations to its rows. Transformations are applied to the
+     * unwrapped rows, and the result wrapped again, so that the operation's rows are only profiled once.
+     *
+     * @return the iterator that {@code iterator} profiles, if it profiles the rows of the same operation,
+     * or {@code iterator} itself otherwise.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> Iterator<T> unwrap(Iterator<T> iterator,OperationProfile profile){
+        if(profile!=null && iterator instanceof ProfiledIterator && ((ProfiledIterator)iterator).profile==profile)
+            return ((ProfiledIterator<T>)iterator).delegate;
+        return iterator;
+    }
+
+    /**
+     * Do work that an operation does before its first row (like building a hash table or sorting its input),
+     * and count the time it takes towards the operation.
+     */
+    public static <V> V time(OperationProfile profile,Callable<V> work) throws Exception{
+        if(profile==null)
+            return work.call();
+        Frame frame=enter();
+        try{
+            return work.call();
+        }finally{
+            exit(frame);
+            profile.recordOpen(frame.wallNanos-frame.childWallNanos,frame.cpuNanos-frame.childCpuNanos);
+        }
+    }
+
+    @Override
+    public boolean hasNext(){
+        sampled=profile.startStep();
+        pendingWallNanos=0L;
+        pendingCpuNanos=0L;
+        if(!sampled && CURRENT_FRAME.get()==null)
+            return delegate.hasNext();
+        Frame frame=enter();
+        boolean hasNext=false;
+        try{
+            hasNext=delegate.hasNext();
+            return hasNext;
+        }finally{
+            exit(frame);
+            if(sampled){
+                pendingWallNanos=frame.wallNanos-frame.childWallNanos;
+                pendingCpuNanos=frame.cpuNanos-frame.childCpuNanos;
+                if(!hasNext)
+                    recordPending();
+            }
+        }
+    }
+
+    @Override
+    public T next(){
+        profile.recordRow();
+        if(!sampled && CURRENT_FRAME.get()==null)
+            return delegate.next();
+        Frame frame=enter();
+        try{
+            return delegate.next();
+        }finally{
+            exit(frame);
+            if(sampled){
+                pendingWallNanos+=frame.wallNanos-frame.childWallNanos;
+                pendingCpuNanos+=frame.cpuNanos-frame.childCpuNanos;
+                recordPending();
+            }
+        }
+    }
+
+    @Override
+    public void remove(){
+        delegate.remove();
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private void recordPending(){
+        profile.recordStep(pendingWallNanos,pendingCpuNanos);
+        sampled=false;
+    }
+
+    private static Frame enter(){
+        Frame frame=new Frame(CURRENT_FRAME.get());
+        CURRENT_FRAME.set(frame);
+        frame.cpuNanos=OperationProfile.cpuTime();
+        frame.wallNanos=System.nanoTime();
+        return frame;
+    }
+
+    private static void exit(Frame frame){
+        frame.wallNanos=System.nanoTime()-frame.wallNanos;
+        frame.cpuNanos=OperationProfile.cpuTime()-frame.cpuNanos;
+        if(frame.parent!=null){
+            frame.parent.childWallNanos+=frame.wallNanos;
+            frame.parent.childCpuNanos+=frame.cpuNanos;
+            CURRENT_FRAME.set(frame.parent);
+        }else
+            CURRENT_FRAME.remove();
+    }
+
+    private static class Frame{
+        private final Frame parent;
+        private long wallNanos;
+        private long cpuNanos;
+        private long childWallNanos;
+        private long childCpuNanos;
+
+        Frame(Frame parent){
+            this.parent=parent;
+        }
+    }
+}
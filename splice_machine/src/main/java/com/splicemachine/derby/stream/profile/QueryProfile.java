@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.stream.profile;
+
+import com.splicemachine.derby.iapi.sql.execute.SpliceOperation;
+import com.splicemachine.derby.impl.sql.execute.operations.SpliceBaseOperation;
+import org.spark_project.guava.base.Strings;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The profiles of all the operations of one execution of a statement, in plan order.
+ *
+ * A profile is attached to the operations of a statement when it is opened and detached when it is closed,
+ * since the operations of a prepared statement are reused by its next execution. Only statements which run in
+ * control are profiled; the rows of a statement which runs in Spark are produced by copies of its operations
+ * on the executors.
+ */
+public class QueryProfile{
+    private static final AtomicLong statementCount=new AtomicLong(0L);
+
+    private final List<OperationProfile> operations=new ArrayList<>();
+
+    private QueryProfile(){
+    }
+
+    /**
+     * @param statementRate profile one in this many statements; 0 or less to profile none.
+     * @return true if the statement that is being opened should be profiled.
+     */
+    public static boolean shouldProfile(int statementRate){
+        return statementRate>0 && statementCount.getAndIncrement()%statementRate==0;
+    }
+
+    /**
+     * Start profiling {@code root} and every operation below it.
+     *
+     * @param rowSampleRate time one in this many of the rows each operation produces.
+     */
+    public static QueryProfile attach(SpliceOperation root,int rowSampleRate){
+        QueryProfile queryProfile=new QueryProfile();
+        queryProfile.attach(root,0,rowSampleRate);
+        return queryProfile;
+    }
+
+    /**
+     * Stop profiling {@code root} and every operation below it. The profiles collected so far are kept.
+     */
+    public static void detach(SpliceOperation root){
+        if(root instanceof SpliceBaseOperation)
+            ((SpliceBaseOperation)root).setProfile(null);
+        for(SpliceOperation op : root.getSubOperations()){
+            if(op!=null)
+                detach(op);
+        }
+    }
+
+    public List<OperationProfile> getOperations(){
+        return Collections.unmodifiableList(operations);
+    }
+
+    public long getCpuTime(){
+        long cpuTime=0L;
+        for(OperationProfile operation : operations){
+            if(operation.getCpuTime()<0) return -1L;
+            cpuTime+=operation.getCpuTime();
+        }
+        return cpuTime;
+    }
+
+    public long getBlockedTime(){
+        long blockedTime=0L;
+        for(OperationProfile operation : operations){
+            if(operation.getBlockedTime()<0) return -1L;
+            blockedTime+=operation.getBlockedTime();
+        }
+        return blockedTime;
+    }
+
+    public long getBytesRead(){
+        long bytesRead=0L;
+        for(OperationProfile operation : operations){
+            bytesRead+=operation.getBytesRead();
+        }
+        return bytesRead;
+    }
+
+    /**
+     * @return the rows produced by the top operation
+     */
+    public long getRows(){
+        return operations.isEmpty()?0L:operations.get(0).getRows();
+    }
+
+    /**
+     * @return one line for every operation, indented as in an explain plan.
+     */
+    public List<String> toLines(){
+        List<String> lines=new ArrayList<>(operations.size());
+        for(int i=0;i<operations.size();i++){
+            OperationProfile operation=operations.get(i);
+            long rowsIn=0L;
+            for(int j=i+1;j<operations.size() && operations.get(j).getDepth()>operation.getDepth();j++){
+                if(operations.get(j).getDepth()==operation.getDepth()+1)
+                    rowsIn+=operations.get(j).getRows();
+            }
+            String indent=operation.getDepth()==0?"":Strings.repeat("  ",operation.getDepth())+"->  ";
+            lines.add(indent+operation.describe(rowsIn));
+        }
+        return lines;
+    }
+
+    @Override
+    public String toString(){
+        StringBuilder sb=new StringBuilder();
+        for(String line : toLines()){
+            if(sb.length()>0) sb.append('\n');
+            sb.append(line);
+        }
+        return sb.toString();
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private void attach(SpliceOperation op,int depth,int rowSampleRate){
+        if(op instanceof SpliceBaseOperation){
+            OperationProfile profile=new OperationProfile(op.getName(),op.resultSetNumber(),depth,rowSampleRate);
+            ((SpliceBaseOperation)op).setProfile(profile);
+            operations.add(profile);
+        }
+        for(SpliceOperation child : op.getSubOperations()){
+            if(child!=null)
+                attach(child,depth+1,rowSampleRate);
+        }
+    }
+}
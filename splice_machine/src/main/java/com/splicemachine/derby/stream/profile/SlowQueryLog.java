@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.stream.profile;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The most recent statements on this server which took longer than the slow query threshold, oldest first.
+ * Statements which were profiled keep their profile.
+ */
+public class SlowQueryLog{
+    private final int size;
+    private final ArrayDeque<SlowQuery> queries;
+
+    public SlowQueryLog(int size){
+        this.size=size;
+        this.queries=new ArrayDeque<>(Math.max(size,1));
+    }
+
+    public synchronized void record(SlowQuery query){
+        if(size<=0) return;
+        if(queries.size()>=size)
+            queries.removeFirst();
+        queries.addLast(query);
+    }
+
+    /**
+     * @param userId the user whose statements to return, or null for the statements of all users.
+     */
+    public synchronized List<SlowQuery> getQueries(String userId){
+        List<SlowQuery> result=new ArrayList<>(queries.size());
+        for(SlowQuery query : queries){
+            if(userId==null || userId.equals(query.getUserId()))
+                result.add(query);
+        }
+        return result;
+    }
+
+    public static class SlowQuery{
+        private final String uuid;
+        private final String userId;
+        private final String sql;
+        private final String engine;
+        private final long startTime;
+        private final long elapsedTime;
+        private final QueryProfile profile;
+        private final long streamedRows;
+        private final long timeToFirstRow;
+        private final double throughput;
+
+        /**
+         * @param startTime when the statement was opened, in milliseconds since the epoch
+         * @param elapsedTime the time spent opening the statement and fetching its rows, in milliseconds
+         * @param profile the statement's profile, or null if it wasn't profiled
+         * @param streamedRows the rows streamed back from a remote execution, -1 if the statement ran here
+         * @param timeToFirstRow milliseconds until the first streamed row arrived, -1 if none did
+         * @param throughput streamed rows per second since the first one, -1 if the statement ran here
+         */
+        public SlowQuery(String uuid,String userId,String sql,String engine,long startTime,long elapsedTime,QueryProfile profile,
+                         long streamedRows,long timeToFirstRow,double throughput){
+            this.uuid=uuid;
+            this.userId=userId;
+            this.sql=sql;
+            this.engine=engine;
+            this.startTime=startTime;
+            this.elapsedTime=elapsedTime;
+            this.profile=profile;
+            this.streamedRows=streamedRows;
+            this.timeToFirstRow=timeToFirstRow;
+            this.throughput=throughput;
+        }
+
+        public String getUuid(){ return uuid; }
+        public String getUserId(){ return userId; }
+        public String getSql(){ return sql; }
+        public String getEngine(){ return engine; }
+        public long getStartTime(){ return startTime; }
+        public long getElapsedTime(){ return elapsedTime; }
+        public QueryProfile getProfile(){ return profile; }
+        public long getStreamedRows(){ return streamedRows; }
+        public long getTimeToFirstRow(){ return timeToFirstRow; }
+        public double getThroughput(){ return throughput; }
+    }
+}
@@ -0,0 +1,264 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.stream.vector;
+
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.sql.execute.ExecAggregator;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.types.SQLLongint;
+import com.splicemachine.db.impl.sql.execute.DoubleBufferedSumAggregator;
+import com.splicemachine.db.impl.sql.execute.LongBufferedSumAggregator;
+
+/**
+ * An aggregate computed over the selected rows of a {@link ColumnBatch} in a tight loop over the input column's
+ * primitive values. The partial result of every batch is added to the aggregator that the row at a time path
+ * would accumulate into, so the aggregator finishes (and reports eliminated nulls) exactly as it otherwise would.
+ */
+public abstract class BatchAggregate{
+    protected final ExecAggregator aggregator;
+    protected final int column;
+
+    private BatchAggregate(ExecAggregator aggregator,int column){
+        this.aggregator=aggregator;
+        this.column=column;
+    }
+
+    /**
+     * @param aggregateName the name of the aggregate, as the parser names it
+     * @param aggregator the (initialized) aggregator to add the partial results to
+     * @param column the (0-based) input column in the source row; ignored for {@code COUNT(*)}
+     * @param template a row with the types of the source rows
+     * @return the aggregate over batches, or {@code null} if it can only be computed a row at a time
+     */
+    public static BatchAggregate create(String aggregateName,ExecAggregator aggregator,int column,ExecRow template){
+        if("COUNT(*)".equals(aggregateName))
+            return new CountStar(aggregator);
+        if(column<0 || column>=template.nColumns()) return null;
+        ColumnVector.Kind kind=ColumnVector.kindOf(template.getRowArray()[column]);
+        if(kind==null) return null;
+        switch(aggregateName){
+            case "COUNT":
+                return new Count(aggregator,column);
+            case "SUM":
+                if(kind==ColumnVector.Kind.LONG && aggregator instanceof LongBufferedSumAggregator)
+                    return new LongSum(aggregator,column);
+                if(kind==ColumnVector.Kind.DOUBLE && aggregator instanceof DoubleBufferedSumAggregator)
+                    return new DoubleSum((DoubleBufferedSumAggregator)aggregator,column);
+                return null;
+            case "MAX":
+                return new MaxMin(aggregator,column,true);
+            case "MIN":
+                return new MaxMin(aggregator,column,false);
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * @return the (0-based) input column, or -1 if the aggregate reads none
+     */
+    public int getColumn(){
+        return column;
+    }
+
+    /**
+     * Add the selected rows of the batch to the aggregator.
+     */
+    public abstract void aggregate(ColumnBatch batch) throws StandardException;
+
+    /**
+     * Tell the aggregator that it skipped over nulls, the way accumulating a null would.
+     */
+    protected void eliminateNulls(ColumnVector vector) throws StandardException{
+        aggregator.accumulate(vector.newNull(),this);
+    }
+
+    /**
+     * @return true if a selected row of the batch is null in the given vector
+     */
+    protected static boolean anyNulls(ColumnBatch batch,ColumnVector vector){
+        if(!vector.hasNulls) return false;
+        int[] selection=batch.selection;
+        boolean[] nulls=vector.nulls;
+        for(int i=0;i<batch.selected;i++){
+            if(nulls[selection[i]]) return true;
+        }
+        return false;
+    }
+
+    private static class CountStar extends BatchAggregate{
+        CountStar(ExecAggregator aggregator){
+            super(aggregator,-1);
+        }
+
+        @Override
+        public void aggregate(ColumnBatch batch) throws StandardException{
+            if(batch.selected>0)
+                aggregator.add(new SQLLongint(batch.selected));
+        }
+    }
+
+    private static class Count extends BatchAggregate{
+        Count(ExecAggregator aggregator,int column){
+            super(aggregator,column);
+        }
+
+        @Override
+        public void aggregate(ColumnBatch batch) throws StandardException{
+            ColumnVector vector=batch.getVector(column);
+            long count=batch.selected;
+            if(vector.hasNulls){
+                int[] selection=batch.selection;
+                boolean[] nulls=vector.nulls;
+                for(int i=0;i<batch.selected;i++){
+                    if(nulls[selection[i]]) count--;
+                }
+                if(count<batch.selected)
+                    eliminateNulls(vector);
+            }
+            if(count>0)
+                aggregator.add(new SQLLongint(count));
+        }
+    }
+
+    private static class LongSum extends BatchAggregate{
+        LongSum(ExecAggregator aggregator,int column){
+            super(aggregator,column);
+        }
+
+        @Override
+        public void aggregate(ColumnBatch batch) throws StandardException{
+            ColumnVector vector=batch.getVector(column);
+            int[] selection=batch.selection;
+            long[] values=vector.longs;
+            boolean[] nulls=vector.nulls;
+            int n=batch.selected;
+            boolean hasNulls=anyNulls(batch,vector);
+            long sum=0L;
+            boolean any=false;
+            try{
+                if(hasNulls){
+                    for(int i=0;i<n;i++){
+                        int r=selection[i];
+                        if(!nulls[r]){
+                            sum=Math.addExact(sum,values[r]);
+                            any=true;
+                        }
+                    }
+                }else{
+                    for(int i=0;i<n;i++){
+                        sum=Math.addExact(sum,values[selection[i]]);
+                    }
+                    any=n>0;
+                }
+            }catch(ArithmeticException overflow){
+                // hand the values over one at a time, and leave it to the aggregator to decide what overflows
+                SQLLongint value=new SQLLongint();
+                any=false;
+                for(int i=0;i<n;i++){
+                    int r=selection[i];
+                    if(!nulls[r]){
+                        value.setValue(values[r]);
+                        aggregator.add(value);
+                    }
+                }
+            }
+            if(hasNulls)
+                eliminateNulls(vector);
+            if(any)
+                aggregator.add(new SQLLongint(sum));
+        }
+    }
+
+    private static class DoubleSum extends BatchAggregate{
+        private final DoubleBufferedSumAggregator sumAggregator;
+
+        DoubleSum(DoubleBufferedSumAggregator aggregator,int column){
+            super(aggregator,column);
+            this.sumAggregator=aggregator;
+        }
+
+        @Override
+        public void aggregate(ColumnBatch batch) throws StandardException{
+            ColumnVector vector=batch.getVector(column);
+            int[] selection=batch.selection;
+            double[] values=vector.doubles;
+            boolean[] nulls=vector.nulls;
+            int n=batch.selected;
+            boolean hasNulls=anyNulls(batch,vector);
+            double sum=0d;
+            boolean any=false;
+            if(hasNulls){
+                for(int i=0;i<n;i++){
+                    int r=selection[i];
+                    if(!nulls[r]){
+                        sum+=values[r];
+                        any=true;
+                    }
+                }
+                eliminateNulls(vector);
+            }else{
+                for(int i=0;i<n;i++){
+                    sum+=values[selection[i]];
+                }
+                any=n>0;
+            }
+            if(any)
+                sumAggregator.addDirect(sum);
+        }
+    }
+
+    private static class MaxMin extends BatchAggregate{
+        private final boolean isMax;
+
+        MaxMin(ExecAggregator aggregator,int column,boolean isMax){
+            super(aggregator,column);
+            this.isMax=isMax;
+        }
+
+        @Override
+        public void aggregate(ColumnBatch batch) throws StandardException{
+            ColumnVector vector=batch.getVector(column);
+            int[] selection=batch.selection;
+            boolean[] nulls=vector.nulls;
+            int n=batch.selected;
+            boolean hasNulls=anyNulls(batch,vector);
+            int best=-1;
+            if(vector.getKind()==ColumnVector.Kind.LONG){
+                long[] values=vector.longs;
+                for(int i=0;i<n;i++){
+                    int r=selection[i];
+                    if(hasNulls && nulls[r]) continue;
+                    if(best<0 || (isMax?values[r]>values[best]:values[r]<values[best]))
+                        best=r;
+                }
+                if(best>=0)
+                    aggregator.add(vector.newValue(values[best]));
+            }else{
+                double[] values=vector.doubles;
+                for(int i=0;i<n;i++){
+                    int r=selection[i];
+                    if(hasNulls && nulls[r]) continue;
+                    if(best<0 || (isMax?values[r]>values[best]:values[r]<values[best]))
+                        best=r;
+                }
+                if(best>=0)
+                    aggregator.add(vector.newValue(values[best]));
+            }
+            if(hasNulls)
+                eliminateNulls(vector);
+        }
+    }
+}
@@ -0,0 +1,237 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.stream.vector;
+
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.store.access.Qualifier;
+import com.splicemachine.db.iapi.types.DataValueDescriptor;
+import com.splicemachine.db.iapi.types.Orderable;
+import com.splicemachine.derby.utils.Scans;
+
+/**
+ * Scan qualifiers, applied to a whole {@link ColumnBatch} at once.
+ *
+ * A row passes when it would pass {@link Scans#qualifyRecordFromRow}: every qualifier of the first list must
+ * hold, and then at least one qualifier of every following list. Each qualifier compares its column against
+ * a constant in a loop over the column's primitive values. A qualifier whose constant is null (and which
+ * {@link Scans#filterNull} rejects) fails every row that reaches it, so it fails an AND clause outright and
+ * cuts an OR clause short.
+ */
+public class BatchQualifier{
+    private final Term[][] terms;
+    private final int[] columns;
+    private boolean[] matches;
+    private boolean[] anyMatches;
+
+    private BatchQualifier(Term[][] terms,int[] columns){
+        this.terms=terms;
+        this.columns=columns;
+    }
+
+    /**
+     * @param qualifiers the scan qualifiers
+     * @param baseColumnMap the map from storage positions to positions in the scanned row, or {@code null}
+     * @param template a row with the types of the scanned rows
+     * @return the qualifiers for batches of the scanned rows, or {@code null} if one of them can't be applied
+     * to a batch: its column or constant isn't a numeric type a {@link ColumnVector} can hold, its constant may
+     * change from row to row, or it compares against a null in a way that can match.
+     */
+    public static BatchQualifier create(Qualifier[][] qualifiers,int[] baseColumnMap,ExecRow template) throws StandardException{
+        DataValueDescriptor[] dvds=template.getRowArray();
+        Term[][] terms=new Term[qualifiers.length][];
+        int count=0;
+        for(Qualifier[] clause : qualifiers){
+            count+=clause.length;
+        }
+        int[] columns=new int[count];
+        count=0;
+        for(int i=0;i<qualifiers.length;i++){
+            terms[i]=new Term[qualifiers[i].length];
+            for(int j=0;j<qualifiers[i].length;j++){
+                Qualifier q=qualifiers[i][j];
+                int column=baseColumnMap!=null?baseColumnMap[q.getStoragePosition()]:q.getStoragePosition();
+                if(column<0 || column>=dvds.length) return null;
+                Term term=Term.create(q,column,dvds[column]);
+                if(term==null) return null;
+                terms[i][j]=term;
+                columns[count++]=column;
+            }
+        }
+        return new BatchQualifier(terms,columns);
+    }
+
+    /**
+     * @return the (0-based) columns that the qualifiers read
+     */
+    public int[] getColumns(){
+        return columns;
+    }
+
+    /**
+     * Narrow the batch's selection to the rows which pass the qualifiers.
+     */
+    public void apply(ColumnBatch batch){
+        if(matches==null || matches.length<batch.selection.length){
+            matches=new boolean[batch.selection.length];
+            anyMatches=new boolean[batch.selection.length];
+        }
+        for(Term term : terms[0]){
+            if(batch.selected==0) return;
+            if(term.never){
+                batch.selected=0;
+                return;
+            }
+            term.evaluate(batch,matches);
+            compact(batch,matches);
+        }
+        for(int i=1;i<terms.length;i++){
+            if(batch.selected==0) return;
+            int n=batch.selected;
+            for(int r=0;r<n;r++){
+                anyMatches[r]=false;
+            }
+            for(Term term : terms[i]){
+                if(term.never) break;
+                term.evaluate(batch,matches);
+                for(int r=0;r<n;r++){
+                    anyMatches[r]|=matches[r];
+                }
+            }
+            compact(batch,anyMatches);
+        }
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private static void compact(ColumnBatch batch,boolean[] keep){
+        int[] selection=batch.selection;
+        int n=batch.selected;
+        int kept=0;
+        for(int i=0;i<n;i++){
+            if(keep[i])
+                selection[kept++]=selection[i];
+        }
+        batch.selected=kept;
+    }
+
+    private static class Term{
+        private final int column;
+        private final int operator;
+        private final boolean negate;
+        private final boolean integral;
+        private final long longValue;
+        private final double doubleValue;
+        private final boolean nullResult;
+        private final boolean never;
+
+        private Term(int column,int operator,boolean negate,boolean integral,long longValue,double doubleValue,
+                     boolean nullResult,boolean never){
+            this.column=column;
+            this.operator=operator;
+            this.negate=negate;
+            this.integral=integral;
+            this.longValue=longValue;
+            this.doubleValue=doubleValue;
+            this.nullResult=nullResult;
+            this.never=never;
+        }
+
+        static Term create(Qualifier q,int column,DataValueDescriptor columnTemplate) throws StandardException{
+            ColumnVector.Kind columnKind=ColumnVector.kindOf(columnTemplate);
+            if(columnKind==null || q.getVariantType()==Qualifier.VARIANT) return null;
+            int operator=q.getOperator();
+            if(operator<Orderable.ORDER_OP_LESSTHAN || operator>Orderable.ORDER_OP_GREATEROREQUALS) return null;
+            q.clearOrderableCache();
+            DataValueDescriptor orderable=q.getOrderable();
+            if(orderable==null || orderable.isNull()){
+                if(Scans.filterNull(operator,null,orderable,q.getVariantType()))
+                    return new Term(column,operator,false,false,0L,0d,false,true);
+                return null;
+            }
+            ColumnVector.Kind orderableKind=ColumnVector.kindOf(orderable);
+            if(orderableKind==null || (columnKind==ColumnVector.Kind.LONG && orderableKind==ColumnVector.Kind.DOUBLE))
+                return null;
+            boolean integral=columnKind==ColumnVector.Kind.LONG;
+            // a null column compares the same way whatever the row, so it is worked out once
+            boolean nullResult=columnTemplate.getNewNull().compare(operator,orderable,q.getOrderedNulls(),q.getUnknownRV());
+            return new Term(column,operator,q.negateCompareResult(),integral,
+                    integral?orderable.getLong():0L,integral?0d:orderable.getDouble(),nullResult,false);
+        }
+
+        /**
+         * Set {@code out[i]} to whether the i-th selected row of the batch passes this term.
+         */
+        void evaluate(ColumnBatch batch,boolean[] out){
+            ColumnVector vector=batch.getVector(column);
+            int[] selection=batch.selection;
+            int n=batch.selected;
+            if(integral)
+                compare(vector.longs,longValue,operator,selection,n,out);
+            else
+                compare(vector.doubles,doubleValue,operator,selection,n,out);
+            if(vector.hasNulls){
+                boolean[] nulls=vector.nulls;
+                for(int i=0;i<n;i++){
+                    if(nulls[selection[i]])
+                        out[i]=nullResult;
+                }
+            }
+            if(negate){
+                for(int i=0;i<n;i++){
+                    out[i]=!out[i];
+                }
+            }
+        }
+
+        private static void compare(long[] values,long value,int operator,int[] selection,int n,boolean[] out){
+            switch(operator){
+                case Orderable.ORDER_OP_LESSTHAN:
+                    for(int i=0;i<n;i++) out[i]=values[selection[i]]<value;
+                    break;
+                case Orderable.ORDER_OP_EQUALS:
+                    for(int i=0;i<n;i++) out[i]=values[selection[i]]==value;
+                    break;
+                case Orderable.ORDER_OP_LESSOREQUALS:
+                    for(int i=0;i<n;i++) out[i]=values[selection[i]]<=value;
+                    break;
+                case Orderable.ORDER_OP_GREATERTHAN:
+                    for(int i=0;i<n;i++) out[i]=values[selection[i]]>value;
+                    break;
+                default:
+                    for(int i=0;i<n;i++) out[i]=values[selection[i]]>=value;
+            }
+        }
+
+        private static void compare(double[] values,double value,int operator,int[] selection,int n,boolean[] out){
+            switch(operator){
+                case Orderable.ORDER_OP_LESSTHAN:
+                    for(int i=0;i<n;i++) out[i]=values[selection[i]]<value;
+                    break;
+                case Orderable.ORDER_OP_EQUALS:
+                    for(int i=0;i<n;i++) out[i]=values[selection[i]]==value;
+                    break;
+                case Orderable.ORDER_OP_LESSOREQUALS:
+                    for(int i=0;i<n;i++) out[i]=values[selection[i]]<=value;
+                    break;
+                case Orderable.ORDER_OP_GREATERTHAN:
+                    for(int i=0;i<n;i++) out[i]=values[selection[i]]>value;
+                    break;
+                default:
+                    for(int i=0;i<n;i++) out[i]=values[selection[i]]>=value;
+            }
+        }
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.stream.vector;
+
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.types.DataValueDescriptor;
+
+/**
+ * A batch of rows, held a column at a time. Only the columns that the batch was built for are kept, each
+ * in a {@link ColumnVector} at the column's (0-based) position in the source row.
+ *
+ * Rows which have been filtered out stay in the vectors; the rows still in play are listed, in order, by the
+ * batch's selection.
+ */
+public class ColumnBatch{
+    private final ColumnVector[] vectors;
+    private final int[] columns;
+    private final int capacity;
+    private int size;
+    final int[] selection;
+    int selected;
+
+    private ColumnBatch(ColumnVector[] vectors,int[] columns,int capacity){
+        this.vectors=vectors;
+        this.columns=columns;
+        this.capacity=capacity;
+        this.selection=new int[capacity];
+    }
+
+    /**
+     * @param template a row with the types of the rows to batch
+     * @param columns the (0-based) columns to keep
+     * @param capacity the maximum number of rows in the batch
+     * @return a batch for the given columns, or {@code null} if one of them has a type which can't be held in a
+     * {@link ColumnVector}
+     */
+    public static ColumnBatch forTemplate(ExecRow template,int[] columns,int capacity){
+        DataValueDescriptor[] dvds=template.getRowArray();
+        ColumnVector[] vectors=new ColumnVector[dvds.length];
+        for(int column : columns){
+            if(column<0 || column>=dvds.length) return null;
+            ColumnVector.Kind kind=ColumnVector.kindOf(dvds[column]);
+            if(kind==null) return null;
+            if(vectors[column]==null)
+                vectors[column]=new ColumnVector(kind,dvds[column],capacity);
+        }
+        return new ColumnBatch(vectors,columns,capacity);
+    }
+
+    /**
+     * @return the vector for the given (0-based) column, or {@code null} if the batch doesn't keep it
+     */
+    public ColumnVector getVector(int column){
+        return column<vectors.length?vectors[column]:null;
+    }
+
+    public int size(){
+        return size;
+    }
+
+    public boolean isFull(){
+        return size==capacity;
+    }
+
+    /**
+     * @return the number of rows still in play
+     */
+    public int selected(){
+        return selected;
+    }
+
+    /**
+     * Append a row to the batch, and select it.
+     */
+    public void add(ExecRow row) throws StandardException{
+        DataValueDescriptor[] dvds=row.getRowArray();
+        for(int column : columns){
+            vectors[column].set(size,dvds[column]);
+        }
+        selection[selected++]=size;
+        size++;
+    }
+
+    /**
+     * Empty the batch so it can be filled again.
+     */
+    public void clear(){
+        for(ColumnVector vector : vectors){
+            if(vector!=null)
+                vector.hasNulls=false;
+        }
+        size=0;
+        selected=0;
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.stream.vector;
+
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.services.io.StoredFormatIds;
+import com.splicemachine.db.iapi.types.DataValueDescriptor;
+
+/**
+ * The values of one column for every row of a {@link ColumnBatch}, held in primitive arrays.
+ *
+ * Integral columns are held as longs, and approximate numeric columns as doubles; no other type can be
+ * held in a vector.
+ */
+public class ColumnVector{
+    public enum Kind{LONG,DOUBLE}
+
+    private final Kind kind;
+    private final DataValueDescriptor template;
+    final long[] longs;
+    final double[] doubles;
+    final boolean[] nulls;
+    boolean hasNulls;
+
+    ColumnVector(Kind kind,DataValueDescriptor template,int capacity){
+        this.kind=kind;
+        this.template=template;
+        this.longs=kind==Kind.LONG?new long[capacity]:null;
+        this.doubles=kind==Kind.DOUBLE?new double[capacity]:null;
+        this.nulls=new boolean[capacity];
+    }
+
+    /**
+     * @return the kind of vector which can hold values of the given type, or {@code null} if there is none
+     */
+    public static Kind kindOf(DataValueDescriptor dvd){
+        if(dvd==null) return null;
+        switch(dvd.getTypeFormatId()){
+            case StoredFormatIds.SQL_TINYINT_ID:
+            case StoredFormatIds.SQL_SMALLINT_ID:
+            case StoredFormatIds.SQL_INTEGER_ID:
+            case StoredFormatIds.SQL_LONGINT_ID:
+                return Kind.LONG;
+            case StoredFormatIds.SQL_REAL_ID:
+            case StoredFormatIds.SQL_DOUBLE_ID:
+                return Kind.DOUBLE;
+            default:
+                return null;
+        }
+    }
+
+    public Kind getKind(){
+        return kind;
+    }
+
+    public boolean isNull(int position){
+        return nulls[position];
+    }
+
+    public long getLong(int position){
+        return longs[position];
+    }
+
+    public double getDouble(int position){
+        return doubles[position];
+    }
+
+    /**
+     * @return a new value of this column's type, set to the given long
+     */
+    DataValueDescriptor newValue(long value) throws StandardException{
+        DataValueDescriptor dvd=template.getNewNull();
+        dvd.setValue(value);
+        return dvd;
+    }
+
+    /**
+     * @return a new value of this column's type, set to the given double
+     */
+    DataValueDescriptor newValue(double value) throws StandardException{
+        DataValueDescriptor dvd=template.getNewNull();
+        dvd.setValue(value);
+        return dvd;
+    }
+
+    DataValueDescriptor newNull(){
+        return template.getNewNull();
+    }
+
+    void set(int position,DataValueDescriptor dvd) throws StandardException{
+        if(dvd.isNull()){
+            nulls[position]=true;
+            hasNulls=true;
+        }else{
+            nulls[position]=false;
+            if(kind==Kind.LONG)
+                longs[position]=dvd.getLong();
+            else
+                doubles[position]=dvd.getDouble();
+        }
+    }
+}
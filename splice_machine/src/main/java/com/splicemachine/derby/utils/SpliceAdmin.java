@@ -66,6 +66,8 @@ import com.splicemachine.db.impl.sql.GenericPreparedStatement;
 import com.splicemachine.db.impl.sql.execute.IteratorNoPutResultSet;
 import com.splicemachine.db.impl.sql.execute.ValueRow;
 import com.splicemachine.derby.stream.ActivationHolder;
+import com.splicemachine.derby.stream.profile.QueryProfile;
+import com.splicemachine.derby.stream.profile.SlowQueryLog;
 import com.splicemachine.pipeline.ErrorState;
 import com.splicemachine.pipeline.Exceptions;
 import com.splicemachine.si.impl.driver.SIDriver;
@@ -1483,6 +1485,78 @@ public class SpliceAdmin extends BaseAdminProcedures{
         resultSet[0] = new EmbedResultSet40(conn, resultsToWrap, false, null, true);
     }
 
+    /**
+     * The statements on this server which spent longer than splice.execution.slowQueryThreshold executing, oldest
+     * first; the log is empty unless the threshold is set. The time, rows and bytes read of a statement are only
+     * known if it was profiled (see splice.execution.profile.statementRate); for other statements they are null.
+     * Statements run in Spark report the rows streamed back, the time until the first of them arrived and the
+     * rate they came at.
+     */
+    public static void SYSCS_GET_SLOW_QUERIES(final ResultSet[] resultSet) throws SQLException{
+        EmbedConnection conn = (EmbedConnection)getDefaultConn();
+        Activation lastActivation = conn.getLanguageConnection().getLastActivation();
+        String userId = lastActivation.getLanguageConnectionContext().getCurrentUserId(lastActivation);
+        if (userId.equals(lastActivation.getLanguageConnectionContext().getDataDictionary().getAuthorizationDatabaseOwner())) {
+            userId = null;
+        }
+
+        List<SlowQueryLog.SlowQuery> queries = EngineDriver.driver().getSlowQueryLog().getQueries(userId);
+
+        SConfiguration config=EngineDriver.driver().getConfiguration();
+        String hostname = NetworkUtils.getHostname(config);
+        int port = config.getNetworkBindPort();
+
+        List<ExecRow> rows = new ArrayList<>(queries.size());
+        try {
+            for (SlowQueryLog.SlowQuery query : queries) {
+                ExecRow row = new ValueRow(14);
+                QueryProfile profile = query.getProfile();
+                row.setColumn(1, new SQLVarchar(query.getUuid()));
+                row.setColumn(2, new SQLVarchar(query.getUserId()));
+                row.setColumn(3, new SQLVarchar(hostname + ":" + port));
+                row.setColumn(4, new SQLVarchar(query.getSql()));
+                row.setColumn(5, new SQLVarchar(query.getEngine()));
+                row.setColumn(6, new SQLTimestamp(new Timestamp(query.getStartTime())));
+                row.setColumn(7, new SQLLongint(query.getElapsedTime()));
+                row.setColumn(8, profile != null ? new SQLLongint(profile.getRows()) :
+                        query.getStreamedRows() >= 0 ? new SQLLongint(query.getStreamedRows()) : new SQLLongint());
+                row.setColumn(9, profile == null || profile.getCpuTime() < 0 ? new SQLLongint() : new SQLLongint(profile.getCpuTime() / 1000000L));
+                row.setColumn(10, profile == null || profile.getBlockedTime() < 0 ? new SQLLongint() : new SQLLongint(profile.getBlockedTime() / 1000000L));
+                row.setColumn(11, profile == null ? new SQLLongint() : new SQLLongint(profile.getBytesRead()));
+                row.setColumn(12, profile == null ? new SQLVarchar() : new SQLVarchar(profile.toString()));
+                row.setColumn(13, query.getTimeToFirstRow() < 0 ? new SQLLongint() : new SQLLongint(query.getTimeToFirstRow()));
+                row.setColumn(14, query.getThroughput() < 0 ? new SQLDouble() : new SQLDouble(query.getThroughput()));
+                rows.add(row);
+            }
+        } catch (StandardException se) {
+            throw PublicAPI.wrapStandardException(se);
+        }
+
+        IteratorNoPutResultSet resultsToWrap = new IteratorNoPutResultSet(rows, new GenericColumnDescriptor[]{
+                new GenericColumnDescriptor("UUID", DataTypeDescriptor.getBuiltInDataTypeDescriptor(Types.VARCHAR, 40)),
+                new GenericColumnDescriptor("USER", DataTypeDescriptor.getBuiltInDataTypeDescriptor(Types.VARCHAR, 40)),
+                new GenericColumnDescriptor("HOSTNAME", DataTypeDescriptor.getBuiltInDataTypeDescriptor(Types.VARCHAR, 120)),
+                new GenericColumnDescriptor("SQL", DataTypeDescriptor.getBuiltInDataTypeDescriptor(Types.VARCHAR)),
+                new GenericColumnDescriptor("ENGINE", DataTypeDescriptor.getBuiltInDataTypeDescriptor(Types.VARCHAR, 10)),
+                new GenericColumnDescriptor("START_TIME", DataTypeDescriptor.getBuiltInDataTypeDescriptor(Types.TIMESTAMP)),
+                new GenericColumnDescriptor("ELAPSED_MS", DataTypeDescriptor.getBuiltInDataTypeDescriptor(Types.BIGINT)),
+                new GenericColumnDescriptor("ROWS", DataTypeDescriptor.getBuiltInDataTypeDescriptor(Types.BIGINT)),
+                new GenericColumnDescriptor("CPU_MS", DataTypeDescriptor.getBuiltInDataTypeDescriptor(Types.BIGINT)),
+                new GenericColumnDescriptor("BLOCKED_MS", DataTypeDescriptor.getBuiltInDataTypeDescriptor(Types.BIGINT)),
+                new GenericColumnDescriptor("BYTES_READ", DataTypeDescriptor.getBuiltInDataTypeDescriptor(Types.BIGINT)),
+                new GenericColumnDescriptor("PROFILE", DataTypeDescriptor.getBuiltInDataTypeDescriptor(Types.VARCHAR)),
+                new GenericColumnDescriptor("FIRST_ROW_MS", DataTypeDescriptor.getBuiltInDataTypeDescriptor(Types.BIGINT)),
+                new GenericColumnDescriptor("ROWS_PER_SEC", DataTypeDescriptor.getBuiltInDataTypeDescriptor(Types.DOUBLE)),
+        },
+                lastActivation);
+        try {
+            resultsToWrap.openCore();
+        } catch (StandardException se) {
+            throw PublicAPI.wrapStandardException(se);
+        }
+        resultSet[0] = new EmbedResultSet40(conn, resultsToWrap, false, null, true);
+    }
+
     public static void SYSCS_KILL_OPERATION(final String uuidString) throws SQLException{
         EmbedConnection conn = (EmbedConnection)getDefaultConn();
         LanguageConnectionContext lcc = conn.getLanguageConnection();
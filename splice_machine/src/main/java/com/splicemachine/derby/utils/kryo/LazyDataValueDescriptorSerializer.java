@@ -0,0 +1,41 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.utils.kryo;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.derby.impl.sql.execute.LazyDataValueDescriptor;
+
+/**
+ * Writes a lazy value as its (ascending) encoded bytes, so a value which was never decoded is shipped without
+ * being decoded, and is read back still holding its bytes.
+ */
+public class LazyDataValueDescriptorSerializer<T extends LazyDataValueDescriptor> extends DataValueDescriptorSerializer<T>{
+
+    @Override
+    protected void writeValue(Kryo kryo,Output output,T object) throws StandardException{
+        byte[] encoded=object.getEncoded(false);
+        output.writeInt(encoded.length);
+        output.writeBytes(encoded);
+    }
+
+    @Override
+    protected void readValue(Kryo kryo,Input input,T dvd) throws StandardException{
+        byte[] encoded=input.readBytes(input.readInt());
+        dvd.setEncoded(encoded,0,encoded.length,false);
+    }
+}
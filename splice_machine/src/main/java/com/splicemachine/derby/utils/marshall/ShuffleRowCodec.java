@@ -0,0 +1,282 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.utils.marshall;
+
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.services.io.StoredFormatIds;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.types.DataValueDescriptor;
+import com.splicemachine.db.iapi.types.DataValueFactoryImpl;
+import com.splicemachine.db.iapi.types.SQLDecimal;
+import com.splicemachine.db.iapi.types.VariableSizeDataValue;
+import com.splicemachine.db.impl.sql.execute.ValueRow;
+import com.splicemachine.derby.utils.EngineUtils;
+import com.splicemachine.derby.utils.marshall.dvd.DescriptorSerializer;
+import com.splicemachine.derby.utils.marshall.dvd.VersionedSerializers;
+import com.splicemachine.encoding.MultiFieldEncoder;
+import com.splicemachine.utils.IntArrays;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+
+/**
+ * Encodes rows which are about to be shuffled into the same byte format that is used to store rows, against a
+ * schema which is serialized once with the codec instead of once with every row.
+ *
+ * The whole row is written as an entry (a bit index followed by the non-null fields), so null columns take no
+ * space. The sort key is written separately as a plain multi-field encoding in which every key column is preceded
+ * by a null indicator; when {@link #isKeyOrdered()} is true, comparing two encoded keys byte by byte gives the same
+ * order as a {@code RowComparator} built with the same ordering, so sorts can compare the key bytes directly.
+ *
+ * The row encoding of a decimal doesn't keep trailing zeros, so the schema also holds the precision and scale of
+ * every decimal column, and decoded decimals are given their column's scale back.
+ *
+ * Instances are not thread safe; every task works on its own deserialized copy.
+ */
+public class ShuffleRowCodec implements Externalizable{
+    private static final long serialVersionUID=1l;
+
+    private int[] formatIds;
+    private int[] precisions;
+    private int[] scales;
+    private int[] keyColumns;
+    private boolean[] descColumns;
+    private boolean[] nullsOrderedLow;
+
+    private transient ExecRow template;
+    private transient DataHash<ExecRow> rowEncoder;
+    private transient KeyHashDecoder rowDecoder;
+    private transient DescriptorSerializer[] keySerializers;
+    private transient MultiFieldEncoder keyEncoder;
+
+    public ShuffleRowCodec(){
+    }
+
+    private ShuffleRowCodec(int[] formatIds,int[] precisions,int[] scales,int[] keyColumns,boolean[] descColumns,boolean[] nullsOrderedLow){
+        this.formatIds=formatIds;
+        this.precisions=precisions;
+        this.scales=scales;
+        this.keyColumns=keyColumns;
+        this.descColumns=descColumns;
+        this.nullsOrderedLow=nullsOrderedLow;
+    }
+
+    /**
+     * @param template a row with the types of the rows to encode
+     * @param keyColumns the (0-based) columns of the sort key
+     * @param descColumns whether each key column is sorted in descending order
+     * @param nullsOrderedLow whether nulls compare lower than any value in each key column
+     * @return a codec for rows of the template's types, or {@code null} if some column has a type which can't
+     * be rebuilt from its format id alone.
+     */
+    @SuppressFBWarnings(value="EI_EXPOSE_REP2",justification="Intentional")
+    public static ShuffleRowCodec forTemplate(ExecRow template,int[] keyColumns,boolean[] descColumns,boolean[] nullsOrderedLow){
+        DataValueDescriptor[] dvds=template.getRowArray();
+        for(DataValueDescriptor dvd : dvds){
+            if(dvd==null) return null;
+        }
+        int[] formatIds=EngineUtils.getFormatIds(dvds);
+        for(int formatId : formatIds){
+            switch(formatId){
+                case StoredFormatIds.SQL_USERTYPE_ID_V3:
+                case StoredFormatIds.SQL_ARRAY_ID:
+                case StoredFormatIds.SQL_REF_ID:
+                case StoredFormatIds.XML_ID:
+                    return null;
+                default:
+                    if(getDVD(formatId)==null) return null;
+            }
+        }
+        // -1 where the column isn't a decimal, or its type isn't known
+        int[] precisions=new int[dvds.length];
+        int[] scales=new int[dvds.length];
+        for(int i=0;i<dvds.length;i++){
+            boolean decimal=formatIds[i]==StoredFormatIds.SQL_DECIMAL_ID;
+            precisions[i]=decimal?((SQLDecimal)dvds[i]).getPrecision():-1;
+            scales[i]=decimal?((SQLDecimal)dvds[i]).getScale():-1;
+        }
+        return new ShuffleRowCodec(formatIds,precisions,scales,keyColumns,descColumns,nullsOrderedLow);
+    }
+
+    /**
+     * @return true if encoded keys sort in the same order as the rows they were taken from. This holds as long as
+     * every key column has a type whose encoding is order preserving and not a prefix of any other value's encoding;
+     * strings are excluded because their encoding is not blank padded the way their comparison is, and because a
+     * descending string is a prefix of its own descending extensions.
+     */
+    public boolean isKeyOrdered(){
+        for(int i=0;i<keyColumns.length;i++){
+            switch(formatIds[keyColumns[i]]){
+                case StoredFormatIds.SQL_BOOLEAN_ID:
+                case StoredFormatIds.SQL_TINYINT_ID:
+                case StoredFormatIds.SQL_SMALLINT_ID:
+                case StoredFormatIds.SQL_INTEGER_ID:
+                case StoredFormatIds.SQL_LONGINT_ID:
+                case StoredFormatIds.SQL_REAL_ID:
+                case StoredFormatIds.SQL_DOUBLE_ID:
+                case StoredFormatIds.SQL_DECIMAL_ID:
+                case StoredFormatIds.SQL_DATE_ID:
+                case StoredFormatIds.SQL_TIME_ID:
+                case StoredFormatIds.SQL_TIMESTAMP_ID:
+                    break;
+                default:
+                    return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Encode the sort key of a row. Every key column is written as a null indicator, followed by the column's
+     * value when it is not null. The indicator puts nulls first or last as the ordering asks, so the encoded
+     * value itself never has to.
+     */
+    public byte[] encodeKey(ExecRow row) throws StandardException{
+        if(keyEncoder==null){
+            keySerializers=VersionedSerializers.latestVersion(false).getSerializers(getTemplate());
+            keyEncoder=MultiFieldEncoder.create(2*keyColumns.length);
+        }
+        keyEncoder.reset();
+        DataValueDescriptor[] dvds=row.getRowArray();
+        for(int i=0;i<keyColumns.length;i++){
+            DataValueDescriptor dvd=dvds[keyColumns[i]];
+            boolean desc=descColumns!=null && descColumns[i];
+            //nulls sort first when they are low in an ascending column, or high in a descending one
+            boolean nullsFirst=(nullsOrderedLow==null || nullsOrderedLow[i])!=desc;
+            boolean isNull=dvd==null || dvd.isNull();
+            keyEncoder.encodeNext((byte)(isNull==nullsFirst?0:1));
+            if(!isNull)
+                keySerializers[keyColumns[i]].encode(keyEncoder,dvd,desc);
+        }
+        return keyEncoder.build();
+    }
+
+    /**
+     * Encode every column of a row.
+     */
+    public byte[] encodeRow(ExecRow row) throws StandardException, IOException{
+        if(rowEncoder==null){
+            rowEncoder=new EntryDataHash(IntArrays.count(formatIds.length),null,
+                    VersionedSerializers.latestVersion(true).getSerializers(getTemplate()));
+        }
+        rowEncoder.setRow(row);
+        return rowEncoder.encode();
+    }
+
+    /**
+     * Decode a row encoded by {@link #encodeRow(ExecRow)} into a new row.
+     */
+    public ExecRow decodeRow(byte[] encoded) throws StandardException{
+        if(rowDecoder==null){
+            rowDecoder=new EntryDataDecoder(IntArrays.count(formatIds.length),null,
+                    VersionedSerializers.latestVersion(true).getSerializers(getTemplate()));
+        }
+        ExecRow row=getTemplate().getNewNullRow();
+        rowDecoder.set(encoded,0,encoded.length);
+        rowDecoder.decode(row);
+        DataValueDescriptor[] dvds=row.getRowArray();
+        for(int i=0;i<scales.length;i++){
+            if(scales[i]<0 || dvds[i].isNull())
+                continue;
+            // only ever adds the trailing zeros the encoding dropped; a value with a larger scale is left as it is
+            SQLDecimal decimal=(SQLDecimal)dvds[i];
+            if(decimal.getBigDecimal().scale()<scales[i])
+                decimal.setWidth(VariableSizeDataValue.IGNORE_PRECISION,scales[i],false);
+        }
+        return row;
+    }
+
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException{
+        writeInts(out,formatIds);
+        writeInts(out,precisions);
+        writeInts(out,scales);
+        writeInts(out,keyColumns);
+        writeBooleans(out,descColumns);
+        writeBooleans(out,nullsOrderedLow);
+    }
+
+    @Override
+    public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException{
+        formatIds=readInts(in);
+        precisions=readInts(in);
+        scales=readInts(in);
+        keyColumns=readInts(in);
+        descColumns=readBooleans(in);
+        nullsOrderedLow=readBooleans(in);
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private ExecRow getTemplate(){
+        if(template==null){
+            ValueRow row=new ValueRow(formatIds.length);
+            DataValueDescriptor[] dvds=row.getRowArray();
+            for(int i=0;i<formatIds.length;i++){
+                dvds[i]=getDVD(formatIds[i]);
+                if(formatIds[i]==StoredFormatIds.SQL_DECIMAL_ID){
+                    ((SQLDecimal)dvds[i]).setPrecision(precisions[i]);
+                    ((SQLDecimal)dvds[i]).setScale(scales[i]);
+                }
+            }
+            template=row;
+        }
+        return template;
+    }
+
+    private static DataValueDescriptor getDVD(int formatId){
+        if(formatId==StoredFormatIds.SQL_DECIMAL_ID){
+            return new SQLDecimal();
+        }else{
+            return DataValueFactoryImpl.getNullDVDWithUCS_BASICcollation(formatId);
+        }
+    }
+
+    private static void writeInts(ObjectOutput out,int[] values) throws IOException{
+        out.writeInt(values.length);
+        for(int value : values){
+            out.writeInt(value);
+        }
+    }
+
+    private static int[] readInts(ObjectInput in) throws IOException{
+        int[] values=new int[in.readInt()];
+        for(int i=0;i<values.length;i++){
+            values[i]=in.readInt();
+        }
+        return values;
+    }
+
+    private static void writeBooleans(ObjectOutput out,boolean[] values) throws IOException{
+        out.writeBoolean(values!=null);
+        if(values==null) return;
+        out.writeInt(values.length);
+        for(boolean value : values){
+            out.writeBoolean(value);
+        }
+    }
+
+    private static boolean[] readBooleans(ObjectInput in) throws IOException{
+        if(!in.readBoolean()) return null;
+        boolean[] values=new boolean[in.readInt()];
+        for(int i=0;i<values.length;i++){
+            values[i]=in.readBoolean();
+        }
+        return values;
+    }
+}
@@ -20,6 +20,7 @@ import com.splicemachine.encoding.MultiFieldEncoder;
 import com.splicemachine.db.iapi.error.StandardException;
 import com.splicemachine.db.iapi.services.io.StoredFormatIds;
 import com.splicemachine.db.iapi.types.DataValueDescriptor;
+import com.splicemachine.derby.impl.sql.execute.LazyDataValueDescriptor;
 
 import java.io.IOException;
 import java.math.BigDecimal;
@@ -48,22 +49,33 @@ class DecimalDescriptorSerializer implements DescriptorSerializer {
 
 		@Override
 		public void encode(MultiFieldEncoder fieldEncoder, DataValueDescriptor dvd, boolean desc) throws StandardException {
-			fieldEncoder.encodeNext((BigDecimal)dvd.getObject(),desc);
+			if(dvd instanceof LazyDataValueDescriptor)
+				((LazyDataValueDescriptor)dvd).encodeInto(fieldEncoder,desc);
+			else
+				fieldEncoder.encodeNext((BigDecimal)dvd.getObject(),desc);
 		}
 
 		@Override
 		public byte[] encodeDirect(DataValueDescriptor dvd, boolean desc) throws StandardException {
+				if(dvd instanceof LazyDataValueDescriptor)
+						return ((LazyDataValueDescriptor)dvd).getEncoded(desc);
 				return Encoding.encode((BigDecimal)dvd.getObject(),desc);
 		}
 
 		@Override
 		public void decode(MultiFieldDecoder fieldDecoder, DataValueDescriptor destDvd, boolean desc) throws StandardException {
-				destDvd.setBigDecimal(fieldDecoder.decodeNextBigDecimal(desc));
+				if(destDvd instanceof LazyDataValueDescriptor)
+						StringDescriptorSerializer.decodeLazy(fieldDecoder,destDvd,desc);
+				else
+						destDvd.setBigDecimal(fieldDecoder.decodeNextBigDecimal(desc));
 		}
 
 		@Override
 		public void decodeDirect(DataValueDescriptor dvd, byte[] data, int offset, int length, boolean desc) throws StandardException {
-				dvd.setBigDecimal(Encoding.decodeBigDecimal(data,offset,length,desc));
+				if(dvd instanceof LazyDataValueDescriptor)
+						((LazyDataValueDescriptor)dvd).setEncoded(data,offset,length,desc);
+				else
+						dvd.setBigDecimal(Encoding.decodeBigDecimal(data,offset,length,desc));
 		}
 
 		@Override public boolean isScalarType() { return false; }
@@ -21,6 +21,7 @@ import com.splicemachine.encoding.MultiFieldEncoder;
 import com.splicemachine.db.iapi.error.StandardException;
 import com.splicemachine.db.iapi.services.io.StoredFormatIds;
 import com.splicemachine.db.iapi.types.DataValueDescriptor;
+import com.splicemachine.derby.impl.sql.execute.LazyDataValueDescriptor;
 
 import java.io.IOException;
 
@@ -58,22 +59,46 @@ public class StringDescriptorSerializer implements DescriptorSerializer{
 
 		@Override
 		public void encode(MultiFieldEncoder fieldEncoder, DataValueDescriptor dvd, boolean desc) throws StandardException {
-				fieldEncoder.encodeNext(dvd.getString(),desc);
+				if(dvd instanceof LazyDataValueDescriptor)
+						((LazyDataValueDescriptor)dvd).encodeInto(fieldEncoder,desc);
+				else
+						fieldEncoder.encodeNext(dvd.getString(),desc);
 		}
 
 		@Override
 		public byte[] encodeDirect(DataValueDescriptor dvd, boolean desc) throws StandardException {
+				if(dvd instanceof LazyDataValueDescriptor)
+						return ((LazyDataValueDescriptor)dvd).getEncoded(desc);
 				return Encoding.encode(dvd.getString(), desc);
 		}
 
 		@Override
 		public void decode(MultiFieldDecoder fieldDecoder, DataValueDescriptor destDvd, boolean desc) throws StandardException {
-				destDvd.setValue(fieldDecoder.decodeNextString(desc));
+				if(destDvd instanceof LazyDataValueDescriptor)
+						decodeLazy(fieldDecoder,destDvd,desc);
+				else
+						destDvd.setValue(fieldDecoder.decodeNextString(desc));
 		}
 
 		@Override
 		public void decodeDirect(DataValueDescriptor dvd, byte[] data, int offset, int length, boolean desc) throws StandardException {
-				dvd.setValue(Encoding.decodeString(data,offset,length,desc));
+				if(dvd instanceof LazyDataValueDescriptor)
+						((LazyDataValueDescriptor)dvd).setEncoded(data,offset,length,desc);
+				else
+						dvd.setValue(Encoding.decodeString(data,offset,length,desc));
+		}
+
+		/**
+		 * Point a lazy value at the next field of the decoder, without decoding or copying it.
+		 */
+		static void decodeLazy(MultiFieldDecoder fieldDecoder, DataValueDescriptor destDvd, boolean desc) throws StandardException {
+				int start = Math.max(fieldDecoder.offset(),0);
+				fieldDecoder.skip();
+				int length = fieldDecoder.offset()-start-1;
+				if(length<=0)
+						destDvd.setToNull();
+				else
+						((LazyDataValueDescriptor)destDvd).setEncoded(fieldDecoder.array(),start,length,desc);
 		}
 
 		@Override public boolean isScalarType() { return false; }
@@ -23,6 +23,7 @@ import com.splicemachine.db.vti.VTICosting;
 import com.splicemachine.db.vti.VTIEnvironment;
 import com.splicemachine.derby.iapi.sql.execute.SpliceOperation;
 import com.splicemachine.derby.impl.load.ImportUtils;
+import com.splicemachine.derby.stream.control.ParallelCsvReader;
 import com.splicemachine.derby.stream.function.FileFunction;
 import com.splicemachine.derby.stream.function.StreamFileFunction;
 import com.splicemachine.derby.stream.iapi.DataSet;
@@ -34,10 +35,12 @@ import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.URISyntaxException;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.util.Iterator;
 
 /**
  *
@@ -124,6 +127,16 @@ public class SpliceFileVTI implements DatasetProvider, VTICosting {
             operationContext = dsp.createOperationContext((Activation)null);
         try {
             ImportUtils.validateReadable(fileName, false);
+            if (dsp.getType() == DataSetProcessor.Type.CONTROL &&
+                    (charset==null || Charset.forName(charset).equals(StandardCharsets.UTF_8))) {
+                Iterator<ExecRow> rows = ParallelCsvReader.open(fileName,
+                        new FileFunction(characterDelimiter, columnDelimiter, execRow, columnIndex, timeFormat, dateTimeFormat, timestampFormat, operationContext),
+                        operationContext, oneLineRecords);
+                if (rows != null) {
+                    operationContext.pushScopeForOp("Parse File");
+                    return dsp.createDataSet(rows);
+                }
+            }
             if (oneLineRecords && (charset==null || charset.toLowerCase().equals("utf-8"))) {
                 DataSet<String> textSet = dsp.readTextFile(fileName, op);
                 operationContext.pushScopeForOp("Parse File");
@@ -133,6 +146,8 @@ public class SpliceFileVTI implements DatasetProvider, VTICosting {
                 operationContext.pushScopeForOp("Parse File");
                 return streamSet.values().flatMap(new StreamFileFunction(characterDelimiter, columnDelimiter, execRow, columnIndex, timeFormat, dateTimeFormat, timestampFormat, charset, operationContext), true);
             }
+        } catch (IOException | URISyntaxException e) {
+            throw StandardException.plainWrapException(e);
         } finally {
             operationContext.popScope();
         }
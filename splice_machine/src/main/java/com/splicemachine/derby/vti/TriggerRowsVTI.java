@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.vti;
+
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.sql.conn.LanguageConnectionContext;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.impl.sql.execute.TriggerExecutionContext;
+import com.splicemachine.db.impl.sql.execute.TriggerExecutionStack;
+import com.splicemachine.db.vti.VTICosting;
+import com.splicemachine.db.vti.VTIEnvironment;
+import com.splicemachine.derby.iapi.sql.execute.SpliceOperation;
+import com.splicemachine.derby.stream.iapi.DataSet;
+import com.splicemachine.derby.stream.iapi.DataSetProcessor;
+import com.splicemachine.derby.stream.iapi.OperationContext;
+import com.splicemachine.derby.vti.iapi.DatasetProvider;
+import org.spark_project.guava.base.Function;
+import org.spark_project.guava.collect.Iterators;
+
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * The triggering rows of a row trigger whose action is run once for a batch of rows, see
+ * {@code com.splicemachine.db.impl.sql.execute.SetBasedTriggerAction}.
+ * <p/>
+ * The columns are given as a comma separated list in which every column is an 'O' (a column of the old image
+ * of the triggering row) or an 'N' (of the new image) followed by the position of the column in the image.
+ */
+public class TriggerRowsVTI implements DatasetProvider, VTICosting {
+
+    private final boolean[] oldColumns;
+    private final int[] positions;
+    private OperationContext operationContext;
+
+    public TriggerRowsVTI(String columns) {
+        String[] specs = columns.split(",");
+        this.oldColumns = new boolean[specs.length];
+        this.positions = new int[specs.length];
+        for (int i = 0; i < specs.length; i++) {
+            oldColumns[i] = specs[i].charAt(0) == 'O';
+            positions[i] = Integer.parseInt(specs[i].substring(1));
+        }
+    }
+
+    @Override
+    public DataSet<ExecRow> getDataSet(SpliceOperation op, DataSetProcessor dsp, final ExecRow execRow) throws StandardException {
+        operationContext = dsp.createOperationContext(op);
+        final TriggerExecutionContext tec = getTriggerExecutionContext(op.getActivation().getLanguageConnectionContext());
+        return dsp.createDataSet(Iterators.transform(tec.getTriggeringRows().iterator(), new Function<ExecRow, ExecRow>() {
+            @Override
+            public ExecRow apply(ExecRow triggeringRow) {
+                ExecRow row = execRow.getNewNullRow();
+                for (int i = 0; i < positions.length; i++) {
+                    row.setColumn(i + 1, tec.cloneTransitionColumn(triggeringRow, oldColumns[i], positions[i]));
+                }
+                return row;
+            }
+        }));
+    }
+
+    @Override
+    public double getEstimatedRowCount(VTIEnvironment vtiEnvironment) throws SQLException {
+        return 1000;
+    }
+
+    @Override
+    public double getEstimatedCostPerInstantiation(VTIEnvironment vtiEnvironment) throws SQLException {
+        return 0;
+    }
+
+    @Override
+    public ResultSetMetaData getMetaData() throws SQLException {
+        throw new SQLException("not supported");
+    }
+
+    @Override
+    public OperationContext getOperationContext() {
+        return operationContext;
+    }
+
+    @Override
+    public boolean supportsMultipleInstantiations(VTIEnvironment vtiEnvironment) throws SQLException {
+        return false;
+    }
+
+    /**
+     * The context which is firing a trigger for a batch of rows. It is not necessarily the topmost one: when the
+     * action fires triggers of its own, their context can be pushed before this VTI is read.
+     */
+    private static TriggerExecutionContext getTriggerExecutionContext(LanguageConnectionContext lcc) throws StandardException {
+        TriggerExecutionStack stack = lcc.getTriggerStack();
+        if (stack != null) {
+            List<TriggerExecutionContext> tecs = stack.asList();
+            for (int i = tecs.size() - 1; i >= 0; i--) {
+                if (tecs.get(i).getTriggeringRows() != null) {
+                    return tecs.get(i);
+                }
+            }
+        }
+        throw StandardException.plainWrapException(new SQLException("There are no active triggers", "38000"));
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.client;
+
+import com.splicemachine.derby.test.framework.SpliceNetConnection;
+import com.splicemachine.derby.test.framework.SpliceSchemaWatcher;
+import com.splicemachine.derby.test.framework.SpliceWatcher;
+import org.junit.*;
+import org.junit.rules.RuleChain;
+import org.junit.rules.TestRule;
+
+import java.sql.*;
+
+/**
+ * Tests for forward-only result sets read through the client driver with the 'prefetch' attribute on, where the
+ * next block of rows is requested before the current one has been read.
+ */
+public class ClientPrefetchIT{
+    private static final String SCHEMA=ClientPrefetchIT.class.getSimpleName().toUpperCase();
+    private static final int ROWS=8192;
+    // rows are wide enough that the result takes many query blocks
+    private static final String PAD=new String(new char[200]).replace('\0','x');
+
+    private static final SpliceWatcher classWatcher=new SpliceWatcher(SCHEMA);
+    private static final SpliceSchemaWatcher schemaWatcher=new SpliceSchemaWatcher(SCHEMA);
+
+    @ClassRule
+    public static TestRule chain=RuleChain.outerRule(classWatcher).around(schemaWatcher);
+
+    private Connection conn;
+
+    @BeforeClass
+    public static void createTables() throws Exception{
+        classWatcher.executeUpdate("create table "+SCHEMA+".T (i int, v varchar(250))");
+        classWatcher.executeUpdate("create table "+SCHEMA+".L (i int, c clob)");
+        try(PreparedStatement ps=classWatcher.prepareStatement("insert into "+SCHEMA+".T values (?,?)")){
+            for(int i=0;i<ROWS;i++){
+                ps.setInt(1,i);
+                ps.setString(2,PAD+i);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+        try(PreparedStatement ps=classWatcher.prepareStatement("insert into "+SCHEMA+".L values (?,?)")){
+            for(int i=0;i<100;i++){
+                ps.setInt(1,i);
+                ps.setString(2,PAD+i);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+    }
+
+    @Before
+    public void setUp() throws Exception{
+        // a small prefetch memory caps the block size early
+        conn=SpliceNetConnection.getConnectionAs(SpliceNetConnection.getDefaultLocalURL()+";prefetch=true;prefetchMemory=131072",
+                SpliceNetConnection.DEFAULT_USER,SpliceNetConnection.DEFAULT_USER_PASSWORD);
+        conn.setSchema(SCHEMA);
+    }
+
+    @After
+    public void tearDown() throws Exception{
+        conn.close();
+    }
+
+    @Test
+    public void readsAllRowsInOrder() throws Exception{
+        try(Statement s=conn.createStatement();
+            ResultSet rs=s.executeQuery("select i, v from T order by i")){
+            for(int i=0;i<ROWS;i++){
+                Assert.assertTrue("missing row "+i,rs.next());
+                Assert.assertEquals(i,rs.getInt(1));
+                Assert.assertEquals(PAD+i,rs.getString(2));
+                if(i%1000==0)
+                    Thread.sleep(20); // let prefetched blocks arrive before they are needed
+            }
+            Assert.assertFalse(rs.next());
+        }
+    }
+
+    @Test
+    public void otherStatementsCanRunWhileACursorIsOpen() throws Exception{
+        try(Statement s=conn.createStatement();
+            Statement other=conn.createStatement();
+            ResultSet rs=s.executeQuery("select i from T order by i")){
+            for(int i=0;i<ROWS;i++){
+                Assert.assertTrue("missing row "+i,rs.next());
+                Assert.assertEquals(i,rs.getInt(1));
+                if(i%2000==1){
+                    try(ResultSet count=other.executeQuery("select count(*) from T where i<"+i)){
+                        Assert.assertTrue(count.next());
+                        Assert.assertEquals(i,count.getInt(1));
+                    }
+                }
+            }
+            Assert.assertFalse(rs.next());
+        }
+    }
+
+    @Test
+    public void closingEarlyLeavesTheConnectionUsable() throws Exception{
+        try(Statement s=conn.createStatement()){
+            for(int n=0;n<5;n++){
+                try(ResultSet rs=s.executeQuery("select i, v from T")){
+                    for(int i=0;i<500;i++){
+                        Assert.assertTrue(rs.next());
+                    }
+                }
+            }
+            try(ResultSet rs=s.executeQuery("select count(*) from T")){
+                Assert.assertTrue(rs.next());
+                Assert.assertEquals(ROWS,rs.getInt(1));
+            }
+        }
+    }
+
+    @Test
+    public void lobResultSetsAreReadAsBefore() throws Exception{
+        try(Statement s=conn.createStatement();
+            ResultSet rs=s.executeQuery("select i, c from L order by i")){
+            for(int i=0;i<100;i++){
+                Assert.assertTrue(rs.next());
+                Assert.assertEquals(i,rs.getInt(1));
+                Assert.assertEquals(PAD+i,rs.getString(2));
+            }
+            Assert.assertFalse(rs.next());
+        }
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.impl.sql.execute;
+
+import com.splicemachine.db.iapi.types.*;
+import com.splicemachine.db.impl.sql.execute.ValueRow;
+import com.splicemachine.encoding.Encoding;
+import com.splicemachine.encoding.MultiFieldDecoder;
+import com.splicemachine.encoding.MultiFieldEncoder;
+import com.splicemachine.si.testenv.ArchitectureIndependent;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.math.BigDecimal;
+import java.text.Collator;
+import java.text.RuleBasedCollator;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+@Category(ArchitectureIndependent.class)
+public class LazyDataValueDescriptorTest{
+    private static final String[] PIECES={"a","b","ab"," ","  ","\t","\u00e9","\u4e2d","\ue000","\ufffd",
+            new String(Character.toChars(0x1F600)),new String(Character.toChars(0x10400))};
+
+    @Test
+    public void varcharsCompareAndHashLikeTheirValues() throws Exception{
+        Random random=new Random(7);
+        List<String> values=randomStrings(random);
+        for(String l : values){
+            for(String r : values){
+                SQLVarchar el=new SQLVarchar(l);
+                SQLVarchar er=new SQLVarchar(r);
+                LazyVarchar ll=lazyVarchar(l,random.nextBoolean());
+                LazyVarchar lr=lazyVarchar(r,random.nextBoolean());
+                String msg="'"+l+"' vs '"+r+"'";
+                Assert.assertEquals(msg,Integer.signum(el.compare(er)),Integer.signum(ll.compare(lr)));
+                Assert.assertEquals(msg,el.equals(el,er).getBoolean(),ll.equals(ll,lr).getBoolean());
+                Assert.assertEquals(msg,el.lessThan(el,er).getBoolean(),ll.lessThan(ll,lr).getBoolean());
+                Assert.assertEquals(msg,el.greaterOrEquals(el,er).getBoolean(),ll.greaterOrEquals(ll,lr).getBoolean());
+                Assert.assertEquals(!l.isEmpty() && !r.isEmpty(),ll.isLazy() && lr.isLazy());
+            }
+            Assert.assertEquals(l,new SQLVarchar(l).hashCode(),lazyVarchar(l,false).hashCode());
+            Assert.assertEquals(l,new SQLVarchar(l).hashCode(),lazyVarchar(l,true).hashCode());
+        }
+    }
+
+    @Test
+    public void charsCompareWithPadding() throws Exception{
+        Random random=new Random(11);
+        List<String> values=randomStrings(random);
+        for(String l : values){
+            for(String r : values){
+                SQLChar el=new SQLChar(l);
+                SQLChar er=new SQLChar(r);
+                LazyChar ll=lazyChar(l,random.nextBoolean());
+                LazyChar lr=lazyChar(r,random.nextBoolean());
+                String msg="'"+l+"' vs '"+r+"'";
+                Assert.assertEquals(msg,Integer.signum(el.compare(er)),Integer.signum(ll.compare(lr)));
+                Assert.assertEquals(msg,el.equals(el,er).getBoolean(),ll.equals(ll,lr).getBoolean());
+                Assert.assertEquals(!l.isEmpty() && !r.isEmpty(),ll.isLazy() && lr.isLazy());
+            }
+            Assert.assertEquals(l,new SQLChar(l).hashCode(),lazyChar(l,random.nextBoolean()).hashCode());
+        }
+    }
+
+    @Test
+    public void decimalsCompareLikeTheirValues() throws Exception{
+        Random random=new Random(13);
+        List<BigDecimal> values=new ArrayList<>();
+        for(int i=0;i<60;i++){
+            values.add(BigDecimal.valueOf(random.nextLong()%100000,random.nextInt(8)-2));
+        }
+        values.add(BigDecimal.ZERO);
+        values.add(new BigDecimal("1.500"));
+        values.add(new BigDecimal("1.5"));
+        for(BigDecimal l : values){
+            for(BigDecimal r : values){
+                LazyDecimal ll=lazyDecimal(l,random.nextBoolean());
+                LazyDecimal lr=lazyDecimal(r,random.nextBoolean());
+                Assert.assertEquals(l+" vs "+r,Integer.signum(l.compareTo(r)),Integer.signum(ll.compare(lr)));
+                Assert.assertTrue(ll.isLazy() && lr.isLazy());
+                Assert.assertEquals(0,Integer.signum(lr.compare(new SQLDecimal(r))));
+            }
+            LazyDecimal lazy=lazyDecimal(l,true);
+            Assert.assertEquals(new SQLDecimal(l).hashCode(),lazy.hashCode());
+            Assert.assertEquals(0,l.compareTo(lazy.getBigDecimal()));
+            Assert.assertFalse(lazy.isLazy());
+        }
+    }
+
+    @Test
+    public void reEncodingCopiesTheBytes() throws Exception{
+        for(String value : new String[]{"abc","",new String(Character.toChars(0x1F600))+"x "}){
+            for(boolean held : new boolean[]{false,true}){
+                for(boolean desc : new boolean[]{false,true}){
+                    LazyVarchar lazy=lazyVarchar(value,held);
+                    Assert.assertArrayEquals(Encoding.encode(value,desc),lazy.getEncoded(desc));
+                    MultiFieldEncoder encoder=MultiFieldEncoder.create(2);
+                    lazy.encodeInto(encoder,desc);
+                    encoder.encodeNext(1);
+                    MultiFieldDecoder decoder=MultiFieldDecoder.wrap(encoder.build());
+                    Assert.assertEquals(value,decoder.decodeNextString(desc));
+                    Assert.assertEquals(1,decoder.decodeNextInt());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void settingAValueDropsTheBytes() throws Exception{
+        LazyVarchar varchar=lazyVarchar("abc",false);
+        DataValueDescriptor clone=varchar.cloneValue(false);
+        varchar.setValue("xyz");
+        Assert.assertFalse(varchar.isLazy());
+        Assert.assertEquals("xyz",varchar.getString());
+        Assert.assertEquals("abc",clone.getString());
+        varchar.setEncoded(Encoding.encode("def",true),0,3,true);
+        varchar.restoreToNull();
+        Assert.assertTrue(varchar.isNull());
+        Assert.assertNull(varchar.getString());
+
+        LazyDecimal decimal=lazyDecimal(new BigDecimal("12.5"),false);
+        decimal.setValue(3L);
+        Assert.assertEquals(new BigDecimal(3),decimal.getBigDecimal());
+    }
+
+    @Test
+    public void makeLazyReplacesPlainTemplateColumns() throws Exception{
+        ValueRow row=new ValueRow(5);
+        row.setColumn(1,new SQLVarchar());
+        row.setColumn(2,new SQLChar());
+        row.setColumn(3,new SQLDecimal(null,10,2));
+        row.setColumn(4,new SQLInteger());
+        DataValueDescriptor collated=new SQLVarchar().getValue((RuleBasedCollator)Collator.getInstance(Locale.US));
+        row.setColumn(5,collated);
+        LazyDataValueFactory.makeLazy(row);
+        Assert.assertTrue(row.getColumn(1) instanceof LazyVarchar);
+        Assert.assertTrue(row.getColumn(2) instanceof LazyChar);
+        Assert.assertTrue(row.getColumn(3) instanceof LazyDecimal);
+        Assert.assertEquals(10,((SQLDecimal)row.getColumn(3)).getPrecision());
+        Assert.assertEquals(SQLInteger.class,row.getColumn(4).getClass());
+        Assert.assertSame(collated,row.getColumn(5));
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private static List<String> randomStrings(Random random){
+        List<String> values=new ArrayList<>();
+        for(int i=0;i<80;i++){
+            StringBuilder sb=new StringBuilder();
+            int n=random.nextInt(4);
+            for(int j=0;j<n;j++){
+                sb.append(PIECES[random.nextInt(PIECES.length)]);
+            }
+            values.add(sb.toString());
+        }
+        return values;
+    }
+
+    private static LazyVarchar lazyVarchar(String value,boolean desc){
+        byte[] bytes=Encoding.encode(value,desc);
+        LazyVarchar dvd=new LazyVarchar();
+        dvd.setEncoded(bytes,0,bytes.length,desc);
+        return dvd;
+    }
+
+    private static LazyChar lazyChar(String value,boolean desc){
+        byte[] bytes=Encoding.encode(value,desc);
+        LazyChar dvd=new LazyChar();
+        dvd.setEncoded(bytes,0,bytes.length,desc);
+        return dvd;
+    }
+
+    private static LazyDecimal lazyDecimal(BigDecimal value,boolean desc){
+        byte[] bytes=Encoding.encode(value,desc);
+        LazyDecimal dvd=new LazyDecimal();
+        dvd.setEncoded(bytes,0,bytes.length,desc);
+        return dvd;
+    }
+}
@@ -122,6 +122,28 @@ public class ExplainPlanIT extends SpliceUnitTest  {
         Assert.assertTrue(count>0);
     }
 
+    @Test
+    public void testExplainAnalyzeSelect() throws Exception {
+        ResultSet rs  = methodWatcher.executeQuery(
+                String.format("explain analyze select * from %s where i = 1", this.getTableReference(TABLE_NAME)));
+
+        boolean sawExecution = false;
+        boolean sawScan = false;
+        while (rs.next()) {
+            String s = rs.getString(1);
+            if (s.startsWith("Execution(")) {
+                sawExecution = true;
+                Assert.assertTrue(s, s.contains("rows=2048"));
+            } else if (sawExecution && s.contains("TableScan(")) {
+                sawScan = true;
+                Assert.assertTrue(s, s.contains("rowsOut=2048"));
+                Assert.assertTrue(s, s.contains("bytesRead="));
+            }
+        }
+        Assert.assertTrue("no execution profile", sawExecution);
+        Assert.assertTrue("no table scan profile", sawScan);
+    }
+
     @Test
     public void testExplainUpdate() throws Exception {
         ResultSet rs  = methodWatcher.executeQuery(
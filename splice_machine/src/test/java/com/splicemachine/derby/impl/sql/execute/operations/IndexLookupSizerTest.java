@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.impl.sql.execute.operations;
+
+import com.splicemachine.si.testenv.ArchitectureIndependent;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+@Category(ArchitectureIndependent.class)
+public class IndexLookupSizerTest {
+
+    private static final long TARGET = 1000;
+
+    @Test
+    public void startsSmallAndGrowsWhileLookupsAreFast() throws Exception {
+        IndexLookupSizer sizer = new IndexLookupSizer(4000, 5, TARGET);
+        assertEquals(IndexLookupSizer.MIN_BATCH_SIZE, sizer.batchSize());
+        for (int i = 0; i < 10; i++) {
+            sizer.lookupCompleted(sizer.batchSize(), TARGET / 10, false);
+        }
+        assertEquals(4000, sizer.batchSize());
+    }
+
+    @Test
+    public void settlesOnTheTargetLatency() throws Exception {
+        IndexLookupSizer sizer = new IndexLookupSizer(4000, 5, TARGET);
+        // every row takes a tenth of the target latency
+        for (int i = 0; i < 20; i++) {
+            sizer.lookupCompleted(sizer.batchSize(), sizer.batchSize() * TARGET / 10, false);
+        }
+        // never below the minimum, however slow the rows are
+        assertEquals(IndexLookupSizer.MIN_BATCH_SIZE, sizer.batchSize());
+
+        sizer = new IndexLookupSizer(4000, 5, TARGET);
+        for (int i = 0; i < 20; i++) {
+            sizer.lookupCompleted(sizer.batchSize(), sizer.batchSize() * TARGET / 1000, false);
+        }
+        assertEquals(1000, sizer.batchSize());
+    }
+
+    @Test
+    public void shrinksByHalfAtMost() throws Exception {
+        IndexLookupSizer sizer = new IndexLookupSizer(4000, 5, TARGET);
+        for (int i = 0; i < 10; i++) {
+            sizer.lookupCompleted(sizer.batchSize(), 0, false);
+        }
+        sizer.lookupCompleted(4000, 100 * TARGET, false);
+        assertEquals(2000, sizer.batchSize());
+    }
+
+    @Test
+    public void inFlightFollowsWaiting() throws Exception {
+        IndexLookupSizer sizer = new IndexLookupSizer(4000, 5, TARGET);
+        assertEquals(5, sizer.maxInFlight());
+        for (int i = 0; i < 10; i++) {
+            sizer.lookupCompleted(100, TARGET, false);
+        }
+        assertEquals(1, sizer.maxInFlight());
+        sizer.lookupCompleted(100, TARGET, true);
+        sizer.lookupCompleted(100, TARGET, true);
+        assertEquals(3, sizer.maxInFlight());
+
+        assertEquals(1, new IndexLookupSizer(4000, 0, TARGET).maxInFlight());
+    }
+
+    @Test
+    public void groupsKeysByRegion() throws Exception {
+        byte[][] startKeys = {new byte[0], {3}, {6}, {9}};
+        List<byte[]> keys = Arrays.asList(new byte[]{7}, new byte[]{1}, new byte[]{3}, new byte[]{8},
+                new byte[]{0}, new byte[]{2, 9}, new byte[]{10});
+        List<int[]> groups = IndexRowReader.groupByRegion(keys, startKeys);
+        assertEquals(4, groups.size());
+        assertArrayEquals(new int[]{1, 4, 5}, groups.get(0));
+        assertArrayEquals(new int[]{2}, groups.get(1));
+        assertArrayEquals(new int[]{0, 3}, groups.get(2));
+        assertArrayEquals(new int[]{6}, groups.get(3));
+
+        // regions without keys have no group
+        groups = IndexRowReader.groupByRegion(Arrays.asList(new byte[]{4}, new byte[]{5}), startKeys);
+        assertEquals(1, groups.size());
+        assertArrayEquals(new int[]{0, 1}, groups.get(0));
+    }
+}
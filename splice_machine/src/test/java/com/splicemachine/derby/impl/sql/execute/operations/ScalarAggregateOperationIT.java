@@ -124,6 +124,23 @@ public class ScalarAggregateOperationIT extends SpliceUnitTest {
 		Assert.assertEquals(1, i);
 	}
     
+    @Test
+    public void testAggregatesWithConstantRestriction() throws Exception {
+        ResultSet rs = methodWatcher.executeQuery(format("select count(*), count(i), sum(i), max(i) from %s where 1=0", spliceTableWatcher));
+        Assert.assertTrue("No rows returned!", rs.next());
+        Assert.assertEquals("Incorrect count returned!", 0, rs.getInt(1));
+        Assert.assertEquals("Incorrect count returned!", 0, rs.getInt(2));
+        Assert.assertNull("Incorrect sum returned!", rs.getObject(3));
+        Assert.assertNull("Incorrect max returned!", rs.getObject(4));
+        Assert.assertFalse(rs.next());
+
+        rs = methodWatcher.executeQuery(format("select count(*), sum(i) from %s where 1=1", spliceTableWatcher));
+        Assert.assertTrue("No rows returned!", rs.next());
+        Assert.assertEquals("Incorrect count returned!", stats.getCount(), rs.getInt(1));
+        Assert.assertEquals("Incorrect sum returned!", stats.getSum(), rs.getLong(2));
+        Assert.assertFalse(rs.next());
+    }
+
 	@Test
 	public void testMinOperation() throws Exception {
 		ResultSet rs = methodWatcher.executeQuery(format("select min(i) from %s", spliceTableWatcher));
@@ -0,0 +1,186 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.impl.sql.execute.operations.groupedaggregate;
+
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.sql.execute.ExecAggregator;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.types.DataValueDescriptor;
+import com.splicemachine.db.iapi.types.SQLDecimal;
+import com.splicemachine.db.iapi.types.SQLDouble;
+import com.splicemachine.db.iapi.types.SQLInteger;
+import com.splicemachine.db.iapi.types.SQLLongint;
+import com.splicemachine.db.iapi.types.SQLVarchar;
+import com.splicemachine.db.iapi.types.UserType;
+import com.splicemachine.db.impl.sql.execute.AggregatorInfo;
+import com.splicemachine.db.impl.sql.execute.CountAggregator;
+import com.splicemachine.db.impl.sql.execute.DoubleBufferedSumAggregator;
+import com.splicemachine.db.impl.sql.execute.LongBufferedSumAggregator;
+import com.splicemachine.db.impl.sql.execute.MaxMinAggregator;
+import com.splicemachine.db.impl.sql.execute.ValueRow;
+import com.splicemachine.derby.impl.sql.execute.operations.framework.SpliceGenericAggregator;
+import com.splicemachine.si.testenv.ArchitectureIndependent;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+@Category(ArchitectureIndependent.class)
+public class PrimitiveHashAggregatorTest{
+    private static final int INPUTS=5;
+    private static final String[] NAMES={"COUNT(*)","COUNT","SUM","SUM","MIN","MAX"};
+    private static final int[] INPUT_COLUMNS={1,5,3,4,3,4};
+
+    @Test
+    public void groupsMatchRowByRowAggregation() throws Exception{
+        Random random=new Random(3);
+        for(int trial=0;trial<50;trial++){
+            SpliceGenericAggregator[] aggregates=aggregates();
+            PrimitiveHashAggregator hashAggregator=PrimitiveHashAggregator.create(new int[]{0,1},aggregates,template());
+            Assert.assertNotNull(hashAggregator);
+
+            Map<List<Object>,ExecAggregator[]> expected=new HashMap<>();
+            int rows=random.nextInt(2000);
+            for(int r=0;r<rows;r++){
+                ExecRow row=row(random);
+                hashAggregator.add(row);
+                ExecAggregator[] byRow=expected.get(key(row));
+                if(byRow==null){
+                    byRow=new ExecAggregator[aggregates.length];
+                    for(int a=0;a<aggregates.length;a++){
+                        byRow[a]=aggregates[a].getAggregatorInstance();
+                    }
+                    expected.put(key(row),byRow);
+                }
+                for(int a=0;a<aggregates.length;a++){
+                    byRow[a].accumulate(row.getColumn(INPUT_COLUMNS[a]),aggregates[a]);
+                }
+            }
+
+            Assert.assertEquals(expected.size(),hashAggregator.size());
+            Iterator<ExecRow> results=hashAggregator.results();
+            int groups=0;
+            while(results.hasNext()){
+                ExecRow result=results.next();
+                ExecAggregator[] byRow=expected.get(key(result));
+                Assert.assertNotNull("Unexpected group "+key(result),byRow);
+                for(int a=0;a<aggregates.length;a++){
+                    aggregates[a].finish(result);
+                    String message=NAMES[a]+" of group "+key(result);
+                    DataValueDescriptor expectedValue=byRow[a].getResult();
+                    DataValueDescriptor actualValue=aggregates[a].getResultColumnValue(result);
+                    if(expectedValue==null || expectedValue.isNull())
+                        Assert.assertTrue(message,actualValue.isNull());
+                    else
+                        Assert.assertEquals(message,expectedValue,actualValue);
+                    Assert.assertEquals(message,byRow[a].didEliminateNulls(),
+                            ((ExecAggregator)result.getColumn(aggregates[a].getAggregatorColumnId()).getObject()).didEliminateNulls());
+                }
+                groups++;
+            }
+            Assert.assertEquals(expected.size(),groups);
+        }
+    }
+
+    @Test
+    public void unsupportedGroupingsAreRejected() throws Exception{
+        ExecRow template=template();
+        template.setColumn(2,new SQLDecimal());
+        Assert.assertNull(PrimitiveHashAggregator.create(new int[]{0,1},aggregates(),template));
+        Assert.assertNull(PrimitiveHashAggregator.create(new int[]{4},aggregates(),template()));
+
+        SpliceGenericAggregator[] distinct=aggregates();
+        distinct[2].setAggInfo(new AggregatorInfo("SUM",null,2,INPUTS+4,INPUTS+5,true,null));
+        Assert.assertNull(PrimitiveHashAggregator.create(new int[]{0},distinct,template()));
+    }
+
+    @Test
+    public void overflowingSumsFail() throws Exception{
+        PrimitiveHashAggregator hashAggregator=PrimitiveHashAggregator.create(new int[]{0},aggregates(),template());
+        for(int i=0;i<3;i++){
+            ExecRow row=template().getNewNullRow();
+            row.getColumn(1).setValue(1);
+            row.getColumn(3).setValue(Long.MAX_VALUE/2);
+            try{
+                hashAggregator.add(row);
+                Assert.assertTrue("Expected the sum to overflow",i<2);
+            }catch(StandardException se){
+                Assert.assertEquals("22003",se.getSQLState());
+            }
+        }
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private static SpliceGenericAggregator[] aggregates(){
+        ExecAggregator[] instances={
+                new CountAggregator().setup(null,"COUNT(*)",null),
+                new CountAggregator().setup(null,"COUNT",null),
+                new LongBufferedSumAggregator(64),
+                new DoubleBufferedSumAggregator(64),
+                new MaxMinAggregator().setup(null,"MIN",null),
+                new MaxMinAggregator().setup(null,"MAX",null)
+        };
+        SpliceGenericAggregator[] aggregates=new SpliceGenericAggregator[NAMES.length];
+        for(int a=0;a<aggregates.length;a++){
+            int resultColumn=INPUTS+2*a+1;
+            aggregates[a]=new SpliceGenericAggregator(instances[a],resultColumn+1,INPUT_COLUMNS[a],resultColumn);
+            aggregates[a].setAggInfo(new AggregatorInfo(NAMES[a],null,INPUT_COLUMNS[a]-1,resultColumn-1,resultColumn,false,null));
+        }
+        return aggregates;
+    }
+
+    private static ExecRow template(){
+        ValueRow row=new ValueRow(INPUTS+2*NAMES.length);
+        row.setColumn(1,new SQLInteger());
+        row.setColumn(2,new SQLDouble());
+        row.setColumn(3,new SQLLongint());
+        row.setColumn(4,new SQLDouble());
+        row.setColumn(5,new SQLVarchar());
+        for(int a=0;a<NAMES.length;a++){
+            row.setColumn(INPUTS+2*a+1,a<2?new SQLLongint():a==3||a==5?new SQLDouble():new SQLLongint());
+            row.setColumn(INPUTS+2*a+2,new UserType());
+        }
+        return row;
+    }
+
+    private static ExecRow row(Random random) throws StandardException{
+        ExecRow row=template().getNewNullRow();
+        if(random.nextInt(10)!=0) row.getColumn(1).setValue(random.nextInt(20)-10);
+        if(random.nextInt(10)!=0){
+            int v=random.nextInt(5)-2;
+            row.getColumn(2).setValue(v==0 && random.nextBoolean()?-0d:v/2d);
+        }
+        if(random.nextInt(5)!=0) row.getColumn(3).setValue((long)(random.nextInt(1000)-500)<<20);
+        if(random.nextInt(5)!=0) row.getColumn(4).setValue((random.nextInt(100)-50)/8d);
+        if(random.nextInt(5)!=0) row.getColumn(5).setValue("s"+random.nextInt(3));
+        return row;
+    }
+
+    private static List<Object> key(ExecRow row) throws StandardException{
+        List<Object> key=new ArrayList<>(2);
+        DataValueDescriptor k1=row.getColumn(1);
+        DataValueDescriptor k2=row.getColumn(2);
+        key.add(k1.isNull()?null:k1.getInt());
+        key.add(k2.isNull()?null:k2.getDouble()+0d);
+        return key;
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.impl.sql.execute.operations.window.function;
+
+import com.splicemachine.db.iapi.types.DataValueDescriptor;
+import com.splicemachine.db.iapi.types.SQLLongint;
+import com.splicemachine.si.testenv.ArchitectureIndependent;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.ArrayDeque;
+import java.util.Random;
+
+/**
+ * Tests that the aggregate window functions give the same results as a scan of the frame, as frames of
+ * various sizes slide over many chunks.
+ */
+@Category(ArchitectureIndependent.class)
+public class WindowAggregatorTest {
+
+    @Test
+    public void slidingSum() throws Exception {
+        SpliceGenericWindowFunction sum = function(new SumAggregator(), "SUM");
+        Assert.assertTrue(sum.isInvertible() && sum.isMergeable() && !sum.isOrderSensitive());
+        slide(sum, "SUM", 1);
+    }
+
+    @Test
+    public void slidingCount() throws Exception {
+        slide(function(new CountAggregator(), "COUNT"), "COUNT", 2);
+    }
+
+    @Test
+    public void slidingAvg() throws Exception {
+        slide(function(new AvgAggregator(), "AVG"), "AVG", 3);
+    }
+
+    @Test
+    public void slidingMax() throws Exception {
+        SpliceGenericWindowFunction max = function(new MaxMinAggregator(), "MAX");
+        Assert.assertTrue(!max.isInvertible() && max.isMergeable() && !max.isOrderSensitive());
+        slide(max, "MAX", 4);
+    }
+
+    @Test
+    public void slidingMin() throws Exception {
+        slide(function(new MaxMinAggregator(), "MIN"), "MIN", 5);
+    }
+
+    @Test
+    public void rankingFunctionsAreOrderSensitive() throws Exception {
+        Assert.assertTrue(new RankFunction().isOrderSensitive());
+        Assert.assertFalse(new RankFunction().isMergeable());
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private static SpliceGenericWindowFunction function(SpliceGenericWindowFunction function, String name) {
+        function.setup(null, name, null, null);
+        function.setResultType(new SQLLongint());
+        return function;
+    }
+
+    private static void slide(SpliceGenericWindowFunction function, String name, long seed) throws Exception {
+        Random random = new Random(seed);
+        for (int trial = 0; trial < 20; trial++) {
+            function.reset();
+            ArrayDeque<Long> frame = new ArrayDeque<>();
+            int frameSize = 1 + random.nextInt(trial < 10 ? 50 : 1000);
+            for (int i = 0; i < 3000; i++) {
+                long value = random.nextInt(2000) - 1000;
+                function.accumulate(new DataValueDescriptor[]{new SQLLongint(value)});
+                frame.addLast(value);
+                if (frame.size() > frameSize || random.nextInt(10) == 0) {
+                    function.remove();
+                    frame.removeFirst();
+                }
+                if (frame.isEmpty())
+                    continue;
+                Assert.assertEquals(name + " with frame of " + frameSize + " at row " + i,
+                        expected(name, frame), function.getResult().getLong());
+            }
+        }
+    }
+
+    private static long expected(String name, ArrayDeque<Long> frame) throws Exception {
+        long sum = 0, max = Long.MIN_VALUE, min = Long.MAX_VALUE;
+        for (long value : frame) {
+            sum += value;
+            max = Math.max(max, value);
+            min = Math.min(min, value);
+        }
+        switch (name) {
+            case "SUM": return sum;
+            case "COUNT": return frame.size();
+            case "AVG":
+                // the average is stored in the type of its input
+                SQLLongint avg = new SQLLongint();
+                avg.setValue(sum * 1.0 / frame.size());
+                return avg.getLong();
+            case "MAX": return max;
+            default: return min;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.impl.stats;
+
+import com.carrotsearch.hppc.BitSet;
+import com.splicemachine.encoding.MultiFieldEncoder;
+import com.splicemachine.primitives.Bytes;
+import com.splicemachine.si.testenv.ArchitectureIndependent;
+import com.splicemachine.storage.CellType;
+import com.splicemachine.storage.DataCell;
+import com.splicemachine.storage.EntryEncoder;
+import com.splicemachine.utils.kryo.KryoPool;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.Arrays;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@Category(ArchitectureIndependent.class)
+public class StoreFileStatisticsTest{
+    private static final KryoPool kryoPool = new KryoPool(10);
+
+    @Test
+    public void countsLiveRowsAndColumns() throws Exception{
+        StoreFileStatisticsCollector collector = new StoreFileStatisticsCollector(10);
+        for(int i=0;i<100;i++){
+            collector.cell(dataCell(i,10L,i%10,i%2==0?null:"v"+i));
+        }
+        StoreFileStatistics stats = collector.finish();
+        Assert.assertEquals(100,stats.rowCount());
+        Assert.assertEquals(10,stats.cardinality(0));
+        Assert.assertEquals(0,stats.nullCount(0));
+        Assert.assertEquals(50,stats.nullCount(1));
+        Assert.assertEquals(50,stats.cardinality(1));
+    }
+
+    @Test
+    public void ignoresDeletedRows() throws Exception{
+        StoreFileStatisticsCollector collector = new StoreFileStatisticsCollector(10);
+        collector.cell(cell(1,20L,CellType.TOMBSTONE,new byte[]{}));
+        collector.cell(dataCell(1,10L,1,"a"));
+        collector.cell(dataCell(2,10L,2,"b"));
+        //re-inserted after a delete
+        collector.cell(cell(3,30L,CellType.ANTI_TOMBSTONE,new byte[]{}));
+        collector.cell(cell(3,20L,CellType.TOMBSTONE,new byte[]{}));
+        collector.cell(dataCell(3,30L,3,"c"));
+        StoreFileStatistics stats = collector.finish();
+        Assert.assertEquals(2,stats.rowCount());
+    }
+
+    @Test
+    public void mergeDoesNotDoubleCountUpdatedRows() throws Exception{
+        StoreFileStatisticsCollector first = new StoreFileStatisticsCollector(10);
+        StoreFileStatisticsCollector second = new StoreFileStatisticsCollector(10);
+        for(int i=0;i<100;i++){
+            first.cell(dataCell(i,10L,i,"v"));
+            if(i<50)
+                second.cell(dataCell(i,20L,i,"w"));
+        }
+        StoreFileStatistics merged = StoreFileStatistics.merge(Arrays.asList(first.finish(),second.finish()));
+        Assert.assertEquals(100,merged.rowCount());
+        Assert.assertEquals(100,merged.cardinality(0));
+        Assert.assertEquals(2,merged.cardinality(1));
+        Assert.assertEquals(0,merged.nullCount(1));
+    }
+
+    @Test
+    public void serializationRoundTrip() throws Exception{
+        StoreFileStatisticsCollector collector = new StoreFileStatisticsCollector(10);
+        for(int i=0;i<10;i++){
+            collector.cell(dataCell(i,10L,i,i<3?null:"v"));
+        }
+        StoreFileStatistics stats = collector.finish();
+        StoreFileStatistics decoded = StoreFileStatistics.fromBytes(stats.toBytes());
+        Assert.assertEquals(stats.rowCount(),decoded.rowCount());
+        Assert.assertEquals(stats.totalBytes(),decoded.totalBytes());
+        Assert.assertEquals(stats.numColumns(),decoded.numColumns());
+        Assert.assertEquals(stats.cardinality(0),decoded.cardinality(0));
+        Assert.assertEquals(3,decoded.nullCount(1));
+    }
+
+    private static DataCell dataCell(int row,long timestamp,int first,String second) throws Exception{
+        BitSet setCols = new BitSet();
+        setCols.set(0);
+        setCols.set(1);
+        BitSet scalarFields = new BitSet();
+        scalarFields.set(0);
+        EntryEncoder encoder = EntryEncoder.create(kryoPool,2,setCols,scalarFields,null,null);
+        MultiFieldEncoder fieldEncoder = encoder.getEntryEncoder();
+        fieldEncoder.encodeNext(first);
+        if(second==null)
+            fieldEncoder.encodeEmpty();
+        else
+            fieldEncoder.encodeNext(second);
+        return cell(row,timestamp,CellType.USER_DATA,encoder.encode());
+    }
+
+    private static DataCell cell(int row,long timestamp,CellType type,byte[] value){
+        byte[] key = Bytes.toBytes(row);
+        DataCell cell = mock(DataCell.class);
+        when(cell.keyArray()).thenReturn(key);
+        when(cell.keyOffset()).thenReturn(0);
+        when(cell.keyLength()).thenReturn(key.length);
+        when(cell.version()).thenReturn(timestamp);
+        when(cell.dataType()).thenReturn(type);
+        when(cell.valueArray()).thenReturn(value);
+        when(cell.valueOffset()).thenReturn(0);
+        when(cell.valueLength()).thenReturn(value.length);
+        return cell;
+    }
+}
@@ -0,0 +1,237 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.stream.control;
+
+import com.splicemachine.access.api.DistributedFileSystem;
+import com.splicemachine.access.api.FileInfo;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.types.SQLVarchar;
+import com.splicemachine.db.impl.sql.execute.ValueRow;
+import com.splicemachine.derby.impl.load.SpliceCsvReader;
+import com.splicemachine.derby.stream.function.AbstractFileFunction;
+import com.splicemachine.derby.stream.function.FileFunction;
+import com.splicemachine.derby.stream.function.MutableCSVTokenizer;
+import com.splicemachine.derby.stream.iapi.OperationContext;
+import com.splicemachine.si.testenv.ArchitectureIndependent;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.mockito.Mockito;
+import org.supercsv.prefs.CsvPreference;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.OpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.Scanner;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Category(ArchitectureIndependent.class)
+public class ParallelCsvReaderTest{
+    private static final CsvPreference PREFERENCE=new CsvPreference.Builder('"',',',"\n").maxLinesPerRow(50000).build();
+    private static final ExecutorService EXECUTOR=Executors.newFixedThreadPool(4);
+
+    @AfterClass
+    public static void shutdown(){
+        EXECUTOR.shutdownNow();
+    }
+
+    @Test
+    public void splitsQuotedColumns(){
+        ParallelCsvReader.FieldSlices fields=new ParallelCsvReader.FieldSlices((byte)'"',(byte)',');
+        byte[] record="a,\"b,c\",,\"d\"\"e\", f ,x\"y\"z,\"\"".getBytes(StandardCharsets.UTF_8);
+        Assert.assertTrue(fields.split(record,0,record.length));
+        Assert.assertEquals(Arrays.asList("a","b,c",null,"d\"e"," f ","xyz",null),fields);
+        Assert.assertEquals(Arrays.asList(false,true,false,true,false,true,true),fields.quotedColumns);
+
+        byte[] partial="a,\"b".getBytes(StandardCharsets.UTF_8);
+        Assert.assertFalse(fields.split(partial,0,partial.length));
+    }
+
+    @Test
+    public void oneLineRecordsMatchSequentialParse() throws Exception{
+        Random random=new Random(17);
+        for(int i=0;i<20;i++){
+            String file=randomFile(random,false);
+            Parsed expected=parseLines(file);
+            for(int chunkSize : new int[]{1,2,3,7,16,61,1000}){
+                Assert.assertEquals("chunk size "+chunkSize,expected,parseParallel(file,chunkSize,true));
+            }
+        }
+    }
+
+    @Test
+    public void multiLineRecordsMatchSequentialParse() throws Exception{
+        Random random=new Random(23);
+        for(int i=0;i<20;i++){
+            String file=randomFile(random,true);
+            Parsed expected=parseStream(file);
+            for(int chunkSize : new int[]{1,2,3,7,16,61,1000}){
+                Assert.assertEquals("chunk size "+chunkSize,expected,parseParallel(file,chunkSize,false));
+            }
+        }
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private static class Parsed{
+        final List<List<String>> rows=new ArrayList<>();
+        int badRecords;
+
+        void add(ExecRow row) throws Exception{
+            List<String> values=new ArrayList<>(row.nColumns());
+            for(int i=1;i<=row.nColumns();i++){
+                values.add(row.getColumn(i).getString());
+            }
+            rows.add(values);
+        }
+
+        @Override
+        public boolean equals(Object o){
+            return o instanceof Parsed && rows.equals(((Parsed)o).rows) && badRecords==((Parsed)o).badRecords;
+        }
+
+        @Override
+        public int hashCode(){
+            return rows.hashCode();
+        }
+
+        @Override
+        public String toString(){
+            return badRecords+" bad records, rows "+rows;
+        }
+    }
+
+    private static FileFunction function(){
+        ValueRow template=new ValueRow(3);
+        for(int i=1;i<=3;i++){
+            template.setColumn(i,new SQLVarchar());
+        }
+        return new FileFunction("\"",",",template,null,null,null,null,null);
+    }
+
+    private static String randomFile(Random random,boolean multiLine){
+        String[] pieces=multiLine?
+                new String[]{"a","bc",",","\"\""," ","é","\n","\r\n"}:
+                new String[]{"a","bc",",","\"\""," ","é"};
+        StringBuilder sb=new StringBuilder();
+        int rows=random.nextInt(40);
+        for(int r=0;r<rows;r++){
+            int columns=random.nextInt(10)==0?2:3;
+            for(int c=0;c<columns;c++){
+                if(c>0) sb.append(',');
+                boolean quoted=random.nextBoolean();
+                if(quoted) sb.append('"');
+                int length=random.nextInt(4);
+                for(int i=0;i<length;i++){
+                    String piece=pieces[random.nextInt(pieces.length)];
+                    if(!quoted && (piece.contains("\"") || piece.contains(",") || piece.contains("\n")))
+                        piece="x";
+                    sb.append(piece);
+                }
+                if(quoted) sb.append('"');
+            }
+            if(random.nextInt(8)==0)
+                sb.append('\n'); // an empty line
+            sb.append(random.nextBoolean()?"\n":"\r\n");
+        }
+        return sb.toString();
+    }
+
+    private static Parsed parseLines(String file) throws Exception{
+        FileFunction function=function();
+        Parsed parsed=new Parsed();
+        Scanner scanner=new Scanner(file);
+        while(scanner.hasNextLine()){
+            String line=scanner.nextLine();
+            MutableCSVTokenizer tokenizer=new MutableCSVTokenizer(new StringReader(line),PREFERENCE);
+            tokenizer.setLine(line);
+            try{
+                parsed.add(function.parseRow(tokenizer.read(),tokenizer.getQuotedColumns(),null));
+            }catch(Exception e){
+                parsed.badRecords++;
+            }
+        }
+        return parsed;
+    }
+
+    private static Parsed parseStream(String file) throws Exception{
+        FileFunction function=function();
+        Parsed parsed=new Parsed();
+        SpliceCsvReader reader=new SpliceCsvReader(new StringReader(file),PREFERENCE);
+        while(reader.hasNext()){
+            try{
+                parsed.add(function.parseRow(reader.next(),reader.nextQuotedColumns(),null));
+            }catch(AbstractFileFunction.BadRecordException e){
+                parsed.badRecords++;
+            }
+        }
+        return parsed;
+    }
+
+    private static Parsed parseParallel(String file,int chunkSize,boolean oneLineRecords) throws Exception{
+        final byte[] bytes=file.getBytes(StandardCharsets.UTF_8);
+        List<ParallelCsvReader.Chunk> chunks=new ArrayList<>();
+        for(int start=0;start<bytes.length;start+=chunkSize){
+            chunks.add(new ParallelCsvReader.Chunk("file",start,Math.min(bytes.length,start+chunkSize)));
+        }
+        final Parsed parsed=new Parsed();
+        OperationContext context=Mockito.mock(OperationContext.class);
+        Mockito.when(context.isPermissive()).thenReturn(true);
+        Mockito.doAnswer(invocation->parsed.badRecords++)
+                .when(context).recordBadRecord(Mockito.anyString(),Mockito.any(Exception.class));
+
+        Iterator<ExecRow> rows=new ParallelCsvReader(new ByteArrayFileSystem(bytes),chunks,function(),PREFERENCE,
+                context,oneLineRecords,3,chunkSize,EXECUTOR);
+        while(rows.hasNext()){
+            parsed.add(rows.next());
+        }
+        return parsed;
+    }
+
+    private static class ByteArrayFileSystem extends DistributedFileSystem{
+        private final byte[] bytes;
+
+        ByteArrayFileSystem(byte[] bytes){
+            this.bytes=bytes;
+        }
+
+        @Override
+        public InputStream newInputStream(String fullPath,OpenOption... options){
+            return new ByteArrayInputStream(bytes);
+        }
+
+        @Override public void delete(String directory,boolean recursive){ throw new UnsupportedOperationException(); }
+        @Override public void delete(String directory,String fileName,boolean recursive){ throw new UnsupportedOperationException(); }
+        @Override public String[] getExistingFiles(String dir,String filePattern){ throw new UnsupportedOperationException(); }
+        @Override public String getFileName(String fullPath){ throw new UnsupportedOperationException(); }
+        @Override public boolean exists(String fullPath){ throw new UnsupportedOperationException(); }
+        @Override public FileInfo getInfo(String filePath){ throw new UnsupportedOperationException(); }
+        @Override public OutputStream newOutputStream(String dir,String fileName,OpenOption... options){ throw new UnsupportedOperationException(); }
+        @Override public OutputStream newOutputStream(String fullPath,OpenOption... options){ throw new UnsupportedOperationException(); }
+        @Override public boolean createDirectory(String fullPath,boolean errorIfExists){ throw new UnsupportedOperationException(); }
+        @Override public void touchFile(String dir,String fileName) throws IOException{ throw new UnsupportedOperationException(); }
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.stream.function;
+
+import com.splicemachine.EngineDriver;
+import com.splicemachine.SqlEnvironment;
+import com.splicemachine.db.iapi.services.cache.ClassSize;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.sql.execute.ExecutionFactory;
+import com.splicemachine.db.iapi.types.SQLInteger;
+import com.splicemachine.db.impl.sql.execute.ValueRow;
+import com.splicemachine.derby.iapi.sql.execute.SpliceOperation;
+import com.splicemachine.derby.impl.sql.execute.operations.JoinOperation;
+import com.splicemachine.derby.impl.sql.execute.operations.TableScanOperation;
+import com.splicemachine.derby.stream.iapi.OperationContext;
+import com.splicemachine.primitives.Bytes;
+import com.splicemachine.storage.DataScan;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Joins left rows against a fake right side table, keyed by the value of the left row.
+ */
+public class NLJBatchedInnerJoinFunctionTest {
+    private static final int LOOKUP_BATCH_SIZE = 4;
+
+    private final Map<Integer, List<Integer>> rightTable = new HashMap<>();
+    private final AtomicInteger lookups = new AtomicInteger();
+
+    @BeforeClass
+    public static void setup() {
+        ClassSize.setDummyCatalog();
+        SqlEnvironment ese = Mockito.mock(SqlEnvironment.class, Mockito.RETURNS_DEEP_STUBS);
+        Mockito.when(ese.getConfiguration().getThreadPoolMaxSize()).thenReturn(30);
+        Mockito.when(ese.getConfiguration().getNestedLoopJoinLookupBatchSize()).thenReturn(LOOKUP_BATCH_SIZE);
+        Mockito.when(ese.getConfiguration().getNestedLoopJoinBatchSize()).thenReturn(2);
+        EngineDriver.loadDriver(ese);
+    }
+
+    @Before
+    public void setUpTable() {
+        rightTable.put(1, Arrays.asList(10, 11));
+        rightTable.put(2, Collections.singletonList(20));
+        rightTable.put(3, Collections.singletonList(30));
+        rightTable.put(4, Arrays.asList(40, 41, 42));
+    }
+
+    @Test
+    public void joinsInLeftOrderWithAPartialLastBatch() throws Exception {
+        // two batches: [3,1,3,2] and [5,1,4], where 5 has no match
+        List<String> joined = join(3, 1, 3, 2, 5, 1, 4);
+        Assert.assertEquals(Arrays.asList("3:30", "1:10", "1:11", "3:30", "2:20", "1:10", "1:11", "4:40", "4:41", "4:42"), joined);
+        Assert.assertEquals("each distinct key is looked up once per batch", 6, lookups.get());
+    }
+
+    @Test
+    public void leftRowsWithoutMatchesAreDropped() throws Exception {
+        // batches [7,8,2,9] and [9]
+        Assert.assertEquals(Arrays.asList("2:20"), join(7, 8, 2, 9, 9));
+        Assert.assertEquals(5, lookups.get());
+    }
+
+    @Test
+    public void nothingIsLookedUpForAnEmptyLeftSide() throws Exception {
+        Assert.assertEquals(Collections.<String>emptyList(), join());
+        Assert.assertEquals(0, lookups.get());
+    }
+
+    private List<String> join(int... leftValues) throws Exception {
+        List<ExecRow> left = new ArrayList<>(leftValues.length);
+        for (int value : leftValues)
+            left.add(row(value));
+
+        NLJBatchedInnerJoinFunction<SpliceOperation> function = new NLJBatchedInnerJoinFunction<>(context());
+        Iterator<ExecRow> it = function.call(left.iterator());
+        List<String> joined = new ArrayList<>();
+        while (it.hasNext()) {
+            ExecRow row = it.next();
+            joined.add(row.getColumn(1).getInt() + ":" + row.getColumn(2).getInt());
+        }
+        return joined;
+    }
+
+    @SuppressWarnings("unchecked")
+    private OperationContext<SpliceOperation> context() throws Exception {
+        ExecutionFactory executionFactory = Mockito.mock(ExecutionFactory.class);
+        Mockito.when(executionFactory.getValueRow(Mockito.anyInt())).thenAnswer(new Answer<ExecRow>() {
+            @Override
+            public ExecRow answer(InvocationOnMock invocation) throws Throwable {
+                return new ValueRow((Integer) invocation.getArguments()[0]);
+            }
+        });
+        JoinOperation join = Mockito.mock(JoinOperation.class);
+        Mockito.when(join.getLeftNumCols()).thenReturn(1);
+        Mockito.when(join.getRightNumCols()).thenReturn(1);
+        Mockito.when(join.getExecutionFactory()).thenReturn(executionFactory);
+        Mockito.when(join.getLeftOperation()).thenReturn(Mockito.mock(SpliceOperation.class));
+        Mockito.when(join.getRightOperation()).thenReturn(Mockito.mock(SpliceOperation.class));
+
+        OperationContext<SpliceOperation> context = Mockito.mock(OperationContext.class);
+        Mockito.when(context.getOperation()).thenReturn(join);
+        Mockito.when(context.getClone()).thenAnswer(new Answer<OperationContext>() {
+            @Override
+            public OperationContext answer(InvocationOnMock invocation) throws Throwable {
+                return lookupContext();
+            }
+        });
+        return context;
+    }
+
+    /**
+     * A clone of the join, whose right side scans the keys of the row its left side is positioned on.
+     */
+    private OperationContext lookupContext() throws Exception {
+        final ExecRow[] leftRow = new ExecRow[1];
+        SpliceOperation left = Mockito.mock(SpliceOperation.class);
+        Mockito.doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                leftRow[0] = (ExecRow) invocation.getArguments()[0];
+                return null;
+            }
+        }).when(left).setCurrentRow(Mockito.any(ExecRow.class));
+
+        TableScanOperation right = Mockito.mock(TableScanOperation.class);
+        Mockito.when(right.getNonSIScan()).thenAnswer(new Answer<DataScan>() {
+            @Override
+            public DataScan answer(InvocationOnMock invocation) throws Throwable {
+                byte[] key = Bytes.toBytes(leftRow[0].getColumn(1).getInt());
+                DataScan scan = Mockito.mock(DataScan.class);
+                Mockito.when(scan.getStartKey()).thenReturn(key);
+                Mockito.when(scan.getStopKey()).thenReturn(key);
+                return scan;
+            }
+        });
+        Mockito.when(right.getExecRowIterator()).thenAnswer(new Answer<Iterator<ExecRow>>() {
+            @Override
+            public Iterator<ExecRow> answer(InvocationOnMock invocation) throws Throwable {
+                lookups.incrementAndGet();
+                List<Integer> values = rightTable.get(leftRow[0].getColumn(1).getInt());
+                List<ExecRow> rows = new ArrayList<>();
+                if (values != null) {
+                    for (int value : values)
+                        rows.add(row(value));
+                }
+                return rows.iterator();
+            }
+        });
+
+        JoinOperation join = Mockito.mock(JoinOperation.class);
+        Mockito.when(join.getLeftOperation()).thenReturn(left);
+        Mockito.when(join.getRightOperation()).thenReturn(right);
+        OperationContext context = Mockito.mock(OperationContext.class);
+        Mockito.when(context.getOperation()).thenReturn(join);
+        return context;
+    }
+
+    private static ExecRow row(int value) {
+        ValueRow row = new ValueRow(1);
+        row.setColumn(1, new SQLInteger(value));
+        return row;
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.stream.function;
+
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.types.SQLInteger;
+import com.splicemachine.db.iapi.types.SQLVarchar;
+import com.splicemachine.db.impl.sql.execute.ValueRow;
+import com.splicemachine.derby.iapi.sql.execute.SpliceOperation;
+import com.splicemachine.derby.utils.marshall.ShuffleRowCodec;
+import com.splicemachine.si.testenv.ArchitectureIndependent;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import scala.Tuple2;
+
+@Category(ArchitectureIndependent.class)
+public class ShuffleEncodeFunctionTest{
+
+    @Test
+    public void rowKeysSurviveReuseOfTheSourceRow() throws Exception{
+        // string keys aren't byte ordered, so they are keyed by row
+        ExecRow row=new ValueRow(2);
+        row.setColumn(1,new SQLVarchar("b"));
+        row.setColumn(2,new SQLInteger(1));
+        int[] keyColumns={0};
+        ShuffleRowCodec codec=ShuffleRowCodec.forTemplate(row,keyColumns,new boolean[]{false},new boolean[]{false});
+        Assert.assertFalse(codec.isKeyOrdered());
+        ShuffleEncodeFunction<SpliceOperation> function=new ShuffleEncodeFunction<>(null,codec,keyColumns);
+
+        Tuple2<Object,byte[]> first=function.call(row);
+        row.getColumn(1).setValue("a");
+        row.getColumn(2).setValue(2);
+        Tuple2<Object,byte[]> second=function.call(row);
+
+        Assert.assertEquals("b",((ExecRow)first._1()).getColumn(1).getString());
+        Assert.assertEquals("a",((ExecRow)second._1()).getColumn(1).getString());
+        Assert.assertEquals(1,codec.decodeRow(first._2()).getColumn(2).getInt());
+    }
+}
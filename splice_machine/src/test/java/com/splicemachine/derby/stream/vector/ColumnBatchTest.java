@@ -0,0 +1,220 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.stream.vector;
+
+import com.splicemachine.db.iapi.sql.execute.ExecAggregator;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.store.access.Qualifier;
+import com.splicemachine.db.iapi.types.DataValueDescriptor;
+import com.splicemachine.db.iapi.types.Orderable;
+import com.splicemachine.db.iapi.types.SQLDouble;
+import com.splicemachine.db.iapi.types.SQLInteger;
+import com.splicemachine.db.iapi.types.SQLLongint;
+import com.splicemachine.db.iapi.types.SQLVarchar;
+import com.splicemachine.db.impl.sql.execute.CountAggregator;
+import com.splicemachine.db.impl.sql.execute.DoubleBufferedSumAggregator;
+import com.splicemachine.db.impl.sql.execute.LongBufferedSumAggregator;
+import com.splicemachine.db.impl.sql.execute.MaxMinAggregator;
+import com.splicemachine.db.impl.sql.execute.ValueRow;
+import com.splicemachine.derby.utils.Scans;
+import com.splicemachine.si.testenv.ArchitectureIndependent;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+@Category(ArchitectureIndependent.class)
+public class ColumnBatchTest{
+    private static final int BATCH_SIZE=16;
+
+    @Test
+    public void qualifiersSelectTheSameRowsAsRowByRow() throws Exception{
+        Random random=new Random(5);
+        for(int trial=0;trial<200;trial++){
+            List<ExecRow> rows=rows(random,1+random.nextInt(50));
+            Qualifier[][] qualifiers=new Qualifier[1+random.nextInt(3)][];
+            for(int i=0;i<qualifiers.length;i++){
+                qualifiers[i]=new Qualifier[1+random.nextInt(3)];
+                for(int j=0;j<qualifiers[i].length;j++){
+                    qualifiers[i][j]=qualifier(random);
+                }
+            }
+            BatchQualifier batchQualifier=BatchQualifier.create(qualifiers,null,template());
+            Assert.assertNotNull(batchQualifier);
+            ColumnBatch batch=ColumnBatch.forTemplate(template(),batchQualifier.getColumns(),BATCH_SIZE);
+
+            List<Integer> expected=new ArrayList<>();
+            List<Integer> actual=new ArrayList<>();
+            for(int r=0;r<rows.size();r++){
+                if(Scans.qualifyRecordFromRow(rows.get(r).getRowArray(),qualifiers,null,null))
+                    expected.add(r);
+            }
+            for(int start=0;start<rows.size();start+=BATCH_SIZE){
+                batch.clear();
+                for(int r=start;r<rows.size() && !batch.isFull();r++){
+                    batch.add(rows.get(r));
+                }
+                batchQualifier.apply(batch);
+                for(int i=0;i<batch.selected();i++){
+                    actual.add(start+batch.selection[i]);
+                }
+            }
+            Assert.assertEquals(expected,actual);
+        }
+    }
+
+    @Test
+    public void unsupportedQualifiersAreRejected() throws Exception{
+        Qualifier onString=mockQualifier(3,Orderable.ORDER_OP_EQUALS,new SQLVarchar("a"),false,Qualifier.CONSTANT);
+        Assert.assertNull(BatchQualifier.create(new Qualifier[][]{{onString}},null,template()));
+        Qualifier variant=mockQualifier(0,Orderable.ORDER_OP_EQUALS,new SQLInteger(1),false,Qualifier.VARIANT);
+        Assert.assertNull(BatchQualifier.create(new Qualifier[][]{{variant}},null,template()));
+        Qualifier fractionOnInteger=mockQualifier(0,Orderable.ORDER_OP_LESSTHAN,new SQLDouble(1.5),false,Qualifier.CONSTANT);
+        Assert.assertNull(BatchQualifier.create(new Qualifier[][]{{fractionOnInteger}},null,template()));
+    }
+
+    @Test
+    public void aggregatesMatchRowByRow() throws Exception{
+        Random random=new Random(7);
+        ExecRow template=template();
+        for(int trial=0;trial<100;trial++){
+            List<ExecRow> rows=rows(random,random.nextInt(60));
+            for(int column=0;column<3;column++){
+                DataValueDescriptor columnType=template.getRowArray()[column];
+                String[] names={"COUNT","MAX","MIN","SUM"};
+                for(String name : names){
+                    ExecAggregator byRow=aggregator(name,column);
+                    ExecAggregator byBatch=aggregator(name,column);
+                    for(ExecRow row : rows){
+                        byRow.accumulate(row.getRowArray()[column],null);
+                    }
+                    BatchAggregate aggregate=BatchAggregate.create(name,byBatch,column,template);
+                    Assert.assertNotNull(name+" "+columnType.getTypeName(),aggregate);
+                    aggregateInBatches(rows,new int[]{column},aggregate);
+                    String message=name+" of "+columnType.getTypeName();
+                    Assert.assertEquals(message,byRow.getResult(),byBatch.getResult());
+                    Assert.assertEquals(message,byRow.didEliminateNulls(),byBatch.didEliminateNulls());
+                }
+            }
+            ExecAggregator byRow=aggregator("COUNT(*)",-1);
+            ExecAggregator byBatch=aggregator("COUNT(*)",-1);
+            for(ExecRow row : rows){
+                byRow.accumulate(row.getRowArray()[0],null);
+            }
+            aggregateInBatches(rows,new int[0],BatchAggregate.create("COUNT(*)",byBatch,-1,template));
+            Assert.assertEquals(byRow.getResult(),byBatch.getResult());
+        }
+    }
+
+    @Test
+    public void overflowingSumsFailLikeRowByRow() throws Exception{
+        ExecRow template=template();
+        List<ExecRow> rows=new ArrayList<>();
+        for(int i=0;i<4;i++){
+            ExecRow row=template.getNewNullRow();
+            row.getRowArray()[2].setValue(Long.MAX_VALUE/2);
+            rows.add(row);
+        }
+        ExecAggregator sum=aggregator("SUM",2);
+        aggregateInBatches(rows,new int[]{2},BatchAggregate.create("SUM",sum,2,template));
+        try{
+            sum.getResult();
+            Assert.fail("Expected the sum to overflow");
+        }catch(com.splicemachine.db.iapi.error.StandardException se){
+            Assert.assertEquals("22003",se.getSQLState());
+        }
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private static ExecRow template(){
+        ValueRow row=new ValueRow(4);
+        row.setColumn(1,new SQLInteger());
+        row.setColumn(2,new SQLDouble());
+        row.setColumn(3,new SQLLongint());
+        row.setColumn(4,new SQLVarchar());
+        return row;
+    }
+
+    private static List<ExecRow> rows(Random random,int count) throws Exception{
+        List<ExecRow> rows=new ArrayList<>(count);
+        for(int i=0;i<count;i++){
+            ExecRow row=template().getNewNullRow();
+            DataValueDescriptor[] dvds=row.getRowArray();
+            if(random.nextInt(6)!=0) dvds[0].setValue(random.nextInt(11)-5);
+            if(random.nextInt(6)!=0) dvds[1].setValue((random.nextInt(21)-10)/4d);
+            if(random.nextInt(6)!=0) dvds[2].setValue((long)(random.nextInt(11)-5)<<33);
+            dvds[3].setValue("v"+i);
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    private static Qualifier qualifier(Random random) throws Exception{
+        int column=random.nextInt(3);
+        DataValueDescriptor orderable;
+        if(random.nextInt(10)==0){
+            orderable=new SQLInteger();
+        }else{
+            switch(column){
+                case 0: orderable=new SQLInteger(random.nextInt(11)-5); break;
+                case 1: orderable=random.nextBoolean()?new SQLDouble((random.nextInt(21)-10)/4d):new SQLInteger(random.nextInt(5)-2); break;
+                default: orderable=new SQLLongint((long)(random.nextInt(11)-5)<<33);
+            }
+        }
+        int operator=Orderable.ORDER_OP_LESSTHAN+random.nextInt(5);
+        int variantType=orderable.isNull() && operator==Orderable.ORDER_OP_EQUALS?Qualifier.QUERY_INVARIANT:Qualifier.CONSTANT;
+        return mockQualifier(column,operator,orderable,random.nextBoolean(),variantType);
+    }
+
+    private static Qualifier mockQualifier(int column,int operator,DataValueDescriptor orderable,boolean negate,int variantType) throws Exception{
+        Qualifier q=Mockito.mock(Qualifier.class);
+        Mockito.when(q.getStoragePosition()).thenReturn(column);
+        Mockito.when(q.getOperator()).thenReturn(operator);
+        Mockito.when(q.getOrderable()).thenReturn(orderable);
+        Mockito.when(q.negateCompareResult()).thenReturn(negate);
+        Mockito.when(q.getOrderedNulls()).thenReturn(false);
+        Mockito.when(q.getUnknownRV()).thenReturn(false);
+        Mockito.when(q.getVariantType()).thenReturn(variantType);
+        return q;
+    }
+
+    private static ExecAggregator aggregator(String name,int column){
+        switch(name){
+            case "COUNT":
+            case "COUNT(*)":
+                return new CountAggregator().setup(null,name,null);
+            case "SUM":
+                return column==1?new DoubleBufferedSumAggregator(64):new LongBufferedSumAggregator(64);
+            default:
+                return new MaxMinAggregator().setup(null,name,null);
+        }
+    }
+
+    private static void aggregateInBatches(List<ExecRow> rows,int[] columns,BatchAggregate aggregate) throws Exception{
+        ColumnBatch batch=ColumnBatch.forTemplate(template(),columns,BATCH_SIZE);
+        for(int start=0;start<rows.size();start+=BATCH_SIZE){
+            batch.clear();
+            for(int r=start;r<rows.size() && !batch.isFull();r++){
+                batch.add(rows.get(r));
+            }
+            aggregate.aggregate(batch);
+        }
+    }
+}
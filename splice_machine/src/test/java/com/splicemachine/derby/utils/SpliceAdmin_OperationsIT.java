@@ -38,6 +38,7 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -140,6 +141,32 @@ public class SpliceAdmin_OperationsIT extends SpliceUnitTest{
         assertEquals(sql, rs.getString(5)); // check sql
     }
 
+    @Test
+    public void testSlowQueries() throws Exception {
+        String sql= "select * from "+bigTableWatcher + " --splice-properties useSpark=false";
+
+        try (PreparedStatement ps = methodWatcher.getOrCreateConnection().prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+            assertTrue(rs.next());
+            Thread.sleep(1500); // time between fetches isn't execution time
+        }
+
+        ResultSet rs = methodWatcher.executeQuery("call SYSCS_UTIL.SYSCS_GET_SLOW_QUERIES()");
+        boolean found = false;
+        while (rs.next()) {
+            if (sql.equals(rs.getString(4))) {
+                found = true;
+                assertEquals("SPLICE", rs.getString(2)); // check user
+                assertEquals("CONTROL", rs.getString(5)); // check engine
+                long elapsed = rs.getLong(7);
+                assertTrue("execution time " + elapsed + " includes the client's pause", elapsed >= 0 && elapsed < 1500);
+                assertNull(rs.getObject(13)); // nothing was streamed from Spark
+                assertNull(rs.getObject(14));
+            }
+        }
+        assertTrue("slow query not logged", found);
+    }
+
     @Test
     public void testKillOpenCursorControl() throws Exception {
         testKillOpenCursor(false);
@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.utils.marshall;
+
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.types.*;
+import com.splicemachine.db.impl.sql.execute.ValueRow;
+import com.splicemachine.derby.stream.function.RowComparator;
+import com.splicemachine.primitives.Bytes;
+import com.splicemachine.si.testenv.ArchitectureIndependent;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+@Category(ArchitectureIndependent.class)
+public class ShuffleRowCodecTest{
+    private static final int TYPES=9;
+
+    @Test
+    public void encodedKeysSortLikeRows() throws Exception{
+        Random random=new Random(11);
+        for(int trial=0;trial<300;trial++){
+            int nKeys=1+random.nextInt(3);
+            int[] types=new int[nKeys+1];
+            int[] keyColumns=new int[nKeys];
+            boolean[] descColumns=new boolean[nKeys];
+            boolean[] nullsOrderedLow=new boolean[nKeys];
+            for(int i=0;i<nKeys;i++){
+                types[i+1]=random.nextInt(TYPES);
+                keyColumns[i]=i+1;
+                descColumns[i]=random.nextBoolean();
+                nullsOrderedLow[i]=random.nextBoolean();
+            }
+            types[0]=-1; // a varchar which isn't part of the key
+            ShuffleRowCodec codec=roundTrip(ShuffleRowCodec.forTemplate(row(types,null),keyColumns,descColumns,nullsOrderedLow));
+            Assert.assertTrue(codec.isKeyOrdered());
+
+            RowComparator rowComparator=new RowComparator(new boolean[types.length]);
+            List<ExecRow> rows=new ArrayList<>();
+            List<byte[]> keys=new ArrayList<>();
+            for(int r=0;r<40;r++){
+                ExecRow row=row(types,random);
+                rows.add(row.getKeyedExecRow(keyColumns));
+                keys.add(codec.encodeKey(row));
+                ExecRow decoded=codec.decodeRow(codec.encodeRow(row));
+                Assert.assertEquals(row.toString(),0,rowComparator.compare(row,decoded));
+                Assert.assertEquals(row.toString(),decoded.toString());
+            }
+            RowComparator comparator=new RowComparator(descColumns,nullsOrderedLow);
+            for(int i=0;i<rows.size();i++){
+                for(int j=0;j<rows.size();j++){
+                    int expected=Integer.signum(comparator.compare(rows.get(i),rows.get(j)));
+                    int actual=Integer.signum(Bytes.BASE_COMPARATOR.compare(keys.get(i),keys.get(j)));
+                    if(expected!=0)
+                        Assert.assertEquals(rows.get(i)+" vs "+rows.get(j),expected,actual);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void decimalsKeepTheirColumnScale() throws Exception{
+        ValueRow template=new ValueRow(1);
+        template.setColumn(1,new SQLDecimal(null,12,2));
+        ShuffleRowCodec codec=roundTrip(ShuffleRowCodec.forTemplate(template,new int[]{0},null,null));
+
+        for(String value : new String[]{"5.00","-3.10","0.00","12.34"}){
+            ValueRow row=new ValueRow(1);
+            row.setColumn(1,new SQLDecimal(new BigDecimal(value)));
+            ExecRow decoded=codec.decodeRow(codec.encodeRow(row));
+            Assert.assertEquals(value,decoded.getColumn(1).getString());
+            Assert.assertEquals(2,((SQLDecimal)decoded.getColumn(1)).getDecimalValueScale());
+        }
+    }
+
+    @Test
+    public void stringKeysAreNotByteOrdered() throws Exception{
+        ExecRow template=row(new int[]{0,-1},null);
+        Assert.assertFalse(ShuffleRowCodec.forTemplate(template,new int[]{1},new boolean[]{false},new boolean[]{false}).isKeyOrdered());
+        Assert.assertTrue(ShuffleRowCodec.forTemplate(template,new int[]{0},new boolean[]{false},new boolean[]{false}).isKeyOrdered());
+    }
+
+    @Test
+    public void userTypesAreNotSupported() throws Exception{
+        ValueRow template=new ValueRow(2);
+        template.setColumn(1,new SQLInteger());
+        template.setColumn(2,new UserType());
+        Assert.assertNull(ShuffleRowCodec.forTemplate(template,new int[]{0},null,null));
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private static ShuffleRowCodec roundTrip(ShuffleRowCodec codec) throws Exception{
+        ByteArrayOutputStream bytes=new ByteArrayOutputStream();
+        try(ObjectOutputStream out=new ObjectOutputStream(bytes)){
+            out.writeObject(codec);
+        }
+        try(ObjectInputStream in=new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))){
+            return (ShuffleRowCodec)in.readObject();
+        }
+    }
+
+    /**
+     * Build a row of the given types, with values drawn from small domains so that rows share values and nulls,
+     * or a row of nulls if {@code random} is null.
+     */
+    private static ExecRow row(int[] types,Random random) throws Exception{
+        ValueRow row=new ValueRow(types.length);
+        for(int i=0;i<types.length;i++){
+            DataValueDescriptor dvd;
+            switch(types[i]){
+                case 0: dvd=new SQLInteger(); break;
+                case 1: dvd=new SQLLongint(); break;
+                case 2: dvd=new SQLSmallint(); break;
+                case 3: dvd=new SQLDouble(); break;
+                case 4: dvd=new SQLDecimal(null,10,2); break;
+                case 5: dvd=new SQLDate(); break;
+                case 6: dvd=new SQLTimestamp(); break;
+                case 7: dvd=new SQLBoolean(); break;
+                case 8: dvd=new SQLTime(); break;
+                default: dvd=new SQLVarchar();
+            }
+            if(random!=null && random.nextInt(5)!=0){
+                int v=random.nextInt(21)-10;
+                switch(types[i]){
+                    case 0: dvd.setValue(v*100000); break;
+                    case 1: dvd.setValue((long)v<<40); break;
+                    case 2: dvd.setValue((short)(v*1000)); break;
+                    case 3: dvd.setValue(v*0.75); break;
+                    case 4: dvd.setBigDecimal(BigDecimal.valueOf(v*(random.nextBoolean()?37:30),2)); break;
+                    case 5: dvd.setValue(Date.valueOf("2017-01-"+(11+v))); break;
+                    case 6: dvd.setValue(new Timestamp(1500000000000L+v*1001L)); break;
+                    case 7: dvd.setValue(v>0); break;
+                    case 8: dvd.setValue(Time.valueOf("12:30:"+(11+v))); break;
+                    default: dvd.setValue("v"+v);
+                }
+            }
+            row.setColumn(i+1,dvd);
+        }
+        return row;
+    }
+}
@@ -26,6 +26,7 @@ import org.junit.runner.RunWith;
 import org.junit.runners.Parameterized;
 import org.spark_project.guava.collect.Lists;
 
+import java.io.File;
 import java.sql.*;
 import java.util.Collection;
 import java.util.Properties;
@@ -35,6 +36,8 @@ import static org.junit.Assert.*;
 
 /**
  * Test ROW triggers with transition variables.
+ * <p/>
+ * Uses {@link TriggerProcs} to tell whether the actions of AFTER ROW triggers were run once for a batch of rows.
  */
 @Category(value = {SerialTest.class})
 @RunWith(Parameterized.class)
@@ -71,6 +74,11 @@ public class Trigger_Row_Transition_IT {
         this.connectionString = connecitonString;
     }
 
+    private static final String DERBY_JAR_NAME = SCHEMA + ".TRIGGER_PROCS_JAR";
+
+    private static final String CALL_SET_CLASSPATH_STRING =
+        "CALL SYSCS_UTIL.SYSCS_SET_DATABASE_PROPERTY('derby.database.classpath', %s)";
+
     /* Create tables once */
     @BeforeClass
     public static void createSharedTables() throws Exception {
@@ -81,6 +89,33 @@ public class Trigger_Row_Transition_IT {
             s.executeUpdate("create table RECORD_NEW (a varchar(9), b int)");
             s.executeUpdate("insert into T values('AAA',1),('BBB',2),('CCC',3)");
         }
+
+        String storedProcsJarFilePath = System.getProperty("user.dir")+"/target/sql-it/sql-it.jar";
+        Assert.assertTrue("Can't run test without " + storedProcsJarFilePath, new File(storedProcsJarFilePath).exists());
+        classWatcher.executeUpdate(String.format("CALL SQLJ.INSTALL_JAR('%s', '%s', 0)", storedProcsJarFilePath, DERBY_JAR_NAME));
+        classWatcher.executeUpdate(String.format(CALL_SET_CLASSPATH_STRING, "'"+ DERBY_JAR_NAME +"'"));
+        classWatcher.executeUpdate("CREATE FUNCTION " + SCHEMA + ".set_based_trigger_firings() RETURNS BIGINT " +
+                "PARAMETER STYLE JAVA LANGUAGE JAVA NO SQL " +
+                "EXTERNAL NAME 'com.splicemachine.triggers.TriggerProcs.set_based_trigger_firings'");
+    }
+
+    @AfterClass
+    public static void removeTriggerProcs() throws Exception {
+        try {
+            classWatcher.executeUpdate(String.format("DROP FUNCTION %s.%s", SCHEMA, "set_based_trigger_firings"));
+        } catch (Exception e) {
+            System.err.println("Ignoring in test teardown: " + e.getLocalizedMessage());
+        }
+        try {
+            classWatcher.executeUpdate(String.format(CALL_SET_CLASSPATH_STRING, "NULL"));
+        } catch (Exception e) {
+            System.err.println("Ignoring in test teardown: " + e.getLocalizedMessage());
+        }
+        try {
+            classWatcher.executeUpdate(String.format("CALL SQLJ.REMOVE_JAR('%s', 0)", DERBY_JAR_NAME));
+        } catch (Exception e) {
+            System.err.println("Ignoring in test teardown: " + e.getLocalizedMessage());
+        }
     }
 
     /* Each test starts with same table state */
@@ -182,6 +217,60 @@ public class Trigger_Row_Transition_IT {
         }
     }
 
+    @Test
+    public void afterUpdateTransitionOldAndNew() throws Exception {
+        try(Statement s = conn.createStatement()){
+            s.executeUpdate(tb.named("trig5").after().update().on("T").referencing("OLD AS O NEW AS N")
+                    .row().then("INSERT INTO RECORD_NEW (b, a) VALUES(N.b - O.b, O.a)").build());
+
+            // when - update every row
+            long firings = setBasedFirings(s);
+            s.executeUpdate("update T set b = b + 10, a = 'x'");
+
+            Assert.assertEquals(3L,StatementUtils.onlyLong(s,"select count(*) from RECORD_NEW where b=10 and a in ('AAA','BBB','CCC')"));
+            assertFiredOnceForRows(s, firings, 1L);
+        }
+    }
+
+    @Test
+    public void afterInsertManyRows() throws Exception {
+        // more rows than are buffered before firing when the action runs row by row
+        try(Statement s = conn.createStatement()){
+            s.executeUpdate(tb.named("trig6").after().insert().on("T").referencing("NEW AS N")
+                    .row().then("INSERT INTO RECORD_NEW VALUES(N.a, N.b * 2)").build());
+
+            // when - double the table until it has 3072 rows
+            long firings = setBasedFirings(s);
+            for(int i=0;i<10;i++){
+                s.executeUpdate("insert into T select * from T");
+            }
+
+            Assert.assertEquals(3069L,StatementUtils.onlyLong(s,"select count(*) from RECORD_NEW"));
+            Assert.assertEquals(2*(StatementUtils.onlyLong(s,"select sum(b) from T")-6L),
+                    StatementUtils.onlyLong(s,"select sum(b) from RECORD_NEW"));
+            // the action ran once per insert, not once per row
+            assertFiredOnceForRows(s, firings, 10L);
+        }
+    }
+
+    @Test
+    public void afterInsertTwoTriggersFireRowByRow() throws Exception {
+        // with two row triggers on the event, each action has to see the rows in order, so neither is batched
+        try(Statement s = conn.createStatement()){
+            s.executeUpdate(tb.named("trig7").after().insert().on("T").referencing("NEW AS N")
+                    .row().then("INSERT INTO RECORD_NEW VALUES(N.a, N.b)").build());
+            s.executeUpdate(tb.named("trig8").after().insert().on("T").referencing("NEW AS N")
+                    .row().then("INSERT INTO RECORD_OLD VALUES(N.a, N.b)").build());
+
+            long firings = setBasedFirings(s);
+            s.executeUpdate("insert into T values('DDD',4),('EEE',5)");
+
+            Assert.assertEquals(9L,StatementUtils.onlyLong(s,"select sum(b) from RECORD_NEW"));
+            Assert.assertEquals(9L,StatementUtils.onlyLong(s,"select sum(b) from RECORD_OLD"));
+            assertFiredOnceForRows(s, firings, 0L);
+        }
+    }
+
     @Test
     public void afterUpdateTransitionNewTwoTriggers() throws Exception {
         // DB-3570: transition values - always seeing old (event being cleared prematurely)
@@ -266,4 +355,19 @@ public class Trigger_Row_Transition_IT {
             }
         }
     }
-}
\ No newline at end of file
+
+    private static long setBasedFirings(Statement s) throws Exception {
+        return StatementUtils.onlyLong(s, "values set_based_trigger_firings()");
+    }
+
+    /**
+     * Check how many times the action of a row trigger was run once for a batch of rows since {@code before}.
+     * Only checked for control statements: Spark may fire the triggers in other JVMs, whose counts we can't read.
+     */
+    private void assertFiredOnceForRows(Statement s, long before, long expected) throws Exception {
+        if (connectionString.contains("useSpark=true")) {
+            return;
+        }
+        Assert.assertEquals(expected, setBasedFirings(s) - before);
+    }
+}
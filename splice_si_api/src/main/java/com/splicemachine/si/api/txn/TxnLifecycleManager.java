@@ -80,6 +80,18 @@ public interface TxnLifecycleManager{
      */
     Txn beginTransaction(Txn.IsolationLevel isolationLevel,byte[] destinationTable) throws IOException;
 
+    /**
+     * Begin a top-level read-only transaction which can never be elevated to a writable transaction.
+     * <p/>
+     * Because it can never write, its begin timestamp need not be unique, and may be one which was
+     * recently handed out to another transaction of the same kind, as long as it is newer than every
+     * transaction which has committed through this manager.
+     *
+     * @return a top-level read-only transaction which cannot be elevated.
+     * @throws java.io.IOException if something goes wrong in creating the transaction
+     */
+    Txn beginSnapshotReadTransaction() throws IOException;
+
     /**
      * Create a Child transaction of the parent, inheriting dependent, additive, and isolation level properties.
      * <p/>
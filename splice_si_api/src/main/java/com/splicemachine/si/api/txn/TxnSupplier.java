@@ -42,6 +42,24 @@ public interface TxnSupplier {
 		 */
 		TxnView getTransaction(long txnId,boolean getDestinationTables) throws IOException;
 
+		/**
+		 * Get the transactions associated with each of {@code txnIds}, in the same order.
+		 *
+		 * Suppliers which can fetch several transactions more cheaply than one at a time (from a cache,
+		 * or over a single connection) should override this.
+		 *
+		 * @param txnIds the transaction ids to fetch.
+		 * @return the transaction of each id, or {@code null} where {@link #getTransaction(long)} would
+		 * return {@code null}.
+		 */
+		default TxnView[] getTransactions(long[] txnIds) throws IOException{
+				TxnView[] txns=new TxnView[txnIds.length];
+				for(int i=0;i<txnIds.length;i++){
+						txns[i]=getTransaction(txnIds[i]);
+				}
+				return txns;
+		}
+
 		/**
 		 * Determines whether this Store has the transaction in its local cache
 		 * or not.
@@ -19,7 +19,9 @@ import com.splicemachine.annotations.ThreadSafe;
 import com.splicemachine.si.api.data.ExceptionFactory;
 import com.splicemachine.si.api.txn.*;
 import com.splicemachine.si.constants.SIConstants;
+import com.splicemachine.si.impl.hlc.ReadTimestampClock;
 import com.splicemachine.si.impl.txn.ReadOnlyTxn;
+import com.splicemachine.si.impl.txn.SnapshotReadTxn;
 import com.splicemachine.si.impl.txn.WritableTxn;
 import com.splicemachine.timestamp.api.TimestampSource;
 
@@ -41,6 +43,7 @@ public class ClientTxnLifecycleManager implements TxnLifecycleManager{
     @ThreadSafe private TxnStore store;
     @ThreadSafe private KeepAliveScheduler keepAliveScheduler;
     @ThreadSafe private final ExceptionFactory exceptionFactory;
+    @ThreadSafe private ReadTimestampClock readTimestampClock;
 
     private volatile boolean restoreMode=false;
 
@@ -58,11 +61,27 @@ public class ClientTxnLifecycleManager implements TxnLifecycleManager{
         this.keepAliveScheduler = kas;
     }
 
+    /**
+     * @param readTimestampClock the clock from which snapshot read transactions take their begin
+     *                           timestamps, or {@code null} if they should take them from the oracle.
+     */
+    public void setReadTimestampClock(ReadTimestampClock readTimestampClock){
+        this.readTimestampClock = readTimestampClock;
+    }
+
     @Override
     public Txn beginTransaction() throws IOException{
         return beginTransaction(Txn.ROOT_TRANSACTION.getIsolationLevel());
     }
 
+    @Override
+    public Txn beginSnapshotReadTransaction() throws IOException{
+        if(readTimestampClock==null)
+            return beginTransaction();
+        long beginTimestamp=readTimestampClock.readTimestamp();
+        return new SnapshotReadTxn(beginTimestamp,Txn.ROOT_TRANSACTION.getIsolationLevel(),this,exceptionFactory);
+    }
+
     @Override
     public Txn beginTransaction(byte[] destinationTable) throws IOException{
         return beginChildTransaction(Txn.ROOT_TRANSACTION,destinationTable);
@@ -189,7 +208,10 @@ public class ClientTxnLifecycleManager implements TxnLifecycleManager{
         if(restoreMode){
             return -1; // we are in restore mode, don't try to access the store
         }
-        return store.commit(txnId);
+        long commitTimestamp=store.commit(txnId);
+        if(readTimestampClock!=null)
+            readTimestampClock.observe(commitTimestamp);
+        return commitTimestamp;
         //TODO -sf- add the transaction to the global cache?
     }
 
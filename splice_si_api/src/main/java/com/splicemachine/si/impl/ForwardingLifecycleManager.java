@@ -39,6 +39,13 @@ public class ForwardingLifecycleManager implements TxnLifecycleManager{
 				return txn;
 		}
 
+		@Override
+		public Txn beginSnapshotReadTransaction() throws IOException {
+				Txn txn = lifecycleManager.beginSnapshotReadTransaction();
+				afterStart(txn);
+				return txn;
+		}
+
 		@Override
 		public Txn beginTransaction(byte[] destinationTable) throws IOException {
 				Txn txn = lifecycleManager.beginTransaction(destinationTable);
@@ -18,6 +18,7 @@ import com.splicemachine.si.api.txn.Txn;
 import com.splicemachine.si.api.txn.TxnLifecycleManager;
 import com.splicemachine.si.api.txn.TxnView;
 import com.splicemachine.si.impl.txn.ReadOnlyTxn;
+import com.splicemachine.si.impl.txn.SnapshotReadTxn;
 import com.splicemachine.utils.Pair;
 import com.splicemachine.utils.SpliceLogUtils;
 import org.apache.log4j.Logger;
@@ -31,6 +32,7 @@ public class TransactionImpl extends BaseTransaction {
     public static final String BATCH_SAVEPOINT="BATCH_SAVEPOINT";
     private static Logger LOG=Logger.getLogger(TransactionImpl.class);
     private boolean ignoreSavePoints;
+    private boolean readOnly;
     private TxnLifecycleManager lifecycleManager;
 
     private Deque<TransactionState> txnStack=new LinkedList<>();
@@ -252,6 +254,8 @@ public class TransactionImpl extends BaseTransaction {
                     Txn txn;
                     if(nested)
                         txn=lifecycleManager.beginChildTransaction(parentTxn,parentTxn.getIsolationLevel(),additive,table);
+                    else if(readOnly)
+                        txn=lifecycleManager.beginSnapshotReadTransaction();
                     else
                         txn=lifecycleManager.beginTransaction();
 
@@ -264,6 +268,27 @@ public class TransactionImpl extends BaseTransaction {
         }
     }
 
+    /**
+     * @param readOnly whether the top-level transactions which are started from now on can never write, so that
+     *                 they may be begun as snapshot read transactions.
+     */
+    public void setReadOnly(boolean readOnly){
+        this.readOnly=readOnly;
+    }
+
+    public boolean isReadOnly(){
+        return readOnly;
+    }
+
+    /**
+     * @return true if the top-level transaction was begun as a snapshot read transaction, whose begin timestamp
+     *         may be shared, so that the stack can never be elevated.
+     */
+    public boolean isSnapshotRead(){
+        setActiveState(false,false,null);
+        return !txnStack.isEmpty() && txnStack.peekLast().txn instanceof SnapshotReadTxn;
+    }
+
     public int getTransactionStatus(){
         return state;
     }
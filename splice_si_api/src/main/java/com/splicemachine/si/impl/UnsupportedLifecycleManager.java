@@ -50,6 +50,11 @@ public class UnsupportedLifecycleManager implements TxnLifecycleManager {
 				return beginChildTransaction(Txn.ROOT_TRANSACTION,isolationLevel,destinationTable);
 		}
 
+		@Override
+		public Txn beginSnapshotReadTransaction() throws IOException {
+				throw new UnsupportedOperationException("Cannot create new transactions from the UnsupportedLifecycle Manager. Use a real Lifecycle manager instead");
+		}
+
 		@Override
 		public Txn beginChildTransaction(TxnView parentTxn, byte[] destinationTable) throws IOException {
 				return beginChildTransaction(parentTxn, Txn.IsolationLevel.SNAPSHOT_ISOLATION,null);
@@ -36,10 +36,12 @@ import com.splicemachine.si.api.txn.TxnStore;
 import com.splicemachine.si.api.txn.TxnSupplier;
 import com.splicemachine.si.impl.ClientTxnLifecycleManager;
 import com.splicemachine.si.impl.TxnRegion;
+import com.splicemachine.si.impl.hlc.ReadTimestampClock;
 import com.splicemachine.si.impl.readresolve.NoOpReadResolver;
 import com.splicemachine.si.impl.rollforward.NoopRollForward;
 import com.splicemachine.si.impl.rollforward.RollForwardStatus;
 import com.splicemachine.si.impl.server.SITransactor;
+import com.splicemachine.si.impl.server.VersionGCWatermark;
 import com.splicemachine.si.impl.txn.SITransactionReadController;
 import com.splicemachine.storage.DataFilterFactory;
 import com.splicemachine.storage.Partition;
@@ -93,6 +95,7 @@ public class SIDriver {
     private final SnowflakeFactory snowflakeFactory;
     private final SIEnvironment env;
     private final ClusterHealth clusterHealth;
+    private final VersionGCWatermark versionGCWatermark;
 
     public SIDriver(SIEnvironment env){
         this.tableFactory = env.tableFactory();
@@ -119,12 +122,15 @@ public class SIDriver {
         ClientTxnLifecycleManager clientTxnLifecycleManager=new ClientTxnLifecycleManager(this.timestampSource,env.exceptionFactory());
         clientTxnLifecycleManager.setTxnStore(this.txnStore);
         clientTxnLifecycleManager.setKeepAliveScheduler(env.keepAliveScheduler());
+        if(config.getTransactionReadOnlyMaxStaleness()>0)
+            clientTxnLifecycleManager.setReadTimestampClock(new ReadTimestampClock(this.timestampSource,this.clock,config.getTransactionReadOnlyMaxStaleness()));
         this.lifecycleManager =clientTxnLifecycleManager;
         readController = new SITransactionReadController(txnSupplier);
         readResolver = initializedReadResolver(config,env.keyedReadResolver());
         this.baseOpFactory = env.baseOperationFactory();
         this.env = env;
         this.clusterHealth = env.clusterHealthFactory();
+        this.versionGCWatermark = new VersionGCWatermark(txnStore,timestampSource,clock,config.getVersionGCReadOnlyWindow());
     }
 
 
@@ -217,6 +223,10 @@ public class SIDriver {
         }
     }
 
+    public VersionGCWatermark getVersionGCWatermark(){
+        return versionGCWatermark;
+    }
+
     public Clock getClock(){
         return clock;
     }
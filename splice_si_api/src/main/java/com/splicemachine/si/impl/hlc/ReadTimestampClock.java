@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.si.impl.hlc;
+
+import com.splicemachine.annotations.ThreadSafe;
+import com.splicemachine.concurrent.Clock;
+import com.splicemachine.timestamp.api.TimestampSource;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A local clock which hands out begin timestamps for transactions which will never write.
+ * <p/>
+ * Like a hybrid logical clock, a timestamp is made of a logical part and a physical part. The logical part
+ * is a timestamp which was issued by the timestamp oracle for reads alone, so it is never the id of a writable
+ * transaction and it fits the oracle's ordering with every other transaction. The physical part is the local
+ * time at which it was asked for, which bounds how long it may be handed out again. Until it is too old, or a
+ * transaction commits in this JVM at or after it, every caller gets the same timestamp without a round trip to
+ * the oracle.
+ * <p/>
+ * Reusing a timestamp reads a snapshot which is as consistent as a fresh one; it just doesn't see commits
+ * which happened on other servers in the meantime. Commits in this JVM are {@link #observe(long) observed},
+ * so a connection always sees its own earlier commits.
+ *
+ * @see HLC
+ */
+@ThreadSafe
+public class ReadTimestampClock{
+    private final TimestampSource timestampSource;
+    private final Clock clock;
+    private final long maxStalenessNanos;
+
+    private long timestamp=-1l;
+    private long timestampNanos;
+    private long highWaterMark=-1l;
+
+    private long reused;
+    private long fetched;
+
+    public ReadTimestampClock(TimestampSource timestampSource,Clock clock,long maxStalenessMs){
+        this.timestampSource=timestampSource;
+        this.clock=clock;
+        this.maxStalenessNanos=TimeUnit.MILLISECONDS.toNanos(maxStalenessMs);
+    }
+
+    /**
+     * @return a begin timestamp for a transaction which will never write. It is either the last timestamp this
+     * clock took from the oracle, or a new one if that is too old or a transaction has committed after it.
+     */
+    public synchronized long readTimestamp(){
+        long now=clock.nanoTime();
+        if(timestamp>highWaterMark && now-timestampNanos<maxStalenessNanos){
+            reused++;
+            return timestamp;
+        }
+        /*
+         * We take the time before the round trip, so that the timestamp is never considered younger than
+         * it is. Concurrent callers wait on the lock and share the new timestamp.
+         */
+        timestamp=timestampSource.nextTimestamp();
+        timestampNanos=now;
+        fetched++;
+        return timestamp;
+    }
+
+    /**
+     * Tell the clock that a transaction has committed in this JVM, so that no later read is given a timestamp
+     * which is older than the commit.
+     *
+     * @param commitTimestamp the commit timestamp of the transaction
+     */
+    public synchronized void observe(long commitTimestamp){
+        if(commitTimestamp>highWaterMark)
+            highWaterMark=commitTimestamp;
+    }
+
+    public synchronized long getReusedTimestamps(){
+        return reused;
+    }
+
+    public synchronized long getFetchedTimestamps(){
+        return fetched;
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.splicemachine.si.impl.server;
+
+import com.splicemachine.concurrent.Clock;
+import com.splicemachine.si.api.txn.TxnStore;
+import com.splicemachine.timestamp.api.TimestampSource;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Computes the low watermark below which committed versions are visible to every transaction in the cluster.
+ * <p/>
+ * Writable transactions are tracked by the transaction store, so the oldest active one bounds the watermark. Read-only
+ * transactions are never recorded, so the watermark is also kept below a timestamp taken at least the read-only
+ * window ago: any read-only transaction which began before that is assumed to be gone.
+ * <p/>
+ * Timestamps are sampled whenever the watermark is asked for, so no version can be collected until this has been
+ * in use for a whole window.
+ */
+public class VersionGCWatermark{
+    private static final int SAMPLES_PER_WINDOW=16;
+
+    private final TxnStore txnStore;
+    private final TimestampSource timestampSource;
+    private final Clock clock;
+    private final long readOnlyWindow;
+    /* (wall clock time, timestamp) pairs, oldest first */
+    private final Deque<long[]> samples=new ArrayDeque<>();
+
+    public VersionGCWatermark(TxnStore txnStore,TimestampSource timestampSource,Clock clock,long readOnlyWindow){
+        this.txnStore=txnStore;
+        this.timestampSource=timestampSource;
+        this.clock=clock;
+        this.readOnlyWindow=readOnlyWindow;
+    }
+
+    /**
+     * @return a timestamp such that every version which committed before it is visible to every running and future
+     * transaction, or 0 if no such timestamp is known yet.
+     */
+    public long getWatermark() throws IOException{
+        long now=clock.currentTimeMillis();
+        long horizon;
+        synchronized(samples){
+            long[] newest=samples.peekLast();
+            if(newest==null || now-newest[0]>=readOnlyWindow/SAMPLES_PER_WINDOW){
+                samples.addLast(new long[]{now,timestampSource.nextTimestamp()});
+            }
+            //the horizon is the newest sample which is at least a window old
+            while(samples.size()>1){
+                long[] second=secondOldest();
+                if(now-second[0]<readOnlyWindow) break;
+                samples.removeFirst();
+            }
+            long[] oldest=samples.peekFirst();
+            horizon=now-oldest[0]>=readOnlyWindow?oldest[1]:0l;
+        }
+        if(horizon<=0) return 0l;
+
+        long watermark=horizon;
+        long[] activeTxns=txnStore.getActiveTransactionIds(0,horizon,null);
+        for(long activeTxn : activeTxns){
+            if(activeTxn<watermark)
+                watermark=activeTxn;
+        }
+        return watermark;
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private long[] secondOldest(){
+        long[] first=samples.removeFirst();
+        long[] second=samples.peekFirst();
+        samples.addFirst(first);
+        return second;
+    }
+}
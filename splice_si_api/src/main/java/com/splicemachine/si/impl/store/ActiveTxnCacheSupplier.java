@@ -61,6 +61,33 @@ public class ActiveTxnCacheSupplier implements TxnSupplier {
 				return txn;
 		}
 
+		@Override
+		public TxnView[] getTransactions(long[] txnIds) throws IOException {
+				TxnView[] txns = new TxnView[txnIds.length];
+				int misses = 0;
+				for(int i=0;i<txnIds.length;i++){
+						txns[i] = this.cache.get(txnIds[i]);
+						if(txns[i]==null) misses++;
+				}
+				if(misses==0) return txns;
+
+				long[] missing = new long[misses];
+				int pos = 0;
+				for(int i=0;i<txns.length;i++){
+						if(txns[i]==null) missing[pos++] = txnIds[i];
+				}
+				TxnView[] fetched = delegate.getTransactions(missing);
+				pos = 0;
+				for(int i=0;i<txns.length;i++){
+						if(txns[i]!=null) continue;
+						TxnView txn = fetched[pos++];
+						txns[i] = txn;
+						if(txn!=null && txn.getEffectiveState()== Txn.State.ACTIVE)
+								this.cache.put(txn.getTxnId(),txn);
+				}
+				return txns;
+		}
+
 		@Override
 		public boolean transactionCached(long txnId) {
         return cache.get(txnId) !=null;
@@ -81,6 +81,50 @@ public class CompletedTxnCacheSupplier implements TxnSupplier{
         return transaction;
     }
 
+    @Override
+    public TxnView[] getTransactions(long[] txnIds) throws IOException{
+        TxnView[] txns=new TxnView[txnIds.length];
+        int misses=0;
+        for(int i=0;i<txnIds.length;i++){
+            long txnId=txnIds[i];
+            if(txnId==-1){
+                txns[i]=Txn.ROOT_TRANSACTION;
+                continue;
+            }
+            requests.incrementAndGet();
+            TxnView txn=cache.get(txnId);
+            if(txn!=null){
+                hits.incrementAndGet();
+                txns[i]=txn;
+            }else
+                misses++;
+        }
+        if(misses==0) return txns;
+
+        //fetch everything we're missing from the delegate at once
+        long[] missing=new long[misses];
+        int pos=0;
+        for(int i=0;i<txns.length;i++){
+            if(txns[i]==null) missing[pos++]=txnIds[i];
+        }
+        TxnView[] fetched=delegate.getTransactions(missing);
+        pos=0;
+        for(int i=0;i<txns.length;i++){
+            if(txns[i]!=null) continue;
+            TxnView transaction=fetched[pos++];
+            txns[i]=transaction;
+            if(transaction==null) continue; //don't cache read-only transactions
+            switch(transaction.getEffectiveState()){
+                case COMMITTED:
+                case ROLLEDBACK:
+                    cache.put(transaction.getTxnId(),transaction);
+                    break;
+                default:
+            }
+        }
+        return txns;
+    }
+
     @Override
     public boolean transactionCached(long txnId){
         return cache.get(txnId)!=null;
@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.si.impl.txn;
+
+import com.splicemachine.si.api.data.ExceptionFactory;
+import com.splicemachine.si.api.txn.Txn;
+import com.splicemachine.si.api.txn.TxnLifecycleManager;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+import java.io.IOException;
+
+/**
+ * A top-level read-only transaction which can never be elevated.
+ * <p/>
+ * Its begin timestamp may be shared with other transactions of the same kind (see
+ * {@link com.splicemachine.si.impl.hlc.ReadTimestampClock}), so it can't become a writable transaction,
+ * whose id has to be unique.
+ */
+@SuppressFBWarnings("SE_NO_SUITABLE_CONSTRUCTOR_FOR_EXTERNALIZATION")
+public class SnapshotReadTxn extends ReadOnlyTxn{
+    private final ExceptionFactory exceptionFactory;
+
+    public SnapshotReadTxn(long beginTimestamp,
+                           IsolationLevel isolationLevel,
+                           TxnLifecycleManager tc,
+                           ExceptionFactory exceptionFactory){
+        super(beginTimestamp,beginTimestamp,isolationLevel,Txn.ROOT_TRANSACTION,tc,exceptionFactory,false);
+        this.exceptionFactory=exceptionFactory;
+    }
+
+    @Override
+    public Txn elevateToWritable(byte[] writeTable) throws IOException{
+        throw exceptionFactory.doNotRetry("Cannot elevate snapshot read transaction "+getTxnId()+" of a read-only connection");
+    }
+}
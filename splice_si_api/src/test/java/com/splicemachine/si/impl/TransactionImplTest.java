@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.si.impl;
+
+import com.splicemachine.si.api.data.ExceptionFactory;
+import com.splicemachine.si.api.txn.Txn;
+import com.splicemachine.si.api.txn.TxnLifecycleManager;
+import com.splicemachine.si.impl.txn.ReadOnlyTxn;
+import com.splicemachine.si.impl.txn.SnapshotReadTxn;
+import org.junit.Assert;
+import org.junit.Test;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class TransactionImplTest{
+
+    @Test
+    public void snapshotReadTransactionIsReported() throws Exception{
+        TxnLifecycleManager lifecycleManager=mock(TxnLifecycleManager.class);
+        when(lifecycleManager.beginSnapshotReadTransaction())
+                .thenReturn(new SnapshotReadTxn(0x100,Txn.IsolationLevel.SNAPSHOT_ISOLATION,lifecycleManager,mock(ExceptionFactory.class)));
+        TransactionImpl transaction=new TransactionImpl("test",false,lifecycleManager);
+        transaction.setReadOnly(true);
+        Assert.assertTrue(transaction.isSnapshotRead());
+    }
+
+    @Test
+    public void readOnlyConnectionWithoutStalenessIsNotSnapshotRead() throws Exception{
+        TxnLifecycleManager lifecycleManager=mock(TxnLifecycleManager.class);
+        Txn txn=ReadOnlyTxn.create(0x100,Txn.IsolationLevel.SNAPSHOT_ISOLATION,lifecycleManager,mock(ExceptionFactory.class));
+        when(lifecycleManager.beginSnapshotReadTransaction()).thenReturn(txn);
+        TransactionImpl transaction=new TransactionImpl("test",false,lifecycleManager);
+        transaction.setReadOnly(true);
+        Assert.assertFalse(transaction.isSnapshotRead());
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.si.impl.hlc;
+
+import com.splicemachine.concurrent.IncrementingClock;
+import com.splicemachine.timestamp.api.TimestampSource;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+public class ReadTimestampClockTest{
+
+    @Test
+    public void reusesTimestampUntilItIsTooOld() throws Exception{
+        IncrementingClock clock=new IncrementingClock();
+        ReadTimestampClock readClock=new ReadTimestampClock(new CountingTimestampSource(),clock,10);
+        long first=readClock.readTimestamp();
+        clock.sleep(9,TimeUnit.MILLISECONDS);
+        Assert.assertEquals(first,readClock.readTimestamp());
+        clock.sleep(1,TimeUnit.MILLISECONDS);
+        long second=readClock.readTimestamp();
+        Assert.assertTrue("timestamp went backwards",second>first);
+        Assert.assertEquals(1,readClock.getReusedTimestamps());
+        Assert.assertEquals(2,readClock.getFetchedTimestamps());
+    }
+
+    @Test
+    public void localCommitForcesNewTimestamp() throws Exception{
+        CountingTimestampSource source=new CountingTimestampSource();
+        ReadTimestampClock readClock=new ReadTimestampClock(source,new IncrementingClock(),1000);
+        long first=readClock.readTimestamp();
+        readClock.observe(first-0x100);
+        Assert.assertEquals("an older commit should not matter",first,readClock.readTimestamp());
+
+        long commitTs=source.nextTimestamp();
+        readClock.observe(commitTs);
+        long second=readClock.readTimestamp();
+        Assert.assertTrue("commit is not visible",second>commitTs);
+        Assert.assertEquals(second,readClock.readTimestamp());
+    }
+
+    @Test
+    public void zeroStalenessNeverReuses() throws Exception{
+        ReadTimestampClock readClock=new ReadTimestampClock(new CountingTimestampSource(),new IncrementingClock(),0);
+        Assert.assertNotEquals(readClock.readTimestamp(),readClock.readTimestamp());
+    }
+
+    private static class CountingTimestampSource implements TimestampSource{
+        private long timestamp=0x100;
+
+        @Override
+        public long nextTimestamp(){
+            timestamp+=0x100;
+            return timestamp;
+        }
+
+        @Override public void rememberTimestamp(long timestamp){ }
+        @Override public long retrieveTimestamp(){ return 0; }
+        @Override public void shutdown(){ }
+    }
+}
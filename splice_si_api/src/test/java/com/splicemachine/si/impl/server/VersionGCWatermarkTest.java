@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.splicemachine.si.impl.server;
+
+import com.splicemachine.concurrent.Clock;
+import com.splicemachine.si.api.txn.TxnStore;
+import com.splicemachine.timestamp.api.TimestampSource;
+import org.junit.Assert;
+import org.junit.Test;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class VersionGCWatermarkTest{
+    private static final long WINDOW=1600;
+
+    private final TxnStore txnStore=mock(TxnStore.class);
+    private final TimestampSource timestampSource=mock(TimestampSource.class);
+    private final Clock clock=mock(Clock.class);
+    private final VersionGCWatermark watermark=new VersionGCWatermark(txnStore,timestampSource,clock,WINDOW);
+
+    @Test
+    public void staysBehindTheReadOnlyWindow() throws Exception{
+        activeTransactions();
+        Assert.assertEquals(0,watermarkAt(0,100));
+        Assert.assertEquals(0,watermarkAt(50,200)); // too soon for a new sample
+        Assert.assertEquals(0,watermarkAt(100,300));
+        Assert.assertEquals(0,watermarkAt(WINDOW-1,400));
+        Assert.assertEquals(100,watermarkAt(WINDOW,500));
+        Assert.assertEquals(100,watermarkAt(WINDOW+99,600));
+        Assert.assertEquals(300,watermarkAt(WINDOW+100,700));
+    }
+
+    @Test
+    public void staysBehindActiveTransactions() throws Exception{
+        activeTransactions(70,40);
+        watermarkAt(0,100);
+        Assert.assertEquals(40,watermarkAt(WINDOW,200));
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private long watermarkAt(long time,long timestamp) throws Exception{
+        when(clock.currentTimeMillis()).thenReturn(time);
+        when(timestampSource.nextTimestamp()).thenReturn(timestamp);
+        return watermark.getWatermark();
+    }
+
+    private void activeTransactions(long... txnIds) throws Exception{
+        when(txnStore.getActiveTransactionIds(anyLong(),anyLong(),any(byte[].class))).thenReturn(txnIds);
+    }
+}
@@ -25,6 +25,8 @@ import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicLong;
 
 import static com.splicemachine.si.impl.TxnTestUtils.assertTxnsMatch;
@@ -159,4 +161,36 @@ public class CompletedTxnCacheSupplierTest{
         TxnView fromCache=store.getTransaction(txn.getTxnId());
         assertTxnsMatch("Transaction from store is not correct!",txn,fromCache);
     }
+
+    @Test
+    public void testBulkLookupOnlyFetchesMisses() throws Exception{
+        TxnLifecycleManager tc=mock(TxnLifecycleManager.class);
+        when(tc.commit(anyLong())).thenReturn(0x300l);
+        Txn committed=new WritableTxn(0x100l,0x100l,null,Txn.IsolationLevel.SNAPSHOT_ISOLATION,Txn.ROOT_TRANSACTION,tc,false,null);
+        committed.commit();
+        Txn active=new WritableTxn(0x200l,0x200l,null,Txn.IsolationLevel.SNAPSHOT_ISOLATION,Txn.ROOT_TRANSACTION,tc,false,null);
+
+        final List<long[]> requests=new ArrayList<>();
+        TxnStore backStore=new TestingTxnStore(new IncrementingClock(),new TestingTimestampSource(),null,Long.MAX_VALUE){
+            @Override
+            public TxnView[] getTransactions(long[] txnIds) throws IOException{
+                requests.add(txnIds);
+                return super.getTransactions(txnIds);
+            }
+        };
+        backStore.recordNewTransaction(committed);
+        backStore.recordNewTransaction(active);
+
+        TxnSupplier store=new CompletedTxnCacheSupplier(backStore,10,16);
+        TxnView[] txns=store.getTransactions(new long[]{0x100l,0x200l,-1l});
+        assertTxnsMatch("Transaction from store is not correct!",committed,txns[0]);
+        assertTxnsMatch("Transaction from store is not correct!",active,txns[1]);
+        Assert.assertSame(Txn.ROOT_TRANSACTION,txns[2]);
+        Assert.assertArrayEquals(new long[]{0x100l,0x200l},requests.get(0));
+
+        //the committed transaction is now cached, so only the active one is fetched again
+        txns=store.getTransactions(new long[]{0x200l,0x100l});
+        assertTxnsMatch("Transaction from cache is not correct!",committed,txns[1]);
+        Assert.assertArrayEquals(new long[]{0x200l},requests.get(1));
+    }
 }
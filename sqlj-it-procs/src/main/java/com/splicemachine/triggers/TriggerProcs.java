@@ -14,6 +14,8 @@
 
 package com.splicemachine.triggers;
 
+import com.splicemachine.db.impl.sql.execute.RowTriggerExecutor;
+
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.ResultSet;
@@ -129,6 +131,14 @@ public class TriggerProcs {
 
     }
 
+    /**
+     * A function which tells how many times this server ran the action of a row trigger once for a batch of rows.
+     * @return the number of set-based firings of row triggers
+     */
+    public static long set_based_trigger_firings() {
+        return RowTriggerExecutor.getSetBasedFirings();
+    }
+
     private static void closeQuietly(AutoCloseable closeable) {
         if (closeable != null) {
             try {
@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.metrics;
+
+/**
+ * A histogram of non-negative values (usually latencies, in nanoseconds) in the style of an HDR histogram:
+ * values below {@code 2^precisionBits} are counted exactly, and every power of two above that is split into
+ * {@code 2^precisionBits} equal buckets. Every recorded value is therefore known to within a relative error of
+ * {@code 2^-precisionBits}, whatever its magnitude, in a fixed amount of memory.
+ *
+ * Histograms with the same precision can be merged, so histograms kept by separate threads or tasks can be
+ * combined into one.
+ *
+ * This class is not thread safe.
+ */
+public class LatencyHistogram implements LatencyView{
+    private final int precisionBits;
+    private final long[] counts;
+    private long count;
+    private long total;
+    private long min=Long.MAX_VALUE;
+    private long max;
+
+    public LatencyHistogram(){
+        this(5);
+    }
+
+    /**
+     * @param precisionBits the number of bits of each value that are kept; between 1 and 16.
+     */
+    public LatencyHistogram(int precisionBits){
+        assert precisionBits>0 && precisionBits<=16:"Precision out of range: "+precisionBits;
+        this.precisionBits=precisionBits;
+        this.counts=new long[(64-precisionBits)<<precisionBits];
+    }
+
+    public void record(long value){
+        record(value,1);
+    }
+
+    /**
+     * Record a value {@code times} times over. Negative values are recorded as 0.
+     */
+    public void record(long value,long times){
+        if(times<=0) return;
+        if(value<0) value=0;
+        counts[bucketOf(value)]+=times;
+        count+=times;
+        total+=value*times;
+        if(value<min) min=value;
+        if(value>max) max=value;
+    }
+
+    /**
+     * Add every value recorded by {@code other} to this histogram.
+     */
+    public void merge(LatencyHistogram other){
+        if(other.precisionBits!=precisionBits)
+            throw new IllegalArgumentException("Cannot merge histograms of different precisions");
+        if(other.count==0) return;
+        for(int i=0;i<counts.length;i++){
+            counts[i]+=other.counts[i];
+        }
+        count+=other.count;
+        total+=other.total;
+        if(other.min<min) min=other.min;
+        if(other.max>max) max=other.max;
+    }
+
+    public void reset(){
+        for(int i=0;i<counts.length;i++){
+            counts[i]=0;
+        }
+        count=0;
+        total=0;
+        min=Long.MAX_VALUE;
+        max=0;
+    }
+
+    public long getCount(){
+        return count;
+    }
+
+    public long getTotal(){
+        return total;
+    }
+
+    /**
+     * @param percentile between 0 and 100
+     * @return the largest value which is equivalent (to within the histogram's precision) to the value which
+     * {@code percentile} percent of the recorded values are at or below, or 0 if nothing was recorded.
+     */
+    public long getValueAtPercentile(double percentile){
+        if(count==0) return 0;
+        long rank=(long)Math.ceil(Math.min(Math.max(percentile,0d),100d)/100d*count);
+        if(rank<1) rank=1;
+        long seen=0;
+        for(int i=0;i<counts.length;i++){
+            seen+=counts[i];
+            if(seen>=rank)
+                return Math.max(Math.min(highestValueOf(i),max),min);
+        }
+        return max;
+    }
+
+    @Override public double getOverallLatency(){ return count==0?0d:((double)total)/count; }
+    @Override public long getP25Latency(){ return getValueAtPercentile(25); }
+    @Override public long getP50Latency(){ return getValueAtPercentile(50); }
+    @Override public long getP75Latency(){ return getValueAtPercentile(75); }
+    @Override public long getP90Latency(){ return getValueAtPercentile(90); }
+    @Override public long getP95Latency(){ return getValueAtPercentile(95); }
+    @Override public long getP99Latency(){ return getValueAtPercentile(99); }
+    @Override public long getMinLatency(){ return count==0?0:min; }
+    @Override public long getMaxLatency(){ return max; }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private int bucketOf(long value){
+        int subBuckets=1<<precisionBits;
+        if(value<subBuckets) return (int)value;
+        int exponent=63-Long.numberOfLeadingZeros(value);
+        int shift=exponent-precisionBits;
+        return ((shift+1)<<precisionBits)+(int)((value>>>shift)-subBuckets);
+    }
+
+    private long highestValueOf(int bucket){
+        int subBuckets=1<<precisionBits;
+        if(bucket<subBuckets) return bucket;
+        int shift=(bucket>>>precisionBits)-1;
+        long lowest=((long)(subBuckets+(bucket&(subBuckets-1))))<<shift;
+        return lowest+(1L<<shift)-1;
+    }
+}
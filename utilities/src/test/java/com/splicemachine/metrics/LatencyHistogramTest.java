@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.metrics;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+public class LatencyHistogramTest{
+
+    @Test
+    public void smallValuesAreExact() throws Exception{
+        LatencyHistogram histogram=new LatencyHistogram(5);
+        for(int i=1;i<=20;i++){
+            histogram.record(i);
+        }
+        Assert.assertEquals(20,histogram.getCount());
+        Assert.assertEquals(210,histogram.getTotal());
+        Assert.assertEquals(1,histogram.getMinLatency());
+        Assert.assertEquals(20,histogram.getMaxLatency());
+        Assert.assertEquals(10,histogram.getP50Latency());
+        Assert.assertEquals(19,histogram.getP95Latency());
+        Assert.assertEquals(20,histogram.getValueAtPercentile(100));
+        Assert.assertEquals(10.5d,histogram.getOverallLatency(),0d);
+    }
+
+    @Test
+    public void percentilesAreWithinPrecision() throws Exception{
+        Random random=new Random(7);
+        long[] values=new long[10000];
+        LatencyHistogram histogram=new LatencyHistogram(5);
+        for(int i=0;i<values.length;i++){
+            values[i]=(long)Math.exp(random.nextDouble()*30); // spread over many powers of two
+            histogram.record(values[i]);
+        }
+        Arrays.sort(values);
+        for(double percentile : new double[]{1,25,50,75,90,99,99.9}){
+            long expected=values[(int)Math.ceil(percentile/100*values.length)-1];
+            long actual=histogram.getValueAtPercentile(percentile);
+            Assert.assertTrue(percentile+": "+actual+" < "+expected,actual>=expected);
+            Assert.assertTrue(percentile+": "+actual+" too far from "+expected,actual-expected<=Math.max(1,expected>>5));
+        }
+    }
+
+    @Test
+    public void mergeIsTheSameAsRecordingEverything() throws Exception{
+        Random random=new Random(3);
+        LatencyHistogram all=new LatencyHistogram(4);
+        LatencyHistogram first=new LatencyHistogram(4);
+        LatencyHistogram second=new LatencyHistogram(4);
+        for(int i=0;i<1000;i++){
+            long value=random.nextInt(1<<20);
+            all.record(value);
+            (i%3==0?first:second).record(value);
+        }
+        first.merge(second);
+        Assert.assertEquals(all.getCount(),first.getCount());
+        Assert.assertEquals(all.getTotal(),first.getTotal());
+        Assert.assertEquals(all.getMinLatency(),first.getMinLatency());
+        Assert.assertEquals(all.getMaxLatency(),first.getMaxLatency());
+        for(int percentile=0;percentile<=100;percentile+=5){
+            Assert.assertEquals(all.getValueAtPercentile(percentile),first.getValueAtPercentile(percentile));
+        }
+    }
+
+    @Test
+    public void largeValuesDoNotOverflow() throws Exception{
+        LatencyHistogram histogram=new LatencyHistogram(5);
+        histogram.record(Long.MAX_VALUE);
+        histogram.record(0);
+        Assert.assertEquals(Long.MAX_VALUE,histogram.getP99Latency());
+        Assert.assertEquals(0,histogram.getValueAtPercentile(50));
+    }
+
+    @Test
+    public void emptyHistogramReportsZeros() throws Exception{
+        LatencyHistogram histogram=new LatencyHistogram();
+        Assert.assertEquals(0,histogram.getP50Latency());
+        Assert.assertEquals(0,histogram.getMinLatency());
+        Assert.assertEquals(0d,histogram.getOverallLatency(),0d);
+    }
+}